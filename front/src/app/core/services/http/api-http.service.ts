@@ -29,8 +29,8 @@ export class ApiHttpService {
     return httpParams;
   }
 
-  post<T>(url: string, body: any): Observable<T> {
-    return this.http.post<T>(`${this.baseUrl}${url}`, body);
+  post<T>(url: string, body: any, headers?: Record<string, string>): Observable<T> {
+    return this.http.post<T>(`${this.baseUrl}${url}`, body, { headers });
   }
 
   patch<T>(url: string, body: any): Observable<T> {
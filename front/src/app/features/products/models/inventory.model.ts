@@ -18,4 +18,12 @@ export interface InventoryProduct {
 export interface  InventoryStock{
   productoId: number,
   cantidadNueva: number,
-} 
\ No newline at end of file
+}
+
+export interface InventorySaldo {
+  nombreProducto?: string,
+  cantidadDisponible: number,
+  precioUnitario?: number
+}
+
+export type InventorySaldos = Record<string, InventorySaldo>;
@@ -1,12 +1,18 @@
 import { Injectable, inject } from '@angular/core';
-import { map, Observable, of } from 'rxjs';
+import { map, Observable, of, retry, throwError, timeout, timer } from 'rxjs';
+import { HttpErrorResponse } from '@angular/common/http';
 import { ApiHttpService } from '../../../core/services/http/api-http.service';
-import { Inventory, InventoryProduct, InventoryStatus, InventoryStock } from '../models/inventory.model';
+import { Inventory, InventoryProduct, InventorySaldos, InventoryStatus, InventoryStock } from '../models/inventory.model';
 import { environment } from '../../../../environments/environment';
 import { MOCK_INVENTORY } from '../mock-inventory';
 import { AppSettingsService } from 'src/app/core/services/http/app-settings.service';
 import { IApiRes } from 'src/app/shared/models/IAPI.interface';
 
+/** Tiempo máximo de cada intento de un movimiento antes de reintentarlo. */
+const TIMEOUT_MOVIMIENTO_MS = 3000;
+/** Reintentos de un movimiento; son seguros porque todos los intentos llevan la misma Idempotency-Key. */
+const REINTENTOS_MOVIMIENTO = 3;
+
 @Injectable({
   providedIn: 'root'
 })
@@ -30,14 +36,48 @@ export class InventoryService {
   }
 
 
+  /**
+   *  OBTENER SALDOS DE VARIOS PRODUCTOS EN UNA SOLA PETICIÓN
+   *  (listas largas van por POST para no exceder el largo de la URL)
+   */
+  getInventarySaldos(productIds: (string | number)[], incluirNombres = false): Observable<InventorySaldos> {
+    if (productIds.length > 100) {
+      return this.api.post<IApiRes<InventorySaldos>>(`${this._appSettings.inventarioMS.url.getBase}saldos`,
+        { productoIds: productIds, incluirNombres }).pipe(
+          map((res: IApiRes<InventorySaldos>) => res.data)
+        );
+    }
+    const base = this._appSettings.inventarioMS.url.getBase.replace(/\/$/, '');
+    return this.api.get<IApiRes<InventorySaldos>>(base,
+      { ids: productIds.join(','), incluirNombres }).pipe(
+        map((res: IApiRes<InventorySaldos>) => res.data)
+      );
+  }
+
+
   // ------------------------------------------------------
   //  Actualizar inventario después de compra
   // ------------------------------------------------------
   updateAfterPurchase(productId: string, data: Partial<Inventory>): Observable<InventoryStock> {
+    // Una clave por compra: si un intento se pierde por timeout, el reintento no descuenta dos veces
+    const headers = { 'Idempotency-Key': crypto.randomUUID() };
 
-    return this.api.post<IApiRes<InventoryStock>>(`${this._appSettings.inventarioMS.url.getBase}${productId}/salida`, data).pipe(
+    return this.api.post<IApiRes<InventoryStock>>(`${this._appSettings.inventarioMS.url.getBase}${productId}/salida`, data, headers).pipe(
+      timeout(TIMEOUT_MOVIMIENTO_MS),
+      retry({
+        count: REINTENTOS_MOVIMIENTO,
+        delay: (error, intento) => this.esReintentable(error) ? timer(200 * 2 ** (intento - 1)) : throwError(() => error)
+      }),
       map((res: IApiRes<InventoryStock>) => res.data)
     );
 
   }
+
+  /** Timeouts, errores de red y 5xx; los 4xx (sin stock, clave reutilizada) son definitivos. */
+  private esReintentable(error: unknown): boolean {
+    if (error instanceof HttpErrorResponse) {
+      return error.status === 0 || error.status >= 500;
+    }
+    return error instanceof Error && error.name === 'TimeoutError';
+  }
 }
@@ -1,12 +1,18 @@
 package com.ms.producto_ms.client;
 
 import com.ms.producto_ms.config.FeignConfig;
+import com.ms.producto_ms.dto.request.ProductosLoteRequest;
 import com.ms.producto_ms.dto.response.ApiResponse;
+import com.ms.producto_ms.dto.response.ProductoResumenDto;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.List;
 
 @FeignClient(
         name = "productosClient",
@@ -19,8 +25,20 @@ public interface ProductosClient {
      * Consulta un producto específico en el servicio remoto de productos.
      *
      * @param id identificador único del producto (ejemplo: 1).
-     * @return ResponseEntity con ApiResponse del micro de productos.
+     * @return ResponseEntity con ApiResponse del micro de productos; {@code data} se decodifica
+     * directo a {@link ProductoResumenDto} (los demás campos, como la imagen, se ignoran).
      */
     @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    ResponseEntity<ApiResponse> obtenerProducto(@PathVariable("id") Long id);
-}
\ No newline at end of file
+    ResponseEntity<ApiResponse<ProductoResumenDto>> obtenerProducto(@PathVariable("id") Long id);
+
+    /**
+     * Consulta varios productos en una sola llamada (id, nombre, precio y activo, sin imagen).
+     * Los ids inexistentes no aparecen en la respuesta.
+     *
+     * @param request ids a consultar (máximo 1000 por llamada).
+     * @return ResponseEntity con ApiResponse cuyo {@code data} es la lista de productos encontrados.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    ResponseEntity<ApiResponse<List<ProductoResumenDto>>> obtenerProductos(@RequestBody ProductosLoteRequest request);
+}
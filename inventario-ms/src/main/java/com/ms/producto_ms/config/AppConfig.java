@@ -3,9 +3,11 @@ package com.ms.producto_ms.config;
 import com.ms.producto_ms.config.pojo.AppProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @Configuration
 @EnableConfigurationProperties(AppProperties.class)
+@EnableScheduling
 public class AppConfig {
 
 }
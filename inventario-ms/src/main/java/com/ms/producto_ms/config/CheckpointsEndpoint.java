@@ -0,0 +1,47 @@
+package com.ms.producto_ms.config;
+
+import com.ms.producto_ms.entity.CheckpointEjecucionEntity;
+import com.ms.producto_ms.repository.CheckpointEjecucionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Endpoint de actuator ({@code /actuator/checkpoints}) que expone el avance
+ * de la última ejecución del job de checkpoints.
+ */
+@Component
+@Endpoint(id = "checkpoints")
+@RequiredArgsConstructor
+public class CheckpointsEndpoint {
+
+    private final CheckpointEjecucionRepository ejecucionRepository;
+
+    @ReadOperation
+    public Map<String, Object> progreso() {
+        Map<String, Object> progreso = new LinkedHashMap<>();
+        ejecucionRepository.findFirstByOrderByIdDesc().ifPresentOrElse(e -> {
+            progreso.put("ejecucion", e.getId());
+            progreso.put("estado", e.getEstado());
+            progreso.put("corteMovimientoId", e.getCorteMovimientoId());
+            progreso.put("ultimoProductoId", e.getUltimoProductoId());
+            progreso.put("productosProcesados", e.getProductosProcesados());
+            progreso.put("totalProductos", e.getTotalProductos());
+            progreso.put("porcentaje", porcentaje(e));
+            progreso.put("fechaInicio", e.getFechaInicio());
+            progreso.put("fechaFin", e.getFechaFin());
+        }, () -> progreso.put("estado", "SIN_EJECUCIONES"));
+        return progreso;
+    }
+
+    private static double porcentaje(CheckpointEjecucionEntity e) {
+        if (CheckpointEjecucionEntity.COMPLETADA.equals(e.getEstado()) || e.getTotalProductos() == 0) {
+            return 100.0;
+        }
+        return Math.min(100.0, e.getProductosProcesados() * 100.0 / e.getTotalProductos());
+    }
+}
@@ -1,4 +1,6 @@
 package com.ms.producto_ms.config;
+import com.ms.producto_ms.dto.response.ApiResponse;
+import com.ms.producto_ms.exception.CustomException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -17,4 +19,19 @@ public class GlobalExceptionHandler {
                 errores.put(error.getField(), error.getDefaultMessage()));
         return new ResponseEntity<>(errores, HttpStatus.BAD_REQUEST);
     }
+
+    /**
+     * Responde con el estado de la excepción, para que los clientes distingan los errores
+     * definitivos (4xx) de los que vale la pena reintentar (5xx).
+     */
+    @ExceptionHandler(CustomException.class)
+    public ResponseEntity<ApiResponse<Void>> handleCustomException(CustomException ex) {
+        HttpStatus status = ex.getStatus() != null ? ex.getStatus() : HttpStatus.INTERNAL_SERVER_ERROR;
+        ApiResponse<Void> response = ApiResponse.<Void>builder()
+                .code(status.value())
+                .message(ex.getMessage())
+                .jsonapi(Map.of("version", "1.0"))
+                .build();
+        return new ResponseEntity<>(response, status);
+    }
 }
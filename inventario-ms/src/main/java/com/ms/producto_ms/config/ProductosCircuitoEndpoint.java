@@ -0,0 +1,31 @@
+package com.ms.producto_ms.config;
+
+import com.ms.producto_ms.util.cache.ProductosCache;
+import com.ms.producto_ms.util.resiliencia.ProductosCircuito;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Endpoint de actuator ({@code /actuator/productos}) con el estado del circuito hacia el
+ * micro de productos, los rechazos y las lecturas servidas desde el respaldo de la cache.
+ */
+@Component
+@Endpoint(id = "productos")
+@RequiredArgsConstructor
+public class ProductosCircuitoEndpoint {
+
+    private final ProductosCircuito productosCircuito;
+    private final ProductosCache productosCache;
+
+    @ReadOperation
+    public Map<String, Object> estado() {
+        Map<String, Object> estado = new LinkedHashMap<>(productosCircuito.estadisticas());
+        estado.put("respaldosServidos", productosCache.estadisticas().get("respaldos"));
+        return estado;
+    }
+}
@@ -0,0 +1,108 @@
+package com.ms.producto_ms.config;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import feign.Client;
+import feign.Request;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.okhttp3.OkHttpConnectionPoolMetrics;
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transporte HTTP de {@link com.ms.producto_ms.client.ProductosClient}: un {@link OkHttpClient}
+ * propio con pool de conexiones dimensionado, timeouts de conexión, lectura y llamada completa,
+ * h2c opcional y gzip opcional ({@code app.productos-http}).
+ * <p>
+ * Métricas del pool (tag {@code pool=productos}): {@code okhttp.pool.connection.count}
+ * (state=active|idle), {@code okhttp.pool.connection.limit} y
+ * {@code okhttp.pool.connection.evictions} (conexiones cerradas, por inactividad, por exceder el
+ * máximo de inactivas o por cierre del servidor).
+ */
+@Configuration
+public class ProductosHttpConfig {
+
+    private static final String POOL = "productos";
+
+    @Bean
+    public OkHttpClient productosOkHttpClient(AppProperties properties, MeterRegistry meterRegistry) {
+        AppProperties.ProductosHttpDto config = properties.getProductosHttp();
+
+        ConnectionPool pool = new ConnectionPool(config.getMaxConexionesInactivas(),
+                config.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS);
+        ConexionesCreadas creadas = new ConexionesCreadas();
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(pool)
+                .eventListener(creadas)
+                .connectTimeout(config.getConnectTimeout())
+                .readTimeout(config.getReadTimeout())
+                .writeTimeout(config.getReadTimeout())
+                .callTimeout(config.getCallTimeout())
+                .retryOnConnectionFailure(true);
+
+        if (config.isH2c()) {
+            builder.protocols(List.of(Protocol.H2_PRIOR_KNOWLEDGE));
+        }
+        if (!config.isCompresion()) {
+            // Sin Accept-Encoding OkHttp pide gzip y descomprime solo; "identity" lo evita
+            builder.addNetworkInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                    .header("Accept-Encoding", "identity")
+                    .build()));
+        }
+
+        new OkHttpConnectionPoolMetrics(pool, "okhttp.pool", Tags.of("pool", POOL),
+                config.getMaxConexionesInactivas()).bindTo(meterRegistry);
+        FunctionCounter.builder("okhttp.pool.connection.evictions", pool,
+                        p -> Math.max(0, creadas.total.get() - p.connectionCount()))
+                .tag("pool", POOL)
+                .description("Conexiones cerradas desde el arranque")
+                .register(meterRegistry);
+
+        return builder.build();
+    }
+
+    /**
+     * Cliente de Feign sobre el {@link OkHttpClient} de productos.
+     */
+    @Bean
+    public Client feignClient(OkHttpClient productosOkHttpClient) {
+        return new feign.okhttp.OkHttpClient(productosOkHttpClient);
+    }
+
+    /**
+     * Opciones por petición de Feign. Deben coincidir con las del {@link OkHttpClient}: si difieren,
+     * feign-okhttp crea un cliente derivado en cada llamada.
+     */
+    @Bean
+    public Request.Options feignRequestOptions(AppProperties properties) {
+        AppProperties.ProductosHttpDto config = properties.getProductosHttp();
+        return new Request.Options(config.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS,
+                config.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS, true);
+    }
+
+    /**
+     * Cuenta las conexiones abiertas por el cliente; las cerradas son las creadas menos las del pool.
+     */
+    private static final class ConexionesCreadas extends EventListener {
+
+        private final AtomicLong total = new AtomicLong();
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            total.incrementAndGet();
+        }
+    }
+}
@@ -2,9 +2,12 @@ package com.ms.producto_ms.config.pojo;
 
 import lombok.Getter;
 import lombok.Setter;
+import com.ms.producto_ms.enmun.PoliticaColaEmun;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 
 @Getter
 @Setter
@@ -12,6 +15,21 @@ import org.springframework.context.annotation.Configuration;
 @ConfigurationProperties(prefix = "app")
 public class AppProperties {
     private SwaggerDto swagger;
+    private CheckpointsDto checkpoints = new CheckpointsDto();
+    private ProductosCacheDto productosCache = new ProductosCacheDto();
+    private EventosDto eventos = new EventosDto();
+    private OutboxDto outbox = new OutboxDto();
+    private StreamDto stream = new StreamDto();
+    private ProductosCircuitoDto productosCircuito = new ProductosCircuitoDto();
+    private ProductosHttpDto productosHttp = new ProductosHttpDto();
+    private ConsultasDto consultas = new ConsultasDto();
+    private SaldosIndiceDto saldosIndice = new SaldosIndiceDto();
+    private IdempotenciaDto idempotencia = new IdempotenciaDto();
+    private ResumenesDto resumenes = new ResumenesDto();
+    private ValoracionDto valoracion = new ValoracionDto();
+    private ParticionesDto particiones = new ParticionesDto();
+    private ReservasDto reservas = new ReservasDto();
+    private AgrupacionDto agrupacion = new AgrupacionDto();
 
     @Getter
     @Setter
@@ -20,4 +38,209 @@ public class AppProperties {
         private String description;
         private String version;
     }
+
+    @Getter
+    @Setter
+    public static class CheckpointsDto{
+        /** Productos por lote; el avance se persiste al terminar cada lote. */
+        private int tamanoLote = 500;
+        /** Hilos que procesan en paralelo los productos de un lote. */
+        private int hilos = 4;
+        /** Margen hacia atrás para el corte, evita saltar transacciones aún no confirmadas. */
+        private Duration margenCorte = Duration.ofMinutes(5);
+        /** Con false la reconstrucción de saldos recorre el libro completo en lugar de partir del último corte. */
+        private boolean reconstruirDesdeCheckpoints = true;
+    }
+
+    @Getter
+    @Setter
+    public static class ProductosCacheDto{
+        /** Si es false cada consulta va directo al micro de productos. */
+        private boolean habilitado = true;
+        /** Tiempo que una entrada se sirve sin volver a consultar productos. */
+        private Duration ttl = Duration.ofMinutes(5);
+        /** Máximo de productos en cache; al superarlo se descarta el menos usado. */
+        private int tamanoMaximo = 10_000;
+        /** Tiempo tras el vencimiento en que una entrada aún sirve de respaldo si productos no responde. */
+        private Duration maxObsolescencia = Duration.ofHours(1);
+    }
+
+    @Getter
+    @Setter
+    public static class EventosDto{
+        /** Si es false los eventos se entregan en el hilo que confirmó la transacción. */
+        private boolean asincrono = true;
+        /** Hilos de entrega; cada producto se asigna siempre al mismo hilo. */
+        private int hilos = 2;
+        /** Eventos en espera como máximo, repartidos entre los hilos. */
+        private int capacidadCola = 10_000;
+        /** Qué hacer cuando la cola está llena. */
+        private PoliticaColaEmun politica = PoliticaColaEmun.BLOQUEAR;
+        /** Espera máxima por espacio en la cola con la política BLOQUEAR. */
+        private Duration tiempoMaxBloqueo = Duration.ofSeconds(1);
+        /** Eventos por lote entregado a los listeners; 1 desactiva la agrupación. */
+        private int tamanoLote = 100;
+        /** Tiempo que un hilo espera para completar un lote; 0 entrega lo que haya en la cola. */
+        private Duration esperaLote = Duration.ZERO;
+    }
+
+    @Getter
+    @Setter
+    public static class OutboxDto{
+        /** Eventos reclamados y entregados por transacción del relay. */
+        private int tamanoLote = 200;
+        /** Tiempo que se conservan los eventos ya enviados. */
+        private Duration retencion = Duration.ofDays(1);
+        /** Filas borradas por sentencia en la limpieza, para no bloquear la tabla. */
+        private int tamanoLoteLimpieza = 5_000;
+    }
+
+    @Getter
+    @Setter
+    public static class StreamDto{
+        /** Conexiones SSE simultáneas como máximo; las siguientes reciben 503. */
+        private int maxConexiones = 500;
+        /** Duración máxima de una conexión; el cliente EventSource reconecta solo. */
+        private Duration timeout = Duration.ofMinutes(30);
+        /** Cada cuánto se envía un comentario a las conexiones para mantenerlas abiertas. */
+        private Duration heartbeat = Duration.ofSeconds(25);
+        /** Hilos que escriben en las conexiones. */
+        private int hilosEnvio = 2;
+        /** Tiempo máximo de un envío; un cliente que no lee por más tiempo se descarta. */
+        private Duration tiempoMaximoEnvio = Duration.ofSeconds(10);
+    }
+
+    @Getter
+    @Setter
+    public static class ProductosCircuitoDto{
+        /** Si es false las llamadas a productos no pasan por el circuito ni por el límite de concurrencia. */
+        private boolean habilitado = true;
+        /** Últimas llamadas que se evalúan para decidir si se abre el circuito. */
+        private int ventana = 20;
+        /** Llamadas mínimas en la ventana antes de evaluar la tasa de fallos. */
+        private int minimoLlamadas = 10;
+        /** Porcentaje de fallos (incluye llamadas lentas) a partir del cual se abre el circuito. */
+        private int umbralFallos = 50;
+        /** Duración a partir de la cual una llamada exitosa cuenta como fallo. */
+        private Duration umbralLentitud = Duration.ofSeconds(2);
+        /** Tiempo que el circuito permanece abierto antes de dejar pasar llamadas de prueba. */
+        private Duration esperaAbierto = Duration.ofSeconds(30);
+        /** Llamadas de prueba en semi abierto; todas deben salir bien para cerrar el circuito. */
+        private int llamadasSemiAbierto = 3;
+        /** Llamadas simultáneas como máximo al micro de productos. */
+        private int maxConcurrentes = 20;
+        /** Tiempo que una llamada espera un cupo antes de rechazarse. */
+        private Duration esperaCupo = Duration.ofMillis(100);
+    }
+
+    @Getter
+    @Setter
+    public static class ProductosHttpDto{
+        /** Conexiones inactivas que se conservan abiertas hacia productos. */
+        private int maxConexionesInactivas = 20;
+        /** Tiempo que una conexión inactiva se conserva antes de cerrarse. */
+        private Duration keepAlive = Duration.ofMinutes(5);
+        /** Tiempo máximo para establecer la conexión. */
+        private Duration connectTimeout = Duration.ofSeconds(1);
+        /** Tiempo máximo sin recibir datos de la respuesta. */
+        private Duration readTimeout = Duration.ofSeconds(3);
+        /** Tiempo máximo de la llamada completa (conexión, envío y lectura). */
+        private Duration callTimeout = Duration.ofSeconds(5);
+        /** HTTP/2 sin TLS (h2c) con conocimiento previo; productos debe tener server.http2.enabled. */
+        private boolean h2c = false;
+        /** Si es true se piden las respuestas comprimidas con gzip. */
+        private boolean compresion = true;
+    }
+
+    @Getter
+    @Setter
+    public static class ConsultasDto{
+        /** Si es false las consultas remotas de una petición se hacen en el mismo hilo, una tras otra. */
+        private boolean concurrente = true;
+        /** Hilos para las consultas remotas concurrentes. */
+        private int hilos = 16;
+        /** Consultas en espera como máximo; con la cola llena corren en el hilo de la petición. */
+        private int capacidadCola = 500;
+        /** Plazo común para las consultas de una petición. */
+        private Duration plazo = Duration.ofSeconds(4);
+    }
+
+    @Getter
+    @Setter
+    public static class SaldosIndiceDto{
+        /** Si es false el detalle siempre lee el saldo de la base de datos. */
+        private boolean habilitado = true;
+        /** Productos para los que se reserva espacio al arrancar; el índice crece solo. */
+        private int capacidadInicial = 1 << 16;
+        /** Filas por viaje a la base de datos en la carga completa. */
+        private int tamanoFetch = 10_000;
+        /** Margen hacia atrás de la resincronización, cubre transacciones largas y relojes desfasados. */
+        private Duration margenResincronizacion = Duration.ofMinutes(1);
+    }
+
+    @Getter
+    @Setter
+    public static class IdempotenciaDto{
+        /** Tiempo que se recuerda una clave; un reintento posterior se registra como movimiento nuevo. */
+        private Duration retencion = Duration.ofDays(1);
+        /** Filas borradas por sentencia en la limpieza, para no bloquear la tabla. */
+        private int tamanoLoteLimpieza = 5_000;
+    }
+
+    @Getter
+    @Setter
+    public static class ResumenesDto{
+        /** Productos por transacción en la reconstrucción del resumen diario. */
+        private int tamanoLote = 500;
+        /** Lotes que se reconstruyen en paralelo. */
+        private int hilos = 4;
+    }
+
+    @Getter
+    @Setter
+    public static class ValoracionDto{
+        /** Productos por transacción en la reconstrucción de la valoración. */
+        private int tamanoLote = 500;
+        /** Lotes que se reconstruyen en paralelo. */
+        private int hilos = 4;
+        /** Movimientos por viaje a la base de datos al recorrer el libro. */
+        private int tamanoFetch = 10_000;
+    }
+
+    @Getter
+    @Setter
+    public static class ParticionesDto{
+        /** Meses después del actual que deben tener su partición creada. */
+        private int mesesAdelante = 3;
+        /** Meses completos que se conservan adjuntos; 0 para no desprender nunca. */
+        private int retencionMeses = 0;
+        /** Espera máxima por los locks del DDL antes de abandonar la corrida. */
+        private Duration esperaLock = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    public static class ReservasDto{
+        /** Con false no se vencen reservas: quedan retenidas hasta confirmarlas o liberarlas. */
+        private boolean habilitado = true;
+        /** Vigencia de una reserva cuando el cliente no la indica. */
+        private Duration ttl = Duration.ofMinutes(10);
+        /** Vigencia máxima que puede pedir un cliente. */
+        private Duration ttlMaximo = Duration.ofHours(1);
+        /** Ancho de cada ranura de la rueda de vencimientos (precisión del vencimiento). */
+        private Duration tick = Duration.ofSeconds(1);
+        /** Ranuras de la rueda; una vuelta completa cubre {@code ranuras * tick}. */
+        private int ranuras = 512;
+        /** Reservas que se liberan por transacción. */
+        private int tamanoLote = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class AgrupacionDto{
+        /** Con false cada ingreso o salida corre en su propia transacción. */
+        private boolean habilitado = true;
+        /** Movimientos de un producto que se confirman como máximo en una misma transacción. */
+        private int maxGrupo = 200;
+    }
 }
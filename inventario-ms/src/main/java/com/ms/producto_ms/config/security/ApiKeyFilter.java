@@ -22,11 +22,12 @@ public class ApiKeyFilter extends OncePerRequestFilter {
     protected boolean shouldNotFilter(HttpServletRequest request) {
         String path = request.getRequestURI();
 
-        // Rutas públicas: Swagger, docs, actuator, etc.
+        // Rutas públicas: Swagger, docs y healthchecks. El resto de actuator (métricas,
+        // checkpoints, productos) pide la API key
         return path.startsWith("/inventario-sm/swagger-ui")
                 || path.startsWith("/inventario-sm/v3/api-docs")
-                || path.startsWith("/actuator");
-        // si usas healthchecks
+                || path.equals("/actuator/health")
+                || path.startsWith("/actuator/health/");
     }
 
     @Override
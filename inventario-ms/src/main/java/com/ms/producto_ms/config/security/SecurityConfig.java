@@ -20,7 +20,7 @@ public class SecurityConfig {
                         .requestMatchers(
                                 "/inventario-sm/swagger-ui/**",
                                 "/inventario-sm/v3/api-docs/**",
-                                "/actuator/**"
+                                "/actuator/health/**"
                         ).permitAll()
                         .anyRequest().authenticated()
                 )
@@ -1,24 +1,45 @@
 package com.ms.producto_ms.controller;
 
 import com.ms.producto_ms.dto.request.MovimientoInventarioRequest;
+import com.ms.producto_ms.dto.request.MovimientoLoteRequest;
+import com.ms.producto_ms.dto.request.SaldosConsultaRequest;
 import com.ms.producto_ms.dto.response.ApiResponse;
 import com.ms.producto_ms.dto.response.InventarioDetalleResponse;
+import com.ms.producto_ms.dto.response.MovimientoLoteResponse;
+import com.ms.producto_ms.dto.response.MovimientosPaginaResponse;
+import com.ms.producto_ms.dto.response.ResumenDiarioResponse;
+import com.ms.producto_ms.dto.response.SaldoCambiadoDto;
+import com.ms.producto_ms.dto.response.SaldoProductoDto;
+import com.ms.producto_ms.dto.response.ValoracionResponse;
+import com.ms.producto_ms.enmun.ModoLoteEmun;
+import com.ms.producto_ms.enmun.OrdenEmun;
+import com.ms.producto_ms.enmun.TipoMovimientoEmun;
 import com.ms.producto_ms.exception.CustomException;
 import com.ms.producto_ms.mapper.ProductoMapper;
 import com.ms.producto_ms.service.InventarioInterface;
 import com.ms.producto_ms.util.UtilService;
+import com.ms.producto_ms.util.concurrencia.ColasMovimientos;
+import com.ms.producto_ms.util.eventos.InventarioStreamHub;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 
 @Slf4j
@@ -30,20 +51,99 @@ import java.util.Map;
         description = "Se encarga de exponer los endpoints del microservicio Productos MS, gestionando operaciones CRUD sobre el catálogo de productos. Recibe solicitudes HTTP, valida datos, delega la lógica al servicio de productos y devuelve respuestas estructuradas con códigos adecuados.")
 public class InventarioController extends BaseController {
 
+    static final String CLAVE_IDEMPOTENCIA = "Idempotency-Key";
+    private static final String CLAVE_IDEMPOTENCIA_DESCRIPCION = "Clave única del movimiento (por ejemplo un UUID). "
+            + "Un reintento con la misma clave devuelve la respuesta original sin registrar otro movimiento.";
+
     private final InventarioInterface inventarioInterface;
+    private final InventarioStreamHub streamHub;
+    private final ColasMovimientos colasMovimientos;
+
+    // ====== CONSULTAR SALDOS DE VARIOS PRODUCTOS ======
+    @Operation(
+            summary = "Obtener saldos de varios productos",
+            description = "Devuelve un mapa productoId -> saldo con una sola consulta. Para listas largas use "
+                    + "POST /saldos."
+    )
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse> getSaldos(
+            @Parameter(description = "IDs de los productos separados por coma", required = true, example = "1,2,3")
+            @RequestParam List<Long> ids,
+            @Parameter(description = "Incluir el nombre de cada producto", example = "false")
+            @RequestParam(defaultValue = "false") boolean incluirNombres
+    ) throws CustomException {
+
+        return ResponseEntity.ok(respuestaSaldos(inventarioInterface.consultarSaldos(ids, incluirNombres)));
+    }
+
+    @Operation(
+            summary = "Obtener saldos de varios productos (lista larga)",
+            description = "Igual que GET /api/inventarios/productos?ids=..., recibiendo los IDs en el cuerpo."
+    )
+    @PostMapping(value = "/saldos", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse> postSaldos(
+            @RequestBody @Valid SaldosConsultaRequest body
+    ) throws CustomException {
+
+        return ResponseEntity.ok(respuestaSaldos(
+                inventarioInterface.consultarSaldos(body.getProductoIds(), body.isIncluirNombres())));
+    }
+
+    private static ApiResponse respuestaSaldos(Map<Long, SaldoProductoDto> saldos) {
+        return ApiResponse.builder()
+                .code(HttpStatus.OK.value())
+                .message("Saldos de inventario consultados correctamente.")
+                .data(saldos)
+                .jsonapi(Map.of("version", "1.0"))
+                .build();
+    }
+
+    // ====== STREAM DE CAMBIOS (SSE) ======
+    @Operation(
+            summary = "Suscribirse a los cambios de saldo",
+            description = "Abre un stream Server-Sent Events con los cambios de saldo confirmados (evento 'saldo'). "
+                    + "Con ids se siguen solo esos productos y se envía primero su saldo actual; sin ids se siguen "
+                    + "todos. Si un cliente se atrasa recibe solo el último saldo de cada producto."
+    )
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+            @Parameter(description = "IDs de los productos a seguir, separados por coma", example = "1,2,3")
+            @RequestParam(required = false) List<Long> ids
+    ) throws CustomException {
+
+        Set<Long> productoIds = new LinkedHashSet<>();
+        if (ids != null) {
+            ids.stream().filter(Objects::nonNull).forEach(productoIds::add);
+        }
+
+        // El saldo inicial se lee ya suscrito: un cambio confirmado en medio no se pierde
+        return streamHub.suscribir(productoIds, () -> productoIds.isEmpty() ? List.of()
+                : inventarioInterface.consultarSaldos(productoIds, false).entrySet().stream()
+                .map(saldo -> SaldoCambiadoDto.builder()
+                        .productoId(saldo.getKey())
+                        .cantidadDisponible(saldo.getValue().getCantidadDisponible())
+                        .cantidadReservada(saldo.getValue().getCantidadReservada())
+                        .build())
+                .toList());
+    }
 
     // ====== CONSULTAR DETALLE ======
     @Operation(
             summary = "Obtener detalle de inventario por producto",
-            description = "Devuelve el nombre del producto, la cantidad disponible, el precio unitario y el valor total."
+            description = "Devuelve el nombre del producto, la cantidad disponible, el precio unitario y el valor total. "
+                    + "La cantidad sale de un índice en memoria que puede ir unos instantes por detrás del último "
+                    + "movimiento; con consistente=true se lee de la base de datos."
     )
     @GetMapping(value = "/{productoId}", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<ApiResponse> getDetalle(
             @Parameter(description = "ID del producto", required = true, example = "1")
-            @PathVariable Long productoId
+            @PathVariable Long productoId,
+            @Parameter(description = "Leer el saldo de la base de datos en lugar del índice en memoria", example = "false")
+            @RequestParam(defaultValue = "false") boolean consistente
     ) throws CustomException {
 
-        InventarioDetalleResponse detalle = inventarioInterface.consultarDetalleInventario(productoId);
+        InventarioDetalleResponse detalle = inventarioInterface.consultarDetalleInventario(productoId, consistente);
 
         ApiResponse response = ApiResponse.builder()
                 .code(HttpStatus.OK.value())
@@ -56,19 +156,112 @@ public class InventarioController extends BaseController {
         return ResponseEntity.ok(response);
     }
 
+    // ====== HISTORIAL DE MOVIMIENTOS (KARDEX) ======
+    @Operation(
+            summary = "Historial de movimientos de un producto",
+            description = "Devuelve los movimientos del producto por páginas, filtrados por fecha y tipo. "
+                    + "Para la página siguiente envíe el siguienteCursor recibido; es null en la última página."
+    )
+    @GetMapping(value = "/{productoId}/movimientos", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse> getMovimientos(
+            @Parameter(description = "ID del producto", required = true, example = "1")
+            @PathVariable Long productoId,
+            @Parameter(description = "Fecha mínima (inclusive)", example = "2024-01-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @Parameter(description = "Fecha máxima (exclusive)", example = "2024-02-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @Parameter(description = "INGRESO o SALIDA", example = "SALIDA")
+            @RequestParam(required = false) String tipoMovimiento,
+            @Parameter(description = "ASC o DESC (por defecto, los más recientes primero)", example = "DESC")
+            @RequestParam(required = false) OrdenEmun orden,
+            @Parameter(description = "Cursor de la página siguiente")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Movimientos por página (máximo 500)", example = "50")
+            @RequestParam(required = false) Integer limite
+    ) throws CustomException {
+
+        MovimientosPaginaResponse pagina = inventarioInterface.consultarMovimientos(productoId, desde, hasta,
+                tipoMovimiento, orden, cursor, limite);
+
+        ApiResponse response = ApiResponse.builder()
+                .code(HttpStatus.OK.value())
+                .message("Movimientos consultados correctamente.")
+                .data(pagina)
+                .jsonapi(Map.of("version", "1.0"))
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
+    // ====== RESUMEN DIARIO ======
+    @Operation(
+            summary = "Resumen diario de movimientos de un producto",
+            description = "Devuelve por día las cantidades y valores de ingresos y salidas del producto, y los totales "
+                    + "del rango. Solo incluye los días con movimientos; el rango admite hasta 1830 días."
+    )
+    @GetMapping(value = "/{productoId}/resumen-diario", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse> getResumenDiario(
+            @Parameter(description = "ID del producto", required = true, example = "1")
+            @PathVariable Long productoId,
+            @Parameter(description = "Primer día (inclusive)", required = true, example = "2024-01-01")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @Parameter(description = "Último día (inclusive)", required = true, example = "2024-12-31")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta
+    ) throws CustomException {
+
+        ResumenDiarioResponse resumen = inventarioInterface.consultarResumenDiario(productoId, desde, hasta);
+
+        ApiResponse response = ApiResponse.builder()
+                .code(HttpStatus.OK.value())
+                .message("Resumen diario consultado correctamente.")
+                .data(resumen)
+                .jsonapi(Map.of("version", "1.0"))
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
+    // ====== VALORACIÓN ======
+    @Operation(
+            summary = "Valoración del inventario de un producto",
+            description = "Devuelve el valor de las existencias y el costo de ventas acumulado por costo promedio "
+                    + "ponderado y por FIFO."
+    )
+    @GetMapping(value = "/{productoId}/valoracion", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse> getValoracion(
+            @Parameter(description = "ID del producto", required = true, example = "1")
+            @PathVariable Long productoId
+    ) throws CustomException {
+
+        ValoracionResponse valoracion = inventarioInterface.consultarValoracion(productoId);
+
+        ApiResponse response = ApiResponse.builder()
+                .code(HttpStatus.OK.value())
+                .message("Valoración consultada correctamente.")
+                .data(valoracion)
+                .jsonapi(Map.of("version", "1.0"))
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
     // ====== INGRESO ======
     @Operation(
             summary = "Registrar ingreso de inventario",
-            description = "Registra un movimiento de INGRESO y devuelve la nueva cantidad disponible."
+            description = "Registra un movimiento de INGRESO y devuelve la nueva cantidad disponible. Los movimientos "
+                    + "concurrentes del mismo producto se confirman juntos en una sola transacción."
     )
     @PostMapping(value = "/{productoId}/ingreso", consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<ApiResponse> ingresar(
             @PathVariable Long productoId,
-            @RequestBody @Valid MovimientoInventarioRequest body
+            @RequestBody @Valid MovimientoInventarioRequest body,
+            @Parameter(description = CLAVE_IDEMPOTENCIA_DESCRIPCION)
+            @RequestHeader(value = CLAVE_IDEMPOTENCIA, required = false) String claveIdempotencia
     ) throws CustomException {
 
-        int nuevaCantidad = inventarioInterface.agregarCantidad(productoId, body.getCantidad(), body.getPrecioUnitario());
+        int nuevaCantidad = colasMovimientos.registrar(productoId, TipoMovimientoEmun.INGRESO, body.getCantidad(),
+                body.getPrecioUnitario(), claveIdempotencia);
 
         ApiResponse response = ApiResponse.builder()
                 .code(HttpStatus.OK.value())
@@ -86,16 +279,20 @@ public class InventarioController extends BaseController {
     // ====== SALIDA ======
     @Operation(
             summary = "Registrar salida de inventario",
-            description = "Registra un movimiento de SALIDA y devuelve la nueva cantidad disponible."
+            description = "Registra un movimiento de SALIDA y devuelve la nueva cantidad disponible. Los movimientos "
+                    + "concurrentes del mismo producto se confirman juntos en una sola transacción."
     )
     @PostMapping(value = "/{productoId}/salida", consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<ApiResponse> retirar(
             @PathVariable Long productoId,
-            @RequestBody @Valid MovimientoInventarioRequest body
+            @RequestBody @Valid MovimientoInventarioRequest body,
+            @Parameter(description = CLAVE_IDEMPOTENCIA_DESCRIPCION)
+            @RequestHeader(value = CLAVE_IDEMPOTENCIA, required = false) String claveIdempotencia
     ) throws CustomException {
 
-        int nuevaCantidad = inventarioInterface.retirarCantidad(productoId, body.getCantidad(), body.getPrecioUnitario());
+        int nuevaCantidad = colasMovimientos.registrar(productoId, TipoMovimientoEmun.SALIDA, body.getCantidad(),
+                body.getPrecioUnitario(), claveIdempotencia);
 
         ApiResponse response = ApiResponse.builder()
                 .code(HttpStatus.OK.value())
@@ -110,4 +307,34 @@ public class InventarioController extends BaseController {
         return ResponseEntity.ok(response);
     }
 
+    // ====== LOTE DE MOVIMIENTOS ======
+    @Operation(
+            summary = "Registrar un lote de movimientos",
+            description = "Registra en una sola transacción una lista de INGRESOS y SALIDAS y devuelve el resultado "
+                    + "de cada línea. En modo ATOMICO (por defecto) una línea rechazada cancela el lote completo "
+                    + "(HTTP 409); en modo PARCIAL se registran las líneas válidas."
+    )
+    @PostMapping(value = "/movimientos/lote", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse> registrarLote(
+            @RequestBody @Valid MovimientoLoteRequest body
+    ) throws CustomException {
+
+        MovimientoLoteResponse resultado = inventarioInterface.registrarLote(body);
+
+        boolean rechazado = resultado.getModo() == ModoLoteEmun.ATOMICO && resultado.getRechazados() > 0;
+        HttpStatus status = rechazado ? HttpStatus.CONFLICT : HttpStatus.OK;
+
+        ApiResponse response = ApiResponse.builder()
+                .code(status.value())
+                .message(rechazado
+                        ? "Lote rechazado: ningún movimiento fue registrado."
+                        : "Lote registrado correctamente.")
+                .data(resultado)
+                .jsonapi(Map.of("version", "1.0"))
+                .build();
+
+        return ResponseEntity.status(status).body(response);
+    }
+
 }
@@ -0,0 +1,68 @@
+package com.ms.producto_ms.controller;
+
+import com.ms.producto_ms.dto.response.ApiResponse;
+import com.ms.producto_ms.util.cache.ProductosCache;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+
+@Slf4j
+@RestController
+@RequestMapping(value = "/api/inventarios/admin/cache/productos")
+@AllArgsConstructor
+@Tag(name = "Cache de productos",
+        description = "Administración de la cache local de productos: consulta de estadísticas e invalidación "
+                + "de un producto o de toda la cache (por ejemplo, tras cambiar nombre o precio en productos).")
+public class ProductosCacheController extends BaseController {
+
+    private final ProductosCache productosCache;
+
+    @Operation(summary = "Estadísticas de la cache de productos")
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse> estadisticas() {
+        return createSuccessResponse(productosCache.estadisticas());
+    }
+
+    @Operation(summary = "Invalidar un producto de la cache")
+    @DeleteMapping(value = "/{productoId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse> invalidar(
+            @Parameter(description = "ID del producto", required = true, example = "1")
+            @PathVariable Long productoId
+    ) {
+        boolean estaba = productosCache.invalidar(productoId);
+        log.info("Cache de productos - invalidado productoId={} estaba={}", productoId, estaba);
+
+        ApiResponse response = ApiResponse.builder()
+                .code(HttpStatus.OK.value())
+                .message(estaba ? "Producto eliminado de la cache." : "El producto no estaba en la cache.")
+                .data(Map.of("productoId", productoId, "invalidado", estaba))
+                .jsonapi(Map.of("version", "1.0"))
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Vaciar la cache de productos")
+    @DeleteMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse> limpiar() {
+        int descartadas = productosCache.limpiar();
+
+        ApiResponse response = ApiResponse.builder()
+                .code(HttpStatus.OK.value())
+                .message("Cache de productos vaciada.")
+                .data(Map.of("entradasDescartadas", descartadas))
+                .jsonapi(Map.of("version", "1.0"))
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,133 @@
+package com.ms.producto_ms.controller;
+
+import com.ms.producto_ms.dto.request.ConfirmarReservaRequest;
+import com.ms.producto_ms.dto.request.ReservaRequest;
+import com.ms.producto_ms.dto.response.ApiResponse;
+import com.ms.producto_ms.dto.response.ReservaResponse;
+import com.ms.producto_ms.exception.CustomException;
+import com.ms.producto_ms.service.ReservaInterface;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.UUID;
+
+
+@Slf4j
+@CrossOrigin(allowedHeaders = "*", origins = "*")
+@RestController
+@RequestMapping(value = "/api/inventarios/reservas")
+@AllArgsConstructor
+@Tag(name = "Reservas Resource",
+        description = "Reservas de stock para el checkout: retienen unidades de un producto por un tiempo limitado hasta confirmarlas como salida o liberarlas.")
+public class ReservaController extends BaseController {
+
+    private final ReservaInterface reservaInterface;
+
+    // ====== RESERVAR ======
+    @Operation(
+            summary = "Reservar unidades de un producto",
+            description = "Retiene la cantidad indicada mientras la reserva esté vigente (ttlSegundos o la vigencia por "
+                    + "defecto). Solo se puede reservar la cantidad libre: saldo menos reservas vigentes."
+    )
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse> reservar(
+            @RequestBody @Valid ReservaRequest body
+    ) throws CustomException {
+
+        ReservaResponse reserva = reservaInterface.reservar(body.getProductoId(), body.getCantidad(),
+                body.getTtlSegundos());
+
+        ApiResponse response = ApiResponse.builder()
+                .code(HttpStatus.CREATED.value())
+                .message("Reserva creada correctamente.")
+                .data(reserva)
+                .jsonapi(Map.of("version", "1.0"))
+                .build();
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    // ====== CONSULTAR ======
+    @Operation(
+            summary = "Consultar una reserva",
+            description = "Devuelve la reserva mientras siga vigente."
+    )
+    @GetMapping(value = "/{reservaId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse> getReserva(
+            @Parameter(description = "ID de la reserva", required = true)
+            @PathVariable UUID reservaId
+    ) throws CustomException {
+
+        ReservaResponse reserva = reservaInterface.consultarReserva(reservaId);
+
+        ApiResponse response = ApiResponse.builder()
+                .code(HttpStatus.OK.value())
+                .message("Reserva consultada correctamente.")
+                .data(reserva)
+                .jsonapi(Map.of("version", "1.0"))
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
+    // ====== CONFIRMAR ======
+    @Operation(
+            summary = "Confirmar una reserva",
+            description = "Registra la SALIDA de la cantidad reservada y cierra la reserva. Una reserva vencida o ya "
+                    + "confirmada responde 404."
+    )
+    @PostMapping(value = "/{reservaId}/confirmar", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse> confirmar(
+            @Parameter(description = "ID de la reserva", required = true)
+            @PathVariable UUID reservaId,
+            @RequestBody @Valid ConfirmarReservaRequest body
+    ) throws CustomException {
+
+        int nuevaCantidad = reservaInterface.confirmarReserva(reservaId, body.getPrecioUnitario());
+
+        ApiResponse response = ApiResponse.builder()
+                .code(HttpStatus.OK.value())
+                .message("Reserva confirmada correctamente.")
+                .data(Map.of(
+                        "reservaId", reservaId,
+                        "cantidadNueva", nuevaCantidad
+                ))
+                .jsonapi(Map.of("version", "1.0"))
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
+    // ====== LIBERAR ======
+    @Operation(
+            summary = "Liberar una reserva",
+            description = "Cancela la reserva y devuelve sus unidades a la cantidad libre."
+    )
+    @DeleteMapping(value = "/{reservaId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse> liberar(
+            @Parameter(description = "ID de la reserva", required = true)
+            @PathVariable UUID reservaId
+    ) throws CustomException {
+
+        ReservaResponse reserva = reservaInterface.liberarReserva(reservaId);
+
+        ApiResponse response = ApiResponse.builder()
+                .code(HttpStatus.OK.value())
+                .message("Reserva liberada correctamente.")
+                .data(reserva)
+                .jsonapi(Map.of("version", "1.0"))
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,32 @@
+package com.ms.producto_ms.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Línea de un lote de movimientos. Las reglas de cada línea se validan en el servicio,
+ * para poder reportar el resultado línea por línea.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovimientoLoteItemRequest {
+
+    @Schema(description = "ID del producto", example = "1")
+    private Long productoId;
+
+    @Schema(description = "Tipo de movimiento: INGRESO o SALIDA", example = "INGRESO")
+    private String tipoMovimiento;
+
+    @Schema(description = "Cantidad del movimiento", example = "10")
+    private Integer cantidad;
+
+    @Schema(description = "Precio unitario del movimiento", example = "15000")
+    private BigDecimal precioUnitario;
+}
@@ -0,0 +1,26 @@
+package com.ms.producto_ms.dto.request;
+
+import com.ms.producto_ms.enmun.ModoLoteEmun;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovimientoLoteRequest {
+
+    @Schema(description = "ATOMICO (todo o nada, por defecto) o PARCIAL (mejor esfuerzo)", example = "ATOMICO")
+    private ModoLoteEmun modo;
+
+    @NotEmpty(message = "El lote debe contener al menos un movimiento")
+    @Size(max = 10000, message = "El lote no puede superar los 10000 movimientos")
+    private List<MovimientoLoteItemRequest> movimientos;
+}
@@ -0,0 +1,19 @@
+package com.ms.producto_ms.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Cuerpo de la consulta por lote del micro de productos ({@code POST /batch}).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductosLoteRequest {
+    private List<Long> ids;
+}
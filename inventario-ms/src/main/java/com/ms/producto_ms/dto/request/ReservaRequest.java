@@ -0,0 +1,26 @@
+package com.ms.producto_ms.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservaRequest {
+
+    @NotNull(message = "El ID del producto es obligatorio")
+    private Long productoId;
+
+    @NotNull(message = "La cantidad es obligatoria")
+    @Positive(message = "La cantidad debe ser mayor que 0")
+    private Integer cantidad;
+
+    /** Vigencia de la reserva; si no se indica se usa {@code app.reservas.ttl}. */
+    @Positive(message = "La vigencia debe ser mayor que 0")
+    private Integer ttlSegundos;
+}
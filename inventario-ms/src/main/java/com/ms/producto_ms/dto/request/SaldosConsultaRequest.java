@@ -0,0 +1,27 @@
+package com.ms.producto_ms.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaldosConsultaRequest {
+
+    @Schema(description = "IDs de los productos a consultar", example = "[1, 2, 3]")
+    @NotEmpty(message = "Debe indicar al menos un producto")
+    @Size(max = 1000, message = "No se pueden consultar más de 1000 productos por solicitud")
+    private List<Long> productoIds;
+
+    @Schema(description = "Incluir el nombre de cada producto (una consulta agrupada al micro de productos)",
+            example = "false")
+    private boolean incluirNombres;
+}
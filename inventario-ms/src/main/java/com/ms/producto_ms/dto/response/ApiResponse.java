@@ -1,5 +1,6 @@
 package com.ms.producto_ms.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -16,9 +17,10 @@ import java.util.Map;
 @SuperBuilder
 @Builder
 @JsonPropertyOrder({ "code", "message", "data" })
-public class ApiResponse implements Serializable {
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ApiResponse<T> implements Serializable {
     private Map<String, String> jsonapi;
-    private Object data;
+    private T data;
     private String message;
     private Integer code;
 
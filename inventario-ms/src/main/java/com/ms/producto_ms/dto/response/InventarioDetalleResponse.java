@@ -1,5 +1,6 @@
 package com.ms.producto_ms.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,6 +16,10 @@ public class InventarioDetalleResponse {
 
     private Long productoId;
     private String nombreProducto;
+    /** Saldo menos las unidades retenidas por reservas vigentes. */
     private Integer cantidadDisponible;
+    /** Unidades retenidas por reservas vigentes; se omite si no hay ninguna. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer cantidadReservada;
     private BigDecimal precioUnitario;
 }
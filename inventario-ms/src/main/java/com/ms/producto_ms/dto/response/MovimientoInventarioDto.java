@@ -0,0 +1,23 @@
+package com.ms.producto_ms.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovimientoInventarioDto {
+
+    private Long id;
+    private String tipoMovimiento; // INGRESO / SALIDA
+    private Integer cantidad;
+    private BigDecimal precioUnitario;
+    private BigDecimal precioTotal;
+    private LocalDateTime fechaMovimiento;
+}
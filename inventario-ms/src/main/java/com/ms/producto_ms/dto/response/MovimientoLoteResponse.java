@@ -0,0 +1,22 @@
+package com.ms.producto_ms.dto.response;
+
+import com.ms.producto_ms.enmun.ModoLoteEmun;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovimientoLoteResponse {
+
+    private ModoLoteEmun modo;
+    private Integer total;
+    private Integer aplicados;
+    private Integer rechazados;
+    private List<MovimientoLoteResultadoDto> resultados;
+}
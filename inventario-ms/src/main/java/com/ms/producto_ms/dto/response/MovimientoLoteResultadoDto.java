@@ -0,0 +1,27 @@
+package com.ms.producto_ms.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MovimientoLoteResultadoDto {
+
+    public static final String APLICADO = "APLICADO";
+    public static final String RECHAZADO = "RECHAZADO";
+    public static final String NO_APLICADO = "NO_APLICADO";
+
+    private Integer linea;
+    private Long productoId;
+    private String tipoMovimiento;
+    private String estado; // APLICADO / RECHAZADO / NO_APLICADO
+    private Integer cantidadAnterior;
+    private Integer cantidadNueva;
+    private String mensaje;
+}
@@ -0,0 +1,20 @@
+package com.ms.producto_ms.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovimientosPaginaResponse {
+
+    private Long productoId;
+    private List<MovimientoInventarioDto> movimientos;
+    private Boolean hayMas;
+    private String siguienteCursor; // null en la última página
+}
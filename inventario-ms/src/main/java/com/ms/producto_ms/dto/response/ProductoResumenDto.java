@@ -1,5 +1,6 @@
 package com.ms.producto_ms.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -11,8 +12,10 @@ import java.math.BigDecimal;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true) // descripcion, imagenBase64, ... se saltan sin materializarse
 public class ProductoResumenDto {
     private Long id;
     private String nombre;
     private BigDecimal precio;
+    private Boolean activo;
 }
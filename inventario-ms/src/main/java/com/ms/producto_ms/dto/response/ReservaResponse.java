@@ -0,0 +1,24 @@
+package com.ms.producto_ms.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReservaResponse {
+
+    private UUID reservaId;
+    private Long productoId;
+    private Integer cantidad;
+    private LocalDateTime expiraEn;
+    private Integer cantidadLibre; // saldo no reservado tras crear o liberar la reserva
+}
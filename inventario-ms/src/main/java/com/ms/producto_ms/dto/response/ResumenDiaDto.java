@@ -0,0 +1,25 @@
+package com.ms.producto_ms.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResumenDiaDto {
+
+    private LocalDate dia; // null en los totales del rango
+    private Long cantidadIngresos;
+    private BigDecimal valorIngresos;
+    private Long cantidadSalidas;
+    private BigDecimal valorSalidas;
+    private Long movimientos;
+}
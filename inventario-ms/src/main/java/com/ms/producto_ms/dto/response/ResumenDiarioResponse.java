@@ -0,0 +1,22 @@
+package com.ms.producto_ms.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumenDiarioResponse {
+
+    private Long productoId;
+    private LocalDate desde;
+    private LocalDate hasta;
+    private List<ResumenDiaDto> dias; // solo los días con movimientos
+    private ResumenDiaDto totales;
+}
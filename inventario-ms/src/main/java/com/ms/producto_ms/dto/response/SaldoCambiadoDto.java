@@ -0,0 +1,32 @@
+package com.ms.producto_ms.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Cambio de saldo enviado por el stream SSE. Si llegaron varios movimientos del producto
+ * mientras el cliente estaba ocupado, solo se envía el último: {@code cantidadDisponible}
+ * siempre es lo disponible más reciente (saldo menos reservado) y {@code movimientosAgrupados}
+ * indica cuántos se resumieron.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SaldoCambiadoDto {
+
+    private Long productoId;
+    private Integer cantidadDisponible;
+    /** Unidades retenidas por reservas vigentes; se omite si no hay ninguna. */
+    private Integer cantidadReservada;
+    private String tipoMovimiento;
+    private Integer cantidadMovimiento;
+    private Integer movimientosAgrupados;
+    private Instant fechaEvento;
+}
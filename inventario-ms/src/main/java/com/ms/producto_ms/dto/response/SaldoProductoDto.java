@@ -0,0 +1,28 @@
+package com.ms.producto_ms.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Saldo de un producto dentro de una consulta de varios productos. El ID del producto es la
+ * llave del mapa de respuesta, por eso no se repite aquí.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SaldoProductoDto {
+
+    private String nombreProducto;
+    /** Saldo menos las unidades retenidas por reservas vigentes. */
+    private Integer cantidadDisponible;
+    /** Unidades retenidas por reservas vigentes; se omite si no hay ninguna. */
+    private Integer cantidadReservada;
+    private BigDecimal precioUnitario;
+}
@@ -0,0 +1,23 @@
+package com.ms.producto_ms.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ValoracionResponse {
+
+    private Long productoId;
+    private Long cantidad;
+    private BigDecimal costoPromedio; // null sin existencias
+    private BigDecimal valorPromedio;
+    private BigDecimal costoVentasPromedio;
+    private BigDecimal valorFifo;
+    private BigDecimal costoVentasFifo;
+}
@@ -0,0 +1,34 @@
+package com.ms.producto_ms.enmun;
+
+/**
+ * Estados del circuito que protege las llamadas al micro de productos.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+public enum EstadoCircuitoEmun {
+    /**
+     * Las llamadas pasan y se contabilizan en la ventana de resultados.
+     */
+    CERRADO(0),
+    /**
+     * Las llamadas se rechazan de inmediato hasta que vence la espera configurada.
+     */
+    ABIERTO(1),
+    /**
+     * Se dejan pasar unas pocas llamadas de prueba; si todas salen bien el circuito se cierra,
+     * si alguna falla se vuelve a abrir.
+     */
+    SEMI_ABIERTO(2);
+
+    /** Valor publicado en la métrica {@code productos.circuito.estado}. */
+    private final int codigo;
+
+    EstadoCircuitoEmun(int codigo) {
+        this.codigo = codigo;
+    }
+
+    public int getCodigo() {
+        return codigo;
+    }
+}
@@ -0,0 +1,18 @@
+package com.ms.producto_ms.enmun;
+
+/**
+ * Semántica con la que se aplica un lote de movimientos de inventario.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+public enum ModoLoteEmun {
+    /**
+     * Todo o nada: si alguna línea es rechazada no se registra ningún movimiento.
+     */
+    ATOMICO,
+    /**
+     * Mejor esfuerzo: se registran las líneas válidas y se reportan las rechazadas.
+     */
+    PARCIAL
+}
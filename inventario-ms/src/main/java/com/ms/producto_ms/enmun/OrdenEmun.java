@@ -0,0 +1,18 @@
+package com.ms.producto_ms.enmun;
+
+/**
+ * Orden cronológico de una consulta de movimientos.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+public enum OrdenEmun {
+    /**
+     * Del más antiguo al más reciente.
+     */
+    ASC,
+    /**
+     * Del más reciente al más antiguo.
+     */
+    DESC
+}
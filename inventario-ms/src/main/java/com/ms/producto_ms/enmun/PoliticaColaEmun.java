@@ -0,0 +1,24 @@
+package com.ms.producto_ms.enmun;
+
+/**
+ * Qué hacer con un evento cuando la cola de despacho asíncrono está llena.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+public enum PoliticaColaEmun {
+    /**
+     * El hilo que confirmó la transacción espera espacio en la cola hasta el tiempo máximo
+     * configurado; si no lo consigue, el evento se descarta como con {@link #DESCARTAR}.
+     */
+    BLOQUEAR,
+    /**
+     * El evento se descarta y se contabiliza en la métrica de descartados. El índice de saldos en
+     * memoria se corrige en la siguiente resincronización.
+     */
+    DESCARTAR,
+    /**
+     * El hilo que confirmó la transacción espera, sin límite, espacio en la cola del producto.
+     */
+    ESPERAR
+}
@@ -0,0 +1,71 @@
+package com.ms.producto_ms.enmun;
+
+import java.util.Locale;
+
+/**
+ * Tipo de un movimiento del libro de inventario.
+ * <p>
+ * En la tabla "inventarios" se guarda el {@link #getCodigo() código} (int2) y la cantidad con
+ * signo en la columna {@code delta}; las consultas nativas comparan contra esos códigos, así que
+ * no deben cambiar. Hacia la API el tipo sigue viajando por su nombre.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+public enum TipoMovimientoEmun {
+    /**
+     * Entrada de unidades: suma al saldo.
+     */
+    INGRESO((short) 1, 1),
+    /**
+     * Retiro de unidades: resta del saldo.
+     */
+    SALIDA((short) 2, -1);
+
+    /** Valor de la columna {@code inventarios.tipo}. */
+    private final short codigo;
+    private final int signo;
+
+    TipoMovimientoEmun(short codigo, int signo) {
+        this.codigo = codigo;
+        this.signo = signo;
+    }
+
+    public short getCodigo() {
+        return codigo;
+    }
+
+    /**
+     * @return la cantidad con el signo del movimiento (columna {@code delta}).
+     */
+    public int delta(int cantidad) {
+        return signo * cantidad;
+    }
+
+    public static TipoMovimientoEmun deCodigo(short codigo) {
+        for (TipoMovimientoEmun tipo : values()) {
+            if (tipo.codigo == codigo) {
+                return tipo;
+            }
+        }
+        throw new IllegalArgumentException("Código de tipo de movimiento desconocido: " + codigo);
+    }
+
+    /**
+     * Interpreta el nombre recibido por la API, sin distinguir mayúsculas ni espacios alrededor.
+     *
+     * @return el tipo, o null si el texto no corresponde a ninguno.
+     */
+    public static TipoMovimientoEmun desdeNombre(String nombre) {
+        if (nombre == null) {
+            return null;
+        }
+        String normalizado = nombre.trim().toUpperCase(Locale.ROOT);
+        for (TipoMovimientoEmun tipo : values()) {
+            if (tipo.name().equals(normalizado)) {
+                return tipo;
+            }
+        }
+        return null;
+    }
+}
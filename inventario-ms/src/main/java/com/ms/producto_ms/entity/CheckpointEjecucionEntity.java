@@ -0,0 +1,52 @@
+package com.ms.producto_ms.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Estado persistido de una ejecución del job de checkpoints.
+ * <p>
+ * Los productos se procesan en orden ascendente de id; tras cada lote se guarda el
+ * último producto procesado, lo que permite retomar la ejecución tras una caída
+ * con el mismo movimiento de corte.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Data
+@Entity
+@Table(name = "inventario_checkpoint_ejecuciones")
+public class CheckpointEjecucionEntity {
+
+    public static final String EN_CURSO = "EN_CURSO";
+    public static final String COMPLETADA = "COMPLETADA";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long corteMovimientoId;
+
+    @Column(nullable = false)
+    private Long ultimoProductoId;
+
+    @Column(nullable = false)
+    private Long productosProcesados;
+
+    @Column(nullable = false)
+    private Long totalProductos;
+
+    @Column(nullable = false, length = 20)
+    private String estado; // EN_CURSO / COMPLETADA
+
+    @Column(nullable = false)
+    private LocalDateTime fechaInicio;
+
+    private LocalDateTime fechaFin;
+}
@@ -0,0 +1,37 @@
+package com.ms.producto_ms.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint del saldo acumulado de un producto hasta un movimiento de corte.
+ * <p>
+ * El saldo de un producto es el saldo del checkpoint más la suma de los movimientos
+ * con id mayor a {@code ultimoMovimientoId}, de modo que el costo de la consulta
+ * depende solo de la actividad reciente y no de todo el histórico.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Data
+@Entity
+@Table(name = "inventario_checkpoints")
+public class InventarioCheckpointEntity {
+
+    @Id
+    private Long productoId;
+
+    @Column(nullable = false)
+    private Long ultimoMovimientoId;
+
+    @Column(nullable = false)
+    private Integer saldo;
+
+    @Column(nullable = false)
+    private LocalDateTime fechaCorte;
+}
@@ -1,5 +1,6 @@
 package com.ms.producto_ms.entity;
 
+import com.ms.producto_ms.enmun.TipoMovimientoEmun;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -33,8 +34,12 @@ public class InventarioEntity {
     @Column(nullable = false)
     private Integer cantidad;
 
-    @Column(nullable = false, length = 20)
-    private String tipoMovimiento; // INGRESO / SALIDA
+    @Convert(converter = TipoMovimientoConverter.class)
+    @Column(name = "tipo", nullable = false)
+    private TipoMovimientoEmun tipoMovimiento;
+
+    @Column(nullable = false)
+    private Integer delta; // +cantidad en INGRESO, -cantidad en SALIDA
 
     @Column(nullable = false, precision = 15, scale = 2)
     private BigDecimal precioUnitario;
@@ -50,5 +55,6 @@ public class InventarioEntity {
         if (fechaMovimiento == null) {
             fechaMovimiento = LocalDateTime.now();
         }
+        delta = tipoMovimiento.delta(cantidad);
     }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.ms.producto_ms.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Proyección materializada del saldo de un producto.
+ * <p>
+ * Cada fila resume el libro de movimientos ({@link InventarioEntity}) de un producto:
+ * saldo actual, último precio unitario y fecha del último movimiento. Se actualiza
+ * en la misma transacción en la que se inserta cada movimiento, por lo que la consulta
+ * del saldo es una búsqueda por llave primaria.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Data
+@Entity
+@Table(name = "inventario_saldos")
+public class InventarioSaldoEntity {
+
+    @Id
+    private Long productoId;
+
+    @Column(nullable = false)
+    private Integer saldo;
+
+    /** Unidades retenidas por reservas vigentes; lo disponible es {@code saldo - reservado}. */
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer reservado = 0;
+
+    @Column(precision = 15, scale = 2)
+    private BigDecimal ultimoPrecioUnitario;
+
+    private LocalDateTime fechaUltimoMovimiento;
+}
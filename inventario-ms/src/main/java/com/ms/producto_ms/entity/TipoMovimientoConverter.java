@@ -0,0 +1,25 @@
+package com.ms.producto_ms.entity;
+
+import com.ms.producto_ms.enmun.TipoMovimientoEmun;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Guarda {@link TipoMovimientoEmun} por su código en la columna int2 {@code inventarios.tipo}.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Converter
+public class TipoMovimientoConverter implements AttributeConverter<TipoMovimientoEmun, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(TipoMovimientoEmun tipo) {
+        return tipo != null ? tipo.getCodigo() : null;
+    }
+
+    @Override
+    public TipoMovimientoEmun convertToEntityAttribute(Short codigo) {
+        return codigo != null ? TipoMovimientoEmun.deCodigo(codigo) : null;
+    }
+}
@@ -0,0 +1,21 @@
+package com.ms.producto_ms.repository;
+
+import com.ms.producto_ms.entity.CheckpointEjecucionEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Proporciona acceso a la tabla "inventario_checkpoint_ejecuciones".
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Repository
+public interface CheckpointEjecucionRepository extends JpaRepository<CheckpointEjecucionEntity, Long> {
+
+    Optional<CheckpointEjecucionEntity> findFirstByEstadoOrderByIdDesc(String estado);
+
+    Optional<CheckpointEjecucionEntity> findFirstByOrderByIdDesc();
+}
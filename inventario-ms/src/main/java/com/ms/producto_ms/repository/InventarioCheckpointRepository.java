@@ -0,0 +1,100 @@
+package com.ms.producto_ms.repository;
+
+import com.ms.producto_ms.entity.InventarioCheckpointEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Proporciona acceso a la tabla "inventario_checkpoints" y a las consultas
+ * que usa el job de checkpoints para avanzar sobre el libro de movimientos.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Repository
+public interface InventarioCheckpointRepository extends JpaRepository<InventarioCheckpointEntity, Long> {
+
+    /**
+     * Calcula el movimiento de corte: el mayor id registrado antes de {@code limite}.
+     * <p>
+     * El margen entre {@code limite} y el momento actual evita dejar atrás movimientos
+     * con id menor cuya transacción todavía no había confirmado. Recorre la llave primaria
+     * hacia atrás, por lo que solo lee los movimientos que caen dentro del margen.
+     *
+     * @param limite fecha máxima de los movimientos incluidos en el corte.
+     * @return id del movimiento de corte, o 0 si no hay movimientos.
+     */
+    @Query(value = """
+        SELECT COALESCE((
+            SELECT i.id
+            FROM inventarios i
+            WHERE i.fecha_movimiento < :limite
+            ORDER BY i.id DESC
+            LIMIT 1
+        ), 0)
+        """, nativeQuery = true)
+    long calcularCorte(@Param("limite") LocalDateTime limite);
+
+    /**
+     * Siguiente lote de productos a procesar, en orden ascendente de id.
+     * <p>
+     * Los productos salen del libro y no de la proyección, para que un producto sin fila en
+     * {@code inventario_saldos} también tenga checkpoint. Cada producto se busca con un salto sobre
+     * el índice {@code (producto_id, id)}, así que el costo depende del lote y no del libro.
+     *
+     * @param desdeProductoId último producto ya procesado (exclusivo).
+     * @param tamanoLote      cantidad máxima de productos.
+     * @return ids de productos.
+     */
+    @Query(value = """
+        WITH RECURSIVE p(producto_id) AS (
+            SELECT (SELECT MIN(i.producto_id) FROM inventarios i WHERE i.producto_id > :desdeProductoId)
+            UNION ALL
+            SELECT (SELECT MIN(i.producto_id) FROM inventarios i WHERE i.producto_id > p.producto_id)
+            FROM p
+            WHERE p.producto_id IS NOT NULL
+        )
+        SELECT p.producto_id
+        FROM p
+        WHERE p.producto_id IS NOT NULL
+        LIMIT :tamanoLote
+        """, nativeQuery = true)
+    List<Long> siguienteLoteProductos(@Param("desdeProductoId") long desdeProductoId,
+                                      @Param("tamanoLote") int tamanoLote);
+
+    /**
+     * Avanza el checkpoint del producto hasta {@code corte}, sumando al saldo anterior
+     * solo los movimientos posteriores al checkpoint previo. Es idempotente: un checkpoint
+     * nunca retrocede, por lo que reprocesar un producto tras una caída no altera el saldo.
+     *
+     * @param productoId identificador del producto.
+     * @param corte      id del movimiento de corte (inclusivo).
+     * @return número de filas afectadas.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO inventario_checkpoints (producto_id, ultimo_movimiento_id, saldo, fecha_corte)
+        SELECT :productoId,
+               :corte,
+               COALESCE((SELECT c.saldo FROM inventario_checkpoints c WHERE c.producto_id = :productoId), 0)
+               + COALESCE(SUM(i.delta), 0),
+               CURRENT_TIMESTAMP
+        FROM inventarios i
+        WHERE i.producto_id = :productoId
+          AND i.id > COALESCE((SELECT c.ultimo_movimiento_id FROM inventario_checkpoints c
+                               WHERE c.producto_id = :productoId), 0)
+          AND i.id <= :corte
+        ON CONFLICT (producto_id) DO UPDATE
+           SET ultimo_movimiento_id = EXCLUDED.ultimo_movimiento_id,
+               saldo                = EXCLUDED.saldo,
+               fecha_corte          = EXCLUDED.fecha_corte
+         WHERE inventario_checkpoints.ultimo_movimiento_id < EXCLUDED.ultimo_movimiento_id
+        """, nativeQuery = true)
+    int avanzarCheckpoint(@Param("productoId") Long productoId, @Param("corte") long corte);
+}
@@ -0,0 +1,111 @@
+package com.ms.producto_ms.repository;
+
+import com.ms.producto_ms.util.idempotencia.RegistroIdempotencia;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Acceso a las claves de idempotencia ("inventario_idempotencia") con JDBC.
+ * <p>
+ * La clave se reclama al inicio de la transacción del movimiento con
+ * {@code INSERT ... ON CONFLICT DO NOTHING}: si otra petición con la misma clave está en curso,
+ * el insert espera a que termine. Si aquella confirma, el insert no inserta nada y el resultado
+ * guardado ya es visible; si se revierte, la clave queda libre y el insert la toma.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventarioIdempotenciaRepository {
+
+    private static final String RECLAMAR = """
+            INSERT INTO inventario_idempotencia (clave, tipo_movimiento, producto_id, cantidad, precio_unitario,
+                                                 fecha_creacion)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (clave) DO NOTHING
+            """;
+
+    private static final String BUSCAR = """
+            SELECT clave, tipo_movimiento, producto_id, cantidad, precio_unitario, cantidad_nueva
+              FROM inventario_idempotencia
+             WHERE clave = ?
+            """;
+
+    private static final String COMPLETAR = """
+            UPDATE inventario_idempotencia
+               SET cantidad_nueva = ?
+             WHERE clave = ?
+            """;
+
+    private static final String LIBERAR = """
+            DELETE FROM inventario_idempotencia
+             WHERE clave = ?
+               AND cantidad_nueva IS NULL
+            """;
+
+    private static final String ELIMINAR_ANTERIORES = """
+            DELETE FROM inventario_idempotencia
+             WHERE clave IN (SELECT clave
+                               FROM inventario_idempotencia
+                              WHERE fecha_creacion < ?
+                              LIMIT ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reclama la clave para el movimiento dentro de la transacción en curso.
+     *
+     * @return true si la clave era nueva; false si ya la usó un movimiento confirmado.
+     */
+    public boolean reclamar(RegistroIdempotencia registro, LocalDateTime fecha) {
+        return jdbcTemplate.update(RECLAMAR,
+                registro.getClave(),
+                registro.getTipoMovimiento(),
+                registro.getProductoId(),
+                registro.getCantidad(),
+                registro.getPrecioUnitario(),
+                Timestamp.valueOf(fecha)) == 1;
+    }
+
+    public Optional<RegistroIdempotencia> buscar(String clave) {
+        return jdbcTemplate.query(BUSCAR, (rs, i) -> RegistroIdempotencia.builder()
+                .clave(rs.getString("clave"))
+                .tipoMovimiento(rs.getString("tipo_movimiento"))
+                .productoId(rs.getLong("producto_id"))
+                .cantidad(rs.getInt("cantidad"))
+                .precioUnitario(rs.getBigDecimal("precio_unitario"))
+                .cantidadNueva((Integer) rs.getObject("cantidad_nueva"))
+                .build(), clave).stream().findFirst();
+    }
+
+    /**
+     * Guarda el resultado del movimiento para responder a los reintentos.
+     */
+    public void completar(String clave, int cantidadNueva) {
+        jdbcTemplate.update(COMPLETAR, cantidadNueva, clave);
+    }
+
+    /**
+     * Suelta una clave reclamada en la transacción en curso cuyo movimiento se rechazó, para que
+     * un reintento pueda volver a usarla aunque la transacción confirme otros movimientos.
+     */
+    public void liberar(String clave) {
+        jdbcTemplate.update(LIBERAR, clave);
+    }
+
+    /**
+     * Borra hasta {@code limite} claves creadas antes de {@code limiteFecha}.
+     *
+     * @return filas borradas.
+     */
+    public int eliminarAnteriores(LocalDateTime limiteFecha, int limite) {
+        return jdbcTemplate.update(ELIMINAR_ANTERIORES, Timestamp.valueOf(limiteFecha), limite);
+    }
+}
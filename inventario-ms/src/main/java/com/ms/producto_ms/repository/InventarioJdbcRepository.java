@@ -0,0 +1,220 @@
+package com.ms.producto_ms.repository;
+
+import com.ms.producto_ms.entity.InventarioEntity;
+import com.ms.producto_ms.entity.InventarioSaldoEntity;
+import com.ms.producto_ms.enmun.OrdenEmun;
+import com.ms.producto_ms.enmun.TipoMovimientoEmun;
+import com.ms.producto_ms.util.paginacion.CursorMovimiento;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Operaciones masivas sobre "inventarios" e "inventario_saldos" con JDBC batching.
+ * <p>
+ * Complementa a {@link InventarioRepository} en los flujos por lote: la inserción de
+ * movimientos con ids IDENTITY no admite batching en Hibernate, así que aquí se envían
+ * como sentencias agrupadas (el driver las reescribe a inserts multi-fila con
+ * {@code reWriteBatchedInserts=true}). Participa de la transacción JPA en curso.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventarioJdbcRepository {
+
+    private static final String INSERTAR_MOVIMIENTO = """
+            INSERT INTO inventarios (producto_id, cantidad, tipo, delta, precio_unitario, precio_total, fecha_movimiento)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String APLICAR_SALDO = """
+            INSERT INTO inventario_saldos (producto_id, saldo, ultimo_precio_unitario, fecha_ultimo_movimiento)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (producto_id) DO UPDATE
+               SET saldo                   = inventario_saldos.saldo + EXCLUDED.saldo,
+                   ultimo_precio_unitario  = EXCLUDED.ultimo_precio_unitario,
+                   fecha_ultimo_movimiento = EXCLUDED.fecha_ultimo_movimiento
+            """;
+
+    private static final String MOVIMIENTOS = """
+            SELECT id, producto_id, cantidad, tipo, precio_unitario, precio_total, fecha_movimiento
+              FROM inventarios
+             WHERE producto_id = ?
+            """;
+
+    private static final String RECORRER_SALDOS = """
+            SELECT producto_id, saldo, reservado, ultimo_precio_unitario
+            FROM inventario_saldos
+            """;
+
+    private static final String RECORRER_SALDOS_DESDE = RECORRER_SALDOS + """
+            WHERE fecha_ultimo_movimiento >= ?
+               OR fecha_ultima_reserva >= ?
+            """;
+
+    /**
+     * Fila de la proyección de saldos leída en un recorrido.
+     */
+    @FunctionalInterface
+    public interface SaldoLeido {
+        void aceptar(long productoId, int saldo, int reservado, BigDecimal ultimoPrecioUnitario);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Toma, en una sola sentencia, el advisory lock de transacción de cada producto.
+     * Los ids se bloquean en el orden recibido: deben llegar ordenados para que dos
+     * lotes concurrentes no se bloqueen mutuamente.
+     *
+     * @param productoIdsOrdenados ids de producto en orden ascendente.
+     */
+    public void bloquearProductos(Collection<Long> productoIdsOrdenados) {
+        if (productoIdsOrdenados.isEmpty()) {
+            return;
+        }
+        Long[] ids = productoIdsOrdenados.toArray(Long[]::new);
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(t.id) FROM unnest(?) AS t(id)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                rs -> { });
+    }
+
+    /**
+     * Inserta los movimientos en lotes de sentencias.
+     *
+     * @param movimientos movimientos a insertar, con su fecha ya asignada.
+     */
+    public void insertarMovimientos(List<InventarioEntity> movimientos) {
+        jdbcTemplate.batchUpdate(INSERTAR_MOVIMIENTO, movimientos, movimientos.size(), (ps, m) -> {
+            ps.setLong(1, m.getProductoId());
+            ps.setInt(2, m.getCantidad());
+            ps.setShort(3, m.getTipoMovimiento().getCodigo());
+            ps.setInt(4, m.getTipoMovimiento().delta(m.getCantidad()));
+            ps.setBigDecimal(5, m.getPrecioUnitario());
+            ps.setBigDecimal(6, m.getPrecioTotal());
+            ps.setTimestamp(7, Timestamp.valueOf(m.getFechaMovimiento()));
+        });
+    }
+
+    /**
+     * Aplica sobre la proyección de saldos un delta acumulado por producto.
+     *
+     * @param deltas una entrada por producto; {@code saldo} contiene el delta con signo.
+     */
+    public void aplicarSaldos(Collection<InventarioSaldoEntity> deltas) {
+        jdbcTemplate.batchUpdate(APLICAR_SALDO, deltas, deltas.size(), (ps, d) -> {
+            ps.setLong(1, d.getProductoId());
+            ps.setInt(2, d.getSaldo());
+            ps.setBigDecimal(3, d.getUltimoPrecioUnitario());
+            ps.setTimestamp(4, Timestamp.valueOf(d.getFechaUltimoMovimiento()));
+        });
+    }
+
+    /**
+     * Recorre la proyección de saldos fila a fila, sin cargarla entera en memoria. Debe ejecutarse
+     * dentro de una transacción: el driver de Postgres solo usa cursor (y respeta el tamaño de
+     * fetch) con autocommit desactivado.
+     *
+     * @param desde       solo filas con movimientos o reservas desde esta fecha; null para recorrer todas.
+     * @param tamanoFetch filas por viaje a la base de datos.
+     * @param consumidor  recibe cada fila.
+     */
+    public void recorrerSaldos(LocalDateTime desde, int tamanoFetch, SaldoLeido consumidor) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(desde == null ? RECORRER_SALDOS : RECORRER_SALDOS_DESDE);
+            ps.setFetchSize(tamanoFetch);
+            if (desde != null) {
+                ps.setTimestamp(1, Timestamp.valueOf(desde));
+                ps.setTimestamp(2, Timestamp.valueOf(desde));
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> consumidor.aceptar(rs.getLong(1), rs.getInt(2), rs.getInt(3),
+                rs.getBigDecimal(4)));
+    }
+
+    /**
+     * Página de movimientos de un producto ordenada por {@code (fecha_movimiento, id)}.
+     * <p>
+     * Paginación por llave: con {@code despuesDe} la página empieza justo después de ese movimiento
+     * en el orden pedido, con la comparación de filas {@code (fecha_movimiento, id) > (?, ?)} que
+     * resuelve {@code idx_inventarios_producto_fecha}. Nunca usa OFFSET ni COUNT. Las fechas y el
+     * cursor acotan {@code fecha_movimiento}, así que solo se leen las particiones del rango.
+     *
+     * @param productoId     producto del libro.
+     * @param desde          fecha mínima (inclusive), o null.
+     * @param hasta          fecha máxima (exclusive), o null.
+     * @param tipoMovimiento tipo de los movimientos, o null para ambos.
+     * @param despuesDe      último movimiento de la página anterior, o null para la primera.
+     * @param orden          orden cronológico.
+     * @param limite         máximo de filas.
+     */
+    public List<InventarioEntity> consultarMovimientos(Long productoId, LocalDateTime desde, LocalDateTime hasta,
+                                                       TipoMovimientoEmun tipoMovimiento, CursorMovimiento despuesDe,
+                                                       OrdenEmun orden, int limite) {
+        List<Object> parametros = new ArrayList<>();
+        parametros.add(productoId);
+        if (desde != null) {
+            parametros.add(Timestamp.valueOf(desde));
+        }
+        if (hasta != null) {
+            parametros.add(Timestamp.valueOf(hasta));
+        }
+        if (tipoMovimiento != null) {
+            parametros.add(tipoMovimiento.getCodigo());
+        }
+        if (despuesDe != null) {
+            Timestamp fechaCursor = Timestamp.valueOf(despuesDe.fechaMovimiento());
+            parametros.add(fechaCursor);
+            parametros.add(fechaCursor);
+            parametros.add(despuesDe.id());
+        }
+        parametros.add(limite);
+
+        String sql = sqlMovimientos(desde != null, hasta != null, tipoMovimiento != null, despuesDe != null, orden);
+        return jdbcTemplate.query(sql, (rs, i) -> InventarioEntity.builder()
+                .id(rs.getLong("id"))
+                .productoId(rs.getLong("producto_id"))
+                .cantidad(rs.getInt("cantidad"))
+                .tipoMovimiento(TipoMovimientoEmun.deCodigo(rs.getShort("tipo")))
+                .precioUnitario(rs.getBigDecimal("precio_unitario"))
+                .precioTotal(rs.getBigDecimal("precio_total"))
+                .fechaMovimiento(rs.getTimestamp("fecha_movimiento").toLocalDateTime())
+                .build(), parametros.toArray());
+    }
+
+    static String sqlMovimientos(boolean desde, boolean hasta, boolean tipoMovimiento, boolean despuesDe,
+                                 OrdenEmun orden) {
+        boolean ascendente = orden == OrdenEmun.ASC;
+        StringBuilder sql = new StringBuilder(MOVIMIENTOS);
+        if (desde) {
+            sql.append("   AND fecha_movimiento >= ?\n");
+        }
+        if (hasta) {
+            sql.append("   AND fecha_movimiento < ?\n");
+        }
+        if (tipoMovimiento) {
+            sql.append("   AND tipo = ?\n");
+        }
+        if (despuesDe) {
+            // El rango simple es redundante con la comparación de filas, pero solo con él Postgres
+            // descarta las particiones mensuales que quedan antes (o después) del cursor
+            sql.append("   AND fecha_movimiento ").append(ascendente ? ">=" : "<=").append(" ?\n");
+            sql.append("   AND (fecha_movimiento, id) ").append(ascendente ? ">" : "<").append(" (?, ?)\n");
+        }
+        String direccion = ascendente ? "ASC" : "DESC";
+        sql.append(" ORDER BY fecha_movimiento ").append(direccion).append(", id ").append(direccion).append('\n');
+        sql.append(" LIMIT ?");
+        return sql.toString();
+    }
+}
@@ -0,0 +1,120 @@
+package com.ms.producto_ms.repository;
+
+import com.ms.producto_ms.util.eventos.EventoOutbox;
+import com.ms.producto_ms.util.eventos.InventarioCambiadoEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Acceso a la outbox de eventos ("inventario_outbox") con JDBC.
+ * <p>
+ * {@link #registrar(List)} participa de la transacción del movimiento, de modo que el evento
+ * existe si y solo si el movimiento fue confirmado. El relay reclama pendientes con
+ * {@code FOR UPDATE SKIP LOCKED}: varias réplicas pueden relevar en paralelo sin tomar las
+ * mismas filas.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventarioOutboxRepository {
+
+    private static final String REGISTRAR = """
+            INSERT INTO inventario_outbox (producto_id, tipo_movimiento, cantidad_anterior, cantidad_movimiento,
+                                           cantidad_nueva, precio_unitario, fecha_evento)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String RECLAMAR_PENDIENTES = """
+            SELECT id, producto_id, tipo_movimiento, cantidad_anterior, cantidad_movimiento,
+                   cantidad_nueva, precio_unitario, fecha_evento
+              FROM inventario_outbox
+             WHERE fecha_envio IS NULL
+             ORDER BY id
+             LIMIT ?
+               FOR UPDATE SKIP LOCKED
+            """;
+
+    private static final String MARCAR_ENVIADOS = """
+            UPDATE inventario_outbox
+               SET fecha_envio = ?
+             WHERE id = ANY (?)
+            """;
+
+    private static final String ELIMINAR_ENVIADOS = """
+            DELETE FROM inventario_outbox
+             WHERE id IN (SELECT id
+                            FROM inventario_outbox
+                           WHERE fecha_envio IS NOT NULL
+                             AND fecha_envio < ?
+                           LIMIT ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Escribe los eventos en la outbox dentro de la transacción en curso.
+     */
+    public void registrar(List<InventarioCambiadoEvent> eventos) {
+        if (eventos.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(REGISTRAR, eventos, eventos.size(), (ps, e) -> {
+            ps.setLong(1, e.getProductoId());
+            ps.setString(2, e.getTipoMovimiento());
+            ps.setInt(3, e.getCantidadAnterior());
+            ps.setInt(4, e.getCantidadMovimiento());
+            ps.setInt(5, e.getCantidadNueva());
+            ps.setBigDecimal(6, e.getPrecioUnitario());
+            ps.setTimestamp(7, Timestamp.from(e.getFechaEvento()));
+        });
+    }
+
+    /**
+     * Bloquea y devuelve hasta {@code limite} eventos pendientes, saltando los que otra
+     * transacción ya tiene reclamados. Debe llamarse dentro de una transacción.
+     */
+    public List<EventoOutbox> reclamarPendientes(int limite) {
+        return jdbcTemplate.query(RECLAMAR_PENDIENTES, (rs, i) -> new EventoOutbox(
+                rs.getLong("id"),
+                InventarioCambiadoEvent.builder()
+                        .productoId(rs.getLong("producto_id"))
+                        .tipoMovimiento(rs.getString("tipo_movimiento"))
+                        .cantidadAnterior(rs.getInt("cantidad_anterior"))
+                        .cantidadMovimiento(rs.getInt("cantidad_movimiento"))
+                        .cantidadNueva(rs.getInt("cantidad_nueva"))
+                        .precioUnitario(rs.getBigDecimal("precio_unitario"))
+                        .fechaEvento(rs.getTimestamp("fecha_evento").toInstant())
+                        .build()), limite);
+    }
+
+    /**
+     * Marca los eventos como enviados.
+     */
+    public void marcarEnviados(Collection<Long> ids, LocalDateTime fechaEnvio) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Long[] arreglo = ids.toArray(Long[]::new);
+        jdbcTemplate.update(MARCAR_ENVIADOS, ps -> {
+            ps.setTimestamp(1, Timestamp.valueOf(fechaEnvio));
+            ps.setArray(2, ps.getConnection().createArrayOf("bigint", arreglo));
+        });
+    }
+
+    /**
+     * Borra hasta {@code limite} eventos enviados antes de {@code limiteFecha}.
+     *
+     * @return filas borradas.
+     */
+    public int eliminarEnviados(LocalDateTime limiteFecha, int limite) {
+        return jdbcTemplate.update(ELIMINAR_ENVIADOS, Timestamp.valueOf(limiteFecha), limite);
+    }
+}
@@ -0,0 +1,126 @@
+package com.ms.producto_ms.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mantenimiento de las particiones mensuales de "inventarios" (ver V11).
+ * <p>
+ * Cada mes es una partición {@code inventarios_pAAAA_MM} con rango {@code [primer día, primer día
+ * del mes siguiente)}. Se crean como tabla suelta y luego se adjuntan: ATTACH PARTITION solo toma
+ * SHARE UPDATE EXCLUSIVE sobre la tabla padre, así que no detiene los movimientos. Las particiones
+ * viejas se desprenden con {@code DETACH PARTITION ... CONCURRENTLY}, que tampoco bloquea lecturas
+ * ni escrituras y deja la tabla desprendida intacta para archivarla.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventarioParticionRepository {
+
+    static final String PREFIJO = "inventarios_p";
+    private static final DateTimeFormatter SUFIJO = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final DateTimeFormatter LIMITE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Pattern DESDE = Pattern.compile("FROM \\('([^']+)'\\)");
+    private static final Pattern HASTA = Pattern.compile("TO \\('([^']+)'\\)");
+
+    /** Llave (par de int4) del advisory lock de mantenimiento; no se cruza con los de producto (int8). */
+    private static final int LOCK_CLASE = 0x494E56; // "INV"
+    private static final int LOCK_PARTICIONES = 1;
+
+    private static final String PARTICIONES = """
+            SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) AS limites, i.inhdetachpending
+              FROM pg_inherits i
+              JOIN pg_class c ON c.oid = i.inhrelid
+             WHERE i.inhparent = 'public.inventarios'::regclass
+             ORDER BY c.relname
+            """;
+
+    /**
+     * Partición adjunta a "inventarios".
+     *
+     * @param desde                    límite inferior (inclusive); null si es MINVALUE.
+     * @param hasta                    límite superior (exclusive); null si es MAXVALUE.
+     * @param desprendimientoPendiente un DETACH CONCURRENTLY anterior quedó a medias.
+     */
+    public record Particion(String nombre, LocalDateTime desde, LocalDateTime hasta,
+                            boolean desprendimientoPendiente) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<Particion> listar() {
+        return jdbcTemplate.query(PARTICIONES, (rs, i) -> {
+            String limites = rs.getString("limites");
+            return new Particion(rs.getString("relname"), limite(DESDE, limites), limite(HASTA, limites),
+                    rs.getBoolean("inhdetachpending"));
+        });
+    }
+
+    /**
+     * Toma el advisory lock de mantenimiento de la transacción en curso, para que dos réplicas no
+     * creen la misma partición a la vez.
+     *
+     * @return false si otra réplica lo tiene.
+     */
+    public boolean bloquearMantenimiento() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?, ?)",
+                Boolean.class, LOCK_CLASE, LOCK_PARTICIONES));
+    }
+
+    /**
+     * Limita la espera de locks en la transacción en curso: si una consulta larga retiene la tabla,
+     * el DDL falla y se reintenta después en lugar de encolar detrás a los movimientos.
+     */
+    public void limitarEsperaLocks(Duration espera) {
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '" + espera.toMillis() + "ms'");
+    }
+
+    /**
+     * Crea y adjunta la partición del mes. Debe ejecutarse dentro de una transacción.
+     * <p>
+     * ATTACH exige que la tabla tenga los CHECK de la tabla padre; los índices y el trigger los
+     * agrega el propio ATTACH.
+     */
+    public void crearParticion(YearMonth mes) {
+        String nombre = nombre(mes);
+        String desde = mes.atDay(1).atStartOfDay().format(LIMITE);
+        String hasta = mes.plusMonths(1).atDay(1).atStartOfDay().format(LIMITE);
+        jdbcTemplate.execute("CREATE TABLE public." + nombre + " (LIKE public.inventarios INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        jdbcTemplate.execute("ALTER TABLE public.inventarios ATTACH PARTITION public." + nombre
+                + " FOR VALUES FROM ('" + desde + "') TO ('" + hasta + "')");
+    }
+
+    /**
+     * Desprende la partición sin bloquear la tabla. No puede ejecutarse dentro de una transacción.
+     *
+     * @param finalizar true para completar un DETACH CONCURRENTLY que quedó a medias.
+     */
+    public void desprender(String nombre, boolean finalizar) {
+        jdbcTemplate.execute("ALTER TABLE public.inventarios DETACH PARTITION public." + identificador(nombre)
+                + (finalizar ? " FINALIZE" : " CONCURRENTLY"));
+    }
+
+    public static String nombre(YearMonth mes) {
+        return PREFIJO + mes.format(SUFIJO);
+    }
+
+    private static LocalDateTime limite(Pattern patron, String limites) {
+        Matcher m = patron.matcher(limites);
+        return m.find() ? LocalDateTime.parse(m.group(1).replace(' ', 'T')) : null;
+    }
+
+    private static String identificador(String nombre) {
+        return '"' + nombre.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,15 +1,13 @@
 package com.ms.producto_ms.repository;
 
 import com.ms.producto_ms.entity.InventarioEntity;
-import feign.Param;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
-
 /**
  * Proporciona operaciones CRUD y consultas personalizadas sobre la tabla "inventarios".
  * Extiende {@link JpaRepository}, lo que permite acceder a métodos como:
@@ -26,19 +24,17 @@ import java.util.Optional;
 @Repository
 public interface InventarioRepository extends JpaRepository<InventarioEntity, Long> {
 
-    @Query("""
-        SELECT COALESCE(
-            SUM(
-                CASE WHEN i.tipoMovimiento = 'INGRESO' THEN i.cantidad
-                     WHEN i.tipoMovimiento = 'SALIDA'  THEN -i.cantidad
-                     ELSE 0
-                END
-            ), 0
-        )
-        FROM InventarioEntity i
-        WHERE i.productoId = :productoId
-        """)
-    int obtenerSaldoPorProducto(@Param("productoId") Long productoId);
-
-     Optional<InventarioEntity> findTopByProductoIdOrderByFechaMovimientoDesc(Long productoId);
+    /**
+     * Toma un advisory lock de Postgres con alcance de transacción sobre el producto.
+     * <p>
+     * Serializa las operaciones que modifican el saldo de un mismo producto, incluso entre
+     * varias instancias de inventario-ms que comparten la base de datos. Productos distintos
+     * usan llaves distintas y nunca compiten entre sí. El lock se libera automáticamente
+     * con el commit o rollback, por lo que solo debe invocarse dentro de una transacción.
+     *
+     * @param productoId identificador del producto, usado como llave del lock.
+     * @return siempre 1.
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(:productoId)", nativeQuery = true)
+    Integer bloquearProducto(@Param("productoId") Long productoId);
 }
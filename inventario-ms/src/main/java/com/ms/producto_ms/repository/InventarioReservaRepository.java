@@ -0,0 +1,193 @@
+package com.ms.producto_ms.repository;
+
+import com.ms.producto_ms.util.eventos.InventarioCambiadoEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Acceso a las reservas de stock ("inventario_reservas") y al total reservado por producto
+ * ({@code inventario_saldos.reservado}) con JDBC.
+ * <p>
+ * La tabla solo guarda reservas vigentes: confirmar, liberar o vencer una reserva es eliminar su
+ * fila con {@code DELETE ... RETURNING}, de modo que entre dos caminos concurrentes (por ejemplo
+ * la confirmación y el vencimiento) solo uno la obtiene y descuenta su cantidad del reservado.
+ * Las escrituras suponen tomado el advisory lock de los productos afectados.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventarioReservaRepository {
+
+    private static final String INSERTAR = """
+            INSERT INTO inventario_reservas (id, producto_id, cantidad, expira_en, fecha_creacion)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    private static final String BUSCAR = """
+            SELECT id, producto_id, cantidad, expira_en
+              FROM inventario_reservas
+             WHERE id = ?
+            """;
+
+    private static final String ELIMINAR_VIGENTE = """
+            DELETE FROM inventario_reservas
+             WHERE id = ?
+               AND expira_en > ?
+            RETURNING id, producto_id, cantidad, expira_en
+            """;
+
+    private static final String ELIMINAR = """
+            DELETE FROM inventario_reservas
+             WHERE id = ?
+            RETURNING id, producto_id, cantidad, expira_en
+            """;
+
+    private static final String ELIMINAR_VENCIDAS = """
+            DELETE FROM inventario_reservas
+             WHERE id = ANY (?)
+               AND expira_en <= ?
+            RETURNING id, producto_id, cantidad, expira_en
+            """;
+
+    private static final String SIGUIENTES_VENCIDAS = """
+            SELECT id, producto_id, cantidad, expira_en
+              FROM inventario_reservas
+             WHERE expira_en <= ?
+             ORDER BY expira_en
+             LIMIT ?
+            """;
+
+    private static final String AJUSTAR_RESERVADOS = """
+            UPDATE inventario_saldos s
+               SET reservado            = s.reservado + a.ajuste,
+                   fecha_ultima_reserva = ?
+              FROM unnest(?, ?) AS a(producto_id, ajuste)
+             WHERE s.producto_id = a.producto_id
+            RETURNING s.producto_id, s.saldo, s.reservado, s.ultimo_precio_unitario
+            """;
+
+    private static final RowMapper<Reserva> RESERVA = (rs, i) -> new Reserva(
+            rs.getObject("id", UUID.class),
+            rs.getLong("producto_id"),
+            rs.getInt("cantidad"),
+            rs.getTimestamp("expira_en").toLocalDateTime());
+
+    /**
+     * Reserva vigente de {@code cantidad} unidades de un producto.
+     */
+    public record Reserva(UUID id, long productoId, int cantidad, LocalDateTime expiraEn) {
+    }
+
+    /**
+     * Saldo y unidades reservadas de un producto después de ajustar su reservado.
+     */
+    public record Disponibilidad(long productoId, int saldo, int reservado, BigDecimal ultimoPrecioUnitario) {
+
+        /**
+         * Evento del cambio de reservado para los listeners (saldos en memoria, stream): el saldo no
+         * cambia, solo lo disponible. No es un movimiento del libro y no pasa por la outbox.
+         *
+         * @param ajuste unidades retenidas (positivo) o devueltas (negativo).
+         */
+        public InventarioCambiadoEvent evento(int ajuste) {
+            return InventarioCambiadoEvent.builder()
+                    .productoId(productoId)
+                    .tipoMovimiento("RESERVA")
+                    .cantidadAnterior(saldo)
+                    .cantidadMovimiento(ajuste)
+                    .cantidadNueva(saldo)
+                    .cantidadReservada(reservado)
+                    .precioUnitario(ultimoPrecioUnitario)
+                    .build();
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertar(Reserva reserva, LocalDateTime fechaCreacion) {
+        jdbcTemplate.update(INSERTAR, reserva.id(), reserva.productoId(), reserva.cantidad(),
+                Timestamp.valueOf(reserva.expiraEn()), Timestamp.valueOf(fechaCreacion));
+    }
+
+    public Optional<Reserva> buscar(UUID id) {
+        return jdbcTemplate.query(BUSCAR, RESERVA, id).stream().findFirst();
+    }
+
+    /**
+     * Elimina la reserva si sigue vigente en {@code ahora}; una vencida queda para el vencimiento.
+     *
+     * @return la reserva eliminada, o vacío si no existe o ya venció.
+     */
+    public Optional<Reserva> eliminarVigente(UUID id, LocalDateTime ahora) {
+        return jdbcTemplate.query(ELIMINAR_VIGENTE, RESERVA, id, Timestamp.valueOf(ahora)).stream().findFirst();
+    }
+
+    /**
+     * Elimina la reserva, vigente o no.
+     *
+     * @return la reserva eliminada, o vacío si no existe.
+     */
+    public Optional<Reserva> eliminar(UUID id) {
+        return jdbcTemplate.query(ELIMINAR, RESERVA, id).stream().findFirst();
+    }
+
+    /**
+     * Elimina, de las reservas indicadas, las que vencieron en {@code ahora}.
+     *
+     * @return las reservas eliminadas; las ya confirmadas o liberadas no aparecen.
+     */
+    public List<Reserva> eliminarVencidas(Collection<UUID> ids, LocalDateTime ahora) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        UUID[] arreglo = ids.toArray(UUID[]::new);
+        return jdbcTemplate.query(ELIMINAR_VENCIDAS, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("uuid", arreglo));
+            ps.setTimestamp(2, Timestamp.valueOf(ahora));
+        }, RESERVA);
+    }
+
+    /**
+     * Reservas vencidas en {@code ahora}, de la que venció antes a la más reciente.
+     */
+    public List<Reserva> siguientesVencidas(LocalDateTime ahora, int limite) {
+        return jdbcTemplate.query(SIGUIENTES_VENCIDAS, RESERVA, Timestamp.valueOf(ahora), limite);
+    }
+
+    /**
+     * Suma a las unidades reservadas de cada producto el ajuste con signo indicado, en una sola
+     * sentencia, y marca la fecha del cambio para la resincronización del índice de saldos.
+     *
+     * @param ajustes una entrada por producto.
+     * @return el saldo y el reservado resultantes de cada producto ajustado.
+     */
+    public List<Disponibilidad> ajustarReservados(Map<Long, Integer> ajustes) {
+        if (ajustes.isEmpty()) {
+            return List.of();
+        }
+        Long[] productos = ajustes.keySet().toArray(Long[]::new);
+        Integer[] cantidades = ajustes.values().toArray(Integer[]::new);
+        return jdbcTemplate.query(AJUSTAR_RESERVADOS, ps -> {
+            ps.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            ps.setArray(2, ps.getConnection().createArrayOf("bigint", productos));
+            ps.setArray(3, ps.getConnection().createArrayOf("int4", cantidades));
+        }, (rs, i) -> new Disponibilidad(
+                rs.getLong("producto_id"),
+                rs.getInt("saldo"),
+                rs.getInt("reservado"),
+                rs.getBigDecimal("ultimo_precio_unitario")));
+    }
+}
@@ -0,0 +1,156 @@
+package com.ms.producto_ms.repository;
+
+import com.ms.producto_ms.dto.response.ResumenDiaDto;
+import com.ms.producto_ms.entity.InventarioEntity;
+import com.ms.producto_ms.enmun.TipoMovimientoEmun;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Acceso al resumen diario de movimientos por producto ("inventario_resumen_diario") con JDBC.
+ * <p>
+ * Los movimientos se acumulan en la misma transacción que los registra, igual que la proyección
+ * de saldos: cada fila suma los ingresos y salidas confirmados del producto en el día. Para los
+ * movimientos anteriores a la tabla, {@link #reconstruir(Collection)} recalcula las filas de un
+ * grupo de productos desde el libro.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventarioResumenRepository {
+
+    private static final String ACUMULAR = """
+            INSERT INTO inventario_resumen_diario (producto_id, dia, cantidad_ingresos, valor_ingresos,
+                                                   cantidad_salidas, valor_salidas, movimientos)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (producto_id, dia) DO UPDATE
+               SET cantidad_ingresos = inventario_resumen_diario.cantidad_ingresos + EXCLUDED.cantidad_ingresos,
+                   valor_ingresos    = inventario_resumen_diario.valor_ingresos + EXCLUDED.valor_ingresos,
+                   cantidad_salidas  = inventario_resumen_diario.cantidad_salidas + EXCLUDED.cantidad_salidas,
+                   valor_salidas     = inventario_resumen_diario.valor_salidas + EXCLUDED.valor_salidas,
+                   movimientos       = inventario_resumen_diario.movimientos + EXCLUDED.movimientos
+            """;
+
+    private static final String RECONSTRUIR = """
+            INSERT INTO inventario_resumen_diario (producto_id, dia, cantidad_ingresos, valor_ingresos,
+                                                   cantidad_salidas, valor_salidas, movimientos)
+            SELECT i.producto_id,
+                   CAST(i.fecha_movimiento AS date),
+                   COALESCE(SUM(i.cantidad) FILTER (WHERE i.tipo = 1), 0),
+                   COALESCE(SUM(i.precio_total) FILTER (WHERE i.tipo = 1), 0),
+                   COALESCE(SUM(i.cantidad) FILTER (WHERE i.tipo = 2), 0),
+                   COALESCE(SUM(i.precio_total) FILTER (WHERE i.tipo = 2), 0),
+                   COUNT(*)
+              FROM inventarios i
+             WHERE i.producto_id = ANY (?)
+             GROUP BY i.producto_id, CAST(i.fecha_movimiento AS date)
+            ON CONFLICT (producto_id, dia) DO UPDATE
+               SET cantidad_ingresos = EXCLUDED.cantidad_ingresos,
+                   valor_ingresos    = EXCLUDED.valor_ingresos,
+                   cantidad_salidas  = EXCLUDED.cantidad_salidas,
+                   valor_salidas     = EXCLUDED.valor_salidas,
+                   movimientos       = EXCLUDED.movimientos
+            """;
+
+    private static final String CONSULTAR = """
+            SELECT dia, cantidad_ingresos, valor_ingresos, cantidad_salidas, valor_salidas, movimientos
+              FROM inventario_resumen_diario
+             WHERE producto_id = ?
+               AND dia BETWEEN ? AND ?
+             ORDER BY dia
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Suma los movimientos al resumen de su producto y día, con una sentencia por par
+     * (producto, día) en un solo lote.
+     *
+     * @param movimientos movimientos de la transacción en curso, con su fecha ya asignada.
+     */
+    public void acumular(List<InventarioEntity> movimientos) {
+        // Ordenado por (producto, día) para que dos lotes concurrentes tomen las filas en el mismo orden
+        Map<Llave, Acumulado> acumulados = new TreeMap<>();
+        for (InventarioEntity m : movimientos) {
+            Acumulado acumulado = acumulados.computeIfAbsent(
+                    new Llave(m.getProductoId(), m.getFechaMovimiento().toLocalDate()), k -> new Acumulado());
+            if (m.getTipoMovimiento() == TipoMovimientoEmun.INGRESO) {
+                acumulado.cantidadIngresos += m.getCantidad();
+                acumulado.valorIngresos = acumulado.valorIngresos.add(m.getPrecioTotal());
+            } else {
+                acumulado.cantidadSalidas += m.getCantidad();
+                acumulado.valorSalidas = acumulado.valorSalidas.add(m.getPrecioTotal());
+            }
+            acumulado.movimientos++;
+        }
+
+        jdbcTemplate.batchUpdate(ACUMULAR, acumulados.entrySet(), acumulados.size(), (ps, e) -> {
+            Acumulado a = e.getValue();
+            ps.setLong(1, e.getKey().productoId());
+            ps.setDate(2, Date.valueOf(e.getKey().dia()));
+            ps.setLong(3, a.cantidadIngresos);
+            ps.setBigDecimal(4, a.valorIngresos);
+            ps.setLong(5, a.cantidadSalidas);
+            ps.setBigDecimal(6, a.valorSalidas);
+            ps.setInt(7, a.movimientos);
+        });
+    }
+
+    /**
+     * Recalcula desde el libro todas las filas de los productos indicados, reemplazando las
+     * existentes. El llamador debe tener tomado el advisory lock de cada producto para que ningún
+     * movimiento se confirme entre la lectura del libro y la escritura del resumen.
+     *
+     * @return filas escritas.
+     */
+    public int reconstruir(Collection<Long> productoIdsOrdenados) {
+        if (productoIdsOrdenados.isEmpty()) {
+            return 0;
+        }
+        Long[] ids = productoIdsOrdenados.toArray(Long[]::new);
+        return jdbcTemplate.update(RECONSTRUIR,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)));
+    }
+
+    /**
+     * Días con movimientos del producto entre {@code desde} y {@code hasta}, ambos inclusive.
+     */
+    public List<ResumenDiaDto> consultar(Long productoId, LocalDate desde, LocalDate hasta) {
+        return jdbcTemplate.query(CONSULTAR, (rs, i) -> ResumenDiaDto.builder()
+                .dia(rs.getDate("dia").toLocalDate())
+                .cantidadIngresos(rs.getLong("cantidad_ingresos"))
+                .valorIngresos(rs.getBigDecimal("valor_ingresos"))
+                .cantidadSalidas(rs.getLong("cantidad_salidas"))
+                .valorSalidas(rs.getBigDecimal("valor_salidas"))
+                .movimientos(rs.getLong("movimientos"))
+                .build(), productoId, Date.valueOf(desde), Date.valueOf(hasta));
+    }
+
+    private record Llave(long productoId, LocalDate dia) implements Comparable<Llave> {
+
+        @Override
+        public int compareTo(Llave otra) {
+            int porProducto = Long.compare(productoId, otra.productoId);
+            return porProducto != 0 ? porProducto : dia.compareTo(otra.dia);
+        }
+    }
+
+    private static final class Acumulado {
+        private long cantidadIngresos;
+        private BigDecimal valorIngresos = BigDecimal.ZERO;
+        private long cantidadSalidas;
+        private BigDecimal valorSalidas = BigDecimal.ZERO;
+        private int movimientos;
+    }
+}
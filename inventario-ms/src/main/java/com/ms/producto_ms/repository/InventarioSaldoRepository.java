@@ -0,0 +1,123 @@
+package com.ms.producto_ms.repository;
+
+import com.ms.producto_ms.entity.InventarioSaldoEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Proporciona acceso a la tabla "inventario_saldos", proyección del saldo por producto.
+ * <p>
+ * La lectura del saldo se hace con {@code findById(productoId)}; las escrituras se
+ * hacen siempre con upsert atómico para que la proyección avance en la misma
+ * transacción que el movimiento que la origina.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Repository
+public interface InventarioSaldoRepository extends JpaRepository<InventarioSaldoEntity, Long> {
+
+    /**
+     * Aplica un movimiento sobre la proyección, creando la fila si el producto aún no la tiene.
+     *
+     * @param productoId      identificador del producto.
+     * @param delta           cantidad con signo (positiva para INGRESO, negativa para SALIDA).
+     * @param precioUnitario  precio unitario del movimiento.
+     * @param fechaMovimiento fecha del movimiento.
+     * @return número de filas afectadas.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = """
+        INSERT INTO inventario_saldos (producto_id, saldo, ultimo_precio_unitario, fecha_ultimo_movimiento)
+        VALUES (:productoId, :delta, :precioUnitario, :fechaMovimiento)
+        ON CONFLICT (producto_id) DO UPDATE
+           SET saldo                   = inventario_saldos.saldo + EXCLUDED.saldo,
+               ultimo_precio_unitario  = EXCLUDED.ultimo_precio_unitario,
+               fecha_ultimo_movimiento = EXCLUDED.fecha_ultimo_movimiento
+        """, nativeQuery = true)
+    int aplicarMovimiento(@Param("productoId") Long productoId,
+                          @Param("delta") int delta,
+                          @Param("precioUnitario") BigDecimal precioUnitario,
+                          @Param("fechaMovimiento") LocalDateTime fechaMovimiento);
+
+    /**
+     * Bloquea la tabla de movimientos contra escrituras hasta el fin de la transacción,
+     * de modo que la reconstrucción trabaje sobre una foto consistente del libro.
+     */
+    @Modifying
+    @Query(value = "LOCK TABLE inventarios IN SHARE MODE", nativeQuery = true)
+    void bloquearMovimientos();
+
+    /**
+     * Recalcula la proyección completa a partir de la tabla "inventarios".
+     *
+     * @return número de productos reconstruidos.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = """
+        INSERT INTO inventario_saldos (producto_id, saldo, ultimo_precio_unitario, fecha_ultimo_movimiento)
+        SELECT i.producto_id,
+               COALESCE(SUM(i.delta), 0),
+               (ARRAY_AGG(i.precio_unitario ORDER BY i.fecha_movimiento DESC, i.id DESC))[1],
+               MAX(i.fecha_movimiento)
+        FROM inventarios i
+        GROUP BY i.producto_id
+        ON CONFLICT (producto_id) DO UPDATE
+           SET saldo                   = EXCLUDED.saldo,
+               ultimo_precio_unitario  = EXCLUDED.ultimo_precio_unitario,
+               fecha_ultimo_movimiento = EXCLUDED.fecha_ultimo_movimiento
+        """, nativeQuery = true)
+    int reconstruirDesdeMovimientos();
+
+    /**
+     * Recalcula la proyección partiendo de los checkpoints: a cada saldo guardado le suma solo los
+     * movimientos posteriores a su checkpoint; los productos sin checkpoint se suman completos.
+     * <p>
+     * Los productos salen del libro (con saltos sobre el índice {@code (producto_id, id)}), así que
+     * también se reconstruyen los que no tienen fila en la proyección.
+     *
+     * @return número de productos reconstruidos.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = """
+        WITH RECURSIVE p(producto_id) AS (
+            SELECT MIN(i.producto_id) FROM inventarios i
+            UNION ALL
+            SELECT (SELECT MIN(i.producto_id) FROM inventarios i WHERE i.producto_id > p.producto_id)
+            FROM p
+            WHERE p.producto_id IS NOT NULL
+        )
+        INSERT INTO inventario_saldos (producto_id, saldo, ultimo_precio_unitario, fecha_ultimo_movimiento)
+        SELECT p.producto_id,
+               COALESCE(c.saldo, 0) + COALESCE(n.delta, 0),
+               u.precio_unitario,
+               u.fecha_movimiento
+        FROM p
+        LEFT JOIN inventario_checkpoints c ON c.producto_id = p.producto_id
+        CROSS JOIN LATERAL (
+            SELECT SUM(i.delta) AS delta
+            FROM inventarios i
+            WHERE i.producto_id = p.producto_id
+              AND i.id > COALESCE(c.ultimo_movimiento_id, 0)) n
+        LEFT JOIN LATERAL (
+            SELECT i.precio_unitario, i.fecha_movimiento
+            FROM inventarios i
+            WHERE i.producto_id = p.producto_id
+            ORDER BY i.fecha_movimiento DESC, i.id DESC
+            LIMIT 1) u ON true
+        WHERE p.producto_id IS NOT NULL
+        ON CONFLICT (producto_id) DO UPDATE
+           SET saldo                   = EXCLUDED.saldo,
+               ultimo_precio_unitario  = COALESCE(EXCLUDED.ultimo_precio_unitario,
+                                                  inventario_saldos.ultimo_precio_unitario),
+               fecha_ultimo_movimiento = COALESCE(EXCLUDED.fecha_ultimo_movimiento,
+                                                  inventario_saldos.fecha_ultimo_movimiento)
+        """, nativeQuery = true)
+    int reconstruirDesdeCheckpoints();
+}
@@ -0,0 +1,207 @@
+package com.ms.producto_ms.repository;
+
+import com.ms.producto_ms.enmun.TipoMovimientoEmun;
+import com.ms.producto_ms.util.valoracion.Valoracion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Acceso a la valoración del inventario ("inventario_valoracion") y a las capas de costo FIFO
+ * ("inventario_capas_costo") con JDBC.
+ * <p>
+ * Todas las escrituras suponen tomado el advisory lock de los productos afectados, igual que los
+ * movimientos: así el estado leído no cambia hasta que se guarda el nuevo.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventarioValoracionRepository {
+
+    private static final String BUSCAR = """
+            SELECT producto_id, cantidad, valor_promedio, costo_ventas_promedio, valor_fifo, costo_ventas_fifo
+              FROM inventario_valoracion
+             WHERE producto_id = ANY (?)
+            """;
+
+    private static final String GUARDAR = """
+            INSERT INTO inventario_valoracion (producto_id, cantidad, valor_promedio, costo_ventas_promedio,
+                                               valor_fifo, costo_ventas_fifo, fecha_actualizacion)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (producto_id) DO UPDATE
+               SET cantidad              = EXCLUDED.cantidad,
+                   valor_promedio        = EXCLUDED.valor_promedio,
+                   costo_ventas_promedio = EXCLUDED.costo_ventas_promedio,
+                   valor_fifo            = EXCLUDED.valor_fifo,
+                   costo_ventas_fifo     = EXCLUDED.costo_ventas_fifo,
+                   fecha_actualizacion   = EXCLUDED.fecha_actualizacion
+            """;
+
+    private static final String SIGUIENTES_CAPAS = """
+            SELECT id, cantidad_restante, costo_unitario, fecha_ingreso
+              FROM inventario_capas_costo
+             WHERE producto_id = ?
+               AND id > ?
+             ORDER BY id
+             LIMIT ?
+            """;
+
+    private static final String INSERTAR_CAPA = """
+            INSERT INTO inventario_capas_costo (producto_id, cantidad_restante, costo_unitario, fecha_ingreso)
+            VALUES (?, ?, ?, ?)
+            """;
+
+    private static final String ACTUALIZAR_CAPA = """
+            UPDATE inventario_capas_costo
+               SET cantidad_restante = ?
+             WHERE id = ?
+            """;
+
+    private static final String ELIMINAR_CAPAS = """
+            DELETE FROM inventario_capas_costo
+             WHERE id = ANY (?)
+            """;
+
+    private static final String ELIMINAR_CAPAS_PRODUCTOS = """
+            DELETE FROM inventario_capas_costo
+             WHERE producto_id = ANY (?)
+            """;
+
+    private static final String RECORRER_MOVIMIENTOS = """
+            SELECT producto_id, tipo, cantidad, precio_unitario, fecha_movimiento
+              FROM inventarios
+             WHERE producto_id = ANY (?)
+             ORDER BY producto_id, id
+            """;
+
+    /**
+     * Movimiento del libro leído en un recorrido.
+     */
+    @FunctionalInterface
+    public interface MovimientoLeido {
+        void aceptar(long productoId, TipoMovimientoEmun tipoMovimiento, int cantidad, BigDecimal precioUnitario,
+                     LocalDateTime fechaMovimiento);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return la valoración guardada de cada producto que la tenga.
+     */
+    public Map<Long, Valoracion> buscar(Collection<Long> productoIds) {
+        Map<Long, Valoracion> valoraciones = new HashMap<>();
+        if (productoIds.isEmpty()) {
+            return valoraciones;
+        }
+        Long[] ids = productoIds.toArray(Long[]::new);
+        jdbcTemplate.query(BUSCAR,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                (RowCallbackHandler) rs -> valoraciones.put(rs.getLong("producto_id"), new Valoracion(
+                        rs.getLong("cantidad"),
+                        rs.getBigDecimal("valor_promedio"),
+                        rs.getBigDecimal("costo_ventas_promedio"),
+                        rs.getBigDecimal("valor_fifo"),
+                        rs.getBigDecimal("costo_ventas_fifo"))));
+        return valoraciones;
+    }
+
+    public Optional<Valoracion> buscar(Long productoId) {
+        return Optional.ofNullable(buscar(List.of(productoId)).get(productoId));
+    }
+
+    /**
+     * Reemplaza la valoración de cada producto.
+     */
+    public void guardar(Map<Long, Valoracion> valoraciones, LocalDateTime fecha) {
+        jdbcTemplate.batchUpdate(GUARDAR, valoraciones.entrySet(), valoraciones.size(), (ps, e) -> {
+            Valoracion v = e.getValue();
+            ps.setLong(1, e.getKey());
+            ps.setLong(2, v.getCantidad());
+            ps.setBigDecimal(3, v.getValorPromedio());
+            ps.setBigDecimal(4, v.getCostoVentasPromedio());
+            ps.setBigDecimal(5, v.getValorFifo());
+            ps.setBigDecimal(6, v.getCostoVentasFifo());
+            ps.setTimestamp(7, Timestamp.valueOf(fecha));
+        });
+    }
+
+    /**
+     * Capas con unidades pendientes posteriores a {@code despuesDeId}, de la más antigua a la más nueva.
+     */
+    public List<Valoracion.Capa> siguientesCapas(long productoId, long despuesDeId, int limite) {
+        return jdbcTemplate.query(SIGUIENTES_CAPAS, (rs, i) -> new Valoracion.Capa(
+                rs.getLong("id"),
+                rs.getInt("cantidad_restante"),
+                rs.getBigDecimal("costo_unitario"),
+                rs.getTimestamp("fecha_ingreso").toLocalDateTime()), productoId, despuesDeId, limite);
+    }
+
+    /**
+     * Inserta las capas en el orden recibido, que pasa a ser su orden de consumo.
+     */
+    public void insertarCapas(long productoId, Collection<Valoracion.Capa> capas) {
+        jdbcTemplate.batchUpdate(INSERTAR_CAPA, capas, capas.size(), (ps, c) -> {
+            ps.setLong(1, productoId);
+            ps.setInt(2, c.getCantidadRestante());
+            ps.setBigDecimal(3, c.getCostoUnitario());
+            ps.setTimestamp(4, Timestamp.valueOf(c.getFechaIngreso()));
+        });
+    }
+
+    public void actualizarCapas(Collection<Valoracion.Capa> capas) {
+        jdbcTemplate.batchUpdate(ACTUALIZAR_CAPA, capas, capas.size(), (ps, c) -> {
+            ps.setInt(1, c.getCantidadRestante());
+            ps.setLong(2, c.getId());
+        });
+    }
+
+    public void eliminarCapas(Collection<Long> capaIds) {
+        if (capaIds.isEmpty()) {
+            return;
+        }
+        Long[] ids = capaIds.toArray(Long[]::new);
+        jdbcTemplate.update(ELIMINAR_CAPAS, ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)));
+    }
+
+    /**
+     * Borra todas las capas de los productos, antes de reconstruir su valoración.
+     */
+    public void eliminarCapasDeProductos(Collection<Long> productoIds) {
+        Long[] ids = productoIds.toArray(Long[]::new);
+        jdbcTemplate.update(ELIMINAR_CAPAS_PRODUCTOS,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)));
+    }
+
+    /**
+     * Recorre los movimientos de los productos en el orden en que se aplicaron (por producto y id),
+     * sin cargarlos enteros en memoria. Debe ejecutarse dentro de una transacción para que el
+     * driver use cursor.
+     */
+    public void recorrerMovimientos(Collection<Long> productoIds, int tamanoFetch, MovimientoLeido consumidor) {
+        Long[] ids = productoIds.toArray(Long[]::new);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(RECORRER_MOVIMIENTOS);
+            ps.setFetchSize(tamanoFetch);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            return ps;
+        }, (RowCallbackHandler) rs -> consumidor.aceptar(
+                rs.getLong("producto_id"),
+                TipoMovimientoEmun.deCodigo(rs.getShort("tipo")),
+                rs.getInt("cantidad"),
+                rs.getBigDecimal("precio_unitario"),
+                rs.getTimestamp("fecha_movimiento").toLocalDateTime()));
+    }
+}
@@ -1,11 +1,25 @@
 package com.ms.producto_ms.service;
 
 
+import com.ms.producto_ms.dto.request.MovimientoLoteRequest;
 import com.ms.producto_ms.dto.response.InventarioDetalleResponse;
+import com.ms.producto_ms.dto.response.MovimientoLoteResponse;
+import com.ms.producto_ms.dto.response.MovimientosPaginaResponse;
+import com.ms.producto_ms.dto.response.ResumenDiarioResponse;
+import com.ms.producto_ms.dto.response.SaldoProductoDto;
+import com.ms.producto_ms.dto.response.ValoracionResponse;
+import com.ms.producto_ms.enmun.OrdenEmun;
 import com.ms.producto_ms.entity.InventarioEntity;
 import com.ms.producto_ms.exception.CustomException;
+import com.ms.producto_ms.util.concurrencia.MovimientoAgrupado;
+import com.ms.producto_ms.util.concurrencia.ResultadoAgrupado;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Interfaz que define las operaciones de negocio relacionadas con la entidad {@link InventarioEntity}.
@@ -28,9 +42,130 @@ import java.math.BigDecimal;
 public interface    InventarioInterface {
 
 
-    int agregarCantidad(Long productoId, Integer cantidad, BigDecimal precioUnitario)  throws CustomException;
+    /**
+     * Registra un INGRESO y devuelve la nueva cantidad disponible.
+     * <p>
+     * Con {@code claveIdempotencia} el movimiento se aplica una sola vez: un reintento con la misma
+     * clave y los mismos datos devuelve la cantidad resultante original sin registrar nada; con
+     * datos distintos se rechaza.
+     *
+     * @param claveIdempotencia clave elegida por el cliente para el movimiento, o null.
+     * @throws CustomException si los datos no son válidos, el producto no existe, la clave se usó
+     *                         con otro movimiento o falla la comunicación con productos.
+     */
+    int agregarCantidad(Long productoId, Integer cantidad, BigDecimal precioUnitario, String claveIdempotencia)
+            throws CustomException;
 
-    int retirarCantidad(Long productoId, Integer cantidad, BigDecimal precioUnitario)  throws CustomException;
+    /**
+     * Registra una SALIDA y devuelve la nueva cantidad disponible. La clave de idempotencia se
+     * trata igual que en {@link #agregarCantidad}.
+     *
+     * @param claveIdempotencia clave elegida por el cliente para el movimiento, o null.
+     * @throws CustomException si los datos no son válidos, no hay saldo suficiente, la clave se usó
+     *                         con otro movimiento o falla la comunicación con productos.
+     */
+    int retirarCantidad(Long productoId, Integer cantidad, BigDecimal precioUnitario, String claveIdempotencia)
+            throws CustomException;
 
-    InventarioDetalleResponse consultarDetalleInventario(Long productoId) throws CustomException;
+    /**
+     * Consulta nombre, saldo y precio unitario de un producto.
+     * <p>
+     * Por defecto el saldo sale del índice en memoria, que se actualiza después de cada commit y
+     * puede ir unos instantes por detrás; con {@code consistente} se lee de la base de datos.
+     *
+     * @param productoId  ID del producto.
+     * @param consistente si el saldo debe leerse de la base de datos.
+     * @return detalle del inventario del producto.
+     * @throws CustomException si el producto no existe o falla la comunicación con productos.
+     */
+    InventarioDetalleResponse consultarDetalleInventario(Long productoId, boolean consistente)
+            throws CustomException;
+
+    /**
+     * Consulta el saldo de varios productos con una sola lectura de la proyección de saldos.
+     * <p>
+     * Los productos sin movimientos se devuelven con cantidad 0. Los nombres solo se resuelven
+     * cuando se piden, con una única consulta al micro de productos.
+     *
+     * @param productoIds    IDs de los productos (se ignoran repetidos y nulos).
+     * @param incluirNombres si se debe incluir el nombre de cada producto.
+     * @return saldo por ID de producto, en el orden solicitado.
+     * @throws CustomException si no se indica ningún ID, se supera el máximo o falla productos.
+     */
+    Map<Long, SaldoProductoDto> consultarSaldos(Collection<Long> productoIds, boolean incluirNombres)
+            throws CustomException;
+
+    /**
+     * Registra un lote de movimientos (INGRESO / SALIDA) en una sola transacción.
+     * <p>
+     * Valida todos los productos referenciados de una vez, toma los saldos iniciales con
+     * una sola consulta e inserta los movimientos con sentencias agrupadas. En modo
+     * {@code ATOMICO} una línea rechazada impide registrar el lote completo; en modo
+     * {@code PARCIAL} se registran las líneas válidas.
+     *
+     * @param request lote de movimientos y modo de aplicación.
+     * @return resultado por línea y totales del lote.
+     * @throws CustomException si el lote está vacío o falla la comunicación con productos.
+     */
+    MovimientoLoteResponse registrarLote(MovimientoLoteRequest request) throws CustomException;
+
+    /**
+     * Registra en una sola transacción los ingresos y salidas pendientes de un producto.
+     * <p>
+     * Toma el lock del producto y lee su saldo una vez, aplica los movimientos en el orden recibido
+     * y los inserta con sentencias agrupadas. Cada movimiento recibe su propio resultado: uno
+     * rechazado (datos inválidos, saldo insuficiente, clave de idempotencia en uso) no impide
+     * confirmar los demás. Un reintento con una clave ya confirmada recibe la cantidad original.
+     *
+     * @param productoId  ID del producto de todos los movimientos.
+     * @param movimientos movimientos en orden de llegada.
+     * @return un resultado por movimiento, en el mismo orden.
+     * @throws CustomException si el producto no existe o falla la comunicación con productos; afecta
+     *                         a todo el grupo.
+     */
+    List<ResultadoAgrupado> registrarGrupo(Long productoId, List<MovimientoAgrupado> movimientos)
+            throws CustomException;
+
+    /**
+     * Consulta una página del historial de movimientos (kardex) de un producto.
+     * <p>
+     * Paginación por llave sobre {@code (fecha_movimiento, id)}: cada página trae el cursor de la
+     * siguiente, y todas cuestan lo mismo sin importar su profundidad. No se cuenta el total.
+     *
+     * @param productoId     ID del producto.
+     * @param desde          fecha mínima (inclusive), opcional.
+     * @param hasta          fecha máxima (exclusive), opcional.
+     * @param tipoMovimiento INGRESO o SALIDA, opcional.
+     * @param orden          orden cronológico; por defecto del más reciente al más antiguo.
+     * @param cursor         {@code siguienteCursor} de la página anterior, o null para la primera.
+     * @param limite         movimientos por página; por defecto 50, máximo 500.
+     * @return movimientos de la página y cursor de la siguiente.
+     * @throws CustomException si los filtros, el límite o el cursor no son válidos.
+     */
+    MovimientosPaginaResponse consultarMovimientos(Long productoId, LocalDateTime desde, LocalDateTime hasta,
+                                                   String tipoMovimiento, OrdenEmun orden, String cursor,
+                                                   Integer limite) throws CustomException;
+
+    /**
+     * Ingresos y salidas del producto por día, en cantidades y valores, leídos del resumen diario.
+     * Un rango de un año lee a lo sumo 366 filas, sin importar cuántos movimientos tenga el producto.
+     *
+     * @param productoId ID del producto.
+     * @param desde      primer día (inclusive).
+     * @param hasta      último día (inclusive); el rango admite hasta 1830 días.
+     * @return los días con movimientos, en orden, y los totales del rango.
+     * @throws CustomException si faltan las fechas o el rango no es válido.
+     */
+    ResumenDiarioResponse consultarResumenDiario(Long productoId, LocalDate desde, LocalDate hasta)
+            throws CustomException;
+
+    /**
+     * Valor de las existencias del producto y costo de ventas acumulado, por costo promedio
+     * ponderado y por FIFO. Se mantiene con cada movimiento, así que la consulta no recorre el libro.
+     *
+     * @param productoId ID del producto.
+     * @return la valoración vigente; en cero si el producto no tiene movimientos.
+     * @throws CustomException si el ID es nulo.
+     */
+    ValoracionResponse consultarValoracion(Long productoId) throws CustomException;
 }
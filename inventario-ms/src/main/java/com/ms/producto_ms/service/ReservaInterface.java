@@ -0,0 +1,54 @@
+package com.ms.producto_ms.service;
+
+import com.ms.producto_ms.dto.response.ReservaResponse;
+import com.ms.producto_ms.exception.CustomException;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Reservas de stock para el checkout: retienen unidades de un producto por un tiempo limitado
+ * hasta que se confirman como SALIDA o se liberan.
+ * <p>
+ * La cantidad libre de un producto es su saldo menos lo retenido por reservas vigentes; las
+ * salidas directas y los lotes tampoco pueden tomar unidades reservadas. Una reserva que no se
+ * confirma a tiempo vence sola y devuelve sus unidades.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+public interface ReservaInterface {
+
+    /**
+     * Retiene {@code cantidad} unidades del producto.
+     *
+     * @param ttlSegundos vigencia de la reserva, o null para la vigencia por defecto.
+     * @return la reserva creada, con la cantidad que queda libre.
+     * @throws CustomException si los datos no son válidos, la vigencia supera el máximo o no hay
+     *                         suficiente cantidad libre.
+     */
+    ReservaResponse reservar(Long productoId, Integer cantidad, Integer ttlSegundos) throws CustomException;
+
+    /**
+     * @throws CustomException si la reserva no existe o ya venció.
+     */
+    ReservaResponse consultarReserva(UUID reservaId) throws CustomException;
+
+    /**
+     * Convierte la reserva en una SALIDA de su cantidad, en una sola transacción.
+     * <p>
+     * Una reserva se confirma una sola vez: un reintento después de confirmarla responde 404.
+     *
+     * @return la nueva cantidad del producto.
+     * @throws CustomException si la reserva no existe, ya venció o la salida se rechaza.
+     */
+    int confirmarReserva(UUID reservaId, BigDecimal precioUnitario) throws CustomException;
+
+    /**
+     * Libera la reserva y devuelve sus unidades a la cantidad libre.
+     *
+     * @return la reserva liberada, con la cantidad que queda libre.
+     * @throws CustomException si la reserva no existe.
+     */
+    ReservaResponse liberarReserva(UUID reservaId) throws CustomException;
+}
@@ -1,27 +1,60 @@
 package com.ms.producto_ms.service.impl;
 
 import com.ms.producto_ms.client.ProductosClient;
+import com.ms.producto_ms.dto.request.MovimientoLoteItemRequest;
+import com.ms.producto_ms.dto.request.MovimientoLoteRequest;
+import com.ms.producto_ms.dto.request.ProductosLoteRequest;
 import com.ms.producto_ms.dto.response.ApiResponse;
 import com.ms.producto_ms.dto.response.InventarioDetalleResponse;
+import com.ms.producto_ms.dto.response.MovimientoLoteResponse;
+import com.ms.producto_ms.dto.response.MovimientoInventarioDto;
+import com.ms.producto_ms.dto.response.MovimientoLoteResultadoDto;
+import com.ms.producto_ms.dto.response.MovimientosPaginaResponse;
 import com.ms.producto_ms.dto.response.ProductoResumenDto;
+import com.ms.producto_ms.dto.response.ResumenDiaDto;
+import com.ms.producto_ms.dto.response.ResumenDiarioResponse;
+import com.ms.producto_ms.dto.response.SaldoProductoDto;
+import com.ms.producto_ms.dto.response.ValoracionResponse;
+import com.ms.producto_ms.enmun.ModoLoteEmun;
+import com.ms.producto_ms.enmun.OrdenEmun;
+import com.ms.producto_ms.enmun.TipoMovimientoEmun;
 import com.ms.producto_ms.entity.InventarioEntity;
+import com.ms.producto_ms.entity.InventarioSaldoEntity;
 import com.ms.producto_ms.exception.CustomException;
+import com.ms.producto_ms.repository.InventarioIdempotenciaRepository;
+import com.ms.producto_ms.repository.InventarioJdbcRepository;
+import com.ms.producto_ms.repository.InventarioOutboxRepository;
 import com.ms.producto_ms.repository.InventarioRepository;
+import com.ms.producto_ms.repository.InventarioResumenRepository;
+import com.ms.producto_ms.repository.InventarioSaldoRepository;
+import com.ms.producto_ms.repository.InventarioValoracionRepository;
 import com.ms.producto_ms.service.InventarioInterface;
+import com.ms.producto_ms.util.cache.ProductosCache;
+import com.ms.producto_ms.util.cache.SaldosIndice;
+import com.ms.producto_ms.util.concurrencia.EjecutorConsultas;
+import com.ms.producto_ms.util.concurrencia.MovimientoAgrupado;
+import com.ms.producto_ms.util.concurrencia.ResultadoAgrupado;
 import com.ms.producto_ms.util.eventos.InventarioCambiadoEvent;
+import com.ms.producto_ms.util.idempotencia.RegistroIdempotencia;
+import com.ms.producto_ms.util.paginacion.CursorMovimiento;
+import com.ms.producto_ms.util.resiliencia.ProductosCircuito;
+import com.ms.producto_ms.util.valoracion.MotorValoracion;
+import com.ms.producto_ms.util.valoracion.Valoracion;
 import feign.FeignException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.util.Map;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -39,14 +72,36 @@ import java.util.Map;
 @Service
 public class InventarioService implements InventarioInterface {
 
+    static final int MAX_PRODUCTOS_CONSULTA = 1000;
+    /** Ids por llamada al lote de productos (el micro de productos acepta hasta 1000). */
+    static final int TAMANO_LOTE_PRODUCTOS = 500;
+    static final int LIMITE_MOVIMIENTOS_DEFECTO = 50;
+    static final int MAX_LIMITE_MOVIMIENTOS = 500;
+    /** Días máximos por consulta de resumen diario (cinco años). */
+    static final int MAX_DIAS_RESUMEN = 1830;
+    /** Largo máximo de la clave de idempotencia (columna {@code varchar(100)}). */
+    static final int MAX_LARGO_CLAVE_IDEMPOTENCIA = 100;
+
     private final InventarioRepository inventarioRepository;
+    private final InventarioSaldoRepository saldoRepository;
+    private final InventarioJdbcRepository inventarioJdbcRepository;
+    private final InventarioOutboxRepository outboxRepository;
+    private final InventarioIdempotenciaRepository idempotenciaRepository;
+    private final InventarioResumenRepository resumenRepository;
+    private final MotorValoracion motorValoracion;
+    private final InventarioValoracionRepository valoracionRepository;
     private final ProductosClient productosClient;
+    private final ProductosCache productosCache;
+    private final ProductosCircuito productosCircuito;
+    private final EjecutorConsultas ejecutorConsultas;
+    private final SaldosIndice saldosIndice;
     private final ApplicationEventPublisher eventPublisher;
 
     // ====== INGRESO ======
     @Override
-    @Transactional
-    public int agregarCantidad(Long productoId, Integer cantidad, BigDecimal precioUnitario) throws CustomException {
+    @Transactional(rollbackFor = CustomException.class)
+    public int agregarCantidad(Long productoId, Integer cantidad, BigDecimal precioUnitario,
+                               String claveIdempotencia) throws CustomException {
         if (productoId == null) {
             throw new CustomException("El ID del producto es obligatorio", HttpStatus.BAD_REQUEST);
         }
@@ -57,22 +112,36 @@ public class InventarioService implements InventarioInterface {
             throw new CustomException("El precio unitario debe ser mayor que 0", HttpStatus.BAD_REQUEST);
         }
 
-        // Válida y trae datos básicos del producto
-        ProductoResumenDto producto = obtenerProducto(productoId);
+        // Reintento de un movimiento ya confirmado: se responde lo mismo sin tocar el libro
+        Integer repetido = reclamarClave(claveIdempotencia, "INGRESO", productoId, cantidad, precioUnitario);
+        if (repetido != null) {
+            return repetido;
+        }
+
+        // Válida y trae datos básicos del producto antes del lock: la llamada remota no debe
+        // retener a los demás movimientos del producto
+        ProductoResumenDto producto = esperarProducto(productoId, iniciarConsultaProducto(productoId),
+                ejecutorConsultas.limite());
 
-        int cantidadAnterior = inventarioRepository.obtenerSaldoPorProducto(productoId);
+        // Serializa los movimientos del producto (también entre réplicas) antes de leer el saldo
+        inventarioRepository.bloquearProducto(productoId);
+        InventarioSaldoEntity saldo = saldoRepository.findById(productoId).orElse(null);
+        int cantidadAnterior = saldo != null ? saldo.getSaldo() : 0;
 
         BigDecimal precioTotal = precioUnitario.multiply(BigDecimal.valueOf(cantidad));
 
         InventarioEntity movimiento = InventarioEntity.builder()
                 .productoId(productoId)
                 .cantidad(cantidad)
-                .tipoMovimiento("INGRESO")
+                .tipoMovimiento(TipoMovimientoEmun.INGRESO)
                 .precioUnitario(precioUnitario)
                 .precioTotal(precioTotal)
                 .build();
 
         inventarioRepository.save(movimiento);
+        saldoRepository.aplicarMovimiento(productoId, cantidad, precioUnitario, movimiento.getFechaMovimiento());
+        resumenRepository.acumular(List.of(movimiento));
+        motorValoracion.aplicar(List.of(movimiento));
 
         int cantidadNueva = cantidadAnterior + cantidad;
 
@@ -80,25 +149,29 @@ public class InventarioService implements InventarioInterface {
                 productoId, producto.getNombre(), cantidadAnterior, cantidad, cantidadNueva, precioUnitario, precioTotal);
 
 
-        // Emitir evento de inventario cambiado
+        // Registrar el evento en la outbox (misma transacción) y emitirlo
         InventarioCambiadoEvent event = InventarioCambiadoEvent.builder()
                 .productoId(productoId)
                 .tipoMovimiento("INGRESO")
                 .cantidadAnterior(cantidadAnterior)
                 .cantidadMovimiento(cantidad)
                 .cantidadNueva(cantidadNueva)
+                .cantidadReservada(saldo != null ? saldo.getReservado() : 0)
                 .precioUnitario(precioUnitario)
                 .build();
 
+        outboxRepository.registrar(List.of(event));
         eventPublisher.publishEvent(event);
+        completarClave(claveIdempotencia, cantidadNueva);
 
         return cantidadNueva;
     }
 
     // ====== SALIDA ======
     @Override
-    @Transactional
-    public int retirarCantidad(Long productoId, Integer cantidad, BigDecimal precioUnitario) throws CustomException {
+    @Transactional(rollbackFor = CustomException.class)
+    public int retirarCantidad(Long productoId, Integer cantidad, BigDecimal precioUnitario,
+                               String claveIdempotencia) throws CustomException {
         if (productoId == null) {
             throw new CustomException("El ID del producto es obligatorio", HttpStatus.BAD_REQUEST);
         }
@@ -109,10 +182,22 @@ public class InventarioService implements InventarioInterface {
             throw new CustomException("El precio unitario debe ser mayor que 0", HttpStatus.BAD_REQUEST);
         }
 
-        ProductoResumenDto producto = obtenerProducto(productoId);
+        // Reintento de un movimiento ya confirmado: se responde lo mismo sin tocar el libro
+        Integer repetido = reclamarClave(claveIdempotencia, "SALIDA", productoId, cantidad, precioUnitario);
+        if (repetido != null) {
+            return repetido;
+        }
+
+        // Producto antes del lock, igual que en el ingreso
+        ProductoResumenDto producto = esperarProducto(productoId, iniciarConsultaProducto(productoId),
+                ejecutorConsultas.limite());
 
-        int cantidadAnterior = inventarioRepository.obtenerSaldoPorProducto(productoId);
-        if (cantidadAnterior < cantidad) {
+        // Serializa los movimientos del producto (también entre réplicas) antes de leer el saldo
+        inventarioRepository.bloquearProducto(productoId);
+        InventarioSaldoEntity saldo = saldoRepository.findById(productoId).orElse(null);
+        int cantidadAnterior = saldo != null ? saldo.getSaldo() : 0;
+        // Las unidades retenidas por reservas vigentes no se pueden retirar
+        if (cantidadAnterior - (saldo != null ? saldo.getReservado() : 0) < cantidad) {
             throw new CustomException("No hay inventario suficiente para este producto", HttpStatus.BAD_REQUEST);
         }
 
@@ -121,91 +206,733 @@ public class InventarioService implements InventarioInterface {
         InventarioEntity movimiento = InventarioEntity.builder()
                 .productoId(productoId)
                 .cantidad(cantidad)
-                .tipoMovimiento("SALIDA")
+                .tipoMovimiento(TipoMovimientoEmun.SALIDA)
                 .precioUnitario(precioUnitario)
                 .precioTotal(precioTotal)
                 .build();
 
         inventarioRepository.save(movimiento);
+        saldoRepository.aplicarMovimiento(productoId, -cantidad, precioUnitario, movimiento.getFechaMovimiento());
+        resumenRepository.acumular(List.of(movimiento));
+        motorValoracion.aplicar(List.of(movimiento));
 
         int cantidadNueva = cantidadAnterior - cantidad;
 
         log.info("Inventario SALIDA - productoId={} nombre={} cantAnterior={} mov={} cantNueva={} precioUnit={} precioTotal={}",
                 productoId, producto.getNombre(), cantidadAnterior, cantidad, cantidadNueva, precioUnitario, precioTotal);
 
-        // Emitir evento de inventario cambiado
+        // Registrar el evento en la outbox (misma transacción) y emitirlo
         InventarioCambiadoEvent event = InventarioCambiadoEvent.builder()
                 .productoId(productoId)
                 .tipoMovimiento("SALIDA")
                 .cantidadAnterior(cantidadAnterior)
                 .cantidadMovimiento(cantidad)
                 .cantidadNueva(cantidadNueva)
+                .cantidadReservada(saldo != null ? saldo.getReservado() : 0)
                 .precioUnitario(precioUnitario)
                 .build();
 
+        outboxRepository.registrar(List.of(event));
         eventPublisher.publishEvent(event);
+        completarClave(claveIdempotencia, cantidadNueva);
 
         return cantidadNueva;
     }
 
-    // ====== CONSULTAR DETALLE (nombre, cantidad, precio unitario, total) ======
+    // ====== LOTE DE MOVIMIENTOS ======
     @Override
-    @Retryable(maxAttempts = 3, backoff = @Backoff(delay = 300))
-    public InventarioDetalleResponse consultarDetalleInventario(Long productoId) throws CustomException {
-        // 1. Info del producto (válida que exista)
-        ProductoResumenDto producto = obtenerProducto(productoId);
+    @Transactional
+    public MovimientoLoteResponse registrarLote(MovimientoLoteRequest request) throws CustomException {
+        if (request == null || request.getMovimientos() == null || request.getMovimientos().isEmpty()) {
+            throw new CustomException("El lote debe contener al menos un movimiento", HttpStatus.BAD_REQUEST);
+        }
+        ModoLoteEmun modo = request.getModo() != null ? request.getModo() : ModoLoteEmun.ATOMICO;
+        List<MovimientoLoteItemRequest> items = request.getMovimientos();
+        MovimientoLoteResultadoDto[] resultados = new MovimientoLoteResultadoDto[items.size()];
+
+        // 1. Reglas de cada línea; los productos se ordenan para bloquearlos sin deadlocks
+        SortedSet<Long> productoIds = new TreeSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            MovimientoLoteItemRequest item = items.get(i);
+            String error = validarLinea(item);
+            if (error != null) {
+                resultados[i] = resultadoLinea(i, item, MovimientoLoteResultadoDto.RECHAZADO, error);
+            } else {
+                productoIds.add(item.getProductoId());
+            }
+        }
+
+        // 2. Productos referenciados, resueltos con una sola consulta por lote al micro de productos
+        Map<Long, ProductoResumenDto> productos = obtenerProductos(productoIds);
+
+        // 3. Lock de los productos y saldos iniciales en una sola consulta
+        SortedSet<Long> existentes = new TreeSet<>(productos.keySet());
+        inventarioJdbcRepository.bloquearProductos(existentes);
+        Map<Long, Integer> saldos = new HashMap<>();
+        Map<Long, Integer> reservados = new HashMap<>();
+        saldoRepository.findAllById(existentes).forEach(saldo -> {
+            saldos.put(saldo.getProductoId(), saldo.getSaldo());
+            reservados.put(saldo.getProductoId(), saldo.getReservado());
+        });
+
+        // 4. Se aplican las líneas en orden sobre el saldo en memoria
+        LocalDateTime fechaMovimiento = LocalDateTime.now();
+        List<InventarioEntity> movimientos = new ArrayList<>();
+        List<InventarioCambiadoEvent> eventos = new ArrayList<>();
+        Map<Long, InventarioSaldoEntity> deltas = new LinkedHashMap<>();
+        int rechazados = 0;
+
+        for (int i = 0; i < items.size(); i++) {
+            if (resultados[i] != null) {
+                rechazados++;
+                continue;
+            }
+            MovimientoLoteItemRequest item = items.get(i);
+            Long productoId = item.getProductoId();
+            TipoMovimientoEmun tipo = TipoMovimientoEmun.desdeNombre(item.getTipoMovimiento());
+
+            if (!productos.containsKey(productoId)) {
+                resultados[i] = resultadoLinea(i, item, MovimientoLoteResultadoDto.RECHAZADO,
+                        "Producto no encontrado en el microservicio de productos");
+                rechazados++;
+                continue;
+            }
+
+            int cantidadAnterior = saldos.getOrDefault(productoId, 0);
+            if (tipo == TipoMovimientoEmun.SALIDA
+                    && cantidadAnterior - reservados.getOrDefault(productoId, 0) < item.getCantidad()) {
+                resultados[i] = resultadoLinea(i, item, MovimientoLoteResultadoDto.RECHAZADO,
+                        "No hay inventario suficiente para este producto");
+                rechazados++;
+                continue;
+            }
+
+            int delta = tipo.delta(item.getCantidad());
+            int cantidadNueva = cantidadAnterior + delta;
+            saldos.put(productoId, cantidadNueva);
+
+            movimientos.add(InventarioEntity.builder()
+                    .productoId(productoId)
+                    .cantidad(item.getCantidad())
+                    .tipoMovimiento(tipo)
+                    .precioUnitario(item.getPrecioUnitario())
+                    .precioTotal(item.getPrecioUnitario().multiply(BigDecimal.valueOf(item.getCantidad())))
+                    .fechaMovimiento(fechaMovimiento)
+                    .build());
+
+            deltas.merge(productoId,
+                    InventarioSaldoEntity.builder()
+                            .productoId(productoId)
+                            .saldo(delta)
+                            .ultimoPrecioUnitario(item.getPrecioUnitario())
+                            .fechaUltimoMovimiento(fechaMovimiento)
+                            .build(),
+                    (acumulado, nuevo) -> {
+                        acumulado.setSaldo(acumulado.getSaldo() + nuevo.getSaldo());
+                        acumulado.setUltimoPrecioUnitario(nuevo.getUltimoPrecioUnitario());
+                        return acumulado;
+                    });
+
+            eventos.add(InventarioCambiadoEvent.builder()
+                    .productoId(productoId)
+                    .tipoMovimiento(tipo.name())
+                    .cantidadAnterior(cantidadAnterior)
+                    .cantidadMovimiento(item.getCantidad())
+                    .cantidadNueva(cantidadNueva)
+                    .cantidadReservada(reservados.getOrDefault(productoId, 0))
+                    .precioUnitario(item.getPrecioUnitario())
+                    .build());
+
+            MovimientoLoteResultadoDto resultado = resultadoLinea(i, item, MovimientoLoteResultadoDto.APLICADO, null);
+            resultado.setTipoMovimiento(tipo.name());
+            resultado.setCantidadAnterior(cantidadAnterior);
+            resultado.setCantidadNueva(cantidadNueva);
+            resultados[i] = resultado;
+        }
+
+        // 5. Todo o nada: con alguna línea rechazada no se escribe nada
+        if (modo == ModoLoteEmun.ATOMICO && rechazados > 0) {
+            for (MovimientoLoteResultadoDto resultado : resultados) {
+                if (MovimientoLoteResultadoDto.APLICADO.equals(resultado.getEstado())) {
+                    resultado.setEstado(MovimientoLoteResultadoDto.NO_APLICADO);
+                    resultado.setCantidadAnterior(null);
+                    resultado.setCantidadNueva(null);
+                    resultado.setMensaje("Lote rechazado: hay líneas con errores");
+                }
+            }
+            movimientos.clear();
+            eventos.clear();
+        }
+
+        // 6. Escritura con sentencias agrupadas (movimientos, saldos y outbox en la misma transacción)
+        if (!movimientos.isEmpty()) {
+            inventarioJdbcRepository.insertarMovimientos(movimientos);
+            inventarioJdbcRepository.aplicarSaldos(deltas.values());
+            resumenRepository.acumular(movimientos);
+            motorValoracion.aplicar(movimientos);
+            outboxRepository.registrar(eventos);
+        }
+
+        log.info("Inventario LOTE - modo={} lineas={} aplicadas={} rechazadas={}",
+                modo, items.size(), movimientos.size(), rechazados);
+
+        eventos.forEach(eventPublisher::publishEvent);
+
+        return MovimientoLoteResponse.builder()
+                .modo(modo)
+                .total(items.size())
+                .aplicados(movimientos.size())
+                .rechazados(rechazados)
+                .resultados(Arrays.asList(resultados))
+                .build();
+    }
+
+    // ====== GRUPO DE MOVIMIENTOS DE UN PRODUCTO ======
+    @Override
+    @Transactional(rollbackFor = CustomException.class)
+    public List<ResultadoAgrupado> registrarGrupo(Long productoId, List<MovimientoAgrupado> movimientos)
+            throws CustomException {
+        if (productoId == null) {
+            throw new CustomException("El ID del producto es obligatorio", HttpStatus.BAD_REQUEST);
+        }
+        ResultadoAgrupado[] resultados = new ResultadoAgrupado[movimientos.size()];
+
+        // 1. Reglas de cada movimiento
+        List<Integer> validos = new ArrayList<>();
+        for (int i = 0; i < movimientos.size(); i++) {
+            try {
+                validarMovimiento(movimientos.get(i));
+                validos.add(i);
+            } catch (CustomException e) {
+                resultados[i] = ResultadoAgrupado.rechazado(e);
+            }
+        }
+
+        // 2. Claves de idempotencia en orden de clave, no de llegada: dos grupos con las mismas claves
+        //    en otro orden se esperarían uno al otro en el índice único. Todas las transacciones
+        //    reclaman sus claves antes de tomar el lock, así que el orden global es claves y luego lock.
+        //    Los reintentos responden lo mismo
+        validos.sort(Comparator.comparing((Integer i) -> movimientos.get(i).claveIdempotencia(),
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        List<Integer> pendientes = new ArrayList<>();
+        for (int i : validos) {
+            MovimientoAgrupado m = movimientos.get(i);
+            try {
+                Integer repetido = reclamarClave(m.claveIdempotencia(), m.tipoMovimiento().name(), productoId,
+                        m.cantidad(), m.precioUnitario());
+                if (repetido != null) {
+                    resultados[i] = ResultadoAgrupado.aplicado(repetido);
+                } else {
+                    pendientes.add(i);
+                }
+            } catch (CustomException e) {
+                resultados[i] = ResultadoAgrupado.rechazado(e);
+            }
+        }
+        if (pendientes.isEmpty()) {
+            return Arrays.asList(resultados);
+        }
+        Collections.sort(pendientes);
+
+        // 3. Producto, lock y saldo una sola vez para todo el grupo; el producto se espera antes
+        //    del lock para no retener a los demás movimientos durante la llamada remota
+        ProductoResumenDto producto = esperarProducto(productoId, iniciarConsultaProducto(productoId),
+                ejecutorConsultas.limite());
+        inventarioRepository.bloquearProducto(productoId);
+        InventarioSaldoEntity saldo = saldoRepository.findById(productoId).orElse(null);
+        int cantidadInicial = saldo != null ? saldo.getSaldo() : 0;
+        int reservado = saldo != null ? saldo.getReservado() : 0;
+
+        // 4. Los movimientos se aplican en orden de llegada sobre el saldo en memoria
+        LocalDateTime fechaMovimiento = LocalDateTime.now();
+        List<InventarioEntity> registrados = new ArrayList<>();
+        List<InventarioCambiadoEvent> eventos = new ArrayList<>();
+        int cantidad = cantidadInicial;
+        for (int i : pendientes) {
+            MovimientoAgrupado m = movimientos.get(i);
+            if (m.tipoMovimiento() == TipoMovimientoEmun.SALIDA && cantidad - reservado < m.cantidad()) {
+                // La transacción confirma los demás movimientos: la clave no puede quedar tomada
+                liberarClave(m.claveIdempotencia());
+                resultados[i] = ResultadoAgrupado.rechazado(new CustomException(
+                        "No hay inventario suficiente para este producto", HttpStatus.BAD_REQUEST));
+                continue;
+            }
+            int cantidadAnterior = cantidad;
+            cantidad += m.tipoMovimiento().delta(m.cantidad());
+
+            registrados.add(InventarioEntity.builder()
+                    .productoId(productoId)
+                    .cantidad(m.cantidad())
+                    .tipoMovimiento(m.tipoMovimiento())
+                    .precioUnitario(m.precioUnitario())
+                    .precioTotal(m.precioUnitario().multiply(BigDecimal.valueOf(m.cantidad())))
+                    .fechaMovimiento(fechaMovimiento)
+                    .build());
+            eventos.add(InventarioCambiadoEvent.builder()
+                    .productoId(productoId)
+                    .tipoMovimiento(m.tipoMovimiento().name())
+                    .cantidadAnterior(cantidadAnterior)
+                    .cantidadMovimiento(m.cantidad())
+                    .cantidadNueva(cantidad)
+                    .cantidadReservada(reservado)
+                    .precioUnitario(m.precioUnitario())
+                    .build());
+            completarClave(m.claveIdempotencia(), cantidad);
+            resultados[i] = ResultadoAgrupado.aplicado(cantidad);
+        }
+
+        // 5. Escritura con sentencias agrupadas: un insert multi-fila y un solo ajuste del saldo
+        if (!registrados.isEmpty()) {
+            inventarioJdbcRepository.insertarMovimientos(registrados);
+            inventarioJdbcRepository.aplicarSaldos(List.of(InventarioSaldoEntity.builder()
+                    .productoId(productoId)
+                    .saldo(cantidad - cantidadInicial)
+                    .ultimoPrecioUnitario(registrados.get(registrados.size() - 1).getPrecioUnitario())
+                    .fechaUltimoMovimiento(fechaMovimiento)
+                    .build()));
+            resumenRepository.acumular(registrados);
+            motorValoracion.aplicar(registrados);
+            outboxRepository.registrar(eventos);
+        }
 
-        // 2. Saldo actual
-        int saldo = inventarioRepository.obtenerSaldoPorProducto(productoId);
+        log.info("Inventario GRUPO - productoId={} nombre={} movimientos={} aplicados={} cantAnterior={} cantNueva={}",
+                productoId, producto.getNombre(), movimientos.size(), registrados.size(), cantidadInicial, cantidad);
 
-        // 3. Último movimiento (una sola llamada al repo)
-        var ultimoMovimientoOpt = inventarioRepository
-                .findTopByProductoIdOrderByFechaMovimientoDesc(productoId);
+        eventos.forEach(eventPublisher::publishEvent);
+        return Arrays.asList(resultados);
+    }
 
-        BigDecimal precioUnitario = ultimoMovimientoOpt
-                .map(InventarioEntity::getPrecioUnitario)
+    // ====== CONSULTAR DETALLE (nombre, cantidad, precio unitario, total) ======
+    @Override
+    public InventarioDetalleResponse consultarDetalleInventario(Long productoId, boolean consistente)
+            throws CustomException {
+        // 1. Info del producto (válida que exista), en paralelo con la lectura del saldo
+        long limite = ejecutorConsultas.limite();
+        CompletableFuture<ProductoResumenDto> consultaProducto = iniciarConsultaProducto(productoId);
+
+        // 2. Saldo y último precio: del índice en memoria o, si se pide lectura consistente
+        //    o el índice aún no cargó, de la proyección (búsqueda por llave primaria)
+        Optional<SaldosIndice.Saldo> saldoOpt = leerSaldo(productoId, consistente);
+        ProductoResumenDto producto = esperarProducto(productoId, consultaProducto, limite);
+
+        // Disponible: el saldo menos lo retenido por reservas vigentes
+        int disponible = saldoOpt.map(SaldosIndice.Saldo::disponible).orElse(0);
+        int reservada = saldoOpt.map(SaldosIndice.Saldo::reservada).orElse(0);
+
+        // 3. Precio del último movimiento, o el del catálogo si no hay movimientos
+        BigDecimal precioUnitario = saldoOpt
+                .map(SaldosIndice.Saldo::ultimoPrecioUnitario)
                 .orElse(producto.getPrecio());
 
         // 4. Construir response
         return InventarioDetalleResponse.builder()
                 .productoId(productoId)
                 .nombreProducto(producto.getNombre())
-                .cantidadDisponible(saldo)
+                .cantidadDisponible(disponible)
+                .cantidadReservada(reservada > 0 ? reservada : null)
                 .precioUnitario(precioUnitario)
                 .build();
     }
 
+    // ====== CONSULTAR SALDOS DE VARIOS PRODUCTOS ======
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, SaldoProductoDto> consultarSaldos(Collection<Long> productoIds, boolean incluirNombres)
+            throws CustomException {
+        Set<Long> ids = new LinkedHashSet<>();
+        if (productoIds != null) {
+            productoIds.stream().filter(Objects::nonNull).forEach(ids::add);
+        }
+        if (ids.isEmpty()) {
+            throw new CustomException("Debe indicar al menos un producto", HttpStatus.BAD_REQUEST);
+        }
+        if (ids.size() > MAX_PRODUCTOS_CONSULTA) {
+            throw new CustomException("No se pueden consultar más de " + MAX_PRODUCTOS_CONSULTA
+                    + " productos por solicitud", HttpStatus.BAD_REQUEST);
+        }
 
-    // ====== Helper para consumir el micro de productos ======
+        // 1. Todos los saldos con una sola consulta sobre la llave primaria de la proyección
+        Map<Long, InventarioSaldoEntity> saldos = new HashMap<>();
+        saldoRepository.findAllById(ids).forEach(saldo -> saldos.put(saldo.getProductoId(), saldo));
+
+        // 2. Nombres (opcional) resueltos en una sola búsqueda agrupada
+        Map<Long, ProductoResumenDto> productos = incluirNombres ? obtenerProductos(ids) : Map.of();
+
+        // 3. Mapa compacto en el orden solicitado
+        Map<Long, SaldoProductoDto> respuesta = new LinkedHashMap<>();
+        for (Long productoId : ids) {
+            InventarioSaldoEntity saldo = saldos.get(productoId);
+            ProductoResumenDto producto = productos.get(productoId);
+            respuesta.put(productoId, SaldoProductoDto.builder()
+                    .nombreProducto(producto != null ? producto.getNombre() : null)
+                    .cantidadDisponible(saldo != null ? saldo.getSaldo() - saldo.getReservado() : 0)
+                    .cantidadReservada(saldo != null && saldo.getReservado() > 0 ? saldo.getReservado() : null)
+                    .precioUnitario(saldo != null ? saldo.getUltimoPrecioUnitario()
+                            : producto != null ? producto.getPrecio() : null)
+                    .build());
+        }
+        return respuesta;
+    }
+
+
+    private Optional<SaldosIndice.Saldo> leerSaldo(Long productoId, boolean consistente) {
+        if (!consistente && saldosIndice.disponible()) {
+            return Optional.ofNullable(saldosIndice.buscar(productoId));
+        }
+        return saldoRepository.findById(productoId)
+                .map(s -> new SaldosIndice.Saldo(s.getSaldo(), s.getReservado(), s.getUltimoPrecioUnitario()));
+    }
+
+
+    // ====== HISTORIAL DE MOVIMIENTOS (KARDEX) ======
+    @Override
+    @Transactional(readOnly = true)
+    public MovimientosPaginaResponse consultarMovimientos(Long productoId, LocalDateTime desde, LocalDateTime hasta,
+                                                         String tipoMovimiento, OrdenEmun orden, String cursor,
+                                                         Integer limite) throws CustomException {
+        if (productoId == null) {
+            throw new CustomException("El ID del producto es obligatorio", HttpStatus.BAD_REQUEST);
+        }
+        if (desde != null && hasta != null && !desde.isBefore(hasta)) {
+            throw new CustomException("La fecha 'desde' debe ser anterior a 'hasta'", HttpStatus.BAD_REQUEST);
+        }
+        TipoMovimientoEmun tipo = null;
+        if (tipoMovimiento != null && !tipoMovimiento.isBlank()) {
+            tipo = TipoMovimientoEmun.desdeNombre(tipoMovimiento);
+            if (tipo == null) {
+                throw new CustomException("El tipo de movimiento debe ser INGRESO o SALIDA", HttpStatus.BAD_REQUEST);
+            }
+        }
+        int tamano = limite != null ? limite : LIMITE_MOVIMIENTOS_DEFECTO;
+        if (tamano < 1 || tamano > MAX_LIMITE_MOVIMIENTOS) {
+            throw new CustomException("El límite debe estar entre 1 y " + MAX_LIMITE_MOVIMIENTOS,
+                    HttpStatus.BAD_REQUEST);
+        }
+        CursorMovimiento despuesDe = cursor != null && !cursor.isBlank() ? CursorMovimiento.decodificar(cursor) : null;
+
+        // Se pide una fila de más para saber si hay otra página sin contar
+        List<InventarioEntity> filas = inventarioJdbcRepository.consultarMovimientos(productoId, desde, hasta, tipo,
+                despuesDe, orden != null ? orden : OrdenEmun.DESC, tamano + 1);
+        boolean hayMas = filas.size() > tamano;
+        List<InventarioEntity> pagina = hayMas ? filas.subList(0, tamano) : filas;
+
+        String siguienteCursor = null;
+        if (hayMas) {
+            InventarioEntity ultimo = pagina.get(pagina.size() - 1);
+            siguienteCursor = new CursorMovimiento(ultimo.getFechaMovimiento(), ultimo.getId()).codificar();
+        }
+
+        return MovimientosPaginaResponse.builder()
+                .productoId(productoId)
+                .movimientos(pagina.stream()
+                        .map(m -> MovimientoInventarioDto.builder()
+                                .id(m.getId())
+                                .tipoMovimiento(m.getTipoMovimiento().name())
+                                .cantidad(m.getCantidad())
+                                .precioUnitario(m.getPrecioUnitario())
+                                .precioTotal(m.getPrecioTotal())
+                                .fechaMovimiento(m.getFechaMovimiento())
+                                .build())
+                        .toList())
+                .hayMas(hayMas)
+                .siguienteCursor(siguienteCursor)
+                .build();
+    }
+
+    // ====== RESUMEN DIARIO ======
+    @Override
+    public ResumenDiarioResponse consultarResumenDiario(Long productoId, LocalDate desde, LocalDate hasta)
+            throws CustomException {
+        if (productoId == null) {
+            throw new CustomException("El ID del producto es obligatorio", HttpStatus.BAD_REQUEST);
+        }
+        if (desde == null || hasta == null) {
+            throw new CustomException("Las fechas 'desde' y 'hasta' son obligatorias", HttpStatus.BAD_REQUEST);
+        }
+        if (hasta.isBefore(desde)) {
+            throw new CustomException("La fecha 'desde' no puede ser posterior a 'hasta'", HttpStatus.BAD_REQUEST);
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) >= MAX_DIAS_RESUMEN) {
+            throw new CustomException("El rango no puede superar " + MAX_DIAS_RESUMEN + " días",
+                    HttpStatus.BAD_REQUEST);
+        }
+
+        // Solo lee el resumen: una fila por día con movimientos, nunca el libro
+        List<ResumenDiaDto> dias = resumenRepository.consultar(productoId, desde, hasta);
+
+        ResumenDiaDto totales = ResumenDiaDto.builder()
+                .cantidadIngresos(0L)
+                .valorIngresos(BigDecimal.ZERO)
+                .cantidadSalidas(0L)
+                .valorSalidas(BigDecimal.ZERO)
+                .movimientos(0L)
+                .build();
+        for (ResumenDiaDto dia : dias) {
+            totales.setCantidadIngresos(totales.getCantidadIngresos() + dia.getCantidadIngresos());
+            totales.setValorIngresos(totales.getValorIngresos().add(dia.getValorIngresos()));
+            totales.setCantidadSalidas(totales.getCantidadSalidas() + dia.getCantidadSalidas());
+            totales.setValorSalidas(totales.getValorSalidas().add(dia.getValorSalidas()));
+            totales.setMovimientos(totales.getMovimientos() + dia.getMovimientos());
+        }
+
+        return ResumenDiarioResponse.builder()
+                .productoId(productoId)
+                .desde(desde)
+                .hasta(hasta)
+                .dias(dias)
+                .totales(totales)
+                .build();
+    }
+
+    // ====== VALORACIÓN ======
+    @Override
+    public ValoracionResponse consultarValoracion(Long productoId) throws CustomException {
+        if (productoId == null) {
+            throw new CustomException("El ID del producto es obligatorio", HttpStatus.BAD_REQUEST);
+        }
+        // Estado mantenido movimiento a movimiento: una lectura por llave, sin recorrer el libro
+        Valoracion valoracion = valoracionRepository.buscar(productoId).orElseGet(Valoracion::vacia);
+
+        return ValoracionResponse.builder()
+                .productoId(productoId)
+                .cantidad(valoracion.getCantidad())
+                .costoPromedio(valoracion.costoPromedio())
+                .valorPromedio(valoracion.getValorPromedio())
+                .costoVentasPromedio(valoracion.getCostoVentasPromedio())
+                .valorFifo(valoracion.getValorFifo())
+                .costoVentasFifo(valoracion.getCostoVentasFifo())
+                .build();
+    }
+
+
+    // ====== Helpers de idempotencia ======
+
+    /**
+     * Reclama la clave de idempotencia del movimiento en la transacción en curso.
+     *
+     * @return la cantidad resultante guardada si la clave ya se usó con este mismo movimiento;
+     * null si la petición es nueva (o no trae clave) y el movimiento debe aplicarse.
+     */
+    private Integer reclamarClave(String clave, String tipoMovimiento, Long productoId, Integer cantidad,
+                                  BigDecimal precioUnitario) throws CustomException {
+        if (clave == null) {
+            return null;
+        }
+        if (clave.isBlank() || clave.length() > MAX_LARGO_CLAVE_IDEMPOTENCIA) {
+            throw new CustomException("La clave de idempotencia debe tener entre 1 y "
+                    + MAX_LARGO_CLAVE_IDEMPOTENCIA + " caracteres", HttpStatus.BAD_REQUEST);
+        }
+
+        RegistroIdempotencia nuevo = RegistroIdempotencia.builder()
+                .clave(clave)
+                .tipoMovimiento(tipoMovimiento)
+                .productoId(productoId)
+                .cantidad(cantidad)
+                .precioUnitario(precioUnitario)
+                .build();
+        if (idempotenciaRepository.reclamar(nuevo, LocalDateTime.now())) {
+            return null;
+        }
+
+        RegistroIdempotencia registrado = idempotenciaRepository.buscar(clave)
+                .filter(r -> r.getCantidadNueva() != null)
+                .orElseThrow(() -> new CustomException("Hay otra petición en curso con la misma clave de idempotencia",
+                        HttpStatus.CONFLICT));
+        if (!registrado.mismoMovimiento(tipoMovimiento, productoId, cantidad, precioUnitario)) {
+            throw new CustomException("La clave de idempotencia ya se usó con otro movimiento",
+                    HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        log.info("Inventario {} repetido - productoId={} clave={} cantNueva={}",
+                tipoMovimiento, productoId, clave, registrado.getCantidadNueva());
+        return registrado.getCantidadNueva();
+    }
+
+    private void completarClave(String clave, int cantidadNueva) {
+        if (clave != null) {
+            idempotenciaRepository.completar(clave, cantidadNueva);
+        }
+    }
+
+
+    private void liberarClave(String clave) {
+        if (clave != null) {
+            idempotenciaRepository.liberar(clave);
+        }
+    }
+
+    // ====== Helper del grupo: mismas reglas que un ingreso o una salida individual ======
+    private static void validarMovimiento(MovimientoAgrupado movimiento) throws CustomException {
+        if (movimiento.tipoMovimiento() == null) {
+            throw new CustomException("El tipo de movimiento debe ser INGRESO o SALIDA", HttpStatus.BAD_REQUEST);
+        }
+        if (movimiento.cantidad() == null || movimiento.cantidad() <= 0) {
+            throw new CustomException(movimiento.tipoMovimiento() == TipoMovimientoEmun.INGRESO
+                    ? "La cantidad a agregar debe ser mayor que 0"
+                    : "La cantidad a retirar debe ser mayor que 0", HttpStatus.BAD_REQUEST);
+        }
+        if (movimiento.precioUnitario() == null || movimiento.precioUnitario().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new CustomException("El precio unitario debe ser mayor que 0", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // ====== Helpers del lote ======
+    private static String validarLinea(MovimientoLoteItemRequest item) {
+        if (item == null || item.getProductoId() == null) {
+            return "El ID del producto es obligatorio";
+        }
+        if (TipoMovimientoEmun.desdeNombre(item.getTipoMovimiento()) == null) {
+            return "El tipo de movimiento debe ser INGRESO o SALIDA";
+        }
+        if (item.getCantidad() == null || item.getCantidad() <= 0) {
+            return "La cantidad debe ser mayor que 0";
+        }
+        if (item.getPrecioUnitario() == null || item.getPrecioUnitario().compareTo(BigDecimal.ZERO) <= 0) {
+            return "El precio unitario debe ser mayor que 0";
+        }
+        return null;
+    }
+
+    private static MovimientoLoteResultadoDto resultadoLinea(int indice, MovimientoLoteItemRequest item,
+                                                             String estado, String mensaje) {
+        return MovimientoLoteResultadoDto.builder()
+                .linea(indice + 1)
+                .productoId(item != null ? item.getProductoId() : null)
+                .tipoMovimiento(item != null ? item.getTipoMovimiento() : null)
+                .estado(estado)
+                .mensaje(mensaje)
+                .build();
+    }
+
+    // ====== Helper para resolver varios productos; los inexistentes se omiten ======
+    private Map<Long, ProductoResumenDto> obtenerProductos(Collection<Long> productoIds) throws CustomException {
+        try {
+            return productosCache.obtenerVarios(productoIds,
+                    ids -> productosCircuito.ejecutar(() -> consultarProductos(ids)));
+        } catch (CustomException e) {
+            // Con productos caído solo se responde si se conocen todos (un faltante parecería inexistente)
+            if (e.getStatus() != HttpStatus.SERVICE_UNAVAILABLE) {
+                throw e;
+            }
+            Map<Long, ProductoResumenDto> conocidos = productosCache.obtenerUltimosConocidos(productoIds);
+            if (!conocidos.keySet().containsAll(productoIds)) {
+                throw e;
+            }
+            log.warn("Productos no disponible, se usan los últimos datos conocidos. productos={}", conocidos.size());
+            return conocidos;
+        }
+    }
+
+    // ====== Helper para consumir el lote del micro de productos (una llamada por tramo) ======
+    private Map<Long, ProductoResumenDto> consultarProductos(Collection<Long> productoIds) throws CustomException {
+        List<Long> ids = new ArrayList<>(productoIds);
+        Map<Long, ProductoResumenDto> productos = new HashMap<>();
+
+        for (int desde = 0; desde < ids.size(); desde += TAMANO_LOTE_PRODUCTOS) {
+            List<Long> tramo = ids.subList(desde, Math.min(desde + TAMANO_LOTE_PRODUCTOS, ids.size()));
+            try {
+                ResponseEntity<ApiResponse<List<ProductoResumenDto>>> response = productosClient.obtenerProductos(
+                        ProductosLoteRequest.builder().ids(List.copyOf(tramo)).build());
+
+                if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                    throw new CustomException("Fallo comunicación con productos", HttpStatus.SERVICE_UNAVAILABLE);
+                }
+
+                List<ProductoResumenDto> lista = response.getBody().getData();
+                if (lista == null) {
+                    throw new CustomException("Formato inesperado en respuesta de productos",
+                            HttpStatus.INTERNAL_SERVER_ERROR);
+                }
+
+                for (ProductoResumenDto producto : lista) {
+                    if (producto != null && producto.getId() != null) {
+                        productos.put(producto.getId(), producto);
+                    }
+                }
+
+            } catch (FeignException.Forbidden e) {
+                log.error("Acceso prohibido al microservicio de productos. productos={}", tramo.size(), e);
+                throw new CustomException("Acceso prohibido al microservicio de productos",
+                        HttpStatus.FORBIDDEN);
+
+            } catch (FeignException e) {
+                log.error("Error HTTP al consultar lote de productos. status={} productos={}",
+                        e.status(), tramo.size(), e);
+                throw new CustomException("Fallo comunicación con productos",
+                        HttpStatus.SERVICE_UNAVAILABLE);
+
+            } catch (CustomException e) {
+                throw e;
+
+            } catch (Exception e) {
+                log.error("Error inesperado al consultar lote de productos. productos={}", tramo.size(), e);
+                throw new CustomException("Fallo comunicación con productos",
+                        HttpStatus.SERVICE_UNAVAILABLE);
+            }
+        }
+        return productos;
+    }
+
+    // ====== Helper para iniciar la consulta del producto sin esperarla (vigente en cache: ya resuelta) ======
+    private CompletableFuture<ProductoResumenDto> iniciarConsultaProducto(Long productoId) {
+        ProductoResumenDto vigente = productosCache.buscar(productoId);
+        if (vigente != null) {
+            return CompletableFuture.completedFuture(vigente);
+        }
+        return ejecutorConsultas.enviar(() -> obtenerProducto(productoId));
+    }
+
+    // ====== Helper para esperar la consulta del producto hasta el plazo de la petición ======
+    private ProductoResumenDto esperarProducto(Long productoId, CompletableFuture<ProductoResumenDto> consulta,
+                                               long limite) throws CustomException {
+        try {
+            return ejecutorConsultas.esperar(consulta, limite);
+        } catch (CustomException e) {
+            return ultimoConocido(productoId, e);
+        }
+    }
+
+    // ====== Helper para obtener el producto, primero desde la cache local ======
     private ProductoResumenDto obtenerProducto(Long productoId) throws CustomException {
         try {
-            ResponseEntity<ApiResponse> response = productosClient.obtenerProducto(productoId);
+            return productosCache.obtener(productoId,
+                    id -> productosCircuito.ejecutar(() -> consultarProducto(id)));
+        } catch (CustomException e) {
+            return ultimoConocido(productoId, e);
+        }
+    }
+
+    // ====== Productos caído, circuito abierto o plazo agotado: último dato conocido si lo hay ======
+    private ProductoResumenDto ultimoConocido(Long productoId, CustomException e) throws CustomException {
+        if (e.getStatus() != HttpStatus.SERVICE_UNAVAILABLE) {
+            throw e;
+        }
+        ProductoResumenDto conocido = productosCache.obtenerUltimoConocido(productoId);
+        if (conocido == null) {
+            throw e;
+        }
+        log.warn("Productos no disponible, se usa el último dato conocido. productoId={}", productoId);
+        return conocido;
+    }
+
+    // ====== Helper para consumir el micro de productos ======
+    private ProductoResumenDto consultarProducto(Long productoId) throws CustomException {
+        try {
+            ResponseEntity<ApiResponse<ProductoResumenDto>> response = productosClient.obtenerProducto(productoId);
 
             if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
                 throw new CustomException("Producto no encontrado en el microservicio de productos",
                         HttpStatus.NOT_FOUND);
             }
 
-            ApiResponse api = response.getBody();
-            Object data = api.getData();
-            if (!(data instanceof Map<?, ?> map)) {
+            ProductoResumenDto producto = response.getBody().getData();
+            if (producto == null) {
                 throw new CustomException("Formato inesperado en respuesta de productos",
                         HttpStatus.INTERNAL_SERVER_ERROR);
             }
-
-            Object idObj = map.get("id");
-            Object nombreObj = map.get("nombre");
-            Object precioObj = map.get("precio");
-
-            Long id = idObj != null ? Long.valueOf(idObj.toString()) : productoId;
-            String nombre = nombreObj != null ? nombreObj.toString() : null;
-            BigDecimal precio = precioObj != null ? new BigDecimal(precioObj.toString()) : null;
-
-            return ProductoResumenDto.builder()
-                    .id(id)
-                    .nombre(nombre)
-                    .precio(precio)
-                    .build();
+            if (producto.getId() == null) {
+                producto.setId(productoId);
+            }
+            return producto;
 
         } catch (FeignException.NotFound e) {
             // El micro de productos devolvió 404
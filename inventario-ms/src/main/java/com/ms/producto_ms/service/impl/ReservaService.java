@@ -0,0 +1,185 @@
+package com.ms.producto_ms.service.impl;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.dto.response.ReservaResponse;
+import com.ms.producto_ms.entity.InventarioSaldoEntity;
+import com.ms.producto_ms.exception.CustomException;
+import com.ms.producto_ms.repository.InventarioRepository;
+import com.ms.producto_ms.repository.InventarioReservaRepository;
+import com.ms.producto_ms.repository.InventarioSaldoRepository;
+import com.ms.producto_ms.service.InventarioInterface;
+import com.ms.producto_ms.service.ReservaInterface;
+import com.ms.producto_ms.util.reservas.RuedaReservas;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Implementación de {@link ReservaInterface}.
+ * <p>
+ * Cada reserva es una fila de "inventario_reservas" y su cantidad se suma a
+ * {@code inventario_saldos.reservado}, todo bajo el advisory lock del producto que también toman
+ * los movimientos. El vencimiento lo programa la {@link RuedaReservas} de esta réplica. Cada cambio
+ * del reservado emite un evento {@code RESERVA}, así los saldos en memoria y el stream muestran lo
+ * disponible sin esperar a un movimiento.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class ReservaService implements ReservaInterface {
+
+    private static final String NO_EXISTE = "La reserva no existe o ya venció";
+
+    private final InventarioRepository inventarioRepository;
+    private final InventarioSaldoRepository saldoRepository;
+    private final InventarioReservaRepository reservaRepository;
+    private final InventarioInterface inventarioInterface;
+    private final RuedaReservas ruedaReservas;
+    private final AppProperties appProperties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // ====== RESERVAR ======
+    @Override
+    @Transactional
+    public ReservaResponse reservar(Long productoId, Integer cantidad, Integer ttlSegundos) throws CustomException {
+        if (productoId == null) {
+            throw new CustomException("El ID del producto es obligatorio", HttpStatus.BAD_REQUEST);
+        }
+        if (cantidad == null || cantidad <= 0) {
+            throw new CustomException("La cantidad a reservar debe ser mayor que 0", HttpStatus.BAD_REQUEST);
+        }
+        Duration ttl = vigencia(ttlSegundos);
+
+        inventarioRepository.bloquearProducto(productoId);
+        InventarioSaldoEntity saldo = saldoRepository.findById(productoId).orElse(null);
+        int libre = saldo != null ? saldo.getSaldo() - saldo.getReservado() : 0;
+        if (libre < cantidad) {
+            throw new CustomException("No hay inventario suficiente para este producto", HttpStatus.BAD_REQUEST);
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        InventarioReservaRepository.Reserva reserva = new InventarioReservaRepository.Reserva(
+                UUID.randomUUID(), productoId, cantidad, ahora.plus(ttl));
+        reservaRepository.insertar(reserva, ahora);
+        reservaRepository.ajustarReservados(Map.of(productoId, cantidad))
+                .forEach(d -> eventPublisher.publishEvent(d.evento(cantidad)));
+        ruedaReservas.programar(reserva.id(), productoId, reserva.expiraEn());
+
+        log.info("Reserva creada - reservaId={} productoId={} cantidad={} expiraEn={} cantLibre={}",
+                reserva.id(), productoId, cantidad, reserva.expiraEn(), libre - cantidad);
+
+        return respuesta(reserva, libre - cantidad);
+    }
+
+    // ====== CONSULTAR ======
+    @Override
+    @Transactional(readOnly = true)
+    public ReservaResponse consultarReserva(UUID reservaId) throws CustomException {
+        InventarioReservaRepository.Reserva reserva = buscarVigente(reservaId);
+        return respuesta(reserva, null);
+    }
+
+    // ====== CONFIRMAR ======
+    @Override
+    @Transactional(rollbackFor = CustomException.class)
+    public int confirmarReserva(UUID reservaId, BigDecimal precioUnitario) throws CustomException {
+        if (precioUnitario == null || precioUnitario.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new CustomException("El precio unitario debe ser mayor que 0", HttpStatus.BAD_REQUEST);
+        }
+        Long productoId = buscarVigente(reservaId).productoId();
+
+        // Con el lock del producto, el vencimiento no puede llevarse la reserva a mitad de camino
+        inventarioRepository.bloquearProducto(productoId);
+        InventarioReservaRepository.Reserva reserva = reservaRepository.eliminarVigente(reservaId, LocalDateTime.now())
+                .orElseThrow(() -> new CustomException(NO_EXISTE, HttpStatus.NOT_FOUND));
+        reservaRepository.ajustarReservados(Map.of(productoId, -reserva.cantidad()));
+
+        // Si la salida se rechaza la transacción se revierte y la reserva sigue vigente
+        int cantidadNueva = inventarioInterface.retirarCantidad(productoId, reserva.cantidad(), precioUnitario, null);
+        ruedaReservas.cancelar(reservaId);
+
+        log.info("Reserva confirmada - reservaId={} productoId={} cantidad={} cantNueva={}",
+                reservaId, productoId, reserva.cantidad(), cantidadNueva);
+        return cantidadNueva;
+    }
+
+    // ====== LIBERAR ======
+    @Override
+    @Transactional
+    public ReservaResponse liberarReserva(UUID reservaId) throws CustomException {
+        Long productoId = buscar(reservaId).productoId();
+
+        inventarioRepository.bloquearProducto(productoId);
+        InventarioReservaRepository.Reserva reserva = reservaRepository.eliminar(reservaId)
+                .orElseThrow(() -> new CustomException(NO_EXISTE, HttpStatus.NOT_FOUND));
+        List<InventarioReservaRepository.Disponibilidad> disponibles =
+                reservaRepository.ajustarReservados(Map.of(productoId, -reserva.cantidad()));
+        disponibles.forEach(d -> eventPublisher.publishEvent(d.evento(-reserva.cantidad())));
+        ruedaReservas.cancelar(reservaId);
+
+        int libre = disponibles.stream()
+                .mapToInt(d -> d.saldo() - d.reservado())
+                .findFirst()
+                .orElse(0);
+
+        log.info("Reserva liberada - reservaId={} productoId={} cantidad={} cantLibre={}",
+                reservaId, productoId, reserva.cantidad(), libre);
+
+        return respuesta(reserva, libre);
+    }
+
+    private Duration vigencia(Integer ttlSegundos) throws CustomException {
+        AppProperties.ReservasDto cfg = appProperties.getReservas();
+        if (ttlSegundos == null) {
+            return cfg.getTtl();
+        }
+        if (ttlSegundos <= 0) {
+            throw new CustomException("La vigencia de la reserva debe ser mayor que 0", HttpStatus.BAD_REQUEST);
+        }
+        Duration ttl = Duration.ofSeconds(ttlSegundos);
+        if (ttl.compareTo(cfg.getTtlMaximo()) > 0) {
+            throw new CustomException("La vigencia de la reserva no puede superar "
+                    + cfg.getTtlMaximo().toSeconds() + " segundos", HttpStatus.BAD_REQUEST);
+        }
+        return ttl;
+    }
+
+    private InventarioReservaRepository.Reserva buscar(UUID reservaId) throws CustomException {
+        if (reservaId == null) {
+            throw new CustomException("El ID de la reserva es obligatorio", HttpStatus.BAD_REQUEST);
+        }
+        return reservaRepository.buscar(reservaId)
+                .orElseThrow(() -> new CustomException(NO_EXISTE, HttpStatus.NOT_FOUND));
+    }
+
+    private InventarioReservaRepository.Reserva buscarVigente(UUID reservaId) throws CustomException {
+        InventarioReservaRepository.Reserva reserva = buscar(reservaId);
+        if (!reserva.expiraEn().isAfter(LocalDateTime.now())) {
+            throw new CustomException(NO_EXISTE, HttpStatus.NOT_FOUND);
+        }
+        return reserva;
+    }
+
+    private static ReservaResponse respuesta(InventarioReservaRepository.Reserva reserva, Integer cantidadLibre) {
+        return ReservaResponse.builder()
+                .reservaId(reserva.id())
+                .productoId(reserva.productoId())
+                .cantidad(reserva.cantidad())
+                .expiraEn(reserva.expiraEn())
+                .cantidadLibre(cantidadLibre)
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package com.ms.producto_ms.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Crea los hilos de los ejecutores propios (eventos, stream SSE, checkpoints).
+ * <p>
+ * Con {@code spring.threads.virtual.enabled=true} sobre Java 21 o superior los hilos son virtuales,
+ * igual que los de Tomcat y los de {@code @Scheduled}; en otro caso son hilos de plataforma daemon.
+ * Los nombres siempre llevan el prefijo indicado seguido de un consecutivo.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class FabricaHilos {
+
+    private final boolean virtuales;
+
+    @Autowired
+    public FabricaHilos(Environment environment) {
+        this(Threading.VIRTUAL.isActive(environment));
+        if (virtuales) {
+            log.info("Modo de hilos virtuales activo para peticiones, tareas y ejecutores propios");
+        }
+    }
+
+    private FabricaHilos(boolean virtuales) {
+        this.virtuales = virtuales;
+    }
+
+    /**
+     * Fábrica con hilos de plataforma, para construir los componentes fuera de Spring.
+     */
+    public static FabricaHilos plataforma() {
+        return new FabricaHilos(false);
+    }
+
+    public boolean isVirtuales() {
+        return virtuales;
+    }
+
+    /**
+     * @param prefijo prefijo del nombre de los hilos, por ejemplo {@code "inventario-eventos-"}.
+     */
+    public ThreadFactory crear(String prefijo) {
+        if (virtuales) {
+            return new VirtualThreadTaskExecutor(prefijo).getVirtualThreadFactory();
+        }
+        AtomicInteger secuencia = new AtomicInteger();
+        return r -> {
+            Thread hilo = new Thread(r, prefijo + secuencia.getAndIncrement());
+            hilo.setDaemon(true);
+            return hilo;
+        };
+    }
+}
@@ -0,0 +1,392 @@
+package com.ms.producto_ms.util.cache;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.dto.response.ProductoResumenDto;
+import com.ms.producto_ms.exception.CustomException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache local de {@link ProductoResumenDto} delante del micro de productos.
+ * <p>
+ * Las entradas vencen por TTL y, al superar el tamaño máximo, se descartan las menos usadas (LRU
+ * aproximado). Las lecturas no toman ningún lock: cada entrada guarda el turno de su último acceso y
+ * solo lo renueva si quedó fuera de los accesos recientes, así un producto muy consultado no escribe
+ * en un contador compartido en cada acierto. El desalojo ordena las entradas por ese turno y baja el
+ * tamaño un 5% por debajo del máximo de una vez, para no repetirse en cada carga.
+ * Ante una avalancha de consultas sobre el mismo producto solo una hace la llamada remota;
+ * las demás esperan su resultado. Los errores (producto inexistente, productos caído, o un
+ * {@link Error} del cargador) no se guardan: se propagan a todos los que esperaban esa carga.
+ * <p>
+ * Una entrada vencida no se sirve como vigente, pero se conserva (hasta que el LRU la descarte o se
+ * reemplace) para usarla de respaldo mientras productos no responde, como máximo
+ * {@code maxObsolescencia} después de vencer.
+ * <p>
+ * Métricas (convención de Micrometer para caches, tag {@code cache=productos}):
+ * {@code cache.gets} (result=hit|miss; esperar la carga en curso de otro hilo cuenta como miss),
+ * {@code cache.puts}, {@code cache.evictions} y
+ * {@code cache.size}; además {@code cache.respaldos} con las lecturas servidas con datos vencidos.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class ProductosCache {
+
+    /**
+     * Carga remota de un producto.
+     */
+    @FunctionalInterface
+    public interface Cargador {
+        ProductoResumenDto cargar(Long productoId) throws CustomException;
+    }
+
+    /**
+     * Carga remota de varios productos en una sola llamada; los inexistentes se omiten.
+     */
+    @FunctionalInterface
+    public interface CargadorVarios {
+        Map<Long, ProductoResumenDto> cargar(Collection<Long> productoIds) throws CustomException;
+    }
+
+    private static final String NOMBRE = "productos";
+
+    private final boolean habilitado;
+    private final long ttlNanos;
+    private final long maxObsolescenciaNanos;
+    private final int tamanoMaximo;
+    /** Tamaño al que baja la cache en cada desalojo. */
+    private final int tamanoTrasDesalojo;
+    /** Accesos dentro de los cuales una entrada se considera reciente y no renueva su turno. */
+    private final long accesosRecientes;
+    private final LongSupplier reloj;
+
+    private final ConcurrentHashMap<Long, Entrada> entradas = new ConcurrentHashMap<>();
+    private final AtomicLong turnos = new AtomicLong();
+    private final AtomicBoolean desalojando = new AtomicBoolean(false);
+    private final ConcurrentHashMap<Long, CompletableFuture<ProductoResumenDto>> cargasEnCurso =
+            new ConcurrentHashMap<>();
+
+    private final Counter aciertos;
+    private final Counter fallos;
+    private final Counter guardados;
+    private final Counter desalojos;
+    private final Counter respaldos;
+
+    @Autowired
+    public ProductosCache(AppProperties properties, MeterRegistry meterRegistry) {
+        this(properties.getProductosCache(), meterRegistry, System::nanoTime);
+    }
+
+    ProductosCache(AppProperties.ProductosCacheDto config, MeterRegistry meterRegistry, LongSupplier reloj) {
+        this.habilitado = config.isHabilitado();
+        this.ttlNanos = config.getTtl().toNanos();
+        this.maxObsolescenciaNanos = config.getMaxObsolescencia().toNanos();
+        this.tamanoMaximo = Math.max(1, config.getTamanoMaximo());
+        this.tamanoTrasDesalojo = tamanoMaximo - tamanoMaximo / 20;
+        this.accesosRecientes = tamanoMaximo / 4;
+        this.reloj = reloj;
+
+        this.aciertos = Counter.builder("cache.gets").tag("cache", NOMBRE).tag("result", "hit")
+                .description("Consultas resueltas sin llamar al micro de productos").register(meterRegistry);
+        this.fallos = Counter.builder("cache.gets").tag("cache", NOMBRE).tag("result", "miss")
+                .description("Consultas que no encontraron el producto vigente (lo cargaron o esperaron otra carga)")
+                .register(meterRegistry);
+        this.guardados = Counter.builder("cache.puts").tag("cache", NOMBRE).register(meterRegistry);
+        this.desalojos = Counter.builder("cache.evictions").tag("cache", NOMBRE)
+                .description("Entradas descartadas por tamaño, vencimiento o invalidación").register(meterRegistry);
+        this.respaldos = Counter.builder("cache.respaldos").tag("cache", NOMBRE)
+                .description("Lecturas servidas con datos vencidos porque productos no respondió").register(meterRegistry);
+
+        Gauge.builder("cache.size", this, ProductosCache::tamano).tag("cache", NOMBRE).register(meterRegistry);
+    }
+
+    /**
+     * Devuelve el producto desde la cache o lo carga con {@code cargador}, garantizando una sola
+     * carga en curso por producto.
+     */
+    public ProductoResumenDto obtener(Long productoId, Cargador cargador) throws CustomException {
+        if (!habilitado) {
+            return cargador.cargar(productoId);
+        }
+
+        ProductoResumenDto vigente = buscarVigente(productoId);
+        if (vigente != null) {
+            aciertos.increment();
+            return vigente;
+        }
+
+        CompletableFuture<ProductoResumenDto> propia = new CompletableFuture<>();
+        CompletableFuture<ProductoResumenDto> enCurso = cargasEnCurso.putIfAbsent(productoId, propia);
+        if (enCurso != null) {
+            // Otro hilo ya está cargando este producto: se comparte su resultado, pero no estaba en cache
+            fallos.increment();
+            return esperar(enCurso);
+        }
+
+        try {
+            // Pudo completarse otra carga entre la búsqueda y el registro de esta
+            ProductoResumenDto valor = buscarVigente(productoId);
+            if (valor == null) {
+                fallos.increment();
+                valor = cargador.cargar(productoId);
+                guardar(productoId, valor);
+            } else {
+                aciertos.increment();
+            }
+            propia.complete(valor);
+            return valor;
+        } catch (Throwable e) {
+            // Cualquier fallo, incluso un Error, debe llegar a los que esperan esta carga
+            propia.completeExceptionally(e);
+            throw e;
+        } finally {
+            cargasEnCurso.remove(productoId, propia);
+        }
+    }
+
+    /**
+     * Devuelve el producto si está vigente en cache, sin cargarlo.
+     *
+     * @return el producto, o {@code null} si hay que consultarlo con {@link #obtener(Long, Cargador)}.
+     */
+    public ProductoResumenDto buscar(Long productoId) {
+        if (!habilitado) {
+            return null;
+        }
+        ProductoResumenDto vigente = buscarVigente(productoId);
+        if (vigente != null) {
+            aciertos.increment();
+        }
+        return vigente;
+    }
+
+    /**
+     * Devuelve varios productos: los vigentes salen de la cache y los demás se cargan juntos
+     * con una sola llamada a {@code cargador}. Los productos inexistentes no aparecen en el
+     * resultado.
+     */
+    public Map<Long, ProductoResumenDto> obtenerVarios(Collection<Long> productoIds, CargadorVarios cargador)
+            throws CustomException {
+        if (!habilitado) {
+            return cargador.cargar(productoIds);
+        }
+
+        Map<Long, ProductoResumenDto> productos = new LinkedHashMap<>();
+        List<Long> faltantes = new ArrayList<>();
+        for (Long productoId : productoIds) {
+            ProductoResumenDto vigente = buscarVigente(productoId);
+            if (vigente != null) {
+                aciertos.increment();
+                productos.put(productoId, vigente);
+            } else {
+                faltantes.add(productoId);
+            }
+        }
+
+        if (!faltantes.isEmpty()) {
+            fallos.increment(faltantes.size());
+            Map<Long, ProductoResumenDto> cargados = cargador.cargar(faltantes);
+            cargados.forEach(this::guardar);
+            productos.putAll(cargados);
+        }
+        return productos;
+    }
+
+    /**
+     * Último valor conocido de un producto aunque su TTL haya vencido, para responder mientras el
+     * micro de productos no está disponible.
+     *
+     * @return el producto, o {@code null} si no está en cache o venció hace más de
+     * {@code maxObsolescencia}.
+     */
+    public ProductoResumenDto obtenerUltimoConocido(Long productoId) {
+        ProductoResumenDto valor = buscarRespaldo(productoId);
+        if (valor != null) {
+            respaldos.increment();
+        }
+        return valor;
+    }
+
+    /**
+     * Últimos valores conocidos de varios productos (ver {@link #obtenerUltimoConocido(Long)}).
+     * Los productos sin respaldo no aparecen en el resultado.
+     */
+    public Map<Long, ProductoResumenDto> obtenerUltimosConocidos(Collection<Long> productoIds) {
+        Map<Long, ProductoResumenDto> productos = new LinkedHashMap<>();
+        for (Long productoId : productoIds) {
+            ProductoResumenDto valor = buscarRespaldo(productoId);
+            if (valor != null) {
+                productos.put(productoId, valor);
+            }
+        }
+        respaldos.increment(productos.size());
+        return productos;
+    }
+
+    /**
+     * Descarta un producto de la cache.
+     *
+     * @return {@code true} si el producto estaba en cache.
+     */
+    public boolean invalidar(Long productoId) {
+        boolean estaba = entradas.remove(productoId) != null;
+        if (estaba) {
+            desalojos.increment();
+        }
+        return estaba;
+    }
+
+    /**
+     * Vacía la cache.
+     *
+     * @return número de entradas descartadas.
+     */
+    public int limpiar() {
+        int descartadas = 0;
+        for (Long productoId : entradas.keySet()) {
+            if (entradas.remove(productoId) != null) {
+                descartadas++;
+            }
+        }
+        desalojos.increment(descartadas);
+        log.info("Cache de productos vaciada - entradas={}", descartadas);
+        return descartadas;
+    }
+
+    /**
+     * Resumen de la cache para el endpoint de administración.
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("habilitado", habilitado);
+        estadisticas.put("tamano", tamano());
+        estadisticas.put("tamanoMaximo", tamanoMaximo);
+        estadisticas.put("ttlSegundos", ttlNanos / 1_000_000_000L);
+        estadisticas.put("aciertos", (long) aciertos.count());
+        estadisticas.put("fallos", (long) fallos.count());
+        estadisticas.put("desalojos", (long) desalojos.count());
+        estadisticas.put("respaldos", (long) respaldos.count());
+        estadisticas.put("cargasEnCurso", cargasEnCurso.size());
+        return estadisticas;
+    }
+
+    public int tamano() {
+        return entradas.size();
+    }
+
+    private ProductoResumenDto buscarVigente(Long productoId) {
+        Entrada entrada = entradas.get(productoId);
+        if (entrada == null) {
+            return null;
+        }
+        // La entrada vencida se conserva como respaldo; se cuenta como desalojo al reemplazarla
+        if (reloj.getAsLong() - entrada.venceEn >= 0) {
+            return null;
+        }
+        usar(entrada);
+        return entrada.valor;
+    }
+
+    private ProductoResumenDto buscarRespaldo(Long productoId) {
+        if (!habilitado) {
+            return null;
+        }
+        Entrada entrada = entradas.get(productoId);
+        if (entrada == null || reloj.getAsLong() - entrada.venceEn > maxObsolescenciaNanos) {
+            return null;
+        }
+        usar(entrada);
+        return entrada.valor;
+    }
+
+    private void usar(Entrada entrada) {
+        if (turnos.get() - entrada.turno > accesosRecientes) {
+            entrada.turno = turnos.incrementAndGet();
+        }
+    }
+
+    private void guardar(Long productoId, ProductoResumenDto valor) {
+        long ahora = reloj.getAsLong();
+        Entrada anterior = entradas.put(productoId, new Entrada(valor, ahora + ttlNanos, turnos.incrementAndGet()));
+        if (anterior != null && ahora - anterior.venceEn >= 0) {
+            desalojos.increment();
+        }
+        guardados.increment();
+        if (entradas.size() > tamanoMaximo) {
+            desalojar();
+        }
+    }
+
+    // Un solo hilo desaloja a la vez; los que guardan mientras tanto no esperan
+    private void desalojar() {
+        if (!desalojando.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<Map.Entry<Long, Entrada>> candidatas = new ArrayList<>(entradas.entrySet());
+            int sobrantes = candidatas.size() - tamanoTrasDesalojo;
+            if (sobrantes <= 0) {
+                return;
+            }
+            candidatas.sort(Comparator.comparingLong(e -> e.getValue().turno));
+            for (int i = 0; i < sobrantes; i++) {
+                // Solo si no se reemplazó mientras tanto
+                if (entradas.remove(candidatas.get(i).getKey(), candidatas.get(i).getValue())) {
+                    desalojos.increment();
+                }
+            }
+        } finally {
+            desalojando.set(false);
+        }
+    }
+
+    private static ProductoResumenDto esperar(CompletableFuture<ProductoResumenDto> carga) throws CustomException {
+        try {
+            return carga.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof CustomException ce) {
+                throw ce;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new CustomException("Fallo comunicación con productos", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    private static final class Entrada {
+        private final ProductoResumenDto valor;
+        private final long venceEn;
+        /** Turno del último acceso; se escribe sin lock, una carrera solo pierde una renovación. */
+        private volatile long turno;
+
+        private Entrada(ProductoResumenDto valor, long venceEn, long turno) {
+            this.valor = valor;
+            this.venceEn = venceEn;
+            this.turno = turno;
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.ms.producto_ms.util.cache;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.util.eventos.InventarioCambiadoEvent;
+import com.ms.producto_ms.util.eventos.InventarioCambiadoListener;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Índice en memoria del saldo, las unidades reservadas y el último precio unitario de todos los
+ * productos.
+ * <p>
+ * Se llena con un recorrido completo de la proyección de saldos ({@code SaldosIndiceJob}) y se
+ * mantiene al día con los {@link InventarioCambiadoEvent} ya confirmados; el mismo job vuelve a
+ * leer cada pocos segundos las filas cambiadas recientemente, lo que cubre los movimientos hechos
+ * o las reservas hechas en otras réplicas y los eventos descartados por la cola. Mientras no termine la primera carga
+ * el índice no está {@link #disponible()} y las lecturas deben ir a la base de datos.
+ * <p>
+ * Para que el índice ocupe poco con millones de productos las entradas viven en arreglos
+ * primitivos paralelos con direccionamiento abierto (unos 32 bytes por producto, frente a más de
+ * 100 de un {@code HashMap<Long, ...>}): el id en un {@code long[]}, el saldo y el reservado en
+ * {@code int[]} y el precio en un {@code long[]} como valor sin escala (la columna es
+ * {@code numeric(15, 2)}).
+ * Las lecturas son optimistas ({@link StampedLock}) y no bloquean salvo que coincidan con una
+ * escritura.
+ * <p>
+ * Métricas: {@code inventario.saldos_indice.productos}, {@code inventario.saldos_indice.bytes} y
+ * {@code inventario.saldos_indice.disponible} (0|1).
+ */
+@Slf4j
+@Component
+public class SaldosIndice implements InventarioCambiadoListener {
+
+    /**
+     * Saldo indexado de un producto.
+     */
+    public record Saldo(int cantidad, int reservada, BigDecimal ultimoPrecioUnitario) {
+
+        /** Unidades que se pueden reservar o retirar: el saldo menos lo retenido por reservas. */
+        public int disponible() {
+            return cantidad - reservada;
+        }
+    }
+
+    /** Escala de los precios guardados ({@code numeric(15, 2)}). */
+    static final int ESCALA = 2;
+    private static final long SIN_PRECIO = Long.MIN_VALUE;
+    /** Ocupación máxima antes de duplicar la tabla: 3/4. */
+    private static final int OCUPACION_NUMERADOR = 3;
+    private static final int OCUPACION_DENOMINADOR = 4;
+
+    private final boolean habilitado;
+    private final int capacidadInicial;
+    private final StampedLock lock = new StampedLock();
+
+    // Protegidos por lock
+    private Tabla tabla;
+    private boolean disponible;
+
+    @Autowired
+    public SaldosIndice(AppProperties properties, MeterRegistry meterRegistry) {
+        this(properties.getSaldosIndice(), meterRegistry);
+    }
+
+    SaldosIndice(AppProperties.SaldosIndiceDto config, MeterRegistry meterRegistry) {
+        this.habilitado = config.isHabilitado();
+        this.capacidadInicial = Math.max(16, config.getCapacidadInicial());
+        this.tabla = new Tabla(capacidadInicial);
+
+        Gauge.builder("inventario.saldos_indice.productos", this, SaldosIndice::tamano)
+                .description("Productos en el índice de saldos en memoria").register(meterRegistry);
+        Gauge.builder("inventario.saldos_indice.bytes", this, SaldosIndice::bytes)
+                .description("Memoria reservada por los arreglos del índice de saldos").register(meterRegistry);
+        Gauge.builder("inventario.saldos_indice.disponible", this, i -> i.disponible() ? 1 : 0)
+                .description("1 si el índice de saldos terminó la carga inicial").register(meterRegistry);
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * @return true si la carga inicial terminó y las lecturas pueden servirse desde el índice.
+     */
+    public boolean disponible() {
+        long stamp = lock.readLock();
+        try {
+            return disponible;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Saldo del producto sin tocar la base de datos.
+     *
+     * @return el saldo indexado, o null si el producto no tiene movimientos. Solo es concluyente
+     * si el índice está {@link #disponible()}.
+     */
+    public Saldo buscar(long productoId) {
+        long stamp = lock.tryOptimisticRead();
+        Tabla actual = tabla;
+        int posicion = actual.posicion(productoId);
+        int cantidad = posicion < 0 ? 0 : actual.cantidades[posicion];
+        int reservada = posicion < 0 ? 0 : actual.reservados[posicion];
+        long precio = posicion < 0 ? SIN_PRECIO : actual.precios[posicion];
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                actual = tabla;
+                posicion = actual.posicion(productoId);
+                cantidad = posicion < 0 ? 0 : actual.cantidades[posicion];
+                reservada = posicion < 0 ? 0 : actual.reservados[posicion];
+                precio = posicion < 0 ? SIN_PRECIO : actual.precios[posicion];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        if (posicion < 0) {
+            return null;
+        }
+        return new Saldo(cantidad, reservada, precio == SIN_PRECIO ? null : BigDecimal.valueOf(precio, ESCALA));
+    }
+
+    /**
+     * Aplica los cambios confirmados, en el orden de entrega. Un evento sin reservado conserva el
+     * que ya tenía el producto.
+     */
+    @Override
+    public void onInventarioCambiado(List<InventarioCambiadoEvent> eventos) {
+        if (!habilitado) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            for (InventarioCambiadoEvent evento : eventos) {
+                if (evento.getProductoId() != null && evento.getCantidadNueva() != null) {
+                    int reservado = evento.getCantidadReservada() != null ? evento.getCantidadReservada()
+                            : tabla.reservado(evento.getProductoId());
+                    tabla = tabla.poner(evento.getProductoId(), evento.getCantidadNueva(), reservado,
+                            sinEscala(evento.getPrecioUnitario()));
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Carga completa: recibe las filas de un recorrido de la proyección de saldos.
+     * <p>
+     * Las filas se acumulan en una tabla nueva sin bloquear las lecturas; al terminar, los cambios
+     * recibidos por eventos durante la carga (más recientes que el recorrido) se copian encima y la
+     * tabla nueva reemplaza a la anterior.
+     */
+    public Carga iniciarCarga() {
+        return new Carga();
+    }
+
+    /**
+     * Sobrescribe las entradas con filas releídas de la base de datos (resincronización periódica).
+     */
+    public void actualizar(long productoId, int cantidad, int reservado, BigDecimal ultimoPrecioUnitario) {
+        long stamp = lock.writeLock();
+        try {
+            tabla = tabla.poner(productoId, cantidad, reservado, sinEscala(ultimoPrecioUnitario));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Descarta el contenido; las lecturas vuelven a la base de datos hasta la próxima carga completa.
+     */
+    public void reiniciar() {
+        long stamp = lock.writeLock();
+        try {
+            tabla = new Tabla(capacidadInicial);
+            disponible = false;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        log.info("Índice de saldos reiniciado; se recargará en la próxima sincronización");
+    }
+
+    public int tamano() {
+        long stamp = lock.readLock();
+        try {
+            return tabla.tamano;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long bytes() {
+        long stamp = lock.readLock();
+        try {
+            return (long) tabla.claves.length * (Long.BYTES + Integer.BYTES + Integer.BYTES + Long.BYTES);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static long sinEscala(BigDecimal precio) {
+        return precio == null ? SIN_PRECIO
+                : precio.setScale(ESCALA, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Carga completa en curso.
+     */
+    public final class Carga {
+
+        private Tabla nueva = new Tabla(capacidadInicial);
+
+        private Carga() {
+        }
+
+        public void agregar(long productoId, int cantidad, int reservado, BigDecimal ultimoPrecioUnitario) {
+            nueva = nueva.poner(productoId, cantidad, reservado, sinEscala(ultimoPrecioUnitario));
+        }
+
+        /**
+         * Publica la tabla cargada y marca el índice como disponible.
+         *
+         * @return productos en el índice.
+         */
+        public int terminar() {
+            long stamp = lock.writeLock();
+            try {
+                Tabla anterior = tabla;
+                for (int i = 0; i < anterior.claves.length; i++) {
+                    if (anterior.claves[i] != Tabla.VACIO) {
+                        nueva = nueva.poner(anterior.claves[i], anterior.cantidades[i], anterior.reservados[i],
+                                anterior.precios[i]);
+                    }
+                }
+                tabla = nueva;
+                disponible = true;
+                return tabla.tamano;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Tabla hash de direccionamiento abierto (sondeo lineal) con llaves {@code long} positivas; no
+     * admite borrados. La capacidad es siempre potencia de dos.
+     */
+    static final class Tabla {
+
+        /** Marca de celda libre: los ids de producto son siempre positivos. */
+        static final long VACIO = 0L;
+
+        final long[] claves;
+        final int[] cantidades;
+        final int[] reservados;
+        final long[] precios;
+        private final int mascara;
+        int tamano;
+
+        Tabla(int capacidadMinima) {
+            int capacidad = Integer.highestOneBit(Math.max(16, capacidadMinima) - 1) << 1;
+            this.claves = new long[capacidad];
+            this.cantidades = new int[capacidad];
+            this.reservados = new int[capacidad];
+            this.precios = new long[capacidad];
+            this.mascara = capacidad - 1;
+        }
+
+        /**
+         * @return la celda del producto; -1 si no está.
+         */
+        int posicion(long productoId) {
+            if (productoId <= VACIO) {
+                return -1;
+            }
+            // Acotado por la capacidad: una lectura optimista puede ver la tabla a medio escribir
+            for (int i = indice(productoId), n = 0; n < claves.length; i = (i + 1) & mascara, n++) {
+                long clave = claves[i];
+                if (clave == productoId) {
+                    return i;
+                }
+                if (clave == VACIO) {
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return las unidades reservadas del producto; 0 si no está.
+         */
+        int reservado(long productoId) {
+            int posicion = posicion(productoId);
+            return posicion < 0 ? 0 : reservados[posicion];
+        }
+
+        /**
+         * Inserta o reemplaza; devuelve la tabla a usar (otra si hubo que crecer). Ignora ids no positivos.
+         */
+        Tabla poner(long productoId, int cantidad, int reservado, long precio) {
+            if (productoId <= VACIO) {
+                return this;
+            }
+            Tabla destino = (long) (tamano + 1) * OCUPACION_DENOMINADOR > (long) claves.length * OCUPACION_NUMERADOR
+                    ? crecer() : this;
+            destino.ponerSinCrecer(productoId, cantidad, reservado, precio);
+            return destino;
+        }
+
+        private void ponerSinCrecer(long productoId, int cantidad, int reservado, long precio) {
+            int i = indice(productoId);
+            while (claves[i] != VACIO && claves[i] != productoId) {
+                i = (i + 1) & mascara;
+            }
+            if (claves[i] == VACIO) {
+                tamano++;
+            }
+            // La llave se escribe al final para que una lectura optimista no vea datos de otra
+            cantidades[i] = cantidad;
+            reservados[i] = reservado;
+            precios[i] = precio;
+            claves[i] = productoId;
+        }
+
+        private Tabla crecer() {
+            Tabla mayor = new Tabla(claves.length * 2);
+            for (int i = 0; i < claves.length; i++) {
+                if (claves[i] != VACIO) {
+                    mayor.ponerSinCrecer(claves[i], cantidades[i], reservados[i], precios[i]);
+                }
+            }
+            return mayor;
+        }
+
+        private int indice(long productoId) {
+            long h = productoId * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mascara;
+        }
+    }
+}
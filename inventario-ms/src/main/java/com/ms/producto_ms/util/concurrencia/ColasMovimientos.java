@@ -0,0 +1,228 @@
+package com.ms.producto_ms.util.concurrencia;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.enmun.TipoMovimientoEmun;
+import com.ms.producto_ms.exception.CustomException;
+import com.ms.producto_ms.service.InventarioInterface;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+
+/**
+ * Cola de escritura por producto para los ingresos y salidas (group commit).
+ * <p>
+ * Con un producto muy solicitado, cada movimiento en su propia transacción espera el lock del
+ * producto detrás de los demás. Aquí los movimientos de un producto se encolan y un solo escritor
+ * a la vez los confirma de a grupos con {@link InventarioInterface#registrarGrupo}: una lectura del
+ * saldo, un insert multi-fila y un commit para todo lo que llegó mientras se confirmaba el grupo
+ * anterior. Sin contención el grupo es de un movimiento y no hay espera adicional.
+ * <p>
+ * No hay hilos propios: escribe el hilo de la petición que encuentra la cola vacía. Al terminar su
+ * grupo le pasa el turno al primero que quedó esperando, de modo que ninguna petición escribe más
+ * de un grupo. Cada petición recibe su propio resultado o error.
+ * <p>
+ * La espera en la cola está acotada por el plazo de la petición ({@link EjecutorConsultas#limite()}):
+ * al agotarse, o si se interrumpe el hilo, la petición sale de la cola y responde
+ * {@link HttpStatus#SERVICE_UNAVAILABLE}. Si su grupo ya se estaba confirmando el movimiento puede
+ * quedar aplicado; el cliente lo reintenta con la misma clave de idempotencia.
+ * <p>
+ * Con {@code app.agrupacion.habilitado=false} cada movimiento va directo a
+ * {@link InventarioInterface#agregarCantidad} o {@link InventarioInterface#retirarCantidad}. La cola
+ * es de esta réplica; entre réplicas los grupos se siguen serializando con el lock del producto.
+ * <p>
+ * Métrica: {@code inventario.movimientos.grupo} (movimientos por transacción).
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Component
+public class ColasMovimientos {
+
+    private static final class Pendiente {
+        private final MovimientoAgrupado movimiento;
+        private final CompletableFuture<ResultadoAgrupado> resultado = new CompletableFuture<>();
+        private final CompletableFuture<Void> turno = new CompletableFuture<>();
+
+        private Pendiente(MovimientoAgrupado movimiento) {
+            this.movimiento = movimiento;
+        }
+    }
+
+    private final InventarioInterface inventarioInterface;
+    private final LongSupplier limite;
+    private final boolean habilitado;
+    private final int maxGrupo;
+    private final DistributionSummary tamanoGrupo;
+    /** Una cola por producto con escritor activo; se quita cuando queda vacía. */
+    private final ConcurrentHashMap<Long, ArrayDeque<Pendiente>> colas = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ColasMovimientos(InventarioInterface inventarioInterface, EjecutorConsultas ejecutorConsultas,
+                            AppProperties properties, MeterRegistry meterRegistry) {
+        this(inventarioInterface, ejecutorConsultas::limite, properties.getAgrupacion(), meterRegistry);
+    }
+
+    /**
+     * @param limite instante límite (en {@link System#nanoTime()}) de la petición que empieza ahora.
+     */
+    ColasMovimientos(InventarioInterface inventarioInterface, LongSupplier limite, AppProperties.AgrupacionDto config,
+                     MeterRegistry meterRegistry) {
+        this.inventarioInterface = inventarioInterface;
+        this.limite = limite;
+        this.habilitado = config.isHabilitado();
+        this.maxGrupo = Math.max(1, config.getMaxGrupo());
+        this.tamanoGrupo = DistributionSummary.builder("inventario.movimientos.grupo")
+                .description("Movimientos confirmados por transacción").register(meterRegistry);
+    }
+
+    /**
+     * Registra el movimiento y devuelve la nueva cantidad del producto, igual que
+     * {@link InventarioInterface#agregarCantidad} y {@link InventarioInterface#retirarCantidad}.
+     *
+     * @param claveIdempotencia clave elegida por el cliente para el movimiento, o null.
+     * @throws CustomException si el movimiento se rechaza o falla el grupo en el que se confirmaba, o
+     *                         {@link HttpStatus#SERVICE_UNAVAILABLE} si se agota el plazo de la petición.
+     */
+    public int registrar(Long productoId, TipoMovimientoEmun tipoMovimiento, Integer cantidad,
+                         BigDecimal precioUnitario, String claveIdempotencia) throws CustomException {
+        if (!habilitado || productoId == null) {
+            return tipoMovimiento == TipoMovimientoEmun.INGRESO
+                    ? inventarioInterface.agregarCantidad(productoId, cantidad, precioUnitario, claveIdempotencia)
+                    : inventarioInterface.retirarCantidad(productoId, cantidad, precioUnitario, claveIdempotencia);
+        }
+
+        long plazo = limite.getAsLong();
+        Pendiente pendiente = new Pendiente(
+                new MovimientoAgrupado(tipoMovimiento, cantidad, precioUnitario, claveIdempotencia));
+        boolean[] escritor = {false};
+        colas.compute(productoId, (id, cola) -> {
+            if (cola == null) {
+                cola = new ArrayDeque<>();
+                escritor[0] = true;
+            }
+            cola.addLast(pendiente);
+            return cola;
+        });
+
+        if (!escritor[0]) {
+            esperar(productoId, pendiente, CompletableFuture.anyOf(pendiente.resultado, pendiente.turno), plazo);
+        }
+        if (!pendiente.resultado.isDone()) {
+            // Turno de escribir: la petición encabeza la cola y entra en este grupo
+            escribirGrupo(productoId);
+        }
+        esperar(productoId, pendiente, pendiente.resultado, plazo);
+        return resultado(pendiente);
+    }
+
+    private void esperar(Long productoId, Pendiente pendiente, CompletableFuture<?> espera, long plazo)
+            throws CustomException {
+        try {
+            espera.get(Math.max(0, plazo - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            // El error del grupo se entrega en resultado()
+        } catch (TimeoutException e) {
+            abandonar(productoId, pendiente);
+            throw new CustomException("Tiempo de espera agotado registrando el movimiento",
+                    HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandonar(productoId, pendiente);
+            throw new CustomException("Registro del movimiento interrumpido", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    // Sale de la cola; si ya tenía el turno se lo pasa al siguiente para que la cola no quede parada.
+    // Dentro de compute, igual que la entrega del turno, para que ninguna de las dos se pierda
+    private void abandonar(Long productoId, Pendiente pendiente) {
+        colas.computeIfPresent(productoId, (id, cola) -> {
+            if (!cola.remove(pendiente) || !pendiente.turno.isDone()) {
+                return cola;
+            }
+            return pasarTurno(cola);
+        });
+    }
+
+    private void escribirGrupo(Long productoId) {
+        List<Pendiente> grupo = new ArrayList<>();
+        colas.computeIfPresent(productoId, (id, cola) -> {
+            while (grupo.size() < maxGrupo && !cola.isEmpty()) {
+                grupo.add(cola.pollFirst());
+            }
+            return cola;
+        });
+
+        try {
+            List<ResultadoAgrupado> resultados = inventarioInterface.registrarGrupo(productoId,
+                    grupo.stream().map(p -> p.movimiento).toList());
+            tamanoGrupo.record(grupo.size());
+            for (int i = 0; i < grupo.size(); i++) {
+                grupo.get(i).resultado.complete(resultados.get(i));
+            }
+        } catch (Throwable e) {
+            grupo.forEach(p -> p.resultado.completeExceptionally(e));
+        } finally {
+            colas.computeIfPresent(productoId, (id, cola) -> pasarTurno(cola));
+        }
+    }
+
+    // Pasa el turno al primero que quedó esperando, o suelta la cola si no queda nadie
+    private static ArrayDeque<Pendiente> pasarTurno(ArrayDeque<Pendiente> cola) {
+        Pendiente siguiente = cola.peekFirst();
+        if (siguiente == null) {
+            return null;
+        }
+        siguiente.turno.complete(null);
+        return cola;
+    }
+
+    private static int resultado(Pendiente pendiente) throws CustomException {
+        ResultadoAgrupado resultado;
+        try {
+            resultado = pendiente.resultado.join();
+        } catch (CompletionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof CustomException custom) {
+                throw custom;
+            }
+            if (causa instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (causa instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(causa);
+        }
+        if (resultado.error() != null) {
+            throw resultado.error();
+        }
+        return resultado.cantidadNueva();
+    }
+
+    int colasActivas() {
+        return colas.size();
+    }
+
+    int enEspera(Long productoId) {
+        int[] total = {0};
+        colas.computeIfPresent(productoId, (id, cola) -> {
+            total[0] = cola.size();
+            return cola;
+        });
+        return total[0];
+    }
+}
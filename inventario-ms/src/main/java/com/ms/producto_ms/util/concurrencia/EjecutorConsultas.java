@@ -0,0 +1,148 @@
+package com.ms.producto_ms.util.concurrencia;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.exception.CustomException;
+import com.ms.producto_ms.util.FabricaHilos;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Ejecuta en paralelo las consultas remotas de una petición mientras el hilo de la petición hace
+ * sus lecturas locales, con un plazo común para todas ({@code app.consultas.plazo}).
+ * <p>
+ * El pool es acotado: si la cola está llena la tarea corre en el hilo que la envía (la petición
+ * vuelve a ser secuencial, no falla). Con {@code app.consultas.concurrente=false} todas las tareas
+ * corren en el hilo que las envía.
+ * <p>
+ * Métricas: las de {@link ExecutorServiceMetrics} con nombre {@code inventario.consultas}
+ * ({@code executor.active}, {@code executor.queued}, ...) y {@code inventario.consultas.en_llamador}.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class EjecutorConsultas {
+
+    /**
+     * Consulta que puede lanzar {@link CustomException}.
+     */
+    @FunctionalInterface
+    public interface Consulta<T> {
+        T ejecutar() throws CustomException;
+    }
+
+    private final boolean concurrente;
+    private final long plazoNanos;
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService monitoreado;
+    private final Counter enLlamador;
+
+    @Autowired
+    public EjecutorConsultas(AppProperties properties, MeterRegistry meterRegistry, FabricaHilos fabricaHilos) {
+        AppProperties.ConsultasDto config = properties.getConsultas();
+        this.concurrente = config.isConcurrente();
+        this.plazoNanos = config.getPlazo().toNanos();
+
+        int hilos = Math.max(1, config.getHilos());
+        this.pool = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getCapacidadCola())),
+                fabricaHilos.crear("inventario-consultas-"));
+        this.pool.allowCoreThreadTimeOut(true);
+        this.monitoreado = ExecutorServiceMetrics.monitor(meterRegistry, pool, "inventario.consultas");
+        this.enLlamador = Counter.builder("inventario.consultas.en_llamador")
+                .description("Consultas ejecutadas en el hilo de la petición por pool lleno").register(meterRegistry);
+    }
+
+    /**
+     * Instante límite (en {@link System#nanoTime()}) para las consultas que se inician ahora.
+     */
+    public long limite() {
+        return System.nanoTime() + plazoNanos;
+    }
+
+    /**
+     * Inicia la consulta en el pool. Si el pool está lleno o la ejecución concurrente está
+     * desactivada, la consulta se ejecuta ya en el hilo actual y se devuelve completada.
+     */
+    public <T> CompletableFuture<T> enviar(Consulta<T> consulta) {
+        if (concurrente) {
+            CompletableFuture<T> futuro = new CompletableFuture<>();
+            try {
+                monitoreado.execute(() -> completar(futuro, consulta));
+                return futuro;
+            } catch (RejectedExecutionException e) {
+                enLlamador.increment();
+            }
+        }
+        CompletableFuture<T> futuro = new CompletableFuture<>();
+        completar(futuro, consulta);
+        return futuro;
+    }
+
+    /**
+     * Espera el resultado de la consulta hasta {@code limite}.
+     *
+     * @throws CustomException la de la consulta, o {@link HttpStatus#SERVICE_UNAVAILABLE} si se
+     *                         agota el plazo. La llamada remota en curso no se interrumpe: termina
+     *                         por su propio timeout.
+     */
+    public <T> T esperar(CompletableFuture<T> futuro, long limite) throws CustomException {
+        try {
+            return futuro.get(Math.max(0, limite - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            throw new CustomException("Tiempo de espera agotado consultando productos", HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futuro.cancel(true);
+            throw new CustomException("Consulta interrumpida", HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (CancellationException e) {
+            throw new CustomException("Consulta cancelada", HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CustomException ce) {
+                throw ce;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new CustomException("Fallo comunicación con productos", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        List<Runnable> pendientes = pool.shutdownNow();
+        if (!pendientes.isEmpty()) {
+            log.info("Pool de consultas detenido - tareasPendientes={}", pendientes.size());
+        }
+    }
+
+    private static <T> void completar(CompletableFuture<T> futuro, Consulta<T> consulta) {
+        if (futuro.isDone()) {
+            return;
+        }
+        try {
+            futuro.complete(consulta.ejecutar());
+        } catch (CustomException | RuntimeException e) {
+            futuro.completeExceptionally(e);
+        }
+    }
+}
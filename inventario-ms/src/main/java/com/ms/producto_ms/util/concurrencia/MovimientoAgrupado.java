@@ -0,0 +1,14 @@
+package com.ms.producto_ms.util.concurrencia;
+
+import com.ms.producto_ms.enmun.TipoMovimientoEmun;
+
+import java.math.BigDecimal;
+
+/**
+ * Ingreso o salida de un producto que espera su turno en {@link ColasMovimientos}.
+ *
+ * @param claveIdempotencia clave elegida por el cliente para el movimiento, o null.
+ */
+public record MovimientoAgrupado(TipoMovimientoEmun tipoMovimiento, Integer cantidad, BigDecimal precioUnitario,
+                                 String claveIdempotencia) {
+}
@@ -0,0 +1,18 @@
+package com.ms.producto_ms.util.concurrencia;
+
+import com.ms.producto_ms.exception.CustomException;
+
+/**
+ * Resultado de un {@link MovimientoAgrupado}: la cantidad resultante, o el error que recibe solo
+ * quien lo envió (los demás movimientos del grupo se confirman igual).
+ */
+public record ResultadoAgrupado(Integer cantidadNueva, CustomException error) {
+
+    public static ResultadoAgrupado aplicado(int cantidadNueva) {
+        return new ResultadoAgrupado(cantidadNueva, null);
+    }
+
+    public static ResultadoAgrupado rechazado(CustomException error) {
+        return new ResultadoAgrupado(null, error);
+    }
+}
@@ -0,0 +1,14 @@
+package com.ms.producto_ms.util.eventos;
+
+import lombok.Value;
+
+/**
+ * Evento leído de la outbox. El {@code id} es único y estable entre reintentos, así que los
+ * handlers lo pueden usar para descartar entregas repetidas.
+ */
+@Value
+public class EventoOutbox {
+
+    Long id;
+    InventarioCambiadoEvent evento;
+}
@@ -4,6 +4,7 @@ import lombok.Builder;
 import lombok.Value;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 @Value
 @Builder
@@ -13,6 +14,9 @@ public class InventarioCambiadoEvent {
     Integer cantidadAnterior;
     Integer cantidadMovimiento;
     Integer cantidadNueva;
-    String tipoMovimiento; // "INGRESO" | "SALIDA"
+    Integer cantidadReservada; // reservado tras el cambio; null si no se conoce (eventos leídos de la outbox)
+    String tipoMovimiento; // "INGRESO" | "SALIDA" | "RESERVA" (cambio del reservado, sin movimiento)
     BigDecimal precioUnitario;
-}
\ No newline at end of file
+    @Builder.Default
+    Instant fechaEvento = Instant.now(); // para medir el retraso de entrega
+}
@@ -0,0 +1,23 @@
+package com.ms.producto_ms.util.eventos;
+
+import java.util.List;
+
+/**
+ * Consumidor de los cambios de inventario ya confirmados.
+ * <p>
+ * Los beans que implementan esta interfaz reciben los eventos de forma asíncrona, después del
+ * commit y agrupados en lotes (de tamaño {@code app.eventos.tamano-lote} como máximo), en el
+ * orden en que fueron confirmados. Un error en un listener no afecta a los demás ni al movimiento.
+ * <p>
+ * Son consumidores locales de cada réplica (saldos en memoria, stream): un evento que se pierde por
+ * una caída se recupera al recargar el estado desde la base de datos. Los consumidores que deben
+ * recibir cada evento aunque el proceso caiga se implementan como {@link InventarioOutboxHandler};
+ * la outbox entrega cada fila a una sola réplica, por eso no alimenta a estos listeners.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+public interface InventarioCambiadoListener {
+
+    void onInventarioCambiado(List<InventarioCambiadoEvent> eventos);
+}
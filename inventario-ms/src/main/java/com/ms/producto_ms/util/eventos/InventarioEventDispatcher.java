@@ -0,0 +1,260 @@
+package com.ms.producto_ms.util.eventos;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.enmun.PoliticaColaEmun;
+import com.ms.producto_ms.util.FabricaHilos;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Despacha los {@link InventarioCambiadoEvent} a los {@link InventarioCambiadoListener} registrados.
+ * <p>
+ * Los eventos se reciben solo después del commit (los de transacciones revertidas nunca llegan)
+ * y se entregan en hilos propios, fuera de la transacción y de los locks del movimiento. Cada
+ * producto se asigna siempre al mismo hilo, así los eventos de un producto se entregan en orden.
+ * Cada hilo agrupa lo que encuentre en su cola hasta {@code app.eventos.tamano-lote} eventos,
+ * esperando a lo sumo {@code app.eventos.espera-lote} para completar el lote.
+ * <p>
+ * Las colas son acotadas; cuando una se llena se aplica {@code app.eventos.politica}
+ * ({@link PoliticaColaEmun}). Un evento que no entra en la cola de su producto espera o se
+ * descarta, nunca se entrega en el hilo del llamador: eso lo adelantaría a los eventos del mismo
+ * producto que siguen en la cola. Con {@code app.eventos.asincrono=false} los eventos se entregan
+ * en el mismo hilo, igualmente después del commit. Los hilos de entrega son virtuales cuando
+ * está activo el modo de hilos virtuales ({@link FabricaHilos}).
+ * <p>
+ * Métricas: {@code inventario.eventos.cola} (eventos en espera), {@code inventario.eventos.retraso}
+ * (desde que se emitió el evento hasta su entrega), {@code inventario.eventos.lote} (tamaño de los
+ * lotes), {@code inventario.eventos.entregados} (sin error en ningún listener),
+ * {@code inventario.eventos.descartados} y
+ * {@code inventario.eventos.errores}.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class InventarioEventDispatcher implements SmartLifecycle {
+
+    /** Se detiene después del servidor web, para entregar lo que dejen las últimas peticiones. */
+    private static final int FASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+    private static final long ESPERA_POLL_MS = 200;
+
+    private final List<InventarioCambiadoListener> listeners;
+    private final AppProperties.EventosDto config;
+    private final ThreadFactory fabricaHilos;
+    private final List<BlockingQueue<InventarioCambiadoEvent>> colas = new ArrayList<>();
+    private final List<Thread> hilos = new ArrayList<>();
+    private volatile boolean activo;
+
+    private final Counter entregados;
+    private final Counter descartados;
+    private final Counter errores;
+    private final Timer retraso;
+    private final DistributionSummary tamanoLotes;
+
+    InventarioEventDispatcher(List<InventarioCambiadoListener> listeners, AppProperties properties,
+                              MeterRegistry meterRegistry) {
+        this(listeners, properties, meterRegistry, FabricaHilos.plataforma());
+    }
+
+    @Autowired
+    public InventarioEventDispatcher(List<InventarioCambiadoListener> listeners, AppProperties properties,
+                                     MeterRegistry meterRegistry, FabricaHilos fabricaHilos) {
+        this.listeners = List.copyOf(listeners);
+        this.config = properties.getEventos();
+        this.fabricaHilos = fabricaHilos.crear("inventario-eventos-");
+
+        int numeroHilos = Math.max(1, config.getHilos());
+        int capacidad = Math.max(1, config.getCapacidadCola() / numeroHilos);
+        for (int i = 0; i < numeroHilos; i++) {
+            colas.add(new ArrayBlockingQueue<>(capacidad));
+        }
+
+        this.entregados = Counter.builder("inventario.eventos.entregados")
+                .description("Eventos de inventario entregados sin error a todos los listeners").register(meterRegistry);
+        this.descartados = Counter.builder("inventario.eventos.descartados")
+                .description("Eventos descartados por cola llena").register(meterRegistry);
+        this.errores = Counter.builder("inventario.eventos.errores")
+                .description("Errores lanzados por los listeners").register(meterRegistry);
+        this.retraso = Timer.builder("inventario.eventos.retraso")
+                .description("Tiempo entre la emisión del evento y su entrega").register(meterRegistry);
+        this.tamanoLotes = DistributionSummary.builder("inventario.eventos.lote")
+                .description("Eventos por lote entregado").register(meterRegistry);
+        Gauge.builder("inventario.eventos.cola", this, InventarioEventDispatcher::eventosEnCola)
+                .description("Eventos en espera de ser entregados").register(meterRegistry);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInventarioCambiado(InventarioCambiadoEvent evento) {
+        if (!activo) {
+            entregar(List.of(evento));
+            return;
+        }
+
+        BlockingQueue<InventarioCambiadoEvent> cola = colaDe(evento);
+        if (cola.offer(evento)) {
+            return;
+        }
+
+        try {
+            switch (config.getPolitica()) {
+                case BLOQUEAR -> {
+                    if (cola.offer(evento, config.getTiempoMaxBloqueo().toNanos(), TimeUnit.NANOSECONDS)) {
+                        return;
+                    }
+                }
+                case ESPERAR -> {
+                    cola.put(evento);
+                    return;
+                }
+                case DESCARTAR -> {
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // DESCARTAR, BLOQUEAR sin espacio tras la espera o espera interrumpida
+        descartados.increment();
+        log.warn("Cola de eventos llena, evento descartado - productoId={} tipo={}",
+                evento.getProductoId(), evento.getTipoMovimiento());
+    }
+
+    @Override
+    public void start() {
+        if (!config.isAsincrono() || activo) {
+            return;
+        }
+        activo = true;
+        for (int i = 0; i < colas.size(); i++) {
+            BlockingQueue<InventarioCambiadoEvent> cola = colas.get(i);
+            Thread hilo = fabricaHilos.newThread(() -> procesar(cola));
+            hilo.start();
+            hilos.add(hilo);
+        }
+        log.info("Despacho asíncrono de eventos iniciado - hilos={} capacidadCola={} politica={} tamanoLote={}",
+                colas.size(), config.getCapacidadCola(), config.getPolitica(), config.getTamanoLote());
+    }
+
+    @Override
+    public void stop() {
+        activo = false;
+        for (Thread hilo : hilos) {
+            try {
+                hilo.join(config.getTiempoMaxBloqueo().toMillis() + ESPERA_POLL_MS * 5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        hilos.clear();
+        // Lo que no alcanzaron a entregar los hilos se entrega aquí
+        colas.forEach(cola -> {
+            List<InventarioCambiadoEvent> pendientes = new ArrayList<>();
+            cola.drainTo(pendientes);
+            if (!pendientes.isEmpty()) {
+                entregar(pendientes);
+            }
+        });
+    }
+
+    @Override
+    public boolean isRunning() {
+        return activo;
+    }
+
+    @Override
+    public int getPhase() {
+        return FASE;
+    }
+
+    public int eventosEnCola() {
+        int total = 0;
+        for (BlockingQueue<InventarioCambiadoEvent> cola : colas) {
+            total += cola.size();
+        }
+        return total;
+    }
+
+    private void procesar(BlockingQueue<InventarioCambiadoEvent> cola) {
+        int tamanoLote = Math.max(1, config.getTamanoLote());
+        long esperaLote = config.getEsperaLote().toNanos();
+
+        while (activo || !cola.isEmpty()) {
+            try {
+                InventarioCambiadoEvent primero = cola.poll(ESPERA_POLL_MS, TimeUnit.MILLISECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                List<InventarioCambiadoEvent> lote = new ArrayList<>(Math.min(tamanoLote, 64));
+                lote.add(primero);
+                cola.drainTo(lote, tamanoLote - 1);
+
+                long limite = System.nanoTime() + esperaLote;
+                while (lote.size() < tamanoLote) {
+                    long restante = limite - System.nanoTime();
+                    if (restante <= 0) {
+                        break;
+                    }
+                    InventarioCambiadoEvent siguiente = cola.poll(restante, TimeUnit.NANOSECONDS);
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lote.add(siguiente);
+                    cola.drainTo(lote, tamanoLote - lote.size());
+                }
+
+                entregar(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    void entregar(List<InventarioCambiadoEvent> lote) {
+        Instant ahora = Instant.now();
+        for (InventarioCambiadoEvent evento : lote) {
+            retraso.record(Duration.between(evento.getFechaEvento(), ahora));
+        }
+        tamanoLotes.record(lote.size());
+
+        List<InventarioCambiadoEvent> inmutable = List.copyOf(lote);
+        boolean sinErrores = true;
+        for (InventarioCambiadoListener listener : listeners) {
+            try {
+                listener.onInventarioCambiado(inmutable);
+            } catch (RuntimeException e) {
+                sinErrores = false;
+                errores.increment();
+                log.error("Error en listener de inventario {} - eventos={}",
+                        listener.getClass().getSimpleName(), inmutable.size(), e);
+            }
+        }
+        if (sinErrores) {
+            entregados.increment(inmutable.size());
+        }
+    }
+
+    private BlockingQueue<InventarioCambiadoEvent> colaDe(InventarioCambiadoEvent evento) {
+        long productoId = evento.getProductoId() != null ? evento.getProductoId() : 0L;
+        return colas.get((int) Math.floorMod(productoId, (long) colas.size()));
+    }
+}
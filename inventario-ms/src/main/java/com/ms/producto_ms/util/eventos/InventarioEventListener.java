@@ -1,23 +1,37 @@
 package com.ms.producto_ms.util.eventos;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
+/**
+ * Consumidor durable de los cambios de inventario: los recibe del relay de la outbox, así que un
+ * movimiento confirmado se entrega aunque el proceso caiga antes de los listeners locales.
+ * <p>
+ * La entrega es al menos una vez; el {@code outboxId} de cada línea identifica las repetidas.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
 @Slf4j
 @Component
-public class InventarioEventListener {
+public class InventarioEventListener implements InventarioOutboxHandler {
 
-    @EventListener
-    public void onInventarioCambiado(InventarioCambiadoEvent event) {
-        log.info(
-                "💡 [EVENTO] Inventario cambiado - productoId={}, tipoMovimiento={}, cantidadAnterior={}, cantidadMovimiento={}, cantidadNueva={}, precioUnitario={}",
-                event.getProductoId(),
-                event.getTipoMovimiento(),
-                event.getCantidadAnterior(),
-                event.getCantidadMovimiento(),
-                event.getCantidadNueva(),
-                event.getPrecioUnitario()
-        );
+    @Override
+    public void manejar(List<EventoOutbox> eventos) {
+        for (EventoOutbox outbox : eventos) {
+            InventarioCambiadoEvent event = outbox.getEvento();
+            log.info(
+                    "💡 [EVENTO] Inventario cambiado - outboxId={}, productoId={}, tipoMovimiento={}, cantidadAnterior={}, cantidadMovimiento={}, cantidadNueva={}, precioUnitario={}",
+                    outbox.getId(),
+                    event.getProductoId(),
+                    event.getTipoMovimiento(),
+                    event.getCantidadAnterior(),
+                    event.getCantidadMovimiento(),
+                    event.getCantidadNueva(),
+                    event.getPrecioUnitario()
+            );
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,18 @@
+package com.ms.producto_ms.util.eventos;
+
+import java.util.List;
+
+/**
+ * Destino durable de los cambios de inventario, alimentado por la outbox.
+ * <p>
+ * La entrega es al menos una vez: si un handler lanza una excepción (o el proceso cae) el lote
+ * completo se reintenta en el siguiente ciclo del relay, también para los handlers que ya lo
+ * habían recibido. Los handlers deben ser idempotentes usando {@link EventoOutbox#getId()}.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+public interface InventarioOutboxHandler {
+
+    void manejar(List<EventoOutbox> eventos) throws Exception;
+}
@@ -0,0 +1,292 @@
+package com.ms.producto_ms.util.eventos;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.dto.response.SaldoCambiadoDto;
+import com.ms.producto_ms.exception.CustomException;
+import com.ms.producto_ms.util.FabricaHilos;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publica los cambios de saldo confirmados a los suscriptores del stream SSE.
+ * <p>
+ * Cada suscriptor guarda como pendiente solo el último cambio por producto; cuando hay
+ * pendientes se programa un único envío para ese suscriptor en un pool pequeño y compartido.
+ * Así un cliente lento nunca acumula más de un cambio por producto y no retrasa a los demás
+ * listeners. Una conexión inactiva no tiene hilo asignado: solo recibe un comentario
+ * periódico ({@code app.stream.heartbeat}) para que proxies y balanceadores no la corten.
+ * <p>
+ * El número de conexiones simultáneas está limitado por {@code app.stream.max-conexiones}.
+ * Un cliente que deja de leer bloquea la escritura de su conexión: si un envío tarda más de
+ * {@code app.stream.tiempo-maximo-envio} el suscriptor se descarta y la conexión se cierra en
+ * cuanto la escritura termine, para no seguir ocupando un hilo del pool por cada cambio.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class InventarioStreamHub implements InventarioCambiadoListener {
+
+    private static final String EVENTO = "saldo";
+
+    /**
+     * Lectura de los saldos iniciales de una suscripción.
+     */
+    @FunctionalInterface
+    public interface SaldosIniciales {
+        Collection<SaldoCambiadoDto> leer() throws CustomException;
+    }
+
+    private final AppProperties.StreamDto config;
+    private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger conexiones = new AtomicInteger();
+    private final ScheduledExecutorService envios;
+    private final ScheduledExecutorService vigilancia;
+    private final long tiempoMaximoEnvioNanos;
+    private final Counter enviados;
+    private final Counter agrupados;
+    private final Counter bloqueados;
+
+    InventarioStreamHub(AppProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, FabricaHilos.plataforma());
+    }
+
+    @Autowired
+    public InventarioStreamHub(AppProperties properties, MeterRegistry meterRegistry, FabricaHilos fabricaHilos) {
+        this.config = properties.getStream();
+        this.envios = Executors.newScheduledThreadPool(Math.max(1, config.getHilosEnvio()),
+                fabricaHilos.crear("inventario-stream-"));
+        long heartbeat = config.getHeartbeat().toMillis();
+        envios.scheduleWithFixedDelay(this::heartbeat, heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+        // Hilo propio: la revisión debe correr aunque todos los de envío estén bloqueados
+        this.vigilancia = Executors.newSingleThreadScheduledExecutor(fabricaHilos.crear("inventario-stream-vigilancia-"));
+        this.tiempoMaximoEnvioNanos = config.getTiempoMaximoEnvio().toNanos();
+        long revision = Math.max(1, config.getTiempoMaximoEnvio().toMillis() / 2);
+        vigilancia.scheduleWithFixedDelay(this::descartarBloqueados, revision, revision, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("inventario.stream.conexiones", conexiones, AtomicInteger::get)
+                .description("Conexiones SSE abiertas").register(meterRegistry);
+        this.enviados = Counter.builder("inventario.stream.enviados")
+                .description("Cambios de saldo enviados a clientes SSE").register(meterRegistry);
+        this.agrupados = Counter.builder("inventario.stream.agrupados")
+                .description("Cambios reemplazados por uno más reciente antes de enviarse").register(meterRegistry);
+        this.bloqueados = Counter.builder("inventario.stream.bloqueados")
+                .description("Suscriptores descartados por un envío bloqueado").register(meterRegistry);
+    }
+
+    /**
+     * Registra un suscriptor.
+     * <p>
+     * Los saldos iniciales se leen después de registrarlo, así que ningún cambio confirmado entre
+     * la lectura y el registro se pierde; si ya llegó un cambio del producto, el saldo inicial de
+     * ese producto se descarta. Nada se envía hasta tener los saldos iniciales.
+     *
+     * @param productoIds productos a seguir; vacío para seguir todos.
+     * @param inicial     lectura de los saldos actuales a enviar apenas se abre la conexión.
+     * @throws CustomException si se alcanzó el máximo de conexiones o falla la lectura inicial.
+     */
+    public SseEmitter suscribir(Set<Long> productoIds, SaldosIniciales inicial) throws CustomException {
+        if (conexiones.incrementAndGet() > config.getMaxConexiones()) {
+            conexiones.decrementAndGet();
+            throw new CustomException("Se alcanzó el máximo de conexiones al stream de inventario",
+                    HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        SseEmitter emitter = new SseEmitter(config.getTimeout().toMillis());
+        Suscriptor suscriptor = new Suscriptor(emitter, Set.copyOf(productoIds));
+        emitter.onCompletion(() -> cerrar(suscriptor));
+        emitter.onTimeout(() -> cerrar(suscriptor));
+        emitter.onError(e -> cerrar(suscriptor));
+        // Con el envío tomado los cambios que lleguen se acumulan sin enviarse
+        suscriptor.envioProgramado.set(true);
+        suscriptores.add(suscriptor);
+
+        try {
+            inicial.leer().forEach(saldo -> suscriptor.pendientes.putIfAbsent(saldo.getProductoId(), saldo));
+        } catch (CustomException | RuntimeException e) {
+            cerrar(suscriptor);
+            throw e;
+        }
+        suscriptor.envioProgramado.set(false);
+        programar(suscriptor);
+        return emitter;
+    }
+
+    @Override
+    public void onInventarioCambiado(List<InventarioCambiadoEvent> eventos) {
+        if (suscriptores.isEmpty()) {
+            return;
+        }
+        for (InventarioCambiadoEvent evento : eventos) {
+            SaldoCambiadoDto cambio = cambio(evento);
+
+            for (Suscriptor suscriptor : suscriptores) {
+                if (suscriptor.sigue(evento.getProductoId())) {
+                    suscriptor.pendientes.merge(evento.getProductoId(), cambio, (anterior, nuevo) -> {
+                        if (anterior.getMovimientosAgrupados() == null) {
+                            // Saldo inicial: el cambio lo reemplaza sin contarlo como movimiento
+                            return nuevo;
+                        }
+                        agrupados.increment();
+                        return nuevo.toBuilder()
+                                .movimientosAgrupados(anterior.getMovimientosAgrupados() + 1)
+                                .build();
+                    });
+                    programar(suscriptor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cambio enviado a los suscriptores: lo disponible es el saldo menos lo reservado, igual que en
+     * las consultas.
+     */
+    static SaldoCambiadoDto cambio(InventarioCambiadoEvent evento) {
+        int reservada = evento.getCantidadReservada() != null ? evento.getCantidadReservada() : 0;
+        return SaldoCambiadoDto.builder()
+                .productoId(evento.getProductoId())
+                .cantidadDisponible(evento.getCantidadNueva() != null ? evento.getCantidadNueva() - reservada : null)
+                .cantidadReservada(reservada > 0 ? reservada : null)
+                .tipoMovimiento(evento.getTipoMovimiento())
+                .cantidadMovimiento(evento.getCantidadMovimiento())
+                .movimientosAgrupados(1)
+                .fechaEvento(evento.getFechaEvento())
+                .build();
+    }
+
+    public int conexionesAbiertas() {
+        return conexiones.get();
+    }
+
+    @PreDestroy
+    void cerrarTodo() {
+        vigilancia.shutdownNow();
+        envios.shutdownNow();
+        suscriptores.forEach(s -> s.emitter.complete());
+    }
+
+    private void programar(Suscriptor suscriptor) {
+        if (suscriptor.envioProgramado.compareAndSet(false, true)) {
+            envios.execute(() -> enviarPendientes(suscriptor));
+        }
+    }
+
+    private void enviarPendientes(Suscriptor suscriptor) {
+        do {
+            if (suscriptor.ping.getAndSet(false) && !enviar(suscriptor, SseEmitter.event().comment("ping"))) {
+                return;
+            }
+            Iterator<Map.Entry<Long, SaldoCambiadoDto>> it = suscriptor.pendientes.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, SaldoCambiadoDto> pendiente = it.next();
+                SaldoCambiadoDto cambio = pendiente.getValue();
+                // Solo se quita si no llegó otro más reciente mientras tanto
+                suscriptor.pendientes.remove(pendiente.getKey(), cambio);
+                if (!enviar(suscriptor, SseEmitter.event()
+                        .name(EVENTO)
+                        .id(String.valueOf(cambio.getProductoId()))
+                        .data(cambio, MediaType.APPLICATION_JSON))) {
+                    return;
+                }
+                enviados.increment();
+            }
+            suscriptor.envioProgramado.set(false);
+            // Un cambio pudo llegar entre el recorrido y la liberación del envío
+        } while ((!suscriptor.pendientes.isEmpty() || suscriptor.ping.get())
+                && suscriptor.envioProgramado.compareAndSet(false, true));
+    }
+
+    private boolean enviar(Suscriptor suscriptor, SseEmitter.SseEventBuilder evento) {
+        suscriptor.envioDesde = System.nanoTime();
+        try {
+            suscriptor.emitter.send(evento);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Cliente SSE desconectado: {}", e.getMessage());
+            suscriptor.emitter.completeWithError(e);
+            cerrar(suscriptor);
+            return false;
+        } finally {
+            suscriptor.envioDesde = 0;
+        }
+        if (suscriptor.cerrado.get()) {
+            // Descartado mientras el envío estaba bloqueado: se cierra ahora que la escritura terminó
+            suscriptor.emitter.complete();
+            return false;
+        }
+        return true;
+    }
+
+    // El comentario se envía con los cambios, por el mismo turno de envío del suscriptor: así nunca
+    // bloquea este hilo ni se cruza con un envío en curso
+    private void heartbeat() {
+        for (Suscriptor suscriptor : suscriptores) {
+            suscriptor.ping.set(true);
+            programar(suscriptor);
+        }
+    }
+
+    private void descartarBloqueados() {
+        long ahora = System.nanoTime();
+        for (Suscriptor suscriptor : suscriptores) {
+            long desde = suscriptor.envioDesde;
+            if (desde != 0 && ahora - desde > tiempoMaximoEnvioNanos) {
+                log.warn("Cliente SSE descartado: un envío lleva más de {} ms bloqueado",
+                        TimeUnit.NANOSECONDS.toMillis(tiempoMaximoEnvioNanos));
+                bloqueados.increment();
+                // Sin tocar el emitter: cerrarlo espera a que termine la escritura bloqueada
+                cerrar(suscriptor);
+            }
+        }
+    }
+
+    private void cerrar(Suscriptor suscriptor) {
+        if (suscriptor.cerrado.compareAndSet(false, true)) {
+            suscriptores.remove(suscriptor);
+            suscriptor.pendientes.clear();
+            conexiones.decrementAndGet();
+        }
+    }
+
+    private static final class Suscriptor {
+        private final SseEmitter emitter;
+        private final Set<Long> productoIds;
+        private final Map<Long, SaldoCambiadoDto> pendientes = new ConcurrentHashMap<>();
+        private final AtomicBoolean envioProgramado = new AtomicBoolean(false);
+        private final AtomicBoolean ping = new AtomicBoolean(false);
+        private final AtomicBoolean cerrado = new AtomicBoolean(false);
+        /** Inicio ({@link System#nanoTime()}) del envío en curso; 0 si no hay ninguno. */
+        private volatile long envioDesde;
+
+        private Suscriptor(SseEmitter emitter, Set<Long> productoIds) {
+            this.emitter = emitter;
+            this.productoIds = productoIds;
+        }
+
+        private boolean sigue(Long productoId) {
+            return !cerrado.get() && (productoIds.isEmpty() || productoIds.contains(productoId));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.ms.producto_ms.util.idempotencia;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * Movimiento registrado con una clave de idempotencia y su resultado. Sirve para responder
+ * igual a los reintentos y para detectar una clave reutilizada con otro movimiento.
+ */
+@Value
+@Builder
+public class RegistroIdempotencia {
+
+    String clave;
+    String tipoMovimiento; // "INGRESO" | "SALIDA"
+    Long productoId;
+    Integer cantidad;
+    BigDecimal precioUnitario;
+    Integer cantidadNueva;
+
+    /**
+     * @return true si describe el mismo movimiento (el precio se compara sin importar la escala).
+     */
+    public boolean mismoMovimiento(String tipoMovimiento, Long productoId, Integer cantidad,
+                                   BigDecimal precioUnitario) {
+        return this.tipoMovimiento.equals(tipoMovimiento)
+                && this.productoId.equals(productoId)
+                && this.cantidad.equals(cantidad)
+                && this.precioUnitario.compareTo(precioUnitario) == 0;
+    }
+}
@@ -0,0 +1,43 @@
+package com.ms.producto_ms.util.paginacion;
+
+import com.ms.producto_ms.exception.CustomException;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición en el libro de movimientos para la paginación por llave ({@code fecha_movimiento, id}).
+ * <p>
+ * Se entrega al cliente como texto opaco (Base64 URL); la página siguiente continúa justo después
+ * del último movimiento devuelto, sin OFFSET, así que cuesta lo mismo a cualquier profundidad.
+ *
+ * @param fechaMovimiento fecha del último movimiento devuelto.
+ * @param id              id del último movimiento devuelto (desempata movimientos con la misma fecha).
+ */
+public record CursorMovimiento(LocalDateTime fechaMovimiento, long id) {
+
+    private static final char SEPARADOR = '|';
+
+    public String codificar() {
+        String valor = fechaMovimiento.toString() + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws CustomException con {@link HttpStatus#BAD_REQUEST} si el cursor no es uno emitido por
+     *                         {@link #codificar()}.
+     */
+    public static CursorMovimiento decodificar(String cursor) throws CustomException {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.lastIndexOf(SEPARADOR);
+            return new CursorMovimiento(LocalDateTime.parse(valor.substring(0, separador)),
+                    Long.parseLong(valor.substring(separador + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new CustomException("Cursor de paginación inválido", HttpStatus.BAD_REQUEST);
+        }
+    }
+}
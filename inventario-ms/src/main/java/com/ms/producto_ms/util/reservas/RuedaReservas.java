@@ -0,0 +1,142 @@
+package com.ms.producto_ms.util.reservas;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Rueda de tiempo (hashed timing wheel) con el vencimiento de las reservas creadas en esta réplica.
+ * <p>
+ * El tiempo se divide en ticks de {@code app.reservas.tick} y la rueda tiene
+ * {@code app.reservas.ranuras} ranuras: una reserva que vence en el tick {@code t} va a la ranura
+ * {@code t % ranuras} con las vueltas completas que faltan. Programar y cancelar cuestan O(1) y cada
+ * {@link #avanzar(LocalDateTime)} solo recorre las ranuras de los ticks transcurridos, así que
+ * millones de reservas cortas vencen sin recorrer las demás ni consultar la base de datos.
+ * <p>
+ * La rueda solo sabe cuándo revisar una reserva: la base de datos decide si sigue pendiente
+ * (confirmarla o liberarla en otra réplica no cancela la entrada de esta). Las reservas de otras
+ * réplicas o de antes de un reinicio las vence el barrido por índice de {@code ReservasJob}.
+ * <p>
+ * Métrica: {@code inventario.reservas.rueda.pendientes}.
+ */
+@Component
+public class RuedaReservas {
+
+    /**
+     * Reserva cuyo vencimiento llegó según la rueda.
+     */
+    public record Vencida(UUID id, long productoId) {
+    }
+
+    private static final class Entrada {
+        private final UUID id;
+        private final long productoId;
+        private long vueltas;
+
+        private Entrada(UUID id, long productoId, long vueltas) {
+            this.id = id;
+            this.productoId = productoId;
+            this.vueltas = vueltas;
+        }
+    }
+
+    private final boolean habilitado;
+    private final long tickMillis;
+    private final List<Entrada>[] ranuras;
+    /** Entradas pendientes por id, para cancelarlas sin buscar su ranura. */
+    private final Map<UUID, Entrada> pendientes = new HashMap<>();
+    /** Último tick procesado. */
+    private long actual;
+
+    @Autowired
+    public RuedaReservas(AppProperties properties, MeterRegistry meterRegistry) {
+        this(properties.getReservas(), meterRegistry, LocalDateTime.now());
+    }
+
+    @SuppressWarnings("unchecked")
+    RuedaReservas(AppProperties.ReservasDto config, MeterRegistry meterRegistry, LocalDateTime inicio) {
+        this.habilitado = config.isHabilitado();
+        this.tickMillis = Math.max(1, config.getTick().toMillis());
+        this.ranuras = new List[Math.max(1, config.getRanuras())];
+        for (int i = 0; i < ranuras.length; i++) {
+            ranuras[i] = new ArrayList<>();
+        }
+        this.actual = Math.floorDiv(millis(inicio), tickMillis);
+
+        Gauge.builder("inventario.reservas.rueda.pendientes", this, RuedaReservas::tamano)
+                .description("Reservas de esta réplica esperando su vencimiento").register(meterRegistry);
+    }
+
+    /**
+     * Programa el vencimiento de la reserva. Nunca vence antes de {@code expiraEn}: se redondea al
+     * tick siguiente. Sin vencimiento habilitado no hace nada.
+     */
+    public synchronized void programar(UUID id, long productoId, LocalDateTime expiraEn) {
+        if (!habilitado) {
+            return;
+        }
+        long tick = Math.max(-Math.floorDiv(-millis(expiraEn), tickMillis), actual + 1);
+        Entrada entrada = new Entrada(id, productoId, (tick - actual - 1) / ranuras.length);
+        // Si ya estaba programada, la entrada anterior se descarta al pasar por su ranura
+        pendientes.put(id, entrada);
+        ranuras[(int) Math.floorMod(tick, (long) ranuras.length)].add(entrada);
+    }
+
+    /**
+     * Quita la reserva de la rueda (se confirmó o liberó en esta réplica).
+     *
+     * @return true si estaba pendiente.
+     */
+    public synchronized boolean cancelar(UUID id) {
+        // La entrada queda en su ranura y se descarta al pasar por ella
+        return pendientes.remove(id) != null;
+    }
+
+    /**
+     * Avanza la rueda hasta {@code ahora}.
+     *
+     * @return las reservas que vencieron desde el avance anterior.
+     */
+    public synchronized List<Vencida> avanzar(LocalDateTime ahora) {
+        long hasta = Math.floorDiv(millis(ahora), tickMillis);
+        List<Vencida> vencidas = new ArrayList<>();
+        while (actual < hasta) {
+            actual++;
+            List<Entrada> ranura = ranuras[(int) Math.floorMod(actual, (long) ranuras.length)];
+            // Se compacta la ranura en su lugar con las entradas que siguen en la rueda
+            int quedan = 0;
+            for (Entrada entrada : ranura) {
+                if (pendientes.get(entrada.id) != entrada) {
+                    continue;
+                }
+                if (entrada.vueltas == 0) {
+                    pendientes.remove(entrada.id);
+                    vencidas.add(new Vencida(entrada.id, entrada.productoId));
+                } else {
+                    entrada.vueltas--;
+                    ranura.set(quedan++, entrada);
+                }
+            }
+            ranura.subList(quedan, ranura.size()).clear();
+        }
+        return vencidas;
+    }
+
+    public synchronized int tamano() {
+        return pendientes.size();
+    }
+
+    private static long millis(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,316 @@
+package com.ms.producto_ms.util.resiliencia;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.enmun.EstadoCircuitoEmun;
+import com.ms.producto_ms.exception.CustomException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuito y límite de concurrencia delante del micro de productos.
+ * <p>
+ * Cada llamada necesita un cupo (máximo {@code maxConcurrentes} simultáneas); si no lo consigue
+ * en {@code esperaCupo} se rechaza en lugar de dejar el hilo de Tomcat bloqueado en Feign.
+ * Los resultados de las últimas {@code ventana} llamadas deciden el estado: con la tasa de fallos
+ * (errores 5xx, errores de red o llamadas lentas) por encima del umbral el circuito se abre y las
+ * llamadas se rechazan de inmediato. Vencida la espera pasa a semi abierto y deja pasar unas pocas
+ * llamadas de prueba que deciden si se cierra o se vuelve a abrir.
+ * <p>
+ * Los rechazos se lanzan como {@link CustomException} con {@link HttpStatus#SERVICE_UNAVAILABLE},
+ * igual que las caídas de productos, para que quien llama pueda servir el último dato conocido.
+ * Las respuestas 4xx (producto inexistente, API key) cuentan como éxito: productos respondió.
+ * <p>
+ * Métricas: {@code productos.circuito.estado} (0 cerrado, 1 abierto, 2 semi abierto),
+ * {@code productos.circuito.llamadas} (resultado=exito|fallo), {@code productos.circuito.rechazos}
+ * (motivo=circuito|concurrencia), {@code productos.circuito.transiciones} (estado) y
+ * {@code productos.circuito.en_curso}.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class ProductosCircuito {
+
+    /**
+     * Llamada protegida al micro de productos.
+     */
+    @FunctionalInterface
+    public interface Llamada<T> {
+        T ejecutar() throws CustomException;
+    }
+
+    private final boolean habilitado;
+    private final int minimoLlamadas;
+    private final int umbralFallos;
+    private final long umbralLentitudNanos;
+    private final long esperaAbiertoNanos;
+    private final int llamadasSemiAbierto;
+    private final int maxConcurrentes;
+    private final long esperaCupoNanos;
+    private final LongSupplier reloj;
+    private final MeterRegistry meterRegistry;
+
+    private final Semaphore cupos;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Estado protegido por lock
+    private EstadoCircuitoEmun estado = EstadoCircuitoEmun.CERRADO;
+    /** Ventana circular de resultados: true = fallo. */
+    private final boolean[] resultados;
+    private int siguiente;
+    private int llamadas;
+    private int fallos;
+    private long abiertoDesde;
+    private int pruebasDisponibles;
+    private int pruebasExitosas;
+
+    private final Counter exitos;
+    private final Counter fallidas;
+    private final Counter rechazosCircuito;
+    private final Counter rechazosConcurrencia;
+
+    @Autowired
+    public ProductosCircuito(AppProperties properties, MeterRegistry meterRegistry) {
+        this(properties.getProductosCircuito(), meterRegistry, System::nanoTime);
+    }
+
+    ProductosCircuito(AppProperties.ProductosCircuitoDto config, MeterRegistry meterRegistry, LongSupplier reloj) {
+        this.habilitado = config.isHabilitado();
+        this.resultados = new boolean[Math.max(1, config.getVentana())];
+        this.minimoLlamadas = Math.max(1, Math.min(config.getMinimoLlamadas(), resultados.length));
+        this.umbralFallos = config.getUmbralFallos();
+        this.umbralLentitudNanos = config.getUmbralLentitud().toNanos();
+        this.esperaAbiertoNanos = config.getEsperaAbierto().toNanos();
+        this.llamadasSemiAbierto = Math.max(1, config.getLlamadasSemiAbierto());
+        this.maxConcurrentes = Math.max(1, config.getMaxConcurrentes());
+        this.esperaCupoNanos = config.getEsperaCupo().toNanos();
+        this.reloj = reloj;
+        this.meterRegistry = meterRegistry;
+        this.cupos = new Semaphore(maxConcurrentes);
+
+        this.exitos = Counter.builder("productos.circuito.llamadas").tag("resultado", "exito")
+                .description("Llamadas al micro de productos que respondieron a tiempo").register(meterRegistry);
+        this.fallidas = Counter.builder("productos.circuito.llamadas").tag("resultado", "fallo")
+                .description("Llamadas al micro de productos fallidas o lentas").register(meterRegistry);
+        this.rechazosCircuito = Counter.builder("productos.circuito.rechazos").tag("motivo", "circuito")
+                .description("Llamadas rechazadas con el circuito abierto").register(meterRegistry);
+        this.rechazosConcurrencia = Counter.builder("productos.circuito.rechazos").tag("motivo", "concurrencia")
+                .description("Llamadas rechazadas por falta de cupo").register(meterRegistry);
+        Gauge.builder("productos.circuito.estado", this, c -> c.getEstado().getCodigo())
+                .description("0 cerrado, 1 abierto, 2 semi abierto").register(meterRegistry);
+        Gauge.builder("productos.circuito.en_curso", this, ProductosCircuito::llamadasEnCurso)
+                .description("Llamadas en curso al micro de productos").register(meterRegistry);
+    }
+
+    /**
+     * Ejecuta la llamada si el circuito y el límite de concurrencia lo permiten.
+     *
+     * @throws CustomException con {@link HttpStatus#SERVICE_UNAVAILABLE} si la llamada se rechaza,
+     *                         o la excepción de la propia llamada.
+     */
+    public <T> T ejecutar(Llamada<T> llamada) throws CustomException {
+        if (!habilitado) {
+            return llamada.ejecutar();
+        }
+
+        if (!permitirLlamada()) {
+            rechazosCircuito.increment();
+            throw new CustomException("Micro de productos no disponible temporalmente",
+                    HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        if (!tomarCupo()) {
+            devolverPrueba();
+            rechazosConcurrencia.increment();
+            throw new CustomException("Micro de productos saturado, intente de nuevo",
+                    HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        long inicio = reloj.getAsLong();
+        try {
+            T resultado = llamada.ejecutar();
+            registrar(!esLenta(inicio));
+            return resultado;
+        } catch (CustomException e) {
+            registrar(!esFalloRemoto(e) && !esLenta(inicio));
+            throw e;
+        } catch (Throwable e) {
+            // También los Error: una prueba en semi abierto sin resultado dejaría su cupo tomado
+            registrar(false);
+            throw e;
+        } finally {
+            cupos.release();
+        }
+    }
+
+    public EstadoCircuitoEmun getEstado() {
+        lock.lock();
+        try {
+            return estado;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int llamadasEnCurso() {
+        return maxConcurrentes - cupos.availablePermits();
+    }
+
+    /**
+     * Resumen del circuito para el endpoint de actuator.
+     */
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            estadisticas.put("habilitado", habilitado);
+            estadisticas.put("estado", estado);
+            estadisticas.put("llamadasEnVentana", llamadas);
+            estadisticas.put("fallosEnVentana", fallos);
+            estadisticas.put("tasaFallos", llamadas == 0 ? 0.0 : fallos * 100.0 / llamadas);
+            estadisticas.put("umbralFallos", umbralFallos);
+            if (estado == EstadoCircuitoEmun.ABIERTO) {
+                long restante = Math.max(0, esperaAbiertoNanos - (reloj.getAsLong() - abiertoDesde));
+                estadisticas.put("segundosParaPrueba", TimeUnit.NANOSECONDS.toSeconds(restante));
+            }
+        } finally {
+            lock.unlock();
+        }
+        estadisticas.put("llamadasEnCurso", llamadasEnCurso());
+        estadisticas.put("maxConcurrentes", maxConcurrentes);
+        estadisticas.put("rechazosCircuito", (long) rechazosCircuito.count());
+        estadisticas.put("rechazosConcurrencia", (long) rechazosConcurrencia.count());
+        return estadisticas;
+    }
+
+    private boolean permitirLlamada() {
+        lock.lock();
+        try {
+            if (estado == EstadoCircuitoEmun.ABIERTO && reloj.getAsLong() - abiertoDesde >= esperaAbiertoNanos) {
+                cambiarEstado(EstadoCircuitoEmun.SEMI_ABIERTO);
+                pruebasDisponibles = llamadasSemiAbierto;
+                pruebasExitosas = 0;
+            }
+            return switch (estado) {
+                case CERRADO -> true;
+                case ABIERTO -> false;
+                case SEMI_ABIERTO -> {
+                    if (pruebasDisponibles == 0) {
+                        yield false;
+                    }
+                    pruebasDisponibles--;
+                    yield true;
+                }
+            };
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean tomarCupo() {
+        try {
+            return cupos.tryAcquire(esperaCupoNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void devolverPrueba() {
+        lock.lock();
+        try {
+            if (estado == EstadoCircuitoEmun.SEMI_ABIERTO) {
+                pruebasDisponibles++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void registrar(boolean exito) {
+        (exito ? exitos : fallidas).increment();
+        lock.lock();
+        try {
+            switch (estado) {
+                case SEMI_ABIERTO -> {
+                    if (!exito) {
+                        abrir();
+                    } else if (++pruebasExitosas >= llamadasSemiAbierto) {
+                        cambiarEstado(EstadoCircuitoEmun.CERRADO);
+                        reiniciarVentana();
+                    }
+                }
+                case CERRADO -> {
+                    agregarResultado(!exito);
+                    if (llamadas >= minimoLlamadas && fallos * 100L >= (long) umbralFallos * llamadas) {
+                        abrir();
+                    }
+                }
+                case ABIERTO -> {
+                    // Llamada iniciada antes de abrir el circuito: ya no cambia nada
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void agregarResultado(boolean fallo) {
+        if (llamadas == resultados.length) {
+            if (resultados[siguiente]) {
+                fallos--;
+            }
+        } else {
+            llamadas++;
+        }
+        resultados[siguiente] = fallo;
+        if (fallo) {
+            fallos++;
+        }
+        siguiente = (siguiente + 1) % resultados.length;
+    }
+
+    private void reiniciarVentana() {
+        Arrays.fill(resultados, false);
+        siguiente = 0;
+        llamadas = 0;
+        fallos = 0;
+    }
+
+    private void abrir() {
+        log.warn("Circuito de productos ABIERTO - fallos={} llamadas={} espera={}s", fallos, llamadas,
+                TimeUnit.NANOSECONDS.toSeconds(esperaAbiertoNanos));
+        cambiarEstado(EstadoCircuitoEmun.ABIERTO);
+        abiertoDesde = reloj.getAsLong();
+        reiniciarVentana();
+    }
+
+    private void cambiarEstado(EstadoCircuitoEmun nuevo) {
+        if (estado != nuevo) {
+            log.info("Circuito de productos {} -> {}", estado, nuevo);
+            estado = nuevo;
+            meterRegistry.counter("productos.circuito.transiciones", "estado", nuevo.name()).increment();
+        }
+    }
+
+    private boolean esLenta(long inicio) {
+        return reloj.getAsLong() - inicio > umbralLentitudNanos;
+    }
+
+    private static boolean esFalloRemoto(CustomException e) {
+        return e.getStatus() == null || e.getStatus().is5xxServerError();
+    }
+}
@@ -0,0 +1,145 @@
+package com.ms.producto_ms.util.tareas;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.entity.CheckpointEjecucionEntity;
+import com.ms.producto_ms.repository.CheckpointEjecucionRepository;
+import com.ms.producto_ms.repository.InventarioCheckpointRepository;
+import com.ms.producto_ms.repository.InventarioSaldoRepository;
+import com.ms.producto_ms.util.FabricaHilos;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Job en segundo plano que escribe checkpoints del saldo por producto.
+ * <p>
+ * Cada ejecución fija un movimiento de corte y recorre los productos en lotes ordenados
+ * por id; los productos de un lote se procesan en paralelo, cada uno en su propia
+ * transacción. Al terminar cada lote se persiste el avance en
+ * {@link CheckpointEjecucionEntity}, de modo que tras una caída la siguiente ejecución
+ * retoma desde el último lote confirmado con el mismo corte.
+ * <p>
+ * Los checkpoints los usa {@link SaldoRebuildRunner}: reconstruye la proyección de saldos desde
+ * el corte de la última ejecución completa en lugar de recorrer el libro entero.
+ * <p>
+ * Se desactiva con {@code app.checkpoints.habilitado=false}. Si varias réplicas lo ejecutan
+ * a la vez el resultado sigue siendo correcto, porque un checkpoint nunca retrocede.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.checkpoints", name = "habilitado", havingValue = "true", matchIfMissing = true)
+public class CheckpointJob {
+
+    private final InventarioCheckpointRepository checkpointRepository;
+    private final CheckpointEjecucionRepository ejecucionRepository;
+    private final InventarioSaldoRepository saldoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AppProperties appProperties;
+    private final FabricaHilos fabricaHilos;
+
+    private final AtomicBoolean enCurso = new AtomicBoolean(false);
+
+    @Scheduled(fixedDelayString = "${app.checkpoints.intervalo:PT15M}",
+            initialDelayString = "${app.checkpoints.retraso-inicial:PT1M}")
+    public void ejecutar() {
+        if (!enCurso.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            procesar();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Fallo la ejecución de checkpoints; se retomará en la próxima corrida", e);
+        } finally {
+            enCurso.set(false);
+        }
+    }
+
+    void procesar() throws InterruptedException, ExecutionException {
+        CheckpointEjecucionEntity ejecucion = ejecucionRepository
+                .findFirstByEstadoOrderByIdDesc(CheckpointEjecucionEntity.EN_CURSO)
+                .orElse(null);
+
+        if (ejecucion == null) {
+            ejecucion = iniciarEjecucion();
+            if (ejecucion == null) {
+                return;
+            }
+        } else {
+            log.info("Retomando checkpoints - ejecucion={} corte={} desdeProducto={}",
+                    ejecucion.getId(), ejecucion.getCorteMovimientoId(), ejecucion.getUltimoProductoId());
+        }
+
+        AppProperties.CheckpointsDto cfg = appProperties.getCheckpoints();
+        long corte = ejecucion.getCorteMovimientoId();
+        ExecutorService pool = Executors.newFixedThreadPool(cfg.getHilos(),
+                fabricaHilos.crear("inventario-checkpoints-"));
+        try {
+            List<Long> lote;
+            while (!(lote = checkpointRepository.siguienteLoteProductos(
+                    ejecucion.getUltimoProductoId(), cfg.getTamanoLote())).isEmpty()) {
+
+                List<Future<?>> pendientes = new ArrayList<>(lote.size());
+                for (Long productoId : lote) {
+                    pendientes.add(pool.submit(() -> transactionTemplate.executeWithoutResult(
+                            status -> checkpointRepository.avanzarCheckpoint(productoId, corte))));
+                }
+                for (Future<?> pendiente : pendientes) {
+                    pendiente.get();
+                }
+
+                ejecucion.setUltimoProductoId(lote.get(lote.size() - 1));
+                ejecucion.setProductosProcesados(ejecucion.getProductosProcesados() + lote.size());
+                ejecucion = ejecucionRepository.save(ejecucion);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        ejecucion.setEstado(CheckpointEjecucionEntity.COMPLETADA);
+        ejecucion.setFechaFin(LocalDateTime.now());
+        ejecucionRepository.save(ejecucion);
+
+        log.info("Checkpoints completados - ejecucion={} corte={} productos={}",
+                ejecucion.getId(), corte, ejecucion.getProductosProcesados());
+    }
+
+    private CheckpointEjecucionEntity iniciarEjecucion() {
+        LocalDateTime limite = LocalDateTime.now().minus(appProperties.getCheckpoints().getMargenCorte());
+        long corte = checkpointRepository.calcularCorte(limite);
+
+        long corteAnterior = ejecucionRepository.findFirstByOrderByIdDesc()
+                .map(CheckpointEjecucionEntity::getCorteMovimientoId)
+                .orElse(0L);
+        if (corte <= corteAnterior) {
+            // Sin movimientos nuevos desde el último corte
+            return null;
+        }
+
+        return ejecucionRepository.save(CheckpointEjecucionEntity.builder()
+                .corteMovimientoId(corte)
+                .ultimoProductoId(0L)
+                .productosProcesados(0L)
+                .totalProductos(saldoRepository.count())
+                .estado(CheckpointEjecucionEntity.EN_CURSO)
+                .fechaInicio(LocalDateTime.now())
+                .build());
+    }
+}
@@ -0,0 +1,49 @@
+package com.ms.producto_ms.util.tareas;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.repository.InventarioIdempotenciaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Limpieza de las claves de idempotencia vencidas.
+ * <p>
+ * Borra por lotes las claves con más de {@code app.idempotencia.retencion}; la retención debe
+ * cubrir de sobra la ventana de reintentos de los clientes.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdempotenciaJob {
+
+    private final InventarioIdempotenciaRepository idempotenciaRepository;
+    private final AppProperties appProperties;
+
+    @Scheduled(fixedDelayString = "${app.idempotencia.intervalo-limpieza:PT1H}",
+            initialDelayString = "${app.idempotencia.retraso-inicial:PT5M}")
+    public void limpiar() {
+        AppProperties.IdempotenciaDto cfg = appProperties.getIdempotencia();
+        LocalDateTime limite = LocalDateTime.now().minus(cfg.getRetencion());
+        try {
+            int total = 0;
+            int borrados;
+            do {
+                borrados = idempotenciaRepository.eliminarAnteriores(limite, cfg.getTamanoLoteLimpieza());
+                total += borrados;
+            } while (borrados == cfg.getTamanoLoteLimpieza());
+
+            if (total > 0) {
+                log.info("Idempotencia - claves vencidas eliminadas={} anterioresA={}", total, limite);
+            }
+        } catch (Exception e) {
+            log.error("Fallo la limpieza de claves de idempotencia; se reintentará en la próxima corrida", e);
+        }
+    }
+}
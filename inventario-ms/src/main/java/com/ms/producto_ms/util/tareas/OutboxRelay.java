@@ -0,0 +1,147 @@
+package com.ms.producto_ms.util.tareas;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.repository.InventarioOutboxRepository;
+import com.ms.producto_ms.util.eventos.EventoOutbox;
+import com.ms.producto_ms.util.eventos.InventarioOutboxHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Relay de la outbox de eventos de inventario.
+ * <p>
+ * En cada ciclo reclama lotes de pendientes con {@code FOR UPDATE SKIP LOCKED}, los entrega a
+ * los {@link InventarioOutboxHandler} registrados y los marca como enviados, todo en la misma
+ * transacción; sigue mientras encuentre lotes completos. Si un handler falla, la transacción se
+ * revierte y el lote queda pendiente para el siguiente ciclo (entrega al menos una vez).
+ * Sin handlers registrados no reclama nada: los eventos quedan pendientes en la outbox hasta que
+ * se despliegue un destino, en lugar de marcarse como enviados sin que nadie los reciba.
+ * <p>
+ * El rendimiento se ajusta con {@code app.outbox.tamano-lote} e {@code app.outbox.intervalo}.
+ * Los enviados se borran pasada {@code app.outbox.retencion}. Se desactiva con
+ * {@code app.outbox.habilitado=false} (los eventos se siguen escribiendo en la outbox).
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.outbox", name = "habilitado", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private final InventarioOutboxRepository outboxRepository;
+    private final List<InventarioOutboxHandler> handlers;
+    private final TransactionTemplate transactionTemplate;
+    private final AppProperties appProperties;
+
+    private final AtomicBoolean enCurso = new AtomicBoolean(false);
+    private final Counter enviados;
+    private final Counter fallos;
+    private final Timer retraso;
+
+    public OutboxRelay(InventarioOutboxRepository outboxRepository, List<InventarioOutboxHandler> handlers,
+                       TransactionTemplate transactionTemplate, AppProperties appProperties,
+                       MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.handlers = List.copyOf(handlers);
+        this.transactionTemplate = transactionTemplate;
+        this.appProperties = appProperties;
+
+        this.enviados = Counter.builder("inventario.outbox.enviados")
+                .description("Eventos de la outbox entregados y marcados como enviados").register(meterRegistry);
+        this.fallos = Counter.builder("inventario.outbox.fallos")
+                .description("Lotes de la outbox revertidos por error de un handler").register(meterRegistry);
+        this.retraso = Timer.builder("inventario.outbox.retraso")
+                .description("Tiempo entre la escritura del evento y su envío").register(meterRegistry);
+
+        if (this.handlers.isEmpty()) {
+            log.warn("Outbox sin InventarioOutboxHandler registrados: los eventos quedan pendientes sin entregar");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.intervalo:PT1S}",
+            initialDelayString = "${app.outbox.retraso-inicial:PT10S}")
+    public void relevar() {
+        if (handlers.isEmpty() || !enCurso.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int tamanoLote = appProperties.getOutbox().getTamanoLote();
+            int procesados;
+            do {
+                procesados = relevarLote(tamanoLote);
+            } while (procesados == tamanoLote);
+        } catch (Exception e) {
+            fallos.increment();
+            log.error("Fallo la entrega de la outbox; el lote se reintentará en el próximo ciclo", e);
+        } finally {
+            enCurso.set(false);
+        }
+    }
+
+    int relevarLote(int tamanoLote) {
+        if (handlers.isEmpty()) {
+            return 0;
+        }
+        Integer procesados = transactionTemplate.execute(status -> {
+            List<EventoOutbox> eventos = outboxRepository.reclamarPendientes(tamanoLote);
+            if (eventos.isEmpty()) {
+                return 0;
+            }
+
+            for (InventarioOutboxHandler handler : handlers) {
+                try {
+                    handler.manejar(eventos);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IllegalStateException("Handler de outbox " + handler.getClass().getSimpleName()
+                            + " falló", e);
+                }
+            }
+
+            outboxRepository.marcarEnviados(eventos.stream().map(EventoOutbox::getId).toList(),
+                    LocalDateTime.now());
+
+            Instant ahora = Instant.now();
+            eventos.forEach(e -> retraso.record(Duration.between(e.getEvento().getFechaEvento(), ahora)));
+            return eventos.size();
+        });
+        int total = procesados != null ? procesados : 0;
+        enviados.increment(total);
+        return total;
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.intervalo-limpieza:PT1H}",
+            initialDelayString = "${app.outbox.retraso-inicial:PT10S}")
+    public void limpiar() {
+        AppProperties.OutboxDto cfg = appProperties.getOutbox();
+        LocalDateTime limite = LocalDateTime.now().minus(cfg.getRetencion());
+        try {
+            int total = 0;
+            int borrados;
+            do {
+                borrados = outboxRepository.eliminarEnviados(limite, cfg.getTamanoLoteLimpieza());
+                total += borrados;
+            } while (borrados == cfg.getTamanoLoteLimpieza());
+
+            if (total > 0) {
+                log.info("Outbox - eventos enviados eliminados={} anterioresA={}", total, limite);
+            }
+        } catch (Exception e) {
+            log.error("Fallo la limpieza de la outbox; se reintentará en la próxima corrida", e);
+        }
+    }
+}
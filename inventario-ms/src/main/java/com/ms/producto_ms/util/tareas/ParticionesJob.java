@@ -0,0 +1,117 @@
+package com.ms.producto_ms.util.tareas;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.repository.InventarioParticionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Job que mantiene las particiones mensuales de "inventarios".
+ * <p>
+ * Crea por adelantado las particiones hasta {@code app.particiones.meses-adelante} meses después
+ * del actual, continuando desde el límite superior de la última; un movimiento nunca encuentra su
+ * mes sin partición mientras el job corra al menos una vez por mes. Con
+ * {@code app.particiones.retencion-meses} mayor que cero desprende (sin borrar) las particiones
+ * cuyo rango termina antes de ese número de meses completos; la tabla desprendida queda para
+ * archivarla o eliminarla a mano.
+ * <p>
+ * Se desactiva con {@code app.particiones.habilitado=false}. Si varias réplicas lo ejecutan a la
+ * vez, un advisory lock deja crear a una sola.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.particiones", name = "habilitado", havingValue = "true", matchIfMissing = true)
+public class ParticionesJob {
+
+    private final InventarioParticionRepository particionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AppProperties appProperties;
+
+    private final AtomicBoolean enCurso = new AtomicBoolean(false);
+
+    @Scheduled(fixedDelayString = "${app.particiones.intervalo:PT6H}",
+            initialDelayString = "${app.particiones.retraso-inicial:PT0S}")
+    public void mantener() {
+        if (!enCurso.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            crearAdelantadas();
+            desprenderVencidas();
+        } catch (Exception e) {
+            log.error("Fallo el mantenimiento de particiones de inventarios; se reintentará en la próxima corrida", e);
+        } finally {
+            enCurso.set(false);
+        }
+    }
+
+    void crearAdelantadas() {
+        AppProperties.ParticionesDto cfg = appProperties.getParticiones();
+        YearMonth ultimoMes = YearMonth.now().plusMonths(cfg.getMesesAdelante());
+
+        List<YearMonth> creadas = transactionTemplate.execute(status -> {
+            List<YearMonth> meses = new ArrayList<>();
+            if (!particionRepository.bloquearMantenimiento()) {
+                return meses;
+            }
+            particionRepository.limitarEsperaLocks(cfg.getEsperaLock());
+
+            LocalDateTime limite = particionRepository.listar().stream()
+                    .map(InventarioParticionRepository.Particion::hasta)
+                    .filter(Objects::nonNull)
+                    .max(LocalDateTime::compareTo)
+                    .orElse(null);
+            if (limite == null) {
+                return meses;
+            }
+            for (YearMonth mes = YearMonth.from(limite); !mes.isAfter(ultimoMes); mes = mes.plusMonths(1)) {
+                particionRepository.crearParticion(mes);
+                meses.add(mes);
+            }
+            return meses;
+        });
+
+        if (creadas != null && !creadas.isEmpty()) {
+            log.info("Particiones de inventarios creadas - meses={}", creadas);
+        }
+    }
+
+    void desprenderVencidas() {
+        int retencion = appProperties.getParticiones().getRetencionMeses();
+        if (retencion <= 0) {
+            return;
+        }
+        LocalDateTime corte = YearMonth.now().minusMonths(retencion).atDay(1).atStartOfDay();
+
+        for (InventarioParticionRepository.Particion particion : particionRepository.listar()) {
+            boolean vencida = particion.hasta() != null && !particion.hasta().isAfter(corte);
+            if (!particion.desprendimientoPendiente() && !vencida) {
+                continue;
+            }
+            try {
+                // Fuera de transacción: DETACH CONCURRENTLY no puede ir dentro de una
+                particionRepository.desprender(particion.nombre(), particion.desprendimientoPendiente());
+                log.info("Partición de inventarios desprendida - particion={} hasta={}",
+                        particion.nombre(), particion.hasta());
+            } catch (Exception e) {
+                log.warn("No se pudo desprender la partición {}; se reintentará en la próxima corrida",
+                        particion.nombre(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.ms.producto_ms.util.tareas;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.repository.InventarioJdbcRepository;
+import com.ms.producto_ms.repository.InventarioReservaRepository;
+import com.ms.producto_ms.util.reservas.RuedaReservas;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Vencimiento de las reservas de stock.
+ * <p>
+ * Cada {@code app.reservas.tick} avanza la {@link RuedaReservas} y libera las reservas que
+ * vencieron en esta réplica, sin consultar las demás. Cada {@code app.reservas.intervalo-barrido}
+ * un barrido por el índice de {@code expira_en} libera las que la rueda no conoce: las de otra
+ * réplica que se detuvo, las de antes de un reinicio o las de un lote que falló.
+ * <p>
+ * Cada lote corre en su propia transacción con los advisory locks de sus productos; una reserva
+ * confirmada o liberada mientras tanto ya no está en la tabla y no se descuenta dos veces. Los
+ * eventos {@code RESERVA} del lote llegan a los listeners al confirmar la transacción.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.reservas", name = "habilitado", havingValue = "true", matchIfMissing = true)
+public class ReservasJob {
+
+    private final RuedaReservas ruedaReservas;
+    private final InventarioReservaRepository reservaRepository;
+    private final InventarioJdbcRepository inventarioJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AppProperties appProperties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicBoolean vencimientoEnCurso = new AtomicBoolean(false);
+    private final AtomicBoolean barridoEnCurso = new AtomicBoolean(false);
+
+    @Scheduled(fixedDelayString = "${app.reservas.tick:PT1S}", initialDelayString = "${app.reservas.tick:PT1S}")
+    public void vencer() {
+        if (!vencimientoEnCurso.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            LocalDateTime ahora = LocalDateTime.now();
+            List<RuedaReservas.Vencida> vencidas = ruedaReservas.avanzar(ahora);
+            int tamanoLote = appProperties.getReservas().getTamanoLote();
+            int liberadas = 0;
+            for (int i = 0; i < vencidas.size(); i += tamanoLote) {
+                liberadas += liberar(vencidas.subList(i, Math.min(i + tamanoLote, vencidas.size())), ahora);
+            }
+            if (liberadas > 0) {
+                log.debug("Reservas vencidas liberadas={}", liberadas);
+            }
+        } catch (Exception e) {
+            log.warn("Fallo el vencimiento de reservas; las pendientes las liberará el barrido", e);
+        } finally {
+            vencimientoEnCurso.set(false);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.reservas.intervalo-barrido:PT1M}",
+            initialDelayString = "${app.reservas.intervalo-barrido:PT1M}")
+    public void barrer() {
+        if (!barridoEnCurso.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            LocalDateTime ahora = LocalDateTime.now();
+            int tamanoLote = appProperties.getReservas().getTamanoLote();
+            int total = 0;
+            List<InventarioReservaRepository.Reserva> lote;
+            do {
+                lote = reservaRepository.siguientesVencidas(ahora, tamanoLote);
+                total += liberar(lote.stream()
+                        .map(r -> new RuedaReservas.Vencida(r.id(), r.productoId()))
+                        .toList(), ahora);
+            } while (lote.size() == tamanoLote);
+
+            if (total > 0) {
+                log.info("Reservas - vencidas liberadas por barrido={} anterioresA={}", total, ahora);
+            }
+        } catch (Exception e) {
+            log.error("Fallo el barrido de reservas vencidas; se reintentará en la próxima corrida", e);
+        } finally {
+            barridoEnCurso.set(false);
+        }
+    }
+
+    /**
+     * Elimina las reservas del lote que siguen vencidas en {@code ahora} y descuenta su cantidad
+     * del reservado de cada producto.
+     *
+     * @return reservas liberadas.
+     */
+    int liberar(List<RuedaReservas.Vencida> lote, LocalDateTime ahora) {
+        if (lote.isEmpty()) {
+            return 0;
+        }
+        Integer liberadas = transactionTemplate.execute(status -> {
+            TreeSet<Long> productos = new TreeSet<>();
+            lote.forEach(v -> productos.add(v.productoId()));
+            inventarioJdbcRepository.bloquearProductos(productos);
+
+            List<InventarioReservaRepository.Reserva> eliminadas = reservaRepository.eliminarVencidas(
+                    lote.stream().map(RuedaReservas.Vencida::id).toList(), ahora);
+            Map<Long, Integer> ajustes = new TreeMap<>();
+            eliminadas.forEach(r -> ajustes.merge(r.productoId(), -r.cantidad(), Integer::sum));
+            if (!ajustes.isEmpty()) {
+                reservaRepository.ajustarReservados(ajustes)
+                        .forEach(d -> eventPublisher.publishEvent(d.evento(ajustes.get(d.productoId()))));
+            }
+            return eliminadas.size();
+        });
+        return liberadas == null ? 0 : liberadas;
+    }
+}
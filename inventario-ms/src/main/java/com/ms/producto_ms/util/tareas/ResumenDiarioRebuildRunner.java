@@ -0,0 +1,90 @@
+package com.ms.producto_ms.util.tareas;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.repository.InventarioCheckpointRepository;
+import com.ms.producto_ms.repository.InventarioJdbcRepository;
+import com.ms.producto_ms.repository.InventarioResumenRepository;
+import com.ms.producto_ms.util.FabricaHilos;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Comando de única ejecución que llena "inventario_resumen_diario" con los movimientos
+ * existentes en "inventarios".
+ * <p>
+ * Solo se registra cuando se arranca con {@code --app.resumenes.reconstruir=true}:
+ * <pre>
+ *     java -jar inventario-ms.jar --app.resumenes.reconstruir=true
+ * </pre>
+ * Recorre los productos en lotes ordenados por id y procesa hasta {@code app.resumenes.hilos}
+ * lotes en paralelo, cada uno en su propia transacción. A diferencia de la reconstrucción de
+ * saldos no bloquea la tabla de movimientos: cada lote toma el advisory lock de sus productos,
+ * así que solo esperan los movimientos de los productos que se están recalculando en ese momento.
+ * Las filas se reemplazan con el total del libro, por lo que volver a ejecutarlo es seguro.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.resumenes", name = "reconstruir", havingValue = "true")
+public class ResumenDiarioRebuildRunner implements ApplicationRunner {
+
+    private final InventarioCheckpointRepository checkpointRepository;
+    private final InventarioJdbcRepository inventarioJdbcRepository;
+    private final InventarioResumenRepository resumenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AppProperties appProperties;
+    private final FabricaHilos fabricaHilos;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        AppProperties.ResumenesDto cfg = appProperties.getResumenes();
+        long inicio = System.currentTimeMillis();
+        long productos = 0;
+        long filas = 0;
+
+        ExecutorService pool = Executors.newFixedThreadPool(cfg.getHilos(),
+                fabricaHilos.crear("inventario-resumenes-"));
+        try {
+            Deque<Future<Integer>> pendientes = new ArrayDeque<>();
+            long ultimoProductoId = 0;
+            List<Long> lote;
+            while (!(lote = checkpointRepository.siguienteLoteProductos(ultimoProductoId, cfg.getTamanoLote()))
+                    .isEmpty()) {
+                List<Long> productoIds = lote;
+                pendientes.add(pool.submit(() -> transactionTemplate.execute(status -> {
+                    inventarioJdbcRepository.bloquearProductos(productoIds);
+                    return resumenRepository.reconstruir(productoIds);
+                })));
+                ultimoProductoId = lote.get(lote.size() - 1);
+                productos += lote.size();
+
+                if (pendientes.size() >= cfg.getHilos()) {
+                    filas += pendientes.poll().get();
+                }
+            }
+            while (!pendientes.isEmpty()) {
+                filas += pendientes.poll().get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        log.info("Resumen diario reconstruido - productos={} filas={} duracionMs={}",
+                productos, filas, System.currentTimeMillis() - inicio);
+    }
+}
@@ -0,0 +1,71 @@
+package com.ms.producto_ms.util.tareas;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.entity.CheckpointEjecucionEntity;
+import com.ms.producto_ms.repository.CheckpointEjecucionRepository;
+import com.ms.producto_ms.repository.InventarioSaldoRepository;
+import com.ms.producto_ms.util.cache.SaldosIndice;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Comando de única ejecución que llena la tabla "inventario_saldos" a partir
+ * de los movimientos existentes en "inventarios".
+ * <p>
+ * Solo se registra cuando se arranca con {@code --app.saldos.reconstruir=true}:
+ * <pre>
+ *     java -jar inventario-ms.jar --app.saldos.reconstruir=true
+ * </pre>
+ * Si hay una ejecución completa del {@link CheckpointJob}, cada saldo parte de su checkpoint y solo
+ * se suman los movimientos posteriores; sin ella, o con
+ * {@code app.checkpoints.reconstruir-desde-checkpoints=false}, se recorre el libro completo. En los
+ * dos casos los productos salen del libro, así que se restauran también los que perdieron su fila.
+ * <p>
+ * Durante la reconstrucción la tabla de movimientos queda bloqueada contra escrituras. Tras el
+ * commit el índice de saldos en memoria se reinicia para que vuelva a cargarse completo.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.saldos", name = "reconstruir", havingValue = "true")
+public class SaldoRebuildRunner implements ApplicationRunner {
+
+    private final InventarioSaldoRepository saldoRepository;
+    private final CheckpointEjecucionRepository ejecucionRepository;
+    private final SaldosIndice saldosIndice;
+    private final AppProperties appProperties;
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        long inicio = System.currentTimeMillis();
+        saldoRepository.bloquearMovimientos();
+        Long corte = appProperties.getCheckpoints().isReconstruirDesdeCheckpoints()
+                ? ejecucionRepository.findFirstByEstadoOrderByIdDesc(CheckpointEjecucionEntity.COMPLETADA)
+                        .map(CheckpointEjecucionEntity::getCorteMovimientoId)
+                        .orElse(null)
+                : null;
+        int productos = corte != null
+                ? saldoRepository.reconstruirDesdeCheckpoints()
+                : saldoRepository.reconstruirDesdeMovimientos();
+        log.info("Proyección de saldos reconstruida - productos={} desdeCorte={} duracionMs={}",
+                productos, corte, System.currentTimeMillis() - inicio);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                saldosIndice.reiniciar();
+            }
+        });
+    }
+}
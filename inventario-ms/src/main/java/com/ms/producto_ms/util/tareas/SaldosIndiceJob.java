@@ -0,0 +1,89 @@
+package com.ms.producto_ms.util.tareas;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.repository.InventarioJdbcRepository;
+import com.ms.producto_ms.util.cache.SaldosIndice;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Job que carga y resincroniza el {@link SaldosIndice} en memoria.
+ * <p>
+ * La primera corrida (y la siguiente a un {@link SaldosIndice#reiniciar()}) recorre la proyección
+ * de saldos completa con un cursor y publica el índice. Las demás releen solo las filas con
+ * movimientos o reservas desde la corrida anterior, menos
+ * {@code app.saldos-indice.margen-resincronizacion}: así el índice recoge los cambios de otras
+ * réplicas y los eventos que no llegaron, con un retraso de a lo sumo {@code app.saldos-indice.intervalo}.
+ * <p>
+ * Se desactiva con {@code app.saldos-indice.habilitado=false}; el índice nunca queda disponible y
+ * el detalle lee siempre de la base de datos.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.saldos-indice", name = "habilitado", havingValue = "true", matchIfMissing = true)
+public class SaldosIndiceJob {
+
+    private final SaldosIndice saldosIndice;
+    private final InventarioJdbcRepository inventarioJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AppProperties appProperties;
+
+    private final AtomicBoolean enCurso = new AtomicBoolean(false);
+    /** Inicio de la última corrida; protegido por enCurso. */
+    private LocalDateTime ultimaSincronizacion;
+
+    @Scheduled(fixedDelayString = "${app.saldos-indice.intervalo:PT5S}",
+            initialDelayString = "${app.saldos-indice.retraso-inicial:PT0S}")
+    public void sincronizar() {
+        if (!enCurso.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (saldosIndice.disponible()) {
+                resincronizar();
+            } else {
+                cargar();
+            }
+        } catch (Exception e) {
+            log.error("Fallo la sincronización del índice de saldos; se reintentará en la próxima corrida", e);
+        } finally {
+            enCurso.set(false);
+        }
+    }
+
+    void cargar() {
+        AppProperties.SaldosIndiceDto cfg = appProperties.getSaldosIndice();
+        LocalDateTime inicio = LocalDateTime.now();
+        long inicioMs = System.currentTimeMillis();
+
+        SaldosIndice.Carga carga = saldosIndice.iniciarCarga();
+        transactionTemplate.executeWithoutResult(status ->
+                inventarioJdbcRepository.recorrerSaldos(null, cfg.getTamanoFetch(), carga::agregar));
+        int productos = carga.terminar();
+
+        ultimaSincronizacion = inicio;
+        log.info("Índice de saldos cargado - productos={} bytes={} duracionMs={}",
+                productos, saldosIndice.bytes(), System.currentTimeMillis() - inicioMs);
+    }
+
+    void resincronizar() {
+        AppProperties.SaldosIndiceDto cfg = appProperties.getSaldosIndice();
+        LocalDateTime inicio = LocalDateTime.now();
+        LocalDateTime desde = ultimaSincronizacion.minus(cfg.getMargenResincronizacion());
+
+        transactionTemplate.executeWithoutResult(status ->
+                inventarioJdbcRepository.recorrerSaldos(desde, cfg.getTamanoFetch(), saldosIndice::actualizar));
+        ultimaSincronizacion = inicio;
+    }
+}
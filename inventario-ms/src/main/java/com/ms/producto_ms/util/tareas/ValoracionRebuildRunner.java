@@ -0,0 +1,87 @@
+package com.ms.producto_ms.util.tareas;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.repository.InventarioCheckpointRepository;
+import com.ms.producto_ms.repository.InventarioJdbcRepository;
+import com.ms.producto_ms.util.FabricaHilos;
+import com.ms.producto_ms.util.valoracion.MotorValoracion;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Comando de única ejecución que recalcula la valoración (costo promedio y capas FIFO) de todos
+ * los productos a partir de "inventarios".
+ * <p>
+ * Solo se registra cuando se arranca con {@code --app.valoracion.reconstruir=true}:
+ * <pre>
+ *     java -jar inventario-ms.jar --app.valoracion.reconstruir=true
+ * </pre>
+ * Igual que la reconstrucción del resumen diario, procesa hasta {@code app.valoracion.hilos} lotes
+ * de productos en paralelo, cada uno en su transacción y con el advisory lock de sus productos:
+ * solo esperan los movimientos de los productos que se están recalculando. Volver a ejecutarlo
+ * reemplaza el estado, no lo suma.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.valoracion", name = "reconstruir", havingValue = "true")
+public class ValoracionRebuildRunner implements ApplicationRunner {
+
+    private final InventarioCheckpointRepository checkpointRepository;
+    private final InventarioJdbcRepository inventarioJdbcRepository;
+    private final MotorValoracion motorValoracion;
+    private final TransactionTemplate transactionTemplate;
+    private final AppProperties appProperties;
+    private final FabricaHilos fabricaHilos;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        AppProperties.ValoracionDto cfg = appProperties.getValoracion();
+        long inicio = System.currentTimeMillis();
+        long productos = 0;
+
+        ExecutorService pool = Executors.newFixedThreadPool(cfg.getHilos(),
+                fabricaHilos.crear("inventario-valoracion-"));
+        try {
+            Deque<Future<Integer>> pendientes = new ArrayDeque<>();
+            long ultimoProductoId = 0;
+            List<Long> lote;
+            while (!(lote = checkpointRepository.siguienteLoteProductos(ultimoProductoId, cfg.getTamanoLote()))
+                    .isEmpty()) {
+                List<Long> productoIds = lote;
+                pendientes.add(pool.submit(() -> transactionTemplate.execute(status -> {
+                    inventarioJdbcRepository.bloquearProductos(productoIds);
+                    return motorValoracion.reconstruir(productoIds, cfg.getTamanoFetch());
+                })));
+                ultimoProductoId = lote.get(lote.size() - 1);
+
+                if (pendientes.size() >= cfg.getHilos()) {
+                    productos += pendientes.poll().get();
+                }
+            }
+            while (!pendientes.isEmpty()) {
+                productos += pendientes.poll().get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        log.info("Valoración reconstruida - productos={} duracionMs={}",
+                productos, System.currentTimeMillis() - inicio);
+    }
+}
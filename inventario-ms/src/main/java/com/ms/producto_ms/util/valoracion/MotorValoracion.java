@@ -0,0 +1,167 @@
+package com.ms.producto_ms.util.valoracion;
+
+import com.ms.producto_ms.entity.InventarioEntity;
+import com.ms.producto_ms.enmun.TipoMovimientoEmun;
+import com.ms.producto_ms.repository.InventarioValoracionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mantiene la {@link Valoracion} de cada producto a medida que se registran movimientos.
+ * <p>
+ * {@link #aplicar(List)} corre dentro de la transacción del movimiento, con el advisory lock del
+ * producto tomado: lee el estado guardado, aplica los movimientos en orden y guarda el resultado,
+ * de modo que la valoración en cualquier momento es una lectura por llave. Una salida solo lee las
+ * capas FIFO que consume, de a {@value #CAPAS_POR_LECTURA}.
+ * <p>
+ * {@link #reconstruir(Collection, int)} recalcula desde el libro la valoración de un grupo de
+ * productos, reproduciendo sus movimientos en el orden en que se aplicaron.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Component
+@RequiredArgsConstructor
+public class MotorValoracion {
+
+    static final int CAPAS_POR_LECTURA = 100;
+
+    private final InventarioValoracionRepository valoracionRepository;
+
+    /**
+     * Aplica los movimientos de la transacción en curso.
+     *
+     * @param movimientos movimientos en el orden en que se registraron, con su fecha asignada.
+     */
+    public void aplicar(List<InventarioEntity> movimientos) {
+        if (movimientos.isEmpty()) {
+            return;
+        }
+        Map<Long, List<InventarioEntity>> porProducto = new LinkedHashMap<>();
+        for (InventarioEntity m : movimientos) {
+            porProducto.computeIfAbsent(m.getProductoId(), k -> new ArrayList<>()).add(m);
+        }
+
+        Map<Long, Valoracion> valoraciones = valoracionRepository.buscar(porProducto.keySet());
+        porProducto.forEach((productoId, delProducto) -> {
+            Valoracion valoracion = valoraciones.computeIfAbsent(productoId, k -> Valoracion.vacia());
+            CapasGuardadas capas = new CapasGuardadas(productoId);
+            for (InventarioEntity m : delProducto) {
+                if (m.getTipoMovimiento() == TipoMovimientoEmun.INGRESO) {
+                    valoracion.ingresar(m.getCantidad(), m.getPrecioUnitario(), m.getFechaMovimiento(), capas);
+                } else {
+                    valoracion.retirar(m.getCantidad(), capas);
+                }
+            }
+            capas.guardar();
+        });
+        valoracionRepository.guardar(valoraciones, LocalDateTime.now());
+    }
+
+    /**
+     * Reemplaza la valoración y las capas de los productos por las que resultan de su libro. El
+     * llamador debe tener tomado el advisory lock de cada producto.
+     *
+     * @return productos con movimientos.
+     */
+    public int reconstruir(Collection<Long> productoIds, int tamanoFetch) {
+        Map<Long, Valoracion> valoraciones = new LinkedHashMap<>();
+        Map<Long, Valoracion.EnMemoria> capas = new HashMap<>();
+        valoracionRepository.recorrerMovimientos(productoIds, tamanoFetch,
+                (productoId, tipoMovimiento, cantidad, precioUnitario, fecha) -> {
+                    Valoracion valoracion = valoraciones.computeIfAbsent(productoId, k -> Valoracion.vacia());
+                    Valoracion.EnMemoria delProducto = capas.computeIfAbsent(productoId, k -> Valoracion.Capas.enMemoria());
+                    if (tipoMovimiento == TipoMovimientoEmun.INGRESO) {
+                        valoracion.ingresar(cantidad, precioUnitario, fecha, delProducto);
+                    } else {
+                        valoracion.retirar(cantidad, delProducto);
+                    }
+                });
+
+        valoracionRepository.eliminarCapasDeProductos(productoIds);
+        capas.forEach((productoId, delProducto) ->
+                valoracionRepository.insertarCapas(productoId, delProducto.pendientes()));
+        valoracionRepository.guardar(valoraciones, LocalDateTime.now());
+        return valoraciones.size();
+    }
+
+    /**
+     * Capas de un producto leídas de la base de datos a demanda. Las capas nuevas de la misma
+     * transacción van detrás de todas las guardadas; {@link #guardar()} escribe solo lo que cambió.
+     */
+    private final class CapasGuardadas implements Valoracion.Capas {
+
+        private final long productoId;
+        private final Deque<Valoracion.Capa> leidas = new ArrayDeque<>();
+        private final Map<Long, Integer> restanteOriginal = new HashMap<>();
+        private final List<Long> agotadas = new ArrayList<>();
+        private final Deque<Valoracion.Capa> nuevas = new ArrayDeque<>();
+        private long ultimaLeida;
+        private boolean sinMasGuardadas;
+
+        private CapasGuardadas(long productoId) {
+            this.productoId = productoId;
+        }
+
+        @Override
+        public Valoracion.Capa primera() {
+            while (true) {
+                while (!leidas.isEmpty() && leidas.peekFirst().getCantidadRestante() == 0) {
+                    agotadas.add(leidas.pollFirst().getId());
+                }
+                if (!leidas.isEmpty()) {
+                    return leidas.peekFirst();
+                }
+                if (sinMasGuardadas) {
+                    break;
+                }
+                List<Valoracion.Capa> siguientes =
+                        valoracionRepository.siguientesCapas(productoId, ultimaLeida, CAPAS_POR_LECTURA);
+                sinMasGuardadas = siguientes.size() < CAPAS_POR_LECTURA;
+                for (Valoracion.Capa capa : siguientes) {
+                    restanteOriginal.put(capa.getId(), capa.getCantidadRestante());
+                    ultimaLeida = capa.getId();
+                    leidas.addLast(capa);
+                }
+            }
+            while (!nuevas.isEmpty() && nuevas.peekFirst().getCantidadRestante() == 0) {
+                nuevas.pollFirst();
+            }
+            return nuevas.peekFirst();
+        }
+
+        @Override
+        public void agregar(Valoracion.Capa capa) {
+            nuevas.addLast(capa);
+        }
+
+        void guardar() {
+            List<Valoracion.Capa> modificadas = new ArrayList<>();
+            for (Valoracion.Capa capa : leidas) {
+                if (capa.getCantidadRestante() == 0) {
+                    agotadas.add(capa.getId());
+                } else if (capa.getCantidadRestante() != restanteOriginal.get(capa.getId())) {
+                    modificadas.add(capa);
+                }
+            }
+            valoracionRepository.eliminarCapas(agotadas);
+            if (!modificadas.isEmpty()) {
+                valoracionRepository.actualizarCapas(modificadas);
+            }
+            List<Valoracion.Capa> pendientes = nuevas.stream().filter(c -> c.getCantidadRestante() > 0).toList();
+            if (!pendientes.isEmpty()) {
+                valoracionRepository.insertarCapas(productoId, pendientes);
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.ms.producto_ms.util.valoracion;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Estado de valoración de un producto: existencias, valor y costo de ventas acumulado por costo
+ * promedio ponderado y por FIFO.
+ * <p>
+ * Cada movimiento cuesta O(1) en el método promedio. En FIFO un ingreso agrega una capa y una
+ * salida consume las capas más antiguas; las capas se piden a {@link Capas}, que puede tenerlas
+ * en memoria (reconstrucción) o leerlas de la base de datos a medida que se necesitan.
+ * <p>
+ * Los valores llevan cuatro decimales. En el promedio, una salida cuesta la parte proporcional
+ * del valor ({@code valor * cantidad / existencias}); la que deja las existencias en cero se
+ * lleva el valor restante, así el redondeo nunca deja valor huérfano.
+ */
+@Getter
+@AllArgsConstructor
+public class Valoracion {
+
+    /** Escala de los valores guardados ({@code numeric(24, 4)}). */
+    public static final int ESCALA = 4;
+
+    private long cantidad;
+    private BigDecimal valorPromedio;
+    private BigDecimal costoVentasPromedio;
+    private BigDecimal valorFifo;
+    private BigDecimal costoVentasFifo;
+
+    public static Valoracion vacia() {
+        return new Valoracion(0, cero(), cero(), cero(), cero());
+    }
+
+    /**
+     * Costo unitario promedio vigente.
+     *
+     * @return null si no hay existencias.
+     */
+    public BigDecimal costoPromedio() {
+        return cantidad > 0 ? valorPromedio.divide(BigDecimal.valueOf(cantidad), ESCALA, RoundingMode.HALF_EVEN) : null;
+    }
+
+    public void ingresar(int unidades, BigDecimal costoUnitario, LocalDateTime fecha, Capas capas) {
+        BigDecimal valor = costoUnitario.multiply(BigDecimal.valueOf(unidades));
+        valorPromedio = escalar(valorPromedio.add(valor));
+        valorFifo = escalar(valorFifo.add(valor));
+        cantidad += unidades;
+        capas.agregar(new Capa(null, unidades, costoUnitario, fecha));
+    }
+
+    public void retirar(int unidades, Capas capas) {
+        // Promedio ponderado
+        BigDecimal costoPromedio;
+        if (cantidad <= 0) {
+            costoPromedio = BigDecimal.ZERO;
+        } else if (unidades >= cantidad) {
+            costoPromedio = valorPromedio;
+        } else {
+            costoPromedio = valorPromedio.multiply(BigDecimal.valueOf(unidades))
+                    .divide(BigDecimal.valueOf(cantidad), ESCALA, RoundingMode.HALF_EVEN);
+        }
+
+        // FIFO: de la capa más antigua a la más nueva
+        BigDecimal costoFifo = BigDecimal.ZERO;
+        int pendientes = unidades;
+        Capa capa;
+        while (pendientes > 0 && (capa = capas.primera()) != null) {
+            int tomadas = Math.min(pendientes, capa.getCantidadRestante());
+            capa.setCantidadRestante(capa.getCantidadRestante() - tomadas);
+            costoFifo = costoFifo.add(capa.getCostoUnitario().multiply(BigDecimal.valueOf(tomadas)));
+            pendientes -= tomadas;
+        }
+        if (pendientes > 0) {
+            // Capas faltantes (historia anterior a la valoración sin reconstruir): se usa el promedio
+            BigDecimal unitario = costoPromedio();
+            if (unitario != null) {
+                costoFifo = costoFifo.add(unitario.multiply(BigDecimal.valueOf(pendientes)));
+            }
+        }
+
+        cantidad -= unidades;
+        if (cantidad <= 0) {
+            costoPromedio = costoPromedio.max(valorPromedio);
+            costoFifo = costoFifo.max(valorFifo);
+        }
+        valorPromedio = escalar(valorPromedio.subtract(costoPromedio).max(BigDecimal.ZERO));
+        costoVentasPromedio = escalar(costoVentasPromedio.add(costoPromedio));
+        valorFifo = escalar(valorFifo.subtract(costoFifo).max(BigDecimal.ZERO));
+        costoVentasFifo = escalar(costoVentasFifo.add(costoFifo));
+    }
+
+    private static BigDecimal cero() {
+        return BigDecimal.ZERO.setScale(ESCALA);
+    }
+
+    private static BigDecimal escalar(BigDecimal valor) {
+        return valor.setScale(ESCALA, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * Capa de costo FIFO: unidades de un ingreso aún no consumidas.
+     */
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class Capa {
+        /** null mientras no se guarde. */
+        private Long id;
+        private int cantidadRestante;
+        private BigDecimal costoUnitario;
+        private LocalDateTime fechaIngreso;
+    }
+
+    /**
+     * Capas de un producto en orden FIFO.
+     */
+    public interface Capas {
+
+        /**
+         * @return la capa más antigua con unidades pendientes, o null si no quedan.
+         */
+        Capa primera();
+
+        /**
+         * Agrega una capa al final.
+         */
+        void agregar(Capa capa);
+
+        /**
+         * Capas en memoria, para reconstruir la valoración desde el libro.
+         */
+        static EnMemoria enMemoria() {
+            return new EnMemoria();
+        }
+    }
+
+    /**
+     * {@link Capas} en un {@link ArrayDeque}; las agotadas se descartan.
+     */
+    public static final class EnMemoria implements Capas {
+
+        private final Deque<Capa> capas = new ArrayDeque<>();
+
+        private EnMemoria() {
+        }
+
+        @Override
+        public Capa primera() {
+            while (!capas.isEmpty() && capas.peekFirst().getCantidadRestante() == 0) {
+                capas.pollFirst();
+            }
+            return capas.peekFirst();
+        }
+
+        @Override
+        public void agregar(Capa capa) {
+            capas.addLast(capa);
+        }
+
+        /**
+         * @return las capas con unidades pendientes, de la más antigua a la más nueva.
+         */
+        public Deque<Capa> pendientes() {
+            primera();
+            return capas;
+        }
+    }
+}
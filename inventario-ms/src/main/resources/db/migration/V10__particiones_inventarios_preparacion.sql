@@ -0,0 +1,23 @@
+-- Preparación para particionar "inventarios" por mes (V11), sin bloquear escrituras
+-- (ver V10__particiones_inventarios_preparacion.sql.conf: el script corre fuera de transacción).
+--
+-- Los movimientos existentes pasarán a ser una sola partición, "inventarios_legado", que cubre
+-- todo lo anterior al primer día del mes subsiguiente. Para adjuntarla sin recorrerla bajo lock:
+--   * la llave primaria de una tabla particionada debe incluir la columna de partición, así que
+--     se construye aquí el índice único (id, fecha_movimiento) que la respaldará;
+--   * un CHECK ya validado con el mismo límite evita que ATTACH PARTITION revise cada fila.
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS inventarios_id_fecha_key
+	ON public.inventarios (id, fecha_movimiento);
+
+-- NOT VALID solo toma el lock un instante; VALIDATE no bloquea inserts
+DO $$
+BEGIN
+	IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'inventarios_legado_rango') THEN
+		EXECUTE format('ALTER TABLE public.inventarios ADD CONSTRAINT inventarios_legado_rango '
+			|| 'CHECK (fecha_movimiento < %L) NOT VALID',
+			date_trunc('month', localtimestamp) + interval '2 months');
+	END IF;
+END $$;
+
+ALTER TABLE public.inventarios VALIDATE CONSTRAINT inventarios_legado_rango;
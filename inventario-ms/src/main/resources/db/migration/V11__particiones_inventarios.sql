@@ -0,0 +1,57 @@
+-- Convierte "inventarios" en una tabla particionada por rango de fecha_movimiento.
+-- La tabla actual se adjunta tal cual como partición "inventarios_legado" (desde MINVALUE hasta el
+-- límite del CHECK de V10) y se crean las tres primeras particiones mensuales; las siguientes las
+-- crea ParticionesJob por adelantado. Solo cambia metadata: no se copia ni se revisa ninguna fila.
+LOCK TABLE public.inventarios IN ACCESS EXCLUSIVE MODE;
+
+ALTER TABLE public.inventarios RENAME TO inventarios_legado;
+ALTER INDEX public.idx_inventarios_producto_id RENAME TO idx_inventarios_legado_producto_id;
+ALTER INDEX public.idx_inventarios_producto_fecha RENAME TO idx_inventarios_legado_producto_fecha;
+ALTER TABLE public.inventarios_legado DROP CONSTRAINT inventarios_pkey;
+ALTER TABLE public.inventarios_legado
+	ADD CONSTRAINT inventarios_legado_pkey PRIMARY KEY USING INDEX inventarios_id_fecha_key;
+
+-- Una partición no puede tener IDENTITY propia: los ids salen de una secuencia de la tabla padre
+-- que continúa desde el último id usado.
+CREATE SEQUENCE IF NOT EXISTS public.inventarios_movimiento_id_seq AS int8;
+SELECT setval('public.inventarios_movimiento_id_seq',
+	COALESCE((SELECT max(id) FROM public.inventarios_legado), 0) + 1, false);
+ALTER TABLE public.inventarios_legado ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE public.inventarios_legado ALTER COLUMN id DROP DEFAULT;
+
+CREATE TABLE public.inventarios (
+	id int8 NOT NULL DEFAULT nextval('public.inventarios_movimiento_id_seq'),
+	producto_id int8 NOT NULL,
+	cantidad int4 NOT NULL,
+	tipo_movimiento varchar(20) NOT NULL,
+	precio_unitario numeric(15, 2) NOT NULL,
+	precio_total numeric(18, 2) NOT NULL,
+	fecha_movimiento timestamp(6) NOT NULL,
+	CONSTRAINT inventarios_pkey PRIMARY KEY (id, fecha_movimiento)
+) PARTITION BY RANGE (fecha_movimiento);
+
+ALTER SEQUENCE public.inventarios_movimiento_id_seq OWNED BY public.inventarios.id;
+
+-- Los mismos índices de V4; ATTACH PARTITION reutiliza los equivalentes de la partición legado
+CREATE INDEX idx_inventarios_producto_id
+	ON public.inventarios (producto_id, id)
+	INCLUDE (tipo_movimiento, cantidad);
+CREATE INDEX idx_inventarios_producto_fecha
+	ON public.inventarios (producto_id, fecha_movimiento, id);
+
+DO $$
+DECLARE
+	-- Nunca menor que el límite del CHECK de V10 (el tiempo solo avanza), así que el CHECK lo implica
+	limite timestamp := date_trunc('month', localtimestamp) + interval '2 months';
+	mes timestamp;
+BEGIN
+	EXECUTE format('ALTER TABLE public.inventarios ATTACH PARTITION public.inventarios_legado '
+		|| 'FOR VALUES FROM (MINVALUE) TO (%L)', limite);
+	FOR i IN 0..2 LOOP
+		mes := limite + make_interval(months => i);
+		EXECUTE format('CREATE TABLE public.%I PARTITION OF public.inventarios FOR VALUES FROM (%L) TO (%L)',
+			'inventarios_p' || to_char(mes, 'YYYY_MM'), mes, mes + interval '1 month');
+	END LOOP;
+END $$;
+
+ALTER TABLE public.inventarios_legado DROP CONSTRAINT inventarios_legado_rango;
@@ -0,0 +1,37 @@
+-- Tipo de movimiento como código int2 (1 = INGRESO, 2 = SALIDA; ver TipoMovimientoEmun) y cantidad
+-- con signo ("delta": +cantidad en un ingreso, -cantidad en una salida). Los saldos pasan a ser un
+-- SUM(delta) servido por un index-only scan en lugar de comparar el texto de cada fila.
+--
+-- Solo cambia el catálogo: las columnas se agregan nulas y sin default, y los CHECK se crean
+-- NOT VALID. V13 rellena los movimientos existentes y valida; V14 fija NOT NULL.
+ALTER TABLE public.inventarios
+	ADD COLUMN IF NOT EXISTS tipo int2,
+	ADD COLUMN IF NOT EXISTS delta int4;
+
+-- La versión actual deja de escribir tipo_movimiento; se conserva para las réplicas de la versión
+-- anterior que sigan corriendo durante el despliegue.
+ALTER TABLE public.inventarios ALTER COLUMN tipo_movimiento DROP NOT NULL;
+
+-- Completa tipo y delta en los inserts de esas réplicas, que solo conocen tipo_movimiento
+CREATE OR REPLACE FUNCTION public.inventarios_tipo_delta() RETURNS trigger
+	LANGUAGE plpgsql AS $$
+BEGIN
+	IF NEW.tipo IS NULL THEN
+		NEW.tipo := CASE NEW.tipo_movimiento WHEN 'INGRESO' THEN 1 WHEN 'SALIDA' THEN 2 END;
+	END IF;
+	IF NEW.delta IS NULL THEN
+		NEW.delta := CASE NEW.tipo WHEN 1 THEN NEW.cantidad WHEN 2 THEN -NEW.cantidad END;
+	END IF;
+	RETURN NEW;
+END $$;
+
+CREATE TRIGGER inventarios_tipo_delta
+	BEFORE INSERT ON public.inventarios
+	FOR EACH ROW EXECUTE FUNCTION public.inventarios_tipo_delta();
+
+ALTER TABLE public.inventarios
+	ADD CONSTRAINT inventarios_tipo_delta_check
+		CHECK (tipo IN (1, 2) AND delta = CASE tipo WHEN 1 THEN cantidad ELSE -cantidad END) NOT VALID,
+	-- Ya validados, permiten a V14 fijar NOT NULL sin recorrer la tabla
+	ADD CONSTRAINT inventarios_tipo_no_nulo CHECK (tipo IS NOT NULL) NOT VALID,
+	ADD CONSTRAINT inventarios_delta_no_nulo CHECK (delta IS NOT NULL) NOT VALID;
@@ -0,0 +1,69 @@
+-- Rellena tipo y delta de los movimientos existentes y crea el índice cubriente de los saldos,
+-- sin bloquear escrituras (ver V13__inventarios_tipo_delta_relleno.sql.conf: el script corre fuera
+-- de transacción, así que el bloque puede confirmar cada lote).
+
+-- Lotes de 50.000 ids, cada uno en su propia transacción: no retiene locks de fila sobre todo el
+-- libro. Los inserts posteriores a V12 ya llegan completos (por la aplicación o por el trigger).
+DO $$
+DECLARE
+	lote CONSTANT int8 := 50000;
+	desde int8 := 0;
+	maximo int8;
+BEGIN
+	SELECT COALESCE(max(id), 0) INTO maximo FROM public.inventarios;
+	WHILE desde < maximo LOOP
+		UPDATE public.inventarios
+		   SET tipo  = CASE tipo_movimiento WHEN 'INGRESO' THEN 1 WHEN 'SALIDA' THEN 2 END,
+		       delta = CASE tipo_movimiento WHEN 'INGRESO' THEN cantidad WHEN 'SALIDA' THEN -cantidad END
+		 WHERE id > desde
+		   AND id <= desde + lote
+		   AND tipo IS NULL;
+		COMMIT;
+		desde := desde + lote;
+	END LOOP;
+END $$;
+
+-- VALIDATE no bloquea inserts
+ALTER TABLE public.inventarios VALIDATE CONSTRAINT inventarios_tipo_no_nulo;
+ALTER TABLE public.inventarios VALIDATE CONSTRAINT inventarios_delta_no_nulo;
+ALTER TABLE public.inventarios VALIDATE CONSTRAINT inventarios_tipo_delta_check;
+
+-- Reemplazo de idx_inventarios_producto_id (V14) para obtenerSaldoPorProducto y avanzarCheckpoint:
+--   WHERE producto_id = ? AND id > ? [AND id <= ?]  ->  SUM(delta)
+-- Una tabla particionada no admite CREATE INDEX CONCURRENTLY: se crea el índice padre sin
+-- construir (ON ONLY) y se le adjunta el de cada partición. La legada, que tiene casi todo el
+-- libro, se indexa CONCURRENTLY; las mensuales son recientes y se indexan directamente.
+CREATE INDEX IF NOT EXISTS idx_inventarios_producto_delta
+	ON ONLY public.inventarios (producto_id, id)
+	INCLUDE (delta);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_inventarios_legado_producto_delta
+	ON public.inventarios_legado (producto_id, id)
+	INCLUDE (delta);
+
+DO $$
+DECLARE
+	particion text;
+BEGIN
+	FOR particion IN
+		SELECT c.relname
+		  FROM pg_inherits i
+		  JOIN pg_class c ON c.oid = i.inhrelid
+		 WHERE i.inhparent = 'public.inventarios'::regclass
+		   AND NOT EXISTS (SELECT 1
+		                     FROM pg_inherits ii
+		                     JOIN pg_index x ON x.indexrelid = ii.inhrelid
+		                    WHERE ii.inhparent = 'public.idx_inventarios_producto_delta'::regclass
+		                      AND x.indrelid = i.inhrelid)
+	LOOP
+		IF particion = 'inventarios_legado' THEN
+			EXECUTE 'ALTER INDEX public.idx_inventarios_producto_delta '
+				|| 'ATTACH PARTITION public.idx_inventarios_legado_producto_delta';
+		ELSE
+			EXECUTE format('CREATE INDEX IF NOT EXISTS %I ON public.%I (producto_id, id) INCLUDE (delta)',
+				particion || '_producto_delta_idx', particion);
+			EXECUTE format('ALTER INDEX public.idx_inventarios_producto_delta ATTACH PARTITION public.%I',
+				particion || '_producto_delta_idx');
+		END IF;
+	END LOOP;
+END $$;
@@ -0,0 +1,14 @@
+-- Cierra el cambio de V12: tipo y delta obligatorios y el índice de saldos sobre delta.
+-- Los CHECK validados en V13 prueban que no hay nulos, así que SET NOT NULL no recorre la tabla.
+ALTER TABLE public.inventarios
+	ALTER COLUMN tipo SET NOT NULL,
+	ALTER COLUMN delta SET NOT NULL;
+
+ALTER TABLE public.inventarios
+	DROP CONSTRAINT inventarios_tipo_no_nulo,
+	DROP CONSTRAINT inventarios_delta_no_nulo;
+
+-- El índice anterior incluía (tipo_movimiento, cantidad); el nuevo toma su nombre
+DROP INDEX public.idx_inventarios_producto_id;
+ALTER INDEX public.idx_inventarios_producto_delta RENAME TO idx_inventarios_producto_id;
+ALTER INDEX public.idx_inventarios_legado_producto_delta RENAME TO idx_inventarios_legado_producto_id;
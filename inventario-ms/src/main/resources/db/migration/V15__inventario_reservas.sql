@@ -0,0 +1,19 @@
+-- Reservas de stock con vencimiento (checkout). Solo guarda las reservas vigentes: al confirmarse
+-- (se registra la SALIDA), liberarse o vencer, la fila se elimina.
+CREATE TABLE public.inventario_reservas (
+	id uuid NOT NULL,
+	producto_id int8 NOT NULL,
+	cantidad int4 NOT NULL,
+	expira_en timestamp(6) NOT NULL,
+	fecha_creacion timestamp(6) NOT NULL,
+	CONSTRAINT inventario_reservas_pkey PRIMARY KEY (id),
+	CONSTRAINT inventario_reservas_cantidad_check CHECK (cantidad > 0)
+);
+
+-- Barrido de respaldo: WHERE expira_en <= ? ORDER BY expira_en LIMIT ? lee solo las vencidas
+CREATE INDEX idx_inventario_reservas_expira ON public.inventario_reservas (expira_en);
+
+-- Unidades reservadas por producto, mantenidas junto al saldo bajo el advisory lock del producto:
+-- lo disponible para reservar o vender es saldo - reservado. Default constante: solo catálogo.
+ALTER TABLE public.inventario_saldos
+	ADD COLUMN reservado int4 NOT NULL DEFAULT 0;
@@ -0,0 +1,10 @@
+-- Última vez que cambió el reservado del producto, para que la resincronización del índice de
+-- saldos en memoria (SaldosIndiceJob) recoja también las reservas hechas en otras réplicas:
+--   SELECT ... FROM inventario_saldos WHERE fecha_ultimo_movimiento >= ? OR fecha_ultima_reserva >= ?
+-- Columna nullable sin default: solo catálogo. El índice se crea CONCURRENTLY
+-- (ver V16__saldos_fecha_ultima_reserva.sql.conf: el script corre fuera de transacción).
+ALTER TABLE public.inventario_saldos
+	ADD COLUMN IF NOT EXISTS fecha_ultima_reserva timestamp(6) NULL;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_inventario_saldos_fecha_reserva
+	ON public.inventario_saldos (fecha_ultima_reserva);
@@ -0,0 +1,10 @@
+-- Cierra la transición de V12: las réplicas de la versión anterior ya no corren, así que nadie
+-- inserta solo tipo_movimiento. Se quitan el trigger que completaba tipo y delta para ellas y la
+-- columna de texto, que ningún índice ni consulta usa desde V14.
+--
+-- Solo cambia el catálogo: DROP COLUMN marca la columna como borrada sin reescribir la tabla ni sus
+-- particiones, y el lock exclusivo sobre "inventarios" dura un instante.
+DROP TRIGGER IF EXISTS inventarios_tipo_delta ON public.inventarios;
+DROP FUNCTION IF EXISTS public.inventarios_tipo_delta();
+
+ALTER TABLE public.inventarios DROP COLUMN IF EXISTS tipo_movimiento;
@@ -0,0 +1,12 @@
+-- Libro de movimientos de inventario (INGRESO / SALIDA).
+-- IF NOT EXISTS: en bases existentes la tabla ya fue creada fuera de Flyway.
+CREATE TABLE IF NOT EXISTS public.inventarios (
+	id int8 GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+	producto_id int8 NOT NULL,
+	cantidad int4 NOT NULL,
+	tipo_movimiento varchar(20) NOT NULL,
+	precio_unitario numeric(15, 2) NOT NULL,
+	precio_total numeric(18, 2) NOT NULL,
+	fecha_movimiento timestamp(6) NOT NULL,
+	CONSTRAINT inventarios_pkey PRIMARY KEY (id)
+);
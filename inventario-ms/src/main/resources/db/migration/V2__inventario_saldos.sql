@@ -0,0 +1,20 @@
+-- Proyección del saldo por producto, actualizada en la misma transacción que cada movimiento.
+CREATE TABLE IF NOT EXISTS public.inventario_saldos (
+	producto_id int8 NOT NULL,
+	saldo int4 NOT NULL,
+	ultimo_precio_unitario numeric(15, 2) NULL,
+	fecha_ultimo_movimiento timestamp(6) NULL,
+	CONSTRAINT inventario_saldos_pkey PRIMARY KEY (producto_id)
+);
+
+-- Relleno inicial desde el libro: sin él, los productos con movimientos previos a esta versión
+-- quedarían sin fila y su saldo arrancaría en cero. Corre antes de que la aplicación acepte
+-- movimientos; DO NOTHING respeta las filas que ya existan.
+INSERT INTO public.inventario_saldos (producto_id, saldo, ultimo_precio_unitario, fecha_ultimo_movimiento)
+SELECT i.producto_id,
+	   COALESCE(SUM(CASE i.tipo_movimiento WHEN 'INGRESO' THEN i.cantidad WHEN 'SALIDA' THEN -i.cantidad END), 0),
+	   (ARRAY_AGG(i.precio_unitario ORDER BY i.fecha_movimiento DESC, i.id DESC))[1],
+	   MAX(i.fecha_movimiento)
+FROM public.inventarios i
+GROUP BY i.producto_id
+ON CONFLICT (producto_id) DO NOTHING;
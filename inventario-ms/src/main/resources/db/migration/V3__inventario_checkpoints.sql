@@ -0,0 +1,20 @@
+-- Checkpoints del saldo por producto y estado del job que los escribe.
+CREATE TABLE IF NOT EXISTS public.inventario_checkpoints (
+	producto_id int8 NOT NULL,
+	ultimo_movimiento_id int8 NOT NULL,
+	saldo int4 NOT NULL,
+	fecha_corte timestamp(6) NOT NULL,
+	CONSTRAINT inventario_checkpoints_pkey PRIMARY KEY (producto_id)
+);
+
+CREATE TABLE IF NOT EXISTS public.inventario_checkpoint_ejecuciones (
+	id int8 GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+	corte_movimiento_id int8 NOT NULL,
+	ultimo_producto_id int8 NOT NULL,
+	productos_procesados int8 NOT NULL,
+	total_productos int8 NOT NULL,
+	estado varchar(20) NOT NULL,
+	fecha_inicio timestamp(6) NOT NULL,
+	fecha_fin timestamp(6) NULL,
+	CONSTRAINT inventario_checkpoint_ejecuciones_pkey PRIMARY KEY (id)
+);
@@ -0,0 +1,15 @@
+-- Índices para las consultas calientes sobre "inventarios".
+-- Se crean CONCURRENTLY para no bloquear escrituras en tablas grandes
+-- (ver V4__indices_inventarios.sql.conf: el script corre fuera de transacción).
+
+-- Saldo por producto desde el checkpoint (InventarioRepository.obtenerSaldoPorProducto)
+-- y avance de checkpoints (InventarioCheckpointRepository.avanzarCheckpoint):
+--   WHERE producto_id = ? AND id > ? [AND id <= ?]  ->  SUM(cantidad según tipo_movimiento)
+-- INCLUDE permite resolverlas con un index-only scan.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_inventarios_producto_id
+	ON public.inventarios (producto_id, id)
+	INCLUDE (tipo_movimiento, cantidad);
+
+-- Movimientos de un producto ordenados por fecha (último movimiento, historial).
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_inventarios_producto_fecha
+	ON public.inventarios (producto_id, fecha_movimiento, id);
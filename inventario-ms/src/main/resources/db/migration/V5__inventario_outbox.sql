@@ -0,0 +1,24 @@
+-- Outbox de eventos de inventario: se escribe en la misma transacción que el movimiento
+-- y un relay la recorre para entregar los eventos al menos una vez.
+CREATE TABLE IF NOT EXISTS public.inventario_outbox (
+	id int8 GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+	producto_id int8 NOT NULL,
+	tipo_movimiento varchar(20) NOT NULL,
+	cantidad_anterior int4 NOT NULL,
+	cantidad_movimiento int4 NOT NULL,
+	cantidad_nueva int4 NOT NULL,
+	precio_unitario numeric(15, 2) NOT NULL,
+	fecha_evento timestamp(6) NOT NULL,
+	fecha_envio timestamp(6) NULL,
+	CONSTRAINT inventario_outbox_pkey PRIMARY KEY (id)
+);
+
+-- El relay solo recorre pendientes, en orden de id
+CREATE INDEX IF NOT EXISTS idx_inventario_outbox_pendientes
+	ON public.inventario_outbox (id)
+	WHERE fecha_envio IS NULL;
+
+-- La limpieza borra enviados por antigüedad
+CREATE INDEX IF NOT EXISTS idx_inventario_outbox_enviados
+	ON public.inventario_outbox (fecha_envio)
+	WHERE fecha_envio IS NOT NULL;
@@ -0,0 +1,5 @@
+-- Resincronización del índice de saldos en memoria (SaldosIndiceJob):
+--   SELECT ... FROM inventario_saldos WHERE fecha_ultimo_movimiento >= ?
+-- Se crea CONCURRENTLY (ver V6__indice_saldos_fecha.sql.conf: el script corre fuera de transacción).
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_inventario_saldos_fecha
+	ON public.inventario_saldos (fecha_ultimo_movimiento);
@@ -0,0 +1,16 @@
+-- Claves de idempotencia de ingresos y salidas: se reclaman en la misma transacción que el
+-- movimiento, así que una clave existe si y solo si su movimiento fue confirmado.
+CREATE TABLE IF NOT EXISTS public.inventario_idempotencia (
+	clave varchar(100) NOT NULL,
+	tipo_movimiento varchar(20) NOT NULL,
+	producto_id int8 NOT NULL,
+	cantidad int4 NOT NULL,
+	precio_unitario numeric(15, 2) NOT NULL,
+	cantidad_nueva int4 NULL,
+	fecha_creacion timestamp(6) NOT NULL,
+	CONSTRAINT inventario_idempotencia_pkey PRIMARY KEY (clave)
+);
+
+-- La limpieza borra por antigüedad
+CREATE INDEX IF NOT EXISTS idx_inventario_idempotencia_fecha
+	ON public.inventario_idempotencia (fecha_creacion);
@@ -0,0 +1,13 @@
+-- Resumen diario de movimientos por producto, actualizado en la misma transacción que cada
+-- movimiento. Los reportes por rango leen una fila por producto y día en lugar del libro completo.
+-- Los datos anteriores se cargan con --app.resumenes.reconstruir=true.
+CREATE TABLE IF NOT EXISTS public.inventario_resumen_diario (
+	producto_id int8 NOT NULL,
+	dia date NOT NULL,
+	cantidad_ingresos int8 NOT NULL,
+	valor_ingresos numeric(20, 2) NOT NULL,
+	cantidad_salidas int8 NOT NULL,
+	valor_salidas numeric(20, 2) NOT NULL,
+	movimientos int4 NOT NULL,
+	CONSTRAINT inventario_resumen_diario_pkey PRIMARY KEY (producto_id, dia)
+);
@@ -0,0 +1,27 @@
+-- Valoración del inventario por producto, actualizada en la misma transacción que cada movimiento:
+-- costo promedio ponderado y FIFO, con el costo de ventas acumulado de cada método.
+-- Los datos anteriores se cargan con --app.valoracion.reconstruir=true.
+CREATE TABLE IF NOT EXISTS public.inventario_valoracion (
+	producto_id int8 NOT NULL,
+	cantidad int8 NOT NULL,
+	valor_promedio numeric(24, 4) NOT NULL,
+	costo_ventas_promedio numeric(24, 4) NOT NULL,
+	valor_fifo numeric(24, 4) NOT NULL,
+	costo_ventas_fifo numeric(24, 4) NOT NULL,
+	fecha_actualizacion timestamp(6) NOT NULL,
+	CONSTRAINT inventario_valoracion_pkey PRIMARY KEY (producto_id)
+);
+
+-- Capas de costo FIFO con unidades pendientes; las agotadas se borran al consumirse.
+-- El orden de consumo es el id: los ingresos de un producto se registran de a uno bajo su lock.
+CREATE TABLE IF NOT EXISTS public.inventario_capas_costo (
+	id int8 GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+	producto_id int8 NOT NULL,
+	cantidad_restante int4 NOT NULL,
+	costo_unitario numeric(15, 2) NOT NULL,
+	fecha_ingreso timestamp(6) NOT NULL,
+	CONSTRAINT inventario_capas_costo_pkey PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_inventario_capas_costo_producto
+	ON public.inventario_capas_costo (producto_id, id);
@@ -0,0 +1,23 @@
+package com.ms.producto_ms;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Configuración de pruebas que levanta un Postgres real (Testcontainers) y lo
+ * conecta automáticamente al datasource de la aplicación.
+ * <p>
+ * Se usa en las pruebas que dependen de funcionalidades propias de Postgres
+ * (advisory locks, upserts, planes de ejecución). Requiere Docker.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class PostgresContainerConfig {
+
+    @Bean
+    @ServiceConnection
+    PostgreSQLContainer<?> postgresContainer() {
+        return new PostgreSQLContainer<>("postgres:15");
+    }
+}
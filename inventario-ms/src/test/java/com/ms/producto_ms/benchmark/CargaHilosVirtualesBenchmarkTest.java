@@ -0,0 +1,189 @@
+package com.ms.producto_ms.benchmark;
+
+import com.ms.producto_ms.InventarioMsApplication;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comparación de carga entre hilos de plataforma y el modo de hilos virtuales.
+ * <p>
+ * Levanta la aplicación dos veces sobre el mismo Postgres (Testcontainers), una con el Tomcat
+ * de siempre (200 hilos) y otra con {@code spring.threads.virtual.enabled=true}, y le envía la
+ * misma carga de {@code GET /api/inventarios/productos/{id}}. Cada petición llama por Feign a un micro de
+ * productos simulado que tarda {@link #LATENCIA_PRODUCTOS}, de modo que el tiempo de la petición
+ * es sobre todo espera de E/S. La cache de productos se desactiva y el límite de concurrencia del
+ * circuito se amplía para que cada petición haga su llamada remota.
+ * <p>
+ * Se ejecuta con {@code mvn test -Pbenchmark} (requiere Docker y Java 21).
+ */
+@Tag("benchmark")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class CargaHilosVirtualesBenchmarkTest {
+
+    private static final Duration LATENCIA_PRODUCTOS = Duration.ofMillis(50);
+    private static final int PETICIONES = 6_000;
+    private static final int CONCURRENCIA = 1_000;
+    private static final String API_KEY = "super-secret-key";
+
+    private static PostgreSQLContainer<?> postgres;
+    private static HttpServer productos;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        postgres = new PostgreSQLContainer<>("postgres:15");
+        postgres.start();
+
+        // Micro de productos simulado: cada respuesta tarda LATENCIA_PRODUCTOS
+        productos = HttpServer.create(new InetSocketAddress("localhost", 0), 1_000);
+        productos.setExecutor(new VirtualThreadTaskExecutor("productos-simulado-"));
+        productos.createContext("/producto-ms/api/productos/", exchange -> {
+            try {
+                Thread.sleep(LATENCIA_PRODUCTOS.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String path = exchange.getRequestURI().getPath();
+            String id = path.substring(path.lastIndexOf('/') + 1);
+            byte[] cuerpo = ("{\"code\":200,\"message\":\"ok\",\"data\":{\"id\":" + id
+                    + ",\"nombre\":\"Producto " + id + "\",\"precio\":1000}}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, cuerpo.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(cuerpo);
+            }
+        });
+        productos.start();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (productos != null) {
+            productos.stop(0);
+        }
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("GET de detalle con productos lento: hilos de plataforma vs hilos virtuales")
+    void plataformaVsVirtuales() throws Exception {
+        Resultado plataforma = medir(false);
+        Resultado virtuales = medir(true);
+
+        System.out.printf("%n[benchmark] GET /api/inventarios/productos/{id} peticiones=%d concurrencia=%d latenciaProductos=%dms%n",
+                PETICIONES, CONCURRENCIA, LATENCIA_PRODUCTOS.toMillis());
+        System.out.printf("[benchmark]   plataforma (200 hilos): %s%n", plataforma);
+        System.out.printf("[benchmark]   hilos virtuales       : %s%n", virtuales);
+    }
+
+    private Resultado medir(boolean hilosVirtuales) throws Exception {
+        try (ConfigurableApplicationContext contexto = iniciar(hilosVirtuales)) {
+            int puerto = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+            HttpClient cliente = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(new VirtualThreadTaskExecutor("carga-"))
+                    .build();
+
+            // Calentamiento (JIT, pool de conexiones, Feign)
+            ejecutar(cliente, puerto, PETICIONES / 5);
+            return ejecutar(cliente, puerto, PETICIONES);
+        }
+    }
+
+    private static ConfigurableApplicationContext iniciar(boolean hilosVirtuales) {
+        Map<String, Object> propiedades = new HashMap<>();
+        propiedades.put("server.port", 0);
+        propiedades.put("server.tomcat.threads.max", 200);
+        propiedades.put("server.tomcat.max-connections", 10_000);
+        propiedades.put("server.tomcat.accept-count", 1_000);
+        propiedades.put("spring.threads.virtual.enabled", hilosVirtuales);
+        propiedades.put("spring.datasource.url", postgres.getJdbcUrl());
+        propiedades.put("spring.datasource.username", postgres.getUsername());
+        propiedades.put("spring.datasource.password", postgres.getPassword());
+        propiedades.put("clients.productos.base-url",
+                "http://localhost:" + productos.getAddress().getPort() + "/producto-ms/api/productos");
+        propiedades.put("security.api-key", API_KEY);
+        propiedades.put("app.productos-cache.habilitado", false);
+        propiedades.put("app.productos-circuito.max-concurrentes", 10_000);
+        propiedades.put("app.checkpoints.habilitado", false);
+        propiedades.put("app.outbox.habilitado", false);
+        // Como argumentos de línea de comandos: tienen prioridad sobre application.yml
+        String[] argumentos = propiedades.entrySet().stream()
+                .map(e -> "--" + e.getKey() + "=" + e.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(InventarioMsApplication.class).run(argumentos);
+    }
+
+    private static Resultado ejecutar(HttpClient cliente, int puerto, int total) throws Exception {
+        Semaphore enVuelo = new Semaphore(CONCURRENCIA);
+        AtomicInteger errores = new AtomicInteger();
+        long[] latencias = new long[total];
+        List<CompletableFuture<?>> pendientes = new ArrayList<>(total);
+
+        long inicio = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            int indice = i;
+            HttpRequest request = HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + puerto + "/api/inventarios/productos/" + (1 + i % 500)))
+                    .header("X-API-KEY", API_KEY)
+                    .timeout(Duration.ofSeconds(60))
+                    .build();
+            enVuelo.acquire();
+            long envio = System.nanoTime();
+            pendientes.add(cliente.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        latencias[indice] = System.nanoTime() - envio;
+                        if (error != null || response.statusCode() != 200) {
+                            errores.incrementAndGet();
+                        }
+                        enVuelo.release();
+                    }));
+        }
+        CompletableFuture.allOf(pendientes.toArray(CompletableFuture[]::new)).join();
+        long nanos = System.nanoTime() - inicio;
+
+        assertEquals(0, errores.get(), "todas las peticiones deben responder 200");
+        Arrays.sort(latencias);
+        return new Resultado(total / (nanos / 1_000_000_000.0),
+                latencias[total / 2] / 1_000_000.0,
+                latencias[(int) (total * 0.99) - 1] / 1_000_000.0);
+    }
+
+    private record Resultado(double throughput, double p50Ms, double p99Ms) {
+        @Override
+        public String toString() {
+            return String.format("%8.1f req/s  p50=%7.1f ms  p99=%7.1f ms", throughput, p50Ms, p99Ms);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.ms.producto_ms.benchmark;
+
+import com.ms.producto_ms.PostgresContainerConfig;
+import com.ms.producto_ms.client.ProductosClient;
+import com.ms.producto_ms.dto.response.ApiResponse;
+import com.ms.producto_ms.dto.response.ProductoResumenDto;
+import com.ms.producto_ms.enmun.TipoMovimientoEmun;
+import com.ms.producto_ms.exception.CustomException;
+import com.ms.producto_ms.repository.InventarioSaldoRepository;
+import com.ms.producto_ms.service.InventarioInterface;
+import com.ms.producto_ms.util.concurrencia.ColasMovimientos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * Benchmark de contención sobre los movimientos de inventario.
+ * <p>
+ * Compara el throughput de SALIDAS concurrentes cuando todas golpean el mismo
+ * producto (SKU caliente, serializado por su advisory lock) contra el caso en que
+ * se reparten entre muchos productos (sin contención entre sí), y el SKU caliente
+ * cuando pasa por {@link ColasMovimientos} (group commit). También verifica que
+ * bajo concurrencia nunca se vende más de lo disponible.
+ * <p>
+ * Se ejecuta con {@code mvn test -Pbenchmark} (requiere Docker).
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "clients.productos.base-url=http://localhost:0")
+@Import(PostgresContainerConfig.class)
+class ContencionMovimientosBenchmarkTest {
+
+    private static final int HILOS = 16;
+    private static final int OPERACIONES = 2_000;
+    private static final BigDecimal PRECIO = new BigDecimal("1000");
+
+    @Autowired
+    private InventarioInterface inventarioService;
+
+    @Autowired
+    private InventarioSaldoRepository saldoRepository;
+
+    @Autowired
+    private ColasMovimientos colasMovimientos;
+
+    @MockitoBean
+    private ProductosClient productosClient;
+
+    @BeforeEach
+    void setUp() {
+        ApiResponse<ProductoResumenDto> producto = ApiResponse.<ProductoResumenDto>builder()
+                .data(ProductoResumenDto.builder().id(1L).nombre("Producto benchmark").precio(PRECIO).build())
+                .code(HttpStatus.OK.value())
+                .build();
+        when(productosClient.obtenerProducto(anyLong())).thenReturn(ResponseEntity.ok(producto));
+    }
+
+    @Test
+    @DisplayName("salidas concurrentes sobre el mismo producto nunca sobrevenden")
+    void salidasConcurrentesNoSobrevenden() throws Exception {
+        long productoId = 900_001L;
+        int disponible = 100;
+        inventarioService.agregarCantidad(productoId, disponible, PRECIO, null);
+
+        AtomicInteger exitosas = new AtomicInteger();
+        ejecutar(disponible * 2, i -> () -> {
+            try {
+                inventarioService.retirarCantidad(productoId, 1, PRECIO, null);
+                exitosas.incrementAndGet();
+            } catch (CustomException e) {
+                // Sin inventario suficiente: esperado una vez agotado el saldo
+            }
+            return null;
+        });
+
+        assertEquals(disponible, exitosas.get());
+        assertEquals(0, saldoRepository.findById(productoId).orElseThrow().getSaldo());
+    }
+
+    @Test
+    @DisplayName("salidas agrupadas concurrentes sobre el mismo producto nunca sobrevenden")
+    void salidasAgrupadasNoSobrevenden() throws Exception {
+        long productoId = 900_002L;
+        int disponible = 100;
+        inventarioService.agregarCantidad(productoId, disponible, PRECIO, null);
+
+        AtomicInteger exitosas = new AtomicInteger();
+        ejecutar(disponible * 2, i -> () -> {
+            try {
+                colasMovimientos.registrar(productoId, TipoMovimientoEmun.SALIDA, 1, PRECIO, null);
+                exitosas.incrementAndGet();
+            } catch (CustomException e) {
+                // Sin inventario suficiente: esperado una vez agotado el saldo
+            }
+            return null;
+        });
+
+        assertEquals(disponible, exitosas.get());
+        assertEquals(0, saldoRepository.findById(productoId).orElseThrow().getSaldo());
+    }
+
+    @Test
+    @DisplayName("throughput de SALIDA: SKU caliente vs SKUs repartidos")
+    void throughputSkuCalienteVsRepartido() throws Exception {
+        long productoCaliente = 910_000L;
+        inventarioService.agregarCantidad(productoCaliente, OPERACIONES, PRECIO, null);
+
+        long baseRepartidos = 920_000L;
+        for (int p = 0; p < HILOS; p++) {
+            inventarioService.agregarCantidad(baseRepartidos + p, OPERACIONES, PRECIO, null);
+        }
+
+        double caliente = ejecutar(OPERACIONES, i -> () -> {
+            inventarioService.retirarCantidad(productoCaliente, 1, PRECIO, null);
+            return null;
+        });
+        double repartido = ejecutar(OPERACIONES, i -> () -> {
+            inventarioService.retirarCantidad(baseRepartidos + (i % HILOS), 1, PRECIO, null);
+            return null;
+        });
+
+        long productoAgrupado = 930_000L;
+        inventarioService.agregarCantidad(productoAgrupado, OPERACIONES, PRECIO, null);
+        double agrupado = ejecutar(OPERACIONES, i -> () -> {
+            colasMovimientos.registrar(productoAgrupado, TipoMovimientoEmun.SALIDA, 1, PRECIO, null);
+            return null;
+        });
+
+        System.out.printf("%n[benchmark] SALIDA hilos=%d operaciones=%d%n", HILOS, OPERACIONES);
+        System.out.printf("[benchmark]   SKU caliente   : %8.1f ops/s%n", caliente);
+        System.out.printf("[benchmark]   SKUs repartidos: %8.1f ops/s (%d productos)%n", repartido, HILOS);
+        System.out.printf("[benchmark]   SKU agrupado   : %8.1f ops/s%n", agrupado);
+
+        assertEquals(0, saldoRepository.findById(productoCaliente).orElseThrow().getSaldo());
+        assertEquals(0, saldoRepository.findById(productoAgrupado).orElseThrow().getSaldo());
+    }
+
+    /**
+     * Ejecuta {@code total} tareas sobre un pool de {@link #HILOS} hilos y devuelve el throughput en ops/s.
+     */
+    private double ejecutar(int total, IntFunction<Callable<Void>> tarea) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        try {
+            List<Callable<Void>> tareas = new ArrayList<>(total);
+            for (int i = 0; i < total; i++) {
+                tareas.add(tarea.apply(i));
+            }
+            long inicio = System.nanoTime();
+            for (Future<Void> f : pool.invokeAll(tareas)) {
+                f.get();
+            }
+            long nanos = System.nanoTime() - inicio;
+            return total / (nanos / 1_000_000_000.0);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
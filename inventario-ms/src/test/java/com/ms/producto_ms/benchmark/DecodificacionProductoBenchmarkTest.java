@@ -0,0 +1,110 @@
+package com.ms.producto_ms.benchmark;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ms.producto_ms.dto.response.ApiResponse;
+import com.ms.producto_ms.dto.response.ProductoResumenDto;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Microbenchmark de asignación de memoria al decodificar la respuesta de productos-ms.
+ * <p>
+ * Compara, por llamada, los bytes asignados por el hilo con la decodificación anterior
+ * ({@code ApiResponse} genérico: {@code data} como {@code Map}, precio como {@code Double} y
+ * reconstrucción con {@code toString()}) contra la decodificación tipada a
+ * {@code ApiResponse<ProductoResumenDto>}, que salta la imagen y los campos desconocidos.
+ * <p>
+ * Se ejecuta con {@code mvn test -Pbenchmark} (no requiere Docker).
+ */
+@Tag("benchmark")
+class DecodificacionProductoBenchmarkTest {
+
+    private static final int CALENTAMIENTO = 20_000;
+    private static final int ITERACIONES = 50_000;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static byte[] json;
+    private static JavaType tipoProducto;
+
+    @BeforeAll
+    static void setUp() {
+        // Respuesta real de GET /api/productos/{id}: incluye descripción e imagen en base64
+        String imagen = "iVBORw0KGgo".repeat(3_000);
+        json = ("""
+                {"code":200,"message":"success","data":{"id":42,"nombre":"Camiseta verde",
+                "descripcion":"Camiseta de algodón talla M","imagenBase64":"%s",
+                "precio":12345678901234.567,"activo":true},"jsonapi":{"version":"1.0"}}
+                """).formatted(imagen).getBytes(StandardCharsets.UTF_8);
+        tipoProducto = MAPPER.getTypeFactory().constructParametricType(ApiResponse.class, ProductoResumenDto.class);
+    }
+
+    @Test
+    @DisplayName("la decodificación tipada conserva el precio exacto")
+    void decodificacionTipadaConservaPrecio() throws Exception {
+        assertEquals(new BigDecimal("12345678901234.567"), decodificarTipado().getPrecio());
+        assertNotEquals(new BigDecimal("12345678901234.567"), decodificarGenerico().getPrecio());
+    }
+
+    @Test
+    @DisplayName("asignación por llamada: ApiResponse genérico vs ApiResponse<ProductoResumenDto>")
+    void asignacionPorLlamada() throws Exception {
+        double generico = bytesPorLlamada(DecodificacionProductoBenchmarkTest::decodificarGenerico);
+        double tipado = bytesPorLlamada(DecodificacionProductoBenchmarkTest::decodificarTipado);
+
+        System.out.printf("%n[benchmark] decodificación producto (%d bytes de JSON)%n", json.length);
+        System.out.printf("[benchmark]   genérico (Map + toString): %10.0f bytes/llamada%n", generico);
+        System.out.printf("[benchmark]   tipado (DTO directo)     : %10.0f bytes/llamada%n", tipado);
+
+        assertTrue(tipado < generico, "la decodificación tipada debe asignar menos memoria");
+    }
+
+    /** Decodificación anterior de InventarioService.obtenerProducto. */
+    @SuppressWarnings("unchecked")
+    private static ProductoResumenDto decodificarGenerico() throws Exception {
+        ApiResponse<Object> api = MAPPER.readValue(json, ApiResponse.class);
+        Map<?, ?> map = (Map<?, ?>) api.getData();
+        Object idObj = map.get("id");
+        Object nombreObj = map.get("nombre");
+        Object precioObj = map.get("precio");
+        return ProductoResumenDto.builder()
+                .id(idObj != null ? Long.valueOf(idObj.toString()) : null)
+                .nombre(nombreObj != null ? nombreObj.toString() : null)
+                .precio(precioObj != null ? new BigDecimal(precioObj.toString()) : null)
+                .build();
+    }
+
+    private static ProductoResumenDto decodificarTipado() throws Exception {
+        ApiResponse<ProductoResumenDto> api = MAPPER.readValue(json, tipoProducto);
+        return api.getData();
+    }
+
+    private static double bytesPorLlamada(Decodificador decodificador) throws Exception {
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long sumidero = 0;
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            sumidero += decodificador.decodificar().getId();
+        }
+        long antes = mx.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERACIONES; i++) {
+            sumidero += decodificador.decodificar().getId();
+        }
+        long despues = mx.getCurrentThreadAllocatedBytes();
+        assertTrue(sumidero > 0);
+        return (despues - antes) / (double) ITERACIONES;
+    }
+
+    @FunctionalInterface
+    private interface Decodificador {
+        ProductoResumenDto decodificar() throws Exception;
+    }
+}
@@ -1,10 +1,23 @@
 package com.ms.producto_ms.controller;
 
 import com.ms.producto_ms.dto.request.MovimientoInventarioRequest;
+import com.ms.producto_ms.dto.request.MovimientoLoteRequest;
+import com.ms.producto_ms.dto.request.SaldosConsultaRequest;
 import com.ms.producto_ms.dto.response.ApiResponse;
 import com.ms.producto_ms.dto.response.InventarioDetalleResponse;
+import com.ms.producto_ms.dto.response.MovimientoLoteResponse;
+import com.ms.producto_ms.dto.response.MovimientosPaginaResponse;
+import com.ms.producto_ms.dto.response.ResumenDiarioResponse;
+import com.ms.producto_ms.dto.response.SaldoCambiadoDto;
+import com.ms.producto_ms.dto.response.SaldoProductoDto;
+import com.ms.producto_ms.dto.response.ValoracionResponse;
+import com.ms.producto_ms.enmun.ModoLoteEmun;
+import com.ms.producto_ms.enmun.OrdenEmun;
+import com.ms.producto_ms.enmun.TipoMovimientoEmun;
 import com.ms.producto_ms.exception.CustomException;
 import com.ms.producto_ms.service.InventarioInterface;
+import com.ms.producto_ms.util.concurrencia.ColasMovimientos;
+import com.ms.producto_ms.util.eventos.InventarioStreamHub;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,9 +26,15 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,6 +45,12 @@ class InventarioControllerTest {
     @Mock
     private InventarioInterface inventarioInterface;
 
+    @Mock
+    private InventarioStreamHub streamHub;
+
+    @Mock
+    private ColasMovimientos colasMovimientos;
+
     @InjectMocks
     private InventarioController inventarioController;
 
@@ -42,11 +67,11 @@ class InventarioControllerTest {
                 .precioUnitario(new BigDecimal("15000"))
                 .build();
 
-        when(inventarioInterface.consultarDetalleInventario(productoId))
+        when(inventarioInterface.consultarDetalleInventario(productoId, false))
                 .thenReturn(detalle);
 
         // Act
-        ResponseEntity<ApiResponse> response = inventarioController.getDetalle(productoId);
+        ResponseEntity<ApiResponse> response = inventarioController.getDetalle(productoId, false);
 
         // Assert
         assertNotNull(response);
@@ -65,7 +90,7 @@ class InventarioControllerTest {
         assertEquals("Camiseta verde", data.getNombreProducto());
         assertEquals(10, data.getCantidadDisponible());
 
-        verify(inventarioInterface, times(1)).consultarDetalleInventario(productoId);
+        verify(inventarioInterface, times(1)).consultarDetalleInventario(productoId, false);
     }
 
     @Test
@@ -73,17 +98,70 @@ class InventarioControllerTest {
     void getDetalleThrowsCustomException() throws CustomException {
         // Arrange
         Long productoId = 99L;
-        when(inventarioInterface.consultarDetalleInventario(productoId))
+        when(inventarioInterface.consultarDetalleInventario(productoId, false))
                 .thenThrow(new CustomException("Error consultando detalle"));
 
         // Act & Assert
         CustomException ex = assertThrows(
                 CustomException.class,
-                () -> inventarioController.getDetalle(productoId)
+                () -> inventarioController.getDetalle(productoId, false)
         );
 
         assertTrue(ex.getMessage().contains("Error consultando detalle"));
-        verify(inventarioInterface, times(1)).consultarDetalleInventario(productoId);
+        verify(inventarioInterface, times(1)).consultarDetalleInventario(productoId, false);
+    }
+
+    @Test
+    @DisplayName("getMovimientos - delega filtros y cursor al servicio y devuelve la página")
+    void getMovimientosSuccess() throws CustomException {
+        LocalDateTime desde = LocalDateTime.of(2024, 1, 1, 0, 0);
+        MovimientosPaginaResponse pagina = MovimientosPaginaResponse.builder()
+                .productoId(1L)
+                .movimientos(List.of())
+                .hayMas(false)
+                .build();
+        when(inventarioInterface.consultarMovimientos(1L, desde, null, "SALIDA", OrdenEmun.ASC, "abc", 20))
+                .thenReturn(pagina);
+
+        ResponseEntity<ApiResponse> response = inventarioController.getMovimientos(1L, desde, null, "SALIDA",
+                OrdenEmun.ASC, "abc", 20);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Movimientos consultados correctamente.", response.getBody().getMessage());
+        assertSame(pagina, response.getBody().getData());
+    }
+
+    @Test
+    @DisplayName("getResumenDiario - delega el rango al servicio y devuelve el resumen")
+    void getResumenDiarioSuccess() throws CustomException {
+        LocalDate desde = LocalDate.of(2024, 1, 1);
+        LocalDate hasta = LocalDate.of(2024, 12, 31);
+        ResumenDiarioResponse resumen = ResumenDiarioResponse.builder()
+                .productoId(1L)
+                .desde(desde)
+                .hasta(hasta)
+                .dias(List.of())
+                .build();
+        when(inventarioInterface.consultarResumenDiario(1L, desde, hasta)).thenReturn(resumen);
+
+        ResponseEntity<ApiResponse> response = inventarioController.getResumenDiario(1L, desde, hasta);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Resumen diario consultado correctamente.", response.getBody().getMessage());
+        assertSame(resumen, response.getBody().getData());
+    }
+
+    @Test
+    @DisplayName("getValoracion - devuelve la valoración del producto")
+    void getValoracionSuccess() throws CustomException {
+        ValoracionResponse valoracion = ValoracionResponse.builder().productoId(1L).cantidad(15L).build();
+        when(inventarioInterface.consultarValoracion(1L)).thenReturn(valoracion);
+
+        ResponseEntity<ApiResponse> response = inventarioController.getValoracion(1L);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Valoración consultada correctamente.", response.getBody().getMessage());
+        assertSame(valoracion, response.getBody().getData());
     }
 
     @Test
@@ -96,11 +174,12 @@ class InventarioControllerTest {
                 .precioUnitario(new BigDecimal("10000"))
                 .build();
 
-        when(inventarioInterface.agregarCantidad(productoId, request.getCantidad(), request.getPrecioUnitario()))
+        when(colasMovimientos.registrar(productoId, TipoMovimientoEmun.INGRESO, request.getCantidad(),
+                request.getPrecioUnitario(), null))
                 .thenReturn(15); // nueva cantidad
 
         // Act
-        ResponseEntity<ApiResponse> response = inventarioController.ingresar(productoId, request);
+        ResponseEntity<ApiResponse> response = inventarioController.ingresar(productoId, request, null);
 
         // Assert
         assertNotNull(response);
@@ -118,8 +197,8 @@ class InventarioControllerTest {
         assertEquals(productoId, data.get("productoId"));
         assertEquals(15, data.get("cantidadNueva"));
 
-        verify(inventarioInterface, times(1))
-                .agregarCantidad(productoId, request.getCantidad(), request.getPrecioUnitario());
+        verify(colasMovimientos, times(1))
+                .registrar(productoId, TipoMovimientoEmun.INGRESO, request.getCantidad(), request.getPrecioUnitario(), null);
     }
 
     @Test
@@ -132,11 +211,12 @@ class InventarioControllerTest {
                 .precioUnitario(new BigDecimal("10000"))
                 .build();
 
-        when(inventarioInterface.retirarCantidad(productoId, request.getCantidad(), request.getPrecioUnitario()))
+        when(colasMovimientos.registrar(productoId, TipoMovimientoEmun.SALIDA, request.getCantidad(),
+                request.getPrecioUnitario(), "compra-123"))
                 .thenReturn(7); // nueva cantidad
 
         // Act
-        ResponseEntity<ApiResponse> response = inventarioController.retirar(productoId, request);
+        ResponseEntity<ApiResponse> response = inventarioController.retirar(productoId, request, "compra-123");
 
         // Assert
         assertNotNull(response);
@@ -154,7 +234,99 @@ class InventarioControllerTest {
         assertEquals(productoId, data.get("productoId"));
         assertEquals(7, data.get("cantidadNueva"));
 
-        verify(inventarioInterface, times(1))
-                .retirarCantidad(productoId, request.getCantidad(), request.getPrecioUnitario());
+        verify(colasMovimientos, times(1))
+                .registrar(productoId, TipoMovimientoEmun.SALIDA, request.getCantidad(), request.getPrecioUnitario(),
+                        "compra-123");
+    }
+
+    @Test
+    @DisplayName("registrarLote - lote ATOMICO con rechazos responde 409")
+    void registrarLoteAtomicoRechazado() throws CustomException {
+        MovimientoLoteRequest request = MovimientoLoteRequest.builder().movimientos(List.of()).build();
+        MovimientoLoteResponse resultado = MovimientoLoteResponse.builder()
+                .modo(ModoLoteEmun.ATOMICO).total(2).aplicados(0).rechazados(1).resultados(List.of())
+                .build();
+        when(inventarioInterface.registrarLote(request)).thenReturn(resultado);
+
+        ResponseEntity<ApiResponse> response = inventarioController.registrarLote(request);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals(HttpStatus.CONFLICT.value(), response.getBody().getCode());
+        assertSame(resultado, response.getBody().getData());
+    }
+
+    @Test
+    @DisplayName("registrarLote - lote PARCIAL responde 200 aunque tenga rechazos")
+    void registrarLoteParcial() throws CustomException {
+        MovimientoLoteRequest request = MovimientoLoteRequest.builder()
+                .modo(ModoLoteEmun.PARCIAL).movimientos(List.of()).build();
+        MovimientoLoteResponse resultado = MovimientoLoteResponse.builder()
+                .modo(ModoLoteEmun.PARCIAL).total(2).aplicados(1).rechazados(1).resultados(List.of())
+                .build();
+        when(inventarioInterface.registrarLote(request)).thenReturn(resultado);
+
+        ResponseEntity<ApiResponse> response = inventarioController.registrarLote(request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Lote registrado correctamente.", response.getBody().getMessage());
+    }
+
+    @Test
+    @DisplayName("getSaldos - devuelve el mapa de saldos por producto")
+    void getSaldosSuccess() throws CustomException {
+        Map<Long, SaldoProductoDto> saldos = Map.of(1L, SaldoProductoDto.builder().cantidadDisponible(10).build());
+        when(inventarioInterface.consultarSaldos(List.of(1L, 2L), false)).thenReturn(saldos);
+
+        ResponseEntity<ApiResponse> response = inventarioController.getSaldos(List.of(1L, 2L), false);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Saldos de inventario consultados correctamente.", response.getBody().getMessage());
+        assertSame(saldos, response.getBody().getData());
+    }
+
+    @Test
+    @DisplayName("postSaldos - delega con los IDs del cuerpo")
+    void postSaldosSuccess() throws CustomException {
+        SaldosConsultaRequest request = SaldosConsultaRequest.builder()
+                .productoIds(List.of(5L)).incluirNombres(true).build();
+        when(inventarioInterface.consultarSaldos(List.of(5L), true)).thenReturn(Map.of());
+
+        ResponseEntity<ApiResponse> response = inventarioController.postSaldos(request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(inventarioInterface).consultarSaldos(List.of(5L), true);
+    }
+
+    @Test
+    @DisplayName("stream - suscribe con el saldo actual de los productos filtrados")
+    void streamConFiltro() throws CustomException {
+        SseEmitter emitter = new SseEmitter();
+        when(inventarioInterface.consultarSaldos(Set.of(1L), false))
+                .thenReturn(Map.of(1L, SaldoProductoDto.builder().cantidadDisponible(4).build()));
+        when(streamHub.suscribir(eq(Set.of(1L)), any())).thenAnswer(invocacion -> {
+            // El saldo inicial se lee dentro de la suscripción, no antes
+            verifyNoInteractions(inventarioInterface);
+            Collection<SaldoCambiadoDto> inicial =
+                    invocacion.<InventarioStreamHub.SaldosIniciales>getArgument(1).leer();
+            assertEquals(1, inicial.size());
+            assertEquals(4, inicial.iterator().next().getCantidadDisponible());
+            return emitter;
+        });
+
+        assertSame(emitter, inventarioController.stream(List.of(1L)));
+        verify(inventarioInterface).consultarSaldos(Set.of(1L), false);
+    }
+
+    @Test
+    @DisplayName("stream - sin filtro sigue todos los productos sin consultar saldos")
+    void streamSinFiltro() throws CustomException {
+        SseEmitter emitter = new SseEmitter();
+        when(streamHub.suscribir(eq(Set.of()), any())).thenAnswer(invocacion -> {
+            assertTrue(invocacion.<InventarioStreamHub.SaldosIniciales>getArgument(1).leer().isEmpty());
+            return emitter;
+        });
+
+        assertSame(emitter, inventarioController.stream(null));
+        verifyNoInteractions(inventarioInterface);
     }
 }
@@ -0,0 +1,164 @@
+package com.ms.producto_ms.repository;
+
+import com.ms.producto_ms.PostgresContainerConfig;
+import com.ms.producto_ms.entity.InventarioEntity;
+import com.ms.producto_ms.enmun.TipoMovimientoEmun;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifica sobre un Postgres real el corte con margen de los checkpoints y que la reconstrucción
+ * de saldos desde el último corte coincide con la que recorre el libro completo.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PostgresContainerConfig.class, InventarioJdbcRepository.class})
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventarioCheckpointRepositoryTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2024, 3, 1, 8, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InventarioJdbcRepository inventarioJdbcRepository;
+
+    @Autowired
+    private InventarioCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private InventarioSaldoRepository saldoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaccion;
+
+    @BeforeEach
+    void limpiar() {
+        transaccion = new TransactionTemplate(transactionManager);
+        jdbcTemplate.execute("TRUNCATE inventarios, inventario_saldos, inventario_checkpoints");
+    }
+
+    @Test
+    @DisplayName("calcularCorte - excluye los movimientos registrados dentro del margen")
+    void calcularCorteRespetaMargen() {
+        inventarioJdbcRepository.insertarMovimientos(List.of(
+                movimiento(1L, "INGRESO", 5, "100.00", INICIO),
+                movimiento(1L, "INGRESO", 3, "100.00", INICIO.plusMinutes(1)),
+                movimiento(1L, "SALIDA", 2, "100.00", INICIO.plusMinutes(10))));
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM inventarios ORDER BY id", Long.class);
+
+        assertEquals(ids.get(1), checkpointRepository.calcularCorte(INICIO.plusMinutes(5)));
+        assertEquals(0L, checkpointRepository.calcularCorte(INICIO));
+    }
+
+    @Test
+    @DisplayName("avanzarCheckpoint - reprocesar un producto tras una caída no vuelve a sumar")
+    void avanzarCheckpointEsIdempotente() {
+        inventarioJdbcRepository.insertarMovimientos(List.of(
+                movimiento(1L, "INGRESO", 5, "100.00", INICIO),
+                movimiento(1L, "SALIDA", 2, "100.00", INICIO.plusMinutes(1))));
+        long corte = checkpointRepository.calcularCorte(INICIO.plusMinutes(5));
+
+        transaccion.executeWithoutResult(s -> checkpointRepository.avanzarCheckpoint(1L, corte));
+        transaccion.executeWithoutResult(s -> checkpointRepository.avanzarCheckpoint(1L, corte));
+
+        assertEquals(3, checkpointRepository.findById(1L).orElseThrow().getSaldo());
+    }
+
+    @Test
+    @DisplayName("reconstruirDesdeCheckpoints - coincide con la reconstrucción desde el libro completo")
+    void reconstruirDesdeCheckpointsCoincide() {
+        inventarioJdbcRepository.insertarMovimientos(List.of(
+                movimiento(1L, "INGRESO", 10, "100.00", INICIO),
+                movimiento(1L, "SALIDA", 4, "110.00", INICIO.plusMinutes(1)),
+                movimiento(2L, "INGRESO", 7, "50.00", INICIO.plusMinutes(2))));
+        long corte = checkpointRepository.calcularCorte(INICIO.plusMinutes(5));
+        transaccion.executeWithoutResult(s -> {
+            checkpointRepository.avanzarCheckpoint(1L, corte);
+            checkpointRepository.avanzarCheckpoint(2L, corte);
+        });
+
+        // Movimientos posteriores al corte, incluido un producto que aún no tiene checkpoint
+        inventarioJdbcRepository.insertarMovimientos(List.of(
+                movimiento(1L, "INGRESO", 2, "120.00", INICIO.plusMinutes(10)),
+                movimiento(3L, "INGRESO", 9, "30.00", INICIO.plusMinutes(11))));
+
+        transaccion.executeWithoutResult(s -> saldoRepository.reconstruirDesdeMovimientos());
+        List<Map<String, Object>> completo = saldos();
+
+        jdbcTemplate.execute("TRUNCATE inventario_saldos");
+        int productos = transaccion.execute(s -> saldoRepository.reconstruirDesdeCheckpoints());
+
+        assertEquals(3, productos);
+        assertEquals(completo, saldos());
+        assertEquals(8, jdbcTemplate.queryForObject(
+                "SELECT saldo FROM inventario_saldos WHERE producto_id = 1", Integer.class));
+    }
+
+    @Test
+    @DisplayName("checkpoints y reconstrucción - los productos salen del libro aunque falte su fila en la proyección")
+    void productosSinFilaEnLaProyeccion() {
+        inventarioJdbcRepository.insertarMovimientos(List.of(
+                movimiento(5L, "INGRESO", 10, "100.00", INICIO),
+                movimiento(2L, "INGRESO", 4, "50.00", INICIO.plusMinutes(1)),
+                movimiento(9L, "INGRESO", 6, "70.00", INICIO.plusMinutes(2)),
+                movimiento(5L, "SALIDA", 3, "100.00", INICIO.plusMinutes(3))));
+        // inventario_saldos vacía: la proyección perdió las filas
+
+        assertEquals(List.of(2L, 5L), checkpointRepository.siguienteLoteProductos(0L, 2));
+        assertEquals(List.of(9L), checkpointRepository.siguienteLoteProductos(5L, 2));
+        assertEquals(List.of(), checkpointRepository.siguienteLoteProductos(9L, 2));
+
+        long corte = checkpointRepository.calcularCorte(INICIO.plusMinutes(5));
+        transaccion.executeWithoutResult(s -> List.of(2L, 5L, 9L)
+                .forEach(id -> checkpointRepository.avanzarCheckpoint(id, corte)));
+        int productos = transaccion.execute(s -> saldoRepository.reconstruirDesdeCheckpoints());
+
+        assertEquals(3, productos);
+        assertEquals(List.of(4, 7, 6), jdbcTemplate.queryForList(
+                "SELECT saldo FROM inventario_saldos ORDER BY producto_id", Integer.class));
+    }
+
+    private List<Map<String, Object>> saldos() {
+        return jdbcTemplate.queryForList("""
+                SELECT producto_id, saldo, ultimo_precio_unitario, fecha_ultimo_movimiento
+                  FROM inventario_saldos
+                 ORDER BY producto_id
+                """);
+    }
+
+    private static InventarioEntity movimiento(Long productoId, String tipo, int cantidad, String precioUnitario,
+                                               LocalDateTime fecha) {
+        BigDecimal precio = new BigDecimal(precioUnitario);
+        return InventarioEntity.builder()
+                .productoId(productoId)
+                .cantidad(cantidad)
+                .tipoMovimiento(TipoMovimientoEmun.valueOf(tipo))
+                .precioUnitario(precio)
+                .precioTotal(precio.multiply(BigDecimal.valueOf(cantidad)))
+                .fechaMovimiento(fecha)
+                .build();
+    }
+}
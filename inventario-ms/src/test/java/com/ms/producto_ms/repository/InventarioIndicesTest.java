@@ -0,0 +1,126 @@
+package com.ms.producto_ms.repository;
+
+import com.ms.producto_ms.PostgresContainerConfig;
+import com.ms.producto_ms.enmun.OrdenEmun;
+import com.ms.producto_ms.enmun.TipoMovimientoEmun;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.reflect.Method;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica, mediante EXPLAIN sobre un Postgres real, que las consultas de los
+ * repositorios usan los índices creados por las migraciones de Flyway.
+ * <p>
+ * El SQL se toma directamente de las anotaciones {@link Query} de los repositorios,
+ * así que cualquier cambio en las consultas queda cubierto por esta prueba. Los movimientos de
+ * 2024 caen en la partición "inventarios_legado", cuyos índices son los de V4 adjuntos a la tabla
+ * particionada (V11); la poda de particiones se verifica en {@link InventarioParticionesTest}.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(PostgresContainerConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class InventarioIndicesTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void poblarLibro() {
+        // 200 productos x 500 movimientos: suficiente para que el planner prefiera los índices
+        jdbcTemplate.execute("""
+                INSERT INTO inventarios (producto_id, cantidad, tipo, delta, precio_unitario, precio_total, fecha_movimiento)
+                SELECT (g % 200) + 1,
+                       1,
+                       CASE WHEN g % 3 = 0 THEN 2 ELSE 1 END,
+                       CASE WHEN g % 3 = 0 THEN -1 ELSE 1 END,
+                       1000,
+                       1000,
+                       TIMESTAMP '2024-01-01' + (g || ' minutes')::interval
+                FROM generate_series(1, 100000) g
+                """);
+        jdbcTemplate.execute("VACUUM ANALYZE inventarios");
+    }
+
+    @Test
+    @DisplayName("siguienteLoteProductos salta de producto en producto por índice sin recorrer el libro")
+    void siguienteLoteProductosSaltaPorIndice() throws Exception {
+        String plan = explain(sqlDe(InventarioCheckpointRepository.class, "siguienteLoteProductos", long.class, int.class)
+                .replace(":desdeProductoId", "40")
+                .replace(":tamanoLote", "10"));
+
+        assertTrue(plan.contains("Index Only Scan"), plan);
+        assertFalse(plan.contains("Seq Scan on inventarios_legado"), plan);
+    }
+
+    @Test
+    @DisplayName("avanzarCheckpoint usa idx_inventarios_producto_id")
+    void avanzarCheckpointUsaIndice() throws Exception {
+        String plan = explain(sqlDe(InventarioCheckpointRepository.class, "avanzarCheckpoint", Long.class, long.class)
+                .replace(":productoId", "42")
+                .replace(":corte", "90000"));
+
+        assertTrue(plan.contains("idx_inventarios_legado_producto_id"), plan);
+        assertFalse(plan.contains("Seq Scan on inventarios_legado"), plan);
+    }
+
+    @Test
+    @DisplayName("calcularCorte recorre la llave primaria hacia atrás")
+    void calcularCorteUsaLlavePrimaria() throws Exception {
+        String plan = explain(sqlDe(InventarioCheckpointRepository.class, "calcularCorte", LocalDateTime.class)
+                .replace(":limite", "TIMESTAMP '2024-03-01'"));
+
+        assertTrue(plan.contains("Index Scan Backward using inventarios_legado_pkey"), plan);
+    }
+
+    @Test
+    @DisplayName("consultarMovimientos pagina por llave sobre idx_inventarios_producto_fecha sin ordenar")
+    void movimientosPaginaPorLlave() {
+        Timestamp cursor = Timestamp.valueOf("2024-02-01 00:00:00");
+        String ascendente = explain(InventarioJdbcRepository.sqlMovimientos(false, true, false, true, OrdenEmun.ASC),
+                42L, Timestamp.valueOf("2024-03-01 00:00:00"), cursor, cursor, 90_000L, 50);
+        String descendente = explain(InventarioJdbcRepository.sqlMovimientos(true, true, true, true, OrdenEmun.DESC),
+                42L, Timestamp.valueOf("2024-01-01 00:00:00"), Timestamp.valueOf("2024-03-01 00:00:00"),
+                TipoMovimientoEmun.SALIDA.getCodigo(), cursor, cursor, 90_000L, 50);
+
+        assertTrue(ascendente.contains("Index Scan using idx_inventarios_legado_producto_fecha"), ascendente);
+        assertTrue(descendente.contains("Index Scan Backward using idx_inventarios_legado_producto_fecha"), descendente);
+        assertFalse(ascendente.contains("Sort"), ascendente);
+        assertFalse(descendente.contains("Sort"), descendente);
+    }
+
+    private String explain(String sql, Object... parametros) {
+        List<String> lineas = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parametros);
+        return String.join("\n", lineas);
+    }
+
+    private static String sqlDe(Class<?> repositorio, String metodo, Class<?>... parametros) throws Exception {
+        Method m = repositorio.getMethod(metodo, parametros);
+        Query query = m.getAnnotation(Query.class);
+        if (query == null) {
+            throw new IllegalStateException("Sin @Query: " + metodo + Arrays.toString(parametros));
+        }
+        return query.value();
+    }
+}
@@ -0,0 +1,116 @@
+package com.ms.producto_ms.repository;
+
+import com.ms.producto_ms.PostgresContainerConfig;
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.util.eventos.EventoOutbox;
+import com.ms.producto_ms.util.eventos.InventarioCambiadoEvent;
+import com.ms.producto_ms.util.eventos.InventarioOutboxHandler;
+import com.ms.producto_ms.util.tareas.OutboxRelay;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifica sobre un Postgres real que un evento confirmado en la outbox se entrega aunque el
+ * proceso caiga antes de relevarlo o a mitad de la entrega.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PostgresContainerConfig.class, InventarioOutboxRepository.class})
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventarioOutboxRepositoryTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InventarioOutboxRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaccion;
+
+    @BeforeEach
+    void limpiar() {
+        transaccion = new TransactionTemplate(transactionManager);
+        jdbcTemplate.execute("TRUNCATE inventario_outbox");
+    }
+
+    @Test
+    @DisplayName("relay - un evento escrito antes de una caída se entrega al reiniciar")
+    void eventoEscritoAntesDeLaCaidaSeEntrega() {
+        // El movimiento confirmó su evento y el proceso cayó antes de relevarlo
+        transaccion.executeWithoutResult(s -> outboxRepository.registrar(List.of(evento(1L, 5))));
+
+        List<EventoOutbox> recibidos = new CopyOnWriteArrayList<>();
+        relay(recibidos::addAll).relevar();
+
+        assertEquals(1, recibidos.size());
+        assertEquals(1L, recibidos.get(0).getEvento().getProductoId());
+        assertEquals(5, recibidos.get(0).getEvento().getCantidadNueva());
+        assertEquals(0, pendientes());
+    }
+
+    @Test
+    @DisplayName("relay - si la entrega falla a mitad del lote el evento queda pendiente y se reintenta")
+    void entregaFallidaSeReintenta() {
+        transaccion.executeWithoutResult(s -> outboxRepository.registrar(List.of(evento(1L, 5), evento(2L, 3))));
+
+        AtomicBoolean fallar = new AtomicBoolean(true);
+        List<EventoOutbox> recibidos = new CopyOnWriteArrayList<>();
+        OutboxRelay relay = relay(eventos -> {
+            if (fallar.getAndSet(false)) {
+                throw new IllegalStateException("caída del destino");
+            }
+            recibidos.addAll(eventos);
+        });
+
+        relay.relevar();
+        assertEquals(2, pendientes());
+
+        relay.relevar();
+        assertEquals(List.of(1L, 2L), recibidos.stream().map(e -> e.getEvento().getProductoId()).toList());
+        assertEquals(0, pendientes());
+    }
+
+    private OutboxRelay relay(InventarioOutboxHandler handler) {
+        return new OutboxRelay(outboxRepository, List.of(handler), transaccion, new AppProperties(),
+                new SimpleMeterRegistry());
+    }
+
+    private int pendientes() {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM inventario_outbox WHERE fecha_envio IS NULL", Integer.class);
+    }
+
+    private static InventarioCambiadoEvent evento(Long productoId, int cantidadNueva) {
+        return InventarioCambiadoEvent.builder()
+                .productoId(productoId)
+                .tipoMovimiento("INGRESO")
+                .cantidadAnterior(0)
+                .cantidadMovimiento(cantidadNueva)
+                .cantidadNueva(cantidadNueva)
+                .precioUnitario(new BigDecimal("1000"))
+                .build();
+    }
+}
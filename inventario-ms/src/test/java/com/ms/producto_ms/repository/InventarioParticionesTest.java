@@ -0,0 +1,144 @@
+package com.ms.producto_ms.repository;
+
+import com.ms.producto_ms.PostgresContainerConfig;
+import com.ms.producto_ms.enmun.OrdenEmun;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica sobre un Postgres real que las consultas del libro solo leen las particiones mensuales
+ * que cubren su rango de fechas, y que una partición se desprende sin perder la tabla.
+ * <p>
+ * Usa meses futuros para no cruzarse con las particiones que crea V11 ni con la legada.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PostgresContainerConfig.class, InventarioParticionRepository.class})
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class InventarioParticionesTest {
+
+    private static final YearMonth ANTERIOR = YearMonth.now().plusMonths(5);
+    private static final YearMonth MES = ANTERIOR.plusMonths(1);
+    private static final YearMonth SIGUIENTE = MES.plusMonths(1);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InventarioParticionRepository particionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    void crearParticiones() {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.executeWithoutResult(s -> {
+            for (YearMonth mes : List.of(ANTERIOR, MES, SIGUIENTE)) {
+                particionRepository.crearParticion(mes);
+                jdbcTemplate.update("""
+                        INSERT INTO inventarios (producto_id, cantidad, tipo, delta, precio_unitario, precio_total, fecha_movimiento)
+                        SELECT (g % 20) + 1, 1, 1, 1, 1000, 1000, ? + (g || ' minutes')::interval
+                        FROM generate_series(1, 5000) g
+                        """, fecha(mes, 1));
+            }
+        });
+        jdbcTemplate.execute("ANALYZE inventarios");
+    }
+
+    @Test
+    @DisplayName("listar - las particiones creadas quedan adjuntas con sus límites")
+    void listar() {
+        InventarioParticionRepository.Particion particion = particionRepository.listar().stream()
+                .filter(p -> p.nombre().equals(InventarioParticionRepository.nombre(MES)))
+                .findFirst()
+                .orElseThrow();
+
+        assertEquals(MES.atDay(1).atStartOfDay(), particion.desde());
+        assertEquals(SIGUIENTE.atDay(1).atStartOfDay(), particion.hasta());
+        assertFalse(particion.desprendimientoPendiente());
+    }
+
+    @Test
+    @DisplayName("consultarMovimientos con rango de fechas solo lee la partición del mes")
+    void movimientosPorRango() {
+        String plan = explain(InventarioJdbcRepository.sqlMovimientos(true, true, false, false, OrdenEmun.ASC),
+                7L, fecha(MES, 3), fecha(MES, 10), 50);
+
+        assertTrue(plan.contains(InventarioParticionRepository.nombre(MES)), plan);
+        assertFalse(plan.contains(InventarioParticionRepository.nombre(ANTERIOR)), plan);
+        assertFalse(plan.contains(InventarioParticionRepository.nombre(SIGUIENTE)), plan);
+        assertFalse(plan.contains("inventarios_legado"), plan);
+    }
+
+    @Test
+    @DisplayName("consultarMovimientos descendente con cursor descarta los meses posteriores")
+    void movimientosConCursor() {
+        Timestamp cursor = fecha(MES, 10);
+        String plan = explain(InventarioJdbcRepository.sqlMovimientos(false, false, false, true, OrdenEmun.DESC),
+                7L, cursor, cursor, Long.MAX_VALUE, 50);
+
+        assertTrue(plan.contains(InventarioParticionRepository.nombre(MES)), plan);
+        assertFalse(plan.contains(InventarioParticionRepository.nombre(SIGUIENTE)), plan);
+    }
+
+    @Test
+    @DisplayName("calcularCorte no recorre los meses posteriores al límite")
+    void calcularCorte() throws Exception {
+        String sql = InventarioCheckpointRepository.class
+                .getMethod("calcularCorte", LocalDateTime.class)
+                .getAnnotation(Query.class)
+                .value()
+                .replace(":limite", "?");
+        String plan = explain(sql, fecha(MES, 10));
+
+        assertFalse(plan.contains(InventarioParticionRepository.nombre(SIGUIENTE)), plan);
+    }
+
+    @Test
+    @DisplayName("desprender - la partición sale del libro y la tabla queda para archivar")
+    void desprender() {
+        YearMonth mes = SIGUIENTE.plusMonths(1);
+        String nombre = InventarioParticionRepository.nombre(mes);
+        new TransactionTemplate(transactionManager).executeWithoutResult(s -> particionRepository.crearParticion(mes));
+
+        particionRepository.desprender(nombre, false);
+
+        assertTrue(particionRepository.listar().stream().noneMatch(p -> p.nombre().equals(nombre)));
+        assertNotNull(jdbcTemplate.queryForObject("SELECT to_regclass(?)::text", String.class, "public." + nombre));
+    }
+
+    private String explain(String sql, Object... parametros) {
+        List<String> lineas = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parametros);
+        return String.join("\n", lineas);
+    }
+
+    private static Timestamp fecha(YearMonth mes, int dia) {
+        return Timestamp.valueOf(mes.atDay(dia).atStartOfDay());
+    }
+}
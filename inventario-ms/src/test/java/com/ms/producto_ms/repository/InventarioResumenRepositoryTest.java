@@ -0,0 +1,110 @@
+package com.ms.producto_ms.repository;
+
+import com.ms.producto_ms.PostgresContainerConfig;
+import com.ms.producto_ms.dto.response.ResumenDiaDto;
+import com.ms.producto_ms.entity.InventarioEntity;
+import com.ms.producto_ms.enmun.TipoMovimientoEmun;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifica sobre un Postgres real que el resumen acumulado movimiento a movimiento coincide con
+ * el que recalcula la reconstrucción desde el libro.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PostgresContainerConfig.class, InventarioJdbcRepository.class, InventarioResumenRepository.class})
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventarioResumenRepositoryTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InventarioJdbcRepository inventarioJdbcRepository;
+
+    @Autowired
+    private InventarioResumenRepository resumenRepository;
+
+    @BeforeEach
+    void limpiar() {
+        jdbcTemplate.execute("TRUNCATE inventarios, inventario_resumen_diario");
+    }
+
+    @Test
+    @DisplayName("acumular y reconstruir producen las mismas filas por producto y día")
+    void acumularCoincideConReconstruir() {
+        List<InventarioEntity> movimientos = List.of(
+                movimiento(1L, "INGRESO", 10, "1500.00", LocalDateTime.of(2024, 3, 1, 8, 0)),
+                movimiento(1L, "SALIDA", 4, "1600.00", LocalDateTime.of(2024, 3, 1, 23, 59)),
+                movimiento(1L, "INGRESO", 2, "1550.50", LocalDateTime.of(2024, 3, 2, 0, 0)),
+                movimiento(2L, "SALIDA", 1, "99.99", LocalDateTime.of(2024, 3, 1, 12, 0)));
+        inventarioJdbcRepository.insertarMovimientos(movimientos);
+
+        // En dos entregas, como dos transacciones del mismo día
+        resumenRepository.acumular(movimientos.subList(0, 1));
+        resumenRepository.acumular(movimientos.subList(1, movimientos.size()));
+        List<ResumenDiaDto> acumulado = resumenRepository.consultar(1L, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31));
+
+        jdbcTemplate.execute("TRUNCATE inventario_resumen_diario");
+        assertEquals(3, resumenRepository.reconstruir(List.of(1L, 2L)));
+        List<ResumenDiaDto> reconstruido = resumenRepository.consultar(1L, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31));
+
+        assertEquals(acumulado, reconstruido);
+        assertEquals(2, reconstruido.size());
+        ResumenDiaDto primerDia = reconstruido.get(0);
+        assertEquals(LocalDate.of(2024, 3, 1), primerDia.getDia());
+        assertEquals(10L, primerDia.getCantidadIngresos());
+        assertEquals(new BigDecimal("15000.00"), primerDia.getValorIngresos());
+        assertEquals(4L, primerDia.getCantidadSalidas());
+        assertEquals(new BigDecimal("6400.00"), primerDia.getValorSalidas());
+        assertEquals(2L, primerDia.getMovimientos());
+    }
+
+    @Test
+    @DisplayName("reconstruir reemplaza las filas existentes en lugar de sumarlas")
+    void reconstruirEsIdempotente() {
+        List<InventarioEntity> movimientos = List.of(
+                movimiento(1L, "INGRESO", 5, "100.00", LocalDateTime.of(2024, 3, 1, 8, 0)));
+        inventarioJdbcRepository.insertarMovimientos(movimientos);
+        resumenRepository.acumular(movimientos);
+
+        resumenRepository.reconstruir(List.of(1L));
+        resumenRepository.reconstruir(List.of(1L));
+
+        List<ResumenDiaDto> dias = resumenRepository.consultar(1L, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 1));
+        assertEquals(1, dias.size());
+        assertEquals(5L, dias.get(0).getCantidadIngresos());
+        assertEquals(1L, dias.get(0).getMovimientos());
+    }
+
+    private static InventarioEntity movimiento(Long productoId, String tipo, int cantidad, String precioUnitario,
+                                               LocalDateTime fecha) {
+        BigDecimal precio = new BigDecimal(precioUnitario);
+        return InventarioEntity.builder()
+                .productoId(productoId)
+                .cantidad(cantidad)
+                .tipoMovimiento(TipoMovimientoEmun.valueOf(tipo))
+                .precioUnitario(precio)
+                .precioTotal(precio.multiply(BigDecimal.valueOf(cantidad)))
+                .fechaMovimiento(fecha)
+                .build();
+    }
+}
@@ -1,27 +1,70 @@
 package com.ms.producto_ms.service.impl;
 
 import com.ms.producto_ms.client.ProductosClient;
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.dto.request.MovimientoLoteItemRequest;
+import com.ms.producto_ms.dto.request.MovimientoLoteRequest;
+import com.ms.producto_ms.dto.request.ProductosLoteRequest;
 import com.ms.producto_ms.dto.response.ApiResponse;
 import com.ms.producto_ms.dto.response.InventarioDetalleResponse;
+import com.ms.producto_ms.dto.response.MovimientoLoteResponse;
+import com.ms.producto_ms.dto.response.MovimientoLoteResultadoDto;
+import com.ms.producto_ms.dto.response.ProductoResumenDto;
+import com.ms.producto_ms.dto.response.SaldoProductoDto;
+import com.ms.producto_ms.dto.response.ValoracionResponse;
+import com.ms.producto_ms.dto.response.MovimientosPaginaResponse;
+import com.ms.producto_ms.dto.response.ResumenDiaDto;
+import com.ms.producto_ms.dto.response.ResumenDiarioResponse;
+import com.ms.producto_ms.enmun.ModoLoteEmun;
+import com.ms.producto_ms.enmun.OrdenEmun;
+import com.ms.producto_ms.enmun.TipoMovimientoEmun;
 import com.ms.producto_ms.entity.InventarioEntity;
+import com.ms.producto_ms.entity.InventarioSaldoEntity;
 import com.ms.producto_ms.exception.CustomException;
+import com.ms.producto_ms.repository.InventarioIdempotenciaRepository;
+import com.ms.producto_ms.repository.InventarioJdbcRepository;
+import com.ms.producto_ms.repository.InventarioOutboxRepository;
 import com.ms.producto_ms.repository.InventarioRepository;
+import com.ms.producto_ms.repository.InventarioResumenRepository;
+import com.ms.producto_ms.repository.InventarioSaldoRepository;
+import com.ms.producto_ms.repository.InventarioValoracionRepository;
+import com.ms.producto_ms.util.FabricaHilos;
+import com.ms.producto_ms.util.cache.ProductosCache;
+import com.ms.producto_ms.util.cache.SaldosIndice;
+import com.ms.producto_ms.util.concurrencia.EjecutorConsultas;
+import com.ms.producto_ms.util.concurrencia.MovimientoAgrupado;
+import com.ms.producto_ms.util.concurrencia.ResultadoAgrupado;
 import com.ms.producto_ms.util.eventos.InventarioCambiadoEvent;
+import com.ms.producto_ms.util.idempotencia.RegistroIdempotencia;
+import com.ms.producto_ms.util.paginacion.CursorMovimiento;
+import com.ms.producto_ms.util.resiliencia.ProductosCircuito;
+import com.ms.producto_ms.util.valoracion.MotorValoracion;
+import com.ms.producto_ms.util.valoracion.Valoracion;
 import feign.FeignException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -32,15 +75,55 @@ class InventarioServiceTest {
     @Mock
     private InventarioRepository inventarioRepository;
 
+    @Mock
+    private InventarioSaldoRepository saldoRepository;
+
+    @Mock
+    private InventarioJdbcRepository inventarioJdbcRepository;
+
+    @Mock
+    private InventarioOutboxRepository outboxRepository;
+
+    @Mock
+    private InventarioIdempotenciaRepository idempotenciaRepository;
+
+    @Mock
+    private InventarioResumenRepository resumenRepository;
+
+    @Mock
+    private MotorValoracion motorValoracion;
+
+    @Mock
+    private InventarioValoracionRepository valoracionRepository;
+
     @Mock
     private ProductosClient productosClient;
 
     @Mock
     private ApplicationEventPublisher eventPublisher;
 
-    @InjectMocks
     private InventarioService inventarioService;
 
+    private SaldosIndice saldosIndice;
+
+    @BeforeEach
+    void setUp() {
+        // Cache y circuito reales (vacíos en cada prueba) para verificar cuántas veces se llama a productos
+        inventarioService = crearServicio(new AppProperties());
+    }
+
+    private InventarioService crearServicio(AppProperties properties) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // Índice de saldos sin cargar: el detalle lee de la base de datos salvo que la prueba lo cargue
+        saldosIndice = new SaldosIndice(properties, meterRegistry);
+        return new InventarioService(inventarioRepository, saldoRepository, inventarioJdbcRepository,
+                outboxRepository, idempotenciaRepository, resumenRepository, motorValoracion, valoracionRepository,
+                productosClient, new ProductosCache(properties, meterRegistry),
+                new ProductosCircuito(properties, meterRegistry),
+                new EjecutorConsultas(properties, meterRegistry, FabricaHilos.plataforma()), saldosIndice,
+                eventPublisher);
+    }
+
     // ================= CAMINOS FELICES (ya los tenías) =================
 
     @Test
@@ -50,15 +133,15 @@ class InventarioServiceTest {
         Integer cantidadMovimiento = 3;
         BigDecimal precioUnitario = new BigDecimal("1000");
 
-        when(inventarioRepository.obtenerSaldoPorProducto(productoId)).thenReturn(5);
+        when(saldoRepository.findById(productoId)).thenReturn(Optional.of(saldo(productoId, 5, precioUnitario)));
 
-        Map<String, Object> data = Map.of(
-                "id", productoId,
-                "nombre", "Camiseta verde",
-                "precio", new BigDecimal("1000")
-        );
+        ProductoResumenDto data = ProductoResumenDto.builder()
+                .id(productoId)
+                .nombre("Camiseta verde")
+                .precio(new BigDecimal("1000"))
+                .build();
 
-        ApiResponse apiResponse = ApiResponse.builder()
+        ApiResponse<ProductoResumenDto> apiResponse = ApiResponse.<ProductoResumenDto>builder()
                 .data(data)
                 .code(HttpStatus.OK.value())
                 .message("ok")
@@ -67,14 +150,23 @@ class InventarioServiceTest {
         when(productosClient.obtenerProducto(productoId))
                 .thenReturn(ResponseEntity.ok(apiResponse));
 
-        int nuevoSaldo = inventarioService.agregarCantidad(productoId, cantidadMovimiento, precioUnitario);
+        int nuevoSaldo = inventarioService.agregarCantidad(productoId, cantidadMovimiento, precioUnitario, null);
 
         assertEquals(8, nuevoSaldo); // 5 + 3
 
-        verify(inventarioRepository, times(1)).obtenerSaldoPorProducto(productoId);
+        verify(inventarioRepository, times(1)).bloquearProducto(productoId);
+        verify(saldoRepository, times(1)).findById(productoId);
         verify(inventarioRepository, times(1)).save(any(InventarioEntity.class));
+        verify(saldoRepository, times(1)).aplicarMovimiento(eq(productoId), eq(3), eq(precioUnitario), any());
         verify(productosClient, times(1)).obtenerProducto(productoId);
 
+        // El resumen diario se acumula en la misma transacción que el movimiento
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<InventarioEntity>> resumen = ArgumentCaptor.forClass(List.class);
+        verify(resumenRepository).acumular(resumen.capture());
+        assertEquals(new BigDecimal("3000"), resumen.getValue().get(0).getPrecioTotal());
+        verify(motorValoracion).aplicar(resumen.getValue());
+
 
         ArgumentCaptor<InventarioCambiadoEvent> eventCaptor =
                 ArgumentCaptor.forClass(InventarioCambiadoEvent.class);
@@ -84,6 +176,9 @@ class InventarioServiceTest {
         assertEquals(productoId, event.getProductoId());
         assertEquals(5, event.getCantidadAnterior());
         assertEquals(8, event.getCantidadNueva());
+
+        // El mismo evento queda en la outbox, dentro de la transacción del movimiento
+        verify(outboxRepository, times(1)).registrar(List.of(event));
     }
 
     @Test
@@ -93,15 +188,15 @@ class InventarioServiceTest {
         Integer cantidadMovimiento = 4;
         BigDecimal precioUnitario = new BigDecimal("2000");
 
-        when(inventarioRepository.obtenerSaldoPorProducto(productoId)).thenReturn(10);
+        when(saldoRepository.findById(productoId)).thenReturn(Optional.of(saldo(productoId, 10, precioUnitario)));
 
-        Map<String, Object> data = Map.of(
-                "id", productoId,
-                "nombre", "Camiseta verde",
-                "precio", new BigDecimal("2000")
-        );
+        ProductoResumenDto data = ProductoResumenDto.builder()
+                .id(productoId)
+                .nombre("Camiseta verde")
+                .precio(new BigDecimal("2000"))
+                .build();
 
-        ApiResponse apiResponse = ApiResponse.builder()
+        ApiResponse<ProductoResumenDto> apiResponse = ApiResponse.<ProductoResumenDto>builder()
                 .data(data)
                 .code(HttpStatus.OK.value())
                 .message("ok")
@@ -110,12 +205,21 @@ class InventarioServiceTest {
         when(productosClient.obtenerProducto(productoId))
                 .thenReturn(ResponseEntity.ok(apiResponse));
 
-        int nuevoSaldo = inventarioService.retirarCantidad(productoId, cantidadMovimiento, precioUnitario);
+        int nuevoSaldo = inventarioService.retirarCantidad(productoId, cantidadMovimiento, precioUnitario, null);
 
         assertEquals(6, nuevoSaldo); // 10 - 4
 
-        verify(inventarioRepository, times(1)).obtenerSaldoPorProducto(productoId);
+        // El producto se resuelve antes del lock, y el lock se toma antes de leer el saldo
+        InOrder orden = inOrder(productosClient, inventarioRepository, saldoRepository);
+        orden.verify(productosClient).obtenerProducto(productoId);
+        orden.verify(inventarioRepository).bloquearProducto(productoId);
+        orden.verify(saldoRepository).findById(productoId);
+
+        verify(saldoRepository, times(1)).findById(productoId);
         verify(inventarioRepository, times(1)).save(any(InventarioEntity.class));
+        verify(saldoRepository, times(1)).aplicarMovimiento(eq(productoId), eq(-4), eq(precioUnitario), any());
+        verify(resumenRepository).acumular(anyList());
+        verify(motorValoracion).aplicar(anyList());
         verify(productosClient, times(1)).obtenerProducto(productoId);
 
         ArgumentCaptor<InventarioCambiadoEvent> eventCaptor =
@@ -134,25 +238,17 @@ class InventarioServiceTest {
     void consultarDetalleInventarioHappyPath() throws CustomException {
         Long productoId = 1L;
 
-        when(inventarioRepository.obtenerSaldoPorProducto(productoId)).thenReturn(15);
-
         BigDecimal precioUltimoMovimiento = new BigDecimal("2500");
-        InventarioEntity ultimoMovimiento = InventarioEntity.builder()
-                .productoId(productoId)
-                .cantidad(5)
-                .precioUnitario(precioUltimoMovimiento)
-                .build();
-
-        when(inventarioRepository.findTopByProductoIdOrderByFechaMovimientoDesc(productoId))
-                .thenReturn(Optional.of(ultimoMovimiento));
+        when(saldoRepository.findById(productoId))
+                .thenReturn(Optional.of(saldo(productoId, 15, precioUltimoMovimiento)));
 
-        Map<String, Object> data = Map.of(
-                "id", productoId,
-                "nombre", "Camiseta verde",
-                "precio", new BigDecimal("2000")
-        );
+        ProductoResumenDto data = ProductoResumenDto.builder()
+                .id(productoId)
+                .nombre("Camiseta verde")
+                .precio(new BigDecimal("2000"))
+                .build();
 
-        ApiResponse apiResponse = ApiResponse.builder()
+        ApiResponse<ProductoResumenDto> apiResponse = ApiResponse.<ProductoResumenDto>builder()
                 .data(data)
                 .code(HttpStatus.OK.value())
                 .message("ok")
@@ -161,7 +257,7 @@ class InventarioServiceTest {
         when(productosClient.obtenerProducto(productoId))
                 .thenReturn(ResponseEntity.ok(apiResponse));
 
-        InventarioDetalleResponse detalle = inventarioService.consultarDetalleInventario(productoId);
+        InventarioDetalleResponse detalle = inventarioService.consultarDetalleInventario(productoId, false);
 
         assertNotNull(detalle);
         assertEquals(productoId, detalle.getProductoId());
@@ -169,13 +265,719 @@ class InventarioServiceTest {
         assertEquals(15, detalle.getCantidadDisponible());
         assertEquals(0, precioUltimoMovimiento.compareTo(detalle.getPrecioUnitario()));
 
-        verify(inventarioRepository, times(1)).obtenerSaldoPorProducto(productoId);
-        verify(inventarioRepository, times(1)).findTopByProductoIdOrderByFechaMovimientoDesc(productoId);
+        verify(saldoRepository, times(1)).findById(productoId);
         verify(productosClient, times(1)).obtenerProducto(productoId);
 
+        verifyNoInteractions(inventarioRepository);
         verifyNoInteractions(eventPublisher);
     }
 
+    @Test
+    @DisplayName("consultarDetalleInventario - sin movimientos usa saldo 0 y el precio del catálogo")
+    void consultarDetalleInventarioSinMovimientos() throws CustomException {
+        Long productoId = 2L;
+
+        when(saldoRepository.findById(productoId)).thenReturn(Optional.empty());
+
+        ProductoResumenDto data = ProductoResumenDto.builder()
+                .id(productoId)
+                .nombre("Camiseta azul")
+                .precio(new BigDecimal("1800"))
+                .build();
+
+        ApiResponse<ProductoResumenDto> apiResponse = ApiResponse.<ProductoResumenDto>builder()
+                .data(data)
+                .code(HttpStatus.OK.value())
+                .message("ok")
+                .build();
+
+        when(productosClient.obtenerProducto(productoId))
+                .thenReturn(ResponseEntity.ok(apiResponse));
+
+        InventarioDetalleResponse detalle = inventarioService.consultarDetalleInventario(productoId, false);
+
+        assertEquals(0, detalle.getCantidadDisponible());
+        assertEquals(0, new BigDecimal("1800").compareTo(detalle.getPrecioUnitario()));
+    }
+
+    // ================= IDEMPOTENCIA =================
+
+    @Test
+    @DisplayName("retirarCantidad - con clave nueva registra el movimiento y guarda el resultado")
+    void retirarCantidadClaveNueva() throws CustomException {
+        when(idempotenciaRepository.reclamar(any(RegistroIdempotencia.class), any())).thenReturn(true);
+        when(saldoRepository.findById(1L)).thenReturn(Optional.of(saldo(1L, 10, new BigDecimal("2000"))));
+        when(productosClient.obtenerProducto(1L)).thenReturn(productoOk(1L, "Camiseta verde", "2000"));
+
+        int nuevoSaldo = inventarioService.retirarCantidad(1L, 4, new BigDecimal("2000"), "compra-1");
+
+        assertEquals(6, nuevoSaldo);
+        ArgumentCaptor<RegistroIdempotencia> registro = ArgumentCaptor.forClass(RegistroIdempotencia.class);
+        verify(idempotenciaRepository).reclamar(registro.capture(), any());
+        assertEquals("compra-1", registro.getValue().getClave());
+        assertEquals("SALIDA", registro.getValue().getTipoMovimiento());
+        verify(idempotenciaRepository).completar("compra-1", 6);
+        verify(inventarioRepository, times(1)).save(any(InventarioEntity.class));
+    }
+
+    @Test
+    @DisplayName("retirarCantidad - un reintento con la misma clave responde lo guardado sin tocar el libro")
+    void retirarCantidadReintento() throws CustomException {
+        when(idempotenciaRepository.reclamar(any(RegistroIdempotencia.class), any())).thenReturn(false);
+        when(idempotenciaRepository.buscar("compra-1")).thenReturn(Optional.of(registroIdempotencia(
+                "compra-1", "SALIDA", 1L, 4, "2000.00", 6)));
+
+        int nuevoSaldo = inventarioService.retirarCantidad(1L, 4, new BigDecimal("2000"), "compra-1");
+
+        assertEquals(6, nuevoSaldo);
+        verify(idempotenciaRepository, never()).completar(anyString(), anyInt());
+        verifyNoInteractions(inventarioRepository, saldoRepository, outboxRepository, productosClient, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("agregarCantidad - una clave usada con otro movimiento se rechaza con 422")
+    void agregarCantidadClaveReutilizada() {
+        when(idempotenciaRepository.reclamar(any(RegistroIdempotencia.class), any())).thenReturn(false);
+        when(idempotenciaRepository.buscar("compra-1")).thenReturn(Optional.of(registroIdempotencia(
+                "compra-1", "SALIDA", 1L, 4, "2000.00", 6)));
+
+        CustomException ex = assertThrows(CustomException.class,
+                () -> inventarioService.agregarCantidad(1L, 4, new BigDecimal("2000"), "compra-1"));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, ex.getStatus());
+        verifyNoInteractions(inventarioRepository, saldoRepository, outboxRepository, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("agregarCantidad - una clave vacía o demasiado larga se rechaza sin reclamarla")
+    void agregarCantidadClaveInvalida() {
+        CustomException vacia = assertThrows(CustomException.class,
+                () -> inventarioService.agregarCantidad(1L, 4, new BigDecimal("2000"), " "));
+        CustomException larga = assertThrows(CustomException.class,
+                () -> inventarioService.agregarCantidad(1L, 4, new BigDecimal("2000"), "x".repeat(101)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, vacia.getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST, larga.getStatus());
+        verifyNoInteractions(idempotenciaRepository);
+    }
+
+    @Test
+    @DisplayName("retirarCantidad - una salida rechazada no deja la clave tomada y el reintento se aplica")
+    void retirarCantidadRechazadaLiberaClave() throws Exception {
+        // CustomException es checked: sin rollbackFor la transacción confirmaría la clave sin resultado
+        for (String metodo : List.of("agregarCantidad", "retirarCantidad")) {
+            Transactional transaccional = InventarioService.class
+                    .getMethod(metodo, Long.class, Integer.class, BigDecimal.class, String.class)
+                    .getAnnotation(Transactional.class);
+            assertTrue(Arrays.asList(transaccional.rollbackFor()).contains(CustomException.class), metodo);
+        }
+
+        // Revertida la primera transacción, la clave vuelve a estar libre para el reintento
+        when(idempotenciaRepository.reclamar(any(RegistroIdempotencia.class), any())).thenReturn(true);
+        when(saldoRepository.findById(1L))
+                .thenReturn(Optional.of(saldo(1L, 2, new BigDecimal("2000"))))
+                .thenReturn(Optional.of(saldo(1L, 10, new BigDecimal("2000"))));
+        when(productosClient.obtenerProducto(1L)).thenReturn(productoOk(1L, "Camiseta verde", "2000"));
+
+        CustomException ex = assertThrows(CustomException.class,
+                () -> inventarioService.retirarCantidad(1L, 4, new BigDecimal("2000"), "compra-1"));
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatus());
+        verify(idempotenciaRepository, never()).completar(anyString(), anyInt());
+
+        int nuevoSaldo = inventarioService.retirarCantidad(1L, 4, new BigDecimal("2000"), "compra-1");
+
+        assertEquals(6, nuevoSaldo);
+        verify(idempotenciaRepository, times(2)).reclamar(any(RegistroIdempotencia.class), any());
+        verify(idempotenciaRepository).completar("compra-1", 6);
+        verify(inventarioRepository, times(1)).save(any(InventarioEntity.class));
+    }
+
+    // ================= HISTORIAL DE MOVIMIENTOS =================
+
+    @Test
+    @DisplayName("consultarMovimientos - pide una fila de más y devuelve el cursor del último movimiento")
+    void consultarMovimientosConPaginaSiguiente() throws CustomException {
+        LocalDateTime fecha = LocalDateTime.of(2024, 1, 1, 10, 0);
+        when(inventarioJdbcRepository.consultarMovimientos(eq(1L), isNull(), isNull(), eq(TipoMovimientoEmun.SALIDA), isNull(),
+                eq(OrdenEmun.DESC), eq(3)))
+                .thenReturn(List.of(movimiento(30L, fecha.plusMinutes(2)), movimiento(20L, fecha.plusMinutes(1)),
+                        movimiento(10L, fecha)));
+
+        MovimientosPaginaResponse pagina = inventarioService.consultarMovimientos(1L, null, null, " salida ",
+                null, null, 2);
+
+        assertEquals(2, pagina.getMovimientos().size());
+        assertTrue(pagina.getHayMas());
+        assertEquals(new CursorMovimiento(fecha.plusMinutes(1), 20L),
+                CursorMovimiento.decodificar(pagina.getSiguienteCursor()));
+        verifyNoInteractions(productosClient);
+    }
+
+    @Test
+    @DisplayName("consultarMovimientos - continúa desde el cursor y en la última página no devuelve cursor")
+    void consultarMovimientosUltimaPagina() throws CustomException {
+        CursorMovimiento cursor = new CursorMovimiento(LocalDateTime.of(2024, 1, 1, 10, 1), 20L);
+        when(inventarioJdbcRepository.consultarMovimientos(1L, null, null, null, cursor, OrdenEmun.ASC, 51))
+                .thenReturn(List.of(movimiento(30L, LocalDateTime.of(2024, 1, 1, 10, 2))));
+
+        MovimientosPaginaResponse pagina = inventarioService.consultarMovimientos(1L, null, null, null,
+                OrdenEmun.ASC, cursor.codificar(), null);
+
+        assertEquals(1, pagina.getMovimientos().size());
+        assertEquals(30L, pagina.getMovimientos().get(0).getId());
+        assertFalse(pagina.getHayMas());
+        assertNull(pagina.getSiguienteCursor());
+    }
+
+    @Test
+    @DisplayName("consultarMovimientos - filtros, límite o cursor inválidos responden 400 sin consultar")
+    void consultarMovimientosParametrosInvalidos() {
+        LocalDateTime fecha = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(CustomException.class, () ->
+                inventarioService.consultarMovimientos(1L, null, null, "AJUSTE", null, null, null)).getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(CustomException.class, () ->
+                inventarioService.consultarMovimientos(1L, fecha, fecha, null, null, null, null)).getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(CustomException.class, () ->
+                inventarioService.consultarMovimientos(1L, null, null, null, null, null, 501)).getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(CustomException.class, () ->
+                inventarioService.consultarMovimientos(1L, null, null, null, null, "no-es-un-cursor", null)).getStatus());
+        verifyNoInteractions(inventarioJdbcRepository);
+    }
+
+    // ================= RESUMEN DIARIO =================
+
+    @Test
+    @DisplayName("consultarResumenDiario - devuelve los días del resumen y sus totales")
+    void consultarResumenDiario() throws CustomException {
+        LocalDate desde = LocalDate.of(2024, 1, 1);
+        LocalDate hasta = LocalDate.of(2024, 12, 31);
+        when(resumenRepository.consultar(1L, desde, hasta)).thenReturn(List.of(
+                resumenDia(LocalDate.of(2024, 3, 1), 10, "15000.00", 4, "6000.00", 3),
+                resumenDia(LocalDate.of(2024, 3, 2), 0, "0.00", 2, "3000.00", 1)));
+
+        ResumenDiarioResponse resumen = inventarioService.consultarResumenDiario(1L, desde, hasta);
+
+        assertEquals(2, resumen.getDias().size());
+        ResumenDiaDto totales = resumen.getTotales();
+        assertNull(totales.getDia());
+        assertEquals(10L, totales.getCantidadIngresos());
+        assertEquals(new BigDecimal("15000.00"), totales.getValorIngresos());
+        assertEquals(6L, totales.getCantidadSalidas());
+        assertEquals(new BigDecimal("9000.00"), totales.getValorSalidas());
+        assertEquals(4L, totales.getMovimientos());
+        verifyNoInteractions(inventarioRepository, inventarioJdbcRepository);
+    }
+
+    @Test
+    @DisplayName("consultarResumenDiario - fechas ausentes, invertidas o rango excesivo responden 400")
+    void consultarResumenDiarioRangoInvalido() {
+        LocalDate dia = LocalDate.of(2024, 1, 1);
+
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(CustomException.class, () ->
+                inventarioService.consultarResumenDiario(1L, null, dia)).getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(CustomException.class, () ->
+                inventarioService.consultarResumenDiario(1L, dia, dia.minusDays(1))).getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(CustomException.class, () ->
+                inventarioService.consultarResumenDiario(1L, dia,
+                        dia.plusDays(InventarioService.MAX_DIAS_RESUMEN))).getStatus());
+        verifyNoInteractions(resumenRepository);
+    }
+
+    // ================= VALORACIÓN =================
+
+    @Test
+    @DisplayName("consultarValoracion - lee el estado guardado del producto")
+    void consultarValoracion() throws CustomException {
+        when(valoracionRepository.buscar(1L)).thenReturn(Optional.of(new Valoracion(15,
+                new BigDecimal("2250.0000"), new BigDecimal("750.0000"),
+                new BigDecimal("2500.0000"), new BigDecimal("500.0000"))));
+
+        ValoracionResponse valoracion = inventarioService.consultarValoracion(1L);
+
+        assertEquals(15L, valoracion.getCantidad());
+        assertEquals(new BigDecimal("150.0000"), valoracion.getCostoPromedio());
+        assertEquals(new BigDecimal("2250.0000"), valoracion.getValorPromedio());
+        assertEquals(new BigDecimal("500.0000"), valoracion.getCostoVentasFifo());
+        verifyNoInteractions(inventarioRepository, inventarioJdbcRepository);
+    }
+
+    @Test
+    @DisplayName("consultarValoracion - producto sin movimientos se valora en cero")
+    void consultarValoracionSinMovimientos() throws CustomException {
+        when(valoracionRepository.buscar(9L)).thenReturn(Optional.empty());
+
+        ValoracionResponse valoracion = inventarioService.consultarValoracion(9L);
+
+        assertEquals(0L, valoracion.getCantidad());
+        assertNull(valoracion.getCostoPromedio());
+        assertEquals(0, valoracion.getValorFifo().signum());
+    }
+
+    // ================= SALDOS DE VARIOS PRODUCTOS =================
+
+    @Test
+    @DisplayName("consultarSaldos - una sola lectura de saldos, sin llamar a productos")
+    void consultarSaldosSinNombres() throws CustomException {
+        InventarioSaldoEntity conReservas = saldo(3L, 7, new BigDecimal("900"));
+        conReservas.setReservado(2);
+        when(saldoRepository.findAllById(any()))
+                .thenReturn(List.of(conReservas, saldo(1L, 10, new BigDecimal("1000"))));
+
+        Map<Long, SaldoProductoDto> saldos = inventarioService.consultarSaldos(Arrays.asList(1L, 2L, 3L, 1L, null), false);
+
+        assertEquals(List.of(1L, 2L, 3L), List.copyOf(saldos.keySet()));
+        assertEquals(10, saldos.get(1L).getCantidadDisponible());
+        assertEquals(0, saldos.get(2L).getCantidadDisponible());
+        assertNull(saldos.get(2L).getPrecioUnitario());
+        assertEquals(5, saldos.get(3L).getCantidadDisponible()); // 7 - 2 reservadas
+        assertEquals(2, saldos.get(3L).getCantidadReservada());
+        assertNull(saldos.get(1L).getCantidadReservada());
+        assertNull(saldos.get(1L).getNombreProducto());
+
+        verify(saldoRepository, times(1)).findAllById(any());
+        verifyNoInteractions(productosClient, inventarioRepository);
+    }
+
+    @Test
+    @DisplayName("consultarSaldos - con nombres resuelve los productos en una sola llamada por lote")
+    void consultarSaldosConNombres() throws CustomException {
+        when(saldoRepository.findAllById(any())).thenReturn(List.of(saldo(1L, 10, new BigDecimal("1000"))));
+        when(productosClient.obtenerProductos(any())).thenReturn(productosOk(
+                producto(1L, "Camiseta verde", "1000"),
+                producto(2L, "Camiseta azul", "1800")));
+
+        Map<Long, SaldoProductoDto> saldos = inventarioService.consultarSaldos(List.of(1L, 2L, 3L), true);
+
+        assertEquals("Camiseta verde", saldos.get(1L).getNombreProducto());
+        assertEquals("Camiseta azul", saldos.get(2L).getNombreProducto());
+        assertEquals(0, new BigDecimal("1800").compareTo(saldos.get(2L).getPrecioUnitario()));
+        assertNull(saldos.get(3L).getNombreProducto());
+
+        // Una sola llamada al lote de productos, nunca una por producto
+        ArgumentCaptor<ProductosLoteRequest> lote = ArgumentCaptor.forClass(ProductosLoteRequest.class);
+        verify(productosClient, times(1)).obtenerProductos(lote.capture());
+        assertEquals(List.of(1L, 2L, 3L), lote.getValue().getIds());
+        verify(productosClient, never()).obtenerProducto(any());
+    }
+
+    @Test
+    @DisplayName("consultarSaldos - las listas largas se resuelven en tramos del lote de productos")
+    void consultarSaldosConNombresEnTramos() throws CustomException {
+        when(saldoRepository.findAllById(any())).thenReturn(List.of());
+        when(productosClient.obtenerProductos(any())).thenReturn(productosOk());
+
+        List<Long> ids = java.util.stream.LongStream.rangeClosed(1, InventarioService.TAMANO_LOTE_PRODUCTOS + 1)
+                .boxed().toList();
+        inventarioService.consultarSaldos(ids, true);
+
+        verify(productosClient, times(2)).obtenerProductos(any());
+    }
+
+    @Test
+    @DisplayName("consultarSaldos - sin IDs o con demasiados IDs lanza BAD_REQUEST")
+    void consultarSaldosInvalido() {
+        CustomException vacio = assertThrows(CustomException.class,
+                () -> inventarioService.consultarSaldos(List.of(), false));
+        assertEquals(HttpStatus.BAD_REQUEST, vacio.getStatus());
+
+        List<Long> muchos = java.util.stream.LongStream.rangeClosed(1, InventarioService.MAX_PRODUCTOS_CONSULTA + 1)
+                .boxed().toList();
+        CustomException excedido = assertThrows(CustomException.class,
+                () -> inventarioService.consultarSaldos(muchos, false));
+        assertEquals(HttpStatus.BAD_REQUEST, excedido.getStatus());
+
+        verifyNoInteractions(saldoRepository);
+    }
+
+    @Test
+    @DisplayName("consultarDetalleInventario - la segunda consulta del producto se sirve desde la cache")
+    void consultarDetalleInventarioUsaCache() throws CustomException {
+        when(saldoRepository.findById(1L)).thenReturn(Optional.of(saldo(1L, 10, new BigDecimal("1000"))));
+        when(productosClient.obtenerProducto(1L)).thenReturn(productoOk(1L, "Camiseta verde", "1000"));
+
+        inventarioService.consultarDetalleInventario(1L, false);
+        InventarioDetalleResponse detalle = inventarioService.consultarDetalleInventario(1L, false);
+
+        assertEquals("Camiseta verde", detalle.getNombreProducto());
+        verify(productosClient, times(1)).obtenerProducto(1L);
+    }
+
+    @Test
+    @DisplayName("consultarDetalleInventario - la consulta a productos corre en paralelo con la lectura del saldo")
+    void consultarDetalleInventarioEnParalelo() throws CustomException {
+        CountDownLatch saldoLeido = new CountDownLatch(1);
+        when(saldoRepository.findById(1L)).thenAnswer(inv -> {
+            saldoLeido.countDown();
+            return Optional.of(saldo(1L, 10, new BigDecimal("1000")));
+        });
+        // Si la consulta fuera secuencial (producto primero) el saldo nunca se leería a tiempo
+        when(productosClient.obtenerProducto(1L)).thenAnswer(inv -> {
+            if (!saldoLeido.await(2, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("la consulta no fue concurrente");
+            }
+            return productoOk(1L, "Camiseta verde", "1000");
+        });
+
+        InventarioDetalleResponse detalle = inventarioService.consultarDetalleInventario(1L, false);
+
+        assertEquals("Camiseta verde", detalle.getNombreProducto());
+        assertEquals(10, detalle.getCantidadDisponible());
+    }
+
+    @Test
+    @DisplayName("consultarDetalleInventario - con el índice cargado el saldo no se lee de la base de datos")
+    void consultarDetalleInventarioDesdeIndice() throws CustomException {
+        SaldosIndice.Carga carga = saldosIndice.iniciarCarga();
+        carga.agregar(1L, 12, 0, new BigDecimal("1500.00"));
+        carga.terminar();
+        when(productosClient.obtenerProducto(anyLong()))
+                .thenAnswer(inv -> productoOk(inv.getArgument(0), "Producto", "2000"));
+
+        InventarioDetalleResponse conMovimientos = inventarioService.consultarDetalleInventario(1L, false);
+        InventarioDetalleResponse sinMovimientos = inventarioService.consultarDetalleInventario(2L, false);
+
+        assertEquals(12, conMovimientos.getCantidadDisponible());
+        assertEquals(0, new BigDecimal("1500").compareTo(conMovimientos.getPrecioUnitario()));
+        assertEquals(0, sinMovimientos.getCantidadDisponible());
+        assertEquals(0, new BigDecimal("2000").compareTo(sinMovimientos.getPrecioUnitario()));
+        verifyNoInteractions(saldoRepository);
+    }
+
+    @Test
+    @DisplayName("consultarDetalleInventario - lo disponible descuenta las unidades reservadas")
+    void consultarDetalleInventarioConReservas() throws CustomException {
+        SaldosIndice.Carga carga = saldosIndice.iniciarCarga();
+        carga.agregar(1L, 12, 5, new BigDecimal("1500.00"));
+        carga.terminar();
+        InventarioSaldoEntity conReservas = saldo(2L, 9, new BigDecimal("1600"));
+        conReservas.setReservado(9);
+        when(saldoRepository.findById(2L)).thenReturn(Optional.of(conReservas));
+        when(productosClient.obtenerProducto(anyLong()))
+                .thenAnswer(inv -> productoOk(inv.getArgument(0), "Producto", "2000"));
+
+        InventarioDetalleResponse indice = inventarioService.consultarDetalleInventario(1L, false);
+        InventarioDetalleResponse consistente = inventarioService.consultarDetalleInventario(2L, true);
+
+        assertEquals(7, indice.getCantidadDisponible());
+        assertEquals(5, indice.getCantidadReservada());
+        assertEquals(0, consistente.getCantidadDisponible());
+        assertEquals(9, consistente.getCantidadReservada());
+    }
+
+    @Test
+    @DisplayName("consultarDetalleInventario - consistente=true lee el saldo de la base de datos aunque haya índice")
+    void consultarDetalleInventarioConsistente() throws CustomException {
+        SaldosIndice.Carga carga = saldosIndice.iniciarCarga();
+        carga.agregar(1L, 12, 0, new BigDecimal("1500.00"));
+        carga.terminar();
+        when(saldoRepository.findById(1L)).thenReturn(Optional.of(saldo(1L, 9, new BigDecimal("1600"))));
+        when(productosClient.obtenerProducto(1L)).thenReturn(productoOk(1L, "Camiseta verde", "1000"));
+
+        InventarioDetalleResponse detalle = inventarioService.consultarDetalleInventario(1L, true);
+
+        assertEquals(9, detalle.getCantidadDisponible());
+        assertEquals(0, new BigDecimal("1600").compareTo(detalle.getPrecioUnitario()));
+        verify(saldoRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("consultarDetalleInventario - plazo agotado sin respaldo lanza SERVICE_UNAVAILABLE")
+    void consultarDetalleInventarioPlazoAgotado() {
+        AppProperties properties = new AppProperties();
+        properties.getConsultas().setPlazo(Duration.ofMillis(50));
+        InventarioService servicio = crearServicio(properties);
+
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(productosClient.obtenerProducto(1L)).thenAnswer(inv -> {
+            liberar.await(5, TimeUnit.SECONDS);
+            return productoOk(1L, "Camiseta verde", "1000");
+        });
+
+        try {
+            CustomException ex = assertThrows(CustomException.class, () -> servicio.consultarDetalleInventario(1L, false));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatus());
+            assertTrue(ex.getMessage().contains("Tiempo de espera agotado"));
+        } finally {
+            liberar.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("retirarCantidad - producto inexistente lanza NOT_FOUND sin registrar el movimiento")
+    void retirarCantidadProductoInexistente() {
+        when(productosClient.obtenerProducto(99L)).thenThrow(mock(FeignException.NotFound.class));
+
+        CustomException ex = assertThrows(CustomException.class,
+                () -> inventarioService.retirarCantidad(99L, 1, new BigDecimal("1000"), null));
+
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatus());
+        verify(inventarioRepository, never()).save(any());
+        verifyNoInteractions(outboxRepository, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("retirarCantidad - las unidades reservadas no se pueden retirar")
+    void retirarCantidadRespetaReservado() {
+        InventarioSaldoEntity saldo = saldo(1L, 10, new BigDecimal("1000"));
+        saldo.setReservado(8);
+        when(saldoRepository.findById(1L)).thenReturn(Optional.of(saldo));
+        when(productosClient.obtenerProducto(1L)).thenReturn(productoOk(1L, "Camiseta verde", "1000"));
+
+        CustomException ex = assertThrows(CustomException.class,
+                () -> inventarioService.retirarCantidad(1L, 3, new BigDecimal("1000"), null));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatus());
+        verify(inventarioRepository, never()).save(any());
+        verifyNoInteractions(outboxRepository, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("consultarDetalleInventario - con productos caído responde con el último dato conocido")
+    void consultarDetalleInventarioUsaRespaldo() throws CustomException {
+        // TTL 0: la entrada vence de inmediato y solo queda como respaldo
+        AppProperties properties = new AppProperties();
+        properties.getProductosCache().setTtl(Duration.ZERO);
+        InventarioService servicio = crearServicio(properties);
+
+        when(saldoRepository.findById(1L)).thenReturn(Optional.of(saldo(1L, 10, new BigDecimal("1000"))));
+        when(productosClient.obtenerProducto(1L))
+                .thenReturn(productoOk(1L, "Camiseta verde", "1000"))
+                .thenThrow(mock(FeignException.class));
+
+        servicio.consultarDetalleInventario(1L, false);
+        InventarioDetalleResponse detalle = servicio.consultarDetalleInventario(1L, false);
+
+        assertEquals("Camiseta verde", detalle.getNombreProducto());
+        verify(productosClient, times(2)).obtenerProducto(1L);
+    }
+
+    @Test
+    @DisplayName("consultarDetalleInventario - con el circuito abierto no se llama a productos")
+    void consultarDetalleInventarioCircuitoAbierto() {
+        AppProperties properties = new AppProperties();
+        properties.getProductosCircuito().setVentana(2);
+        properties.getProductosCircuito().setMinimoLlamadas(2);
+        InventarioService servicio = crearServicio(properties);
+
+        when(productosClient.obtenerProducto(anyLong())).thenThrow(mock(FeignException.class));
+
+        for (long productoId = 1; productoId <= 3; productoId++) {
+            long id = productoId;
+            CustomException ex = assertThrows(CustomException.class, () -> servicio.consultarDetalleInventario(id, false));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatus());
+        }
+
+        // La tercera consulta se rechaza sin llamada remota
+        verify(productosClient, times(2)).obtenerProducto(anyLong());
+    }
+
+    @Test
+    @DisplayName("registrarLote - con productos caído y algún producto sin respaldo lanza SERVICE_UNAVAILABLE")
+    void registrarLoteSinRespaldo() {
+        when(productosClient.obtenerProductos(any())).thenThrow(mock(FeignException.class));
+
+        MovimientoLoteRequest request = MovimientoLoteRequest.builder()
+                .movimientos(List.of(linea(1L, "INGRESO", 5)))
+                .build();
+
+        CustomException ex = assertThrows(CustomException.class, () -> inventarioService.registrarLote(request));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatus());
+        verifyNoInteractions(inventarioJdbcRepository);
+    }
+
+    // ================= LOTE DE MOVIMIENTOS =================
+
+    @Test
+    @DisplayName("registrarLote PARCIAL - registra las líneas válidas y reporta las rechazadas")
+    void registrarLoteParcial() throws CustomException {
+        // El producto 2 no existe: el lote de productos simplemente no lo devuelve
+        when(productosClient.obtenerProductos(any())).thenReturn(productosOk(
+                producto(1L, "Camiseta verde", "1000")));
+        when(saldoRepository.findAllById(any())).thenReturn(List.of(saldo(1L, 10, new BigDecimal("1000"))));
+
+        MovimientoLoteRequest request = MovimientoLoteRequest.builder()
+                .modo(ModoLoteEmun.PARCIAL)
+                .movimientos(List.of(
+                        linea(1L, "INGRESO", 5),
+                        linea(1L, "SALIDA", 20),   // saldo 15: insuficiente
+                        linea(2L, "SALIDA", 1),    // producto inexistente
+                        linea(1L, "AJUSTE", 1),    // tipo inválido
+                        linea(1L, "salida", 15)))  // deja el saldo en 0
+                .build();
+
+        MovimientoLoteResponse response = inventarioService.registrarLote(request);
+
+        assertEquals(5, response.getTotal());
+        assertEquals(2, response.getAplicados());
+        assertEquals(3, response.getRechazados());
+
+        List<MovimientoLoteResultadoDto> resultados = response.getResultados();
+        assertEquals(MovimientoLoteResultadoDto.APLICADO, resultados.get(0).getEstado());
+        assertEquals(15, resultados.get(0).getCantidadNueva());
+        assertEquals(MovimientoLoteResultadoDto.RECHAZADO, resultados.get(1).getEstado());
+        assertEquals(MovimientoLoteResultadoDto.RECHAZADO, resultados.get(2).getEstado());
+        assertEquals(MovimientoLoteResultadoDto.RECHAZADO, resultados.get(3).getEstado());
+        assertEquals(MovimientoLoteResultadoDto.APLICADO, resultados.get(4).getEstado());
+        assertEquals(0, resultados.get(4).getCantidadNueva());
+
+        // Una sola llamada al lote de productos, aunque el producto 1 aparezca en 4 líneas
+        verify(productosClient, times(1)).obtenerProductos(any());
+        verify(productosClient, never()).obtenerProducto(any());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<InventarioEntity>> movimientos = ArgumentCaptor.forClass(List.class);
+        verify(inventarioJdbcRepository).insertarMovimientos(movimientos.capture());
+        assertEquals(2, movimientos.getValue().size());
+        assertEquals(TipoMovimientoEmun.SALIDA, movimientos.getValue().get(1).getTipoMovimiento());
+
+        verify(inventarioJdbcRepository).aplicarSaldos(any());
+        verify(resumenRepository).acumular(movimientos.getValue());
+        verify(motorValoracion).aplicar(movimientos.getValue());
+        verify(eventPublisher, times(2)).publishEvent(any(InventarioCambiadoEvent.class));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<InventarioCambiadoEvent>> outbox = ArgumentCaptor.forClass(List.class);
+        verify(outboxRepository).registrar(outbox.capture());
+        assertEquals(2, outbox.getValue().size());
+    }
+
+    @Test
+    @DisplayName("registrarLote ATOMICO - una línea rechazada cancela todo el lote")
+    void registrarLoteAtomicoRechazado() throws CustomException {
+        when(productosClient.obtenerProductos(any())).thenReturn(productosOk(
+                producto(1L, "Camiseta verde", "1000")));
+        when(saldoRepository.findAllById(any())).thenReturn(List.of(saldo(1L, 3, new BigDecimal("1000"))));
+
+        MovimientoLoteRequest request = MovimientoLoteRequest.builder()
+                .movimientos(List.of(
+                        linea(1L, "INGRESO", 2),
+                        linea(1L, "SALIDA", 10)))
+                .build();
+
+        MovimientoLoteResponse response = inventarioService.registrarLote(request);
+
+        assertEquals(ModoLoteEmun.ATOMICO, response.getModo());
+        assertEquals(0, response.getAplicados());
+        assertEquals(1, response.getRechazados());
+        assertEquals(MovimientoLoteResultadoDto.NO_APLICADO, response.getResultados().get(0).getEstado());
+        assertEquals(MovimientoLoteResultadoDto.RECHAZADO, response.getResultados().get(1).getEstado());
+
+        verify(inventarioJdbcRepository, never()).insertarMovimientos(any());
+        verify(inventarioJdbcRepository, never()).aplicarSaldos(any());
+        verifyNoInteractions(eventPublisher, outboxRepository, resumenRepository, motorValoracion);
+    }
+
+    @Test
+    @DisplayName("registrarLote - lote vacío lanza CustomException BAD_REQUEST")
+    void registrarLoteVacio() {
+        MovimientoLoteRequest request = MovimientoLoteRequest.builder().movimientos(List.of()).build();
+
+        CustomException ex = assertThrows(CustomException.class, () -> inventarioService.registrarLote(request));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatus());
+        verifyNoInteractions(productosClient, inventarioJdbcRepository);
+    }
+
+    // ================= GRUPO DE MOVIMIENTOS =================
+
+    @Test
+    @DisplayName("registrarGrupo - un lock, una lectura y un insert para todo el grupo, con resultado por movimiento")
+    void registrarGrupo() throws CustomException {
+        when(saldoRepository.findById(1L)).thenReturn(Optional.of(saldo(1L, 5, new BigDecimal("1000"))));
+        when(productosClient.obtenerProducto(1L)).thenReturn(productoOk(1L, "Camiseta verde", "1000"));
+        when(idempotenciaRepository.reclamar(any(), any())).thenReturn(true);
+
+        List<ResultadoAgrupado> resultados = inventarioService.registrarGrupo(1L, List.of(
+                new MovimientoAgrupado(TipoMovimientoEmun.INGRESO, 3, new BigDecimal("1000"), "a"),
+                new MovimientoAgrupado(TipoMovimientoEmun.SALIDA, 10, new BigDecimal("1500"), "b"), // saldo 8
+                new MovimientoAgrupado(TipoMovimientoEmun.SALIDA, 6, new BigDecimal("1500"), null),
+                new MovimientoAgrupado(TipoMovimientoEmun.SALIDA, 0, new BigDecimal("1500"), null)));
+
+        assertEquals(ResultadoAgrupado.aplicado(8), resultados.get(0));
+        assertEquals(HttpStatus.BAD_REQUEST, resultados.get(1).error().getStatus());
+        assertEquals(ResultadoAgrupado.aplicado(2), resultados.get(2));
+        assertEquals("La cantidad a retirar debe ser mayor que 0", resultados.get(3).error().getMessage());
+
+        verify(inventarioRepository, times(1)).bloquearProducto(1L);
+        verify(saldoRepository, times(1)).findById(1L);
+        verify(productosClient, times(1)).obtenerProducto(1L);
+        verify(inventarioRepository, never()).save(any());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<InventarioEntity>> movimientos = ArgumentCaptor.forClass(List.class);
+        verify(inventarioJdbcRepository).insertarMovimientos(movimientos.capture());
+        assertEquals(2, movimientos.getValue().size());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<InventarioSaldoEntity>> saldos = ArgumentCaptor.forClass(List.class);
+        verify(inventarioJdbcRepository).aplicarSaldos(saldos.capture());
+        assertEquals(-3, saldos.getValue().get(0).getSaldo()); // 5 + 3 - 6 = 2
+        assertEquals(new BigDecimal("1500"), saldos.getValue().get(0).getUltimoPrecioUnitario());
+
+        // La clave de la salida rechazada se suelta: la transacción confirma las demás
+        verify(idempotenciaRepository).completar("a", 8);
+        verify(idempotenciaRepository).liberar("b");
+        verify(resumenRepository).acumular(movimientos.getValue());
+        verify(motorValoracion).aplicar(movimientos.getValue());
+        verify(eventPublisher, times(2)).publishEvent(any(InventarioCambiadoEvent.class));
+    }
+
+    @Test
+    @DisplayName("registrarGrupo - las salidas no toman unidades reservadas")
+    void registrarGrupoRespetaReservado() throws CustomException {
+        InventarioSaldoEntity saldo = saldo(1L, 10, new BigDecimal("1000"));
+        saldo.setReservado(7);
+        when(saldoRepository.findById(1L)).thenReturn(Optional.of(saldo));
+        when(productosClient.obtenerProducto(1L)).thenReturn(productoOk(1L, "Camiseta verde", "1000"));
+
+        List<ResultadoAgrupado> resultados = inventarioService.registrarGrupo(1L, List.of(
+                new MovimientoAgrupado(TipoMovimientoEmun.SALIDA, 3, new BigDecimal("1000"), null),
+                new MovimientoAgrupado(TipoMovimientoEmun.SALIDA, 1, new BigDecimal("1000"), null)));
+
+        assertEquals(ResultadoAgrupado.aplicado(7), resultados.get(0));
+        assertEquals(HttpStatus.BAD_REQUEST, resultados.get(1).error().getStatus());
+    }
+
+    @Test
+    @DisplayName("registrarGrupo - reclama las claves en orden de clave y aplica los movimientos en orden de llegada")
+    void registrarGrupoReclamaClavesOrdenadas() throws CustomException {
+        when(saldoRepository.findById(1L)).thenReturn(Optional.of(saldo(1L, 5, new BigDecimal("1000"))));
+        when(productosClient.obtenerProducto(1L)).thenReturn(productoOk(1L, "Camiseta verde", "1000"));
+        when(idempotenciaRepository.reclamar(any(), any())).thenReturn(true);
+
+        List<ResultadoAgrupado> resultados = inventarioService.registrarGrupo(1L, List.of(
+                new MovimientoAgrupado(TipoMovimientoEmun.SALIDA, 4, new BigDecimal("1000"), "z"),
+                new MovimientoAgrupado(TipoMovimientoEmun.INGRESO, 2, new BigDecimal("1000"), null),
+                new MovimientoAgrupado(TipoMovimientoEmun.INGRESO, 3, new BigDecimal("1000"), "a")));
+
+        assertEquals(List.of(ResultadoAgrupado.aplicado(1), ResultadoAgrupado.aplicado(3),
+                ResultadoAgrupado.aplicado(6)), resultados);
+
+        InOrder orden = inOrder(idempotenciaRepository, productosClient, inventarioRepository);
+        orden.verify(idempotenciaRepository).reclamar(argThat(r -> r.getClave().equals("a")), any());
+        orden.verify(idempotenciaRepository).reclamar(argThat(r -> r.getClave().equals("z")), any());
+        orden.verify(productosClient).obtenerProducto(1L);
+        orden.verify(inventarioRepository).bloquearProducto(1L);
+        verify(idempotenciaRepository).completar("z", 1);
+        verify(idempotenciaRepository).completar("a", 6);
+    }
+
+    @Test
+    @DisplayName("registrarGrupo - solo reintentos: responde lo guardado sin tomar el lock")
+    void registrarGrupoSoloReintentos() throws CustomException {
+        when(idempotenciaRepository.reclamar(any(), any())).thenReturn(false);
+        when(idempotenciaRepository.buscar("compra-1"))
+                .thenReturn(Optional.of(registroIdempotencia("compra-1", "SALIDA", 1L, 2, "1000", 4)));
+
+        List<ResultadoAgrupado> resultados = inventarioService.registrarGrupo(1L, List.of(
+                new MovimientoAgrupado(TipoMovimientoEmun.SALIDA, 2, new BigDecimal("1000"), "compra-1")));
+
+        assertEquals(List.of(ResultadoAgrupado.aplicado(4)), resultados);
+        verify(inventarioRepository, never()).bloquearProducto(any());
+        verifyNoInteractions(inventarioJdbcRepository, productosClient, eventPublisher);
+    }
+
     // ================= CASOS DE ERROR DE obtenerProducto =================
 
     @Test
@@ -188,7 +990,7 @@ class InventarioServiceTest {
 
         CustomException ex = assertThrows(
                 CustomException.class,
-                () -> inventarioService.consultarDetalleInventario(productoId)
+                () -> inventarioService.consultarDetalleInventario(productoId, false)
         );
 
         assertTrue(ex.getMessage().contains("Producto no encontrado"));
@@ -204,7 +1006,7 @@ class InventarioServiceTest {
 
         CustomException ex = assertThrows(
                 CustomException.class,
-                () -> inventarioService.consultarDetalleInventario(productoId)
+                () -> inventarioService.consultarDetalleInventario(productoId, false)
         );
 
         assertTrue(ex.getMessage().contains("Acceso prohibido"));
@@ -220,7 +1022,7 @@ class InventarioServiceTest {
 
         CustomException ex = assertThrows(
                 CustomException.class,
-                () -> inventarioService.consultarDetalleInventario(productoId)
+                () -> inventarioService.consultarDetalleInventario(productoId, false)
         );
 
         assertTrue(ex.getMessage().contains("Fallo comunicación con productos"));
@@ -231,25 +1033,24 @@ class InventarioServiceTest {
     void obtenerProducto_No2xx_O_BodyNull() {
         Long productoId = 99L;
 
-        ApiResponse bodyNull = null;
+        ApiResponse<ProductoResumenDto> bodyNull = null;
         when(productosClient.obtenerProducto(productoId))
                 .thenReturn(ResponseEntity.status(HttpStatus.NOT_FOUND).body(bodyNull));
 
         CustomException ex = assertThrows(
                 CustomException.class,
-                () -> inventarioService.consultarDetalleInventario(productoId)
+                () -> inventarioService.consultarDetalleInventario(productoId, false)
         );
 
         assertTrue(ex.getMessage().contains("Producto no encontrado"));
     }
 
     @Test
-    @DisplayName("obtenerProducto - formato inesperado en data lanza CustomException INTERNAL_SERVER_ERROR")
+    @DisplayName("obtenerProducto - respuesta sin data lanza CustomException INTERNAL_SERVER_ERROR")
     void obtenerProducto_FormatoInesperado() {
         Long productoId = 1L;
 
-        ApiResponse apiResponse = ApiResponse.builder()
-                .data("esto no es un mapa")
+        ApiResponse<ProductoResumenDto> apiResponse = ApiResponse.<ProductoResumenDto>builder()
                 .code(HttpStatus.OK.value())
                 .message("ok")
                 .build();
@@ -259,7 +1060,7 @@ class InventarioServiceTest {
 
         CustomException ex = assertThrows(
                 CustomException.class,
-                () -> inventarioService.consultarDetalleInventario(productoId)
+                () -> inventarioService.consultarDetalleInventario(productoId, false)
         );
 
         assertTrue(ex.getMessage().contains("Formato inesperado"));
@@ -275,9 +1076,88 @@ class InventarioServiceTest {
 
         CustomException ex = assertThrows(
                 CustomException.class,
-                () -> inventarioService.consultarDetalleInventario(productoId)
+                () -> inventarioService.consultarDetalleInventario(productoId, false)
         );
 
         assertTrue(ex.getMessage().contains("Fallo comunicación con productos"));
     }
-}
\ No newline at end of file
+
+    private static InventarioSaldoEntity saldo(Long productoId, int saldo, BigDecimal ultimoPrecio) {
+        return InventarioSaldoEntity.builder()
+                .productoId(productoId)
+                .saldo(saldo)
+                .ultimoPrecioUnitario(ultimoPrecio)
+                .build();
+    }
+
+    private static InventarioEntity movimiento(Long id, LocalDateTime fecha) {
+        return InventarioEntity.builder()
+                .id(id)
+                .productoId(1L)
+                .cantidad(1)
+                .tipoMovimiento(TipoMovimientoEmun.SALIDA)
+                .precioUnitario(new BigDecimal("1000"))
+                .precioTotal(new BigDecimal("1000"))
+                .fechaMovimiento(fecha)
+                .build();
+    }
+
+    private static RegistroIdempotencia registroIdempotencia(String clave, String tipo, Long productoId,
+                                                             int cantidad, String precio, int cantidadNueva) {
+        return RegistroIdempotencia.builder()
+                .clave(clave)
+                .tipoMovimiento(tipo)
+                .productoId(productoId)
+                .cantidad(cantidad)
+                .precioUnitario(new BigDecimal(precio))
+                .cantidadNueva(cantidadNueva)
+                .build();
+    }
+
+    private static MovimientoLoteItemRequest linea(Long productoId, String tipo, int cantidad) {
+        return MovimientoLoteItemRequest.builder()
+                .productoId(productoId)
+                .tipoMovimiento(tipo)
+                .cantidad(cantidad)
+                .precioUnitario(new BigDecimal("1000"))
+                .build();
+    }
+
+    private static ProductoResumenDto producto(Long productoId, String nombre, String precio) {
+        return ProductoResumenDto.builder()
+                .id(productoId)
+                .nombre(nombre)
+                .precio(new BigDecimal(precio))
+                .activo(true)
+                .build();
+    }
+
+    private static ResponseEntity<ApiResponse<ProductoResumenDto>> productoOk(Long productoId, String nombre,
+                                                                              String precio) {
+        return ResponseEntity.ok(ApiResponse.<ProductoResumenDto>builder()
+                .data(producto(productoId, nombre, precio))
+                .code(HttpStatus.OK.value())
+                .message("ok")
+                .build());
+    }
+
+    private static ResponseEntity<ApiResponse<List<ProductoResumenDto>>> productosOk(ProductoResumenDto... productos) {
+        return ResponseEntity.ok(ApiResponse.<List<ProductoResumenDto>>builder()
+                .data(List.of(productos))
+                .code(HttpStatus.OK.value())
+                .message("success")
+                .build());
+    }
+
+    private static ResumenDiaDto resumenDia(LocalDate dia, long cantidadIngresos, String valorIngresos,
+                                            long cantidadSalidas, String valorSalidas, long movimientos) {
+        return ResumenDiaDto.builder()
+                .dia(dia)
+                .cantidadIngresos(cantidadIngresos)
+                .valorIngresos(new BigDecimal(valorIngresos))
+                .cantidadSalidas(cantidadSalidas)
+                .valorSalidas(new BigDecimal(valorSalidas))
+                .movimientos(movimientos)
+                .build();
+    }
+}
@@ -0,0 +1,201 @@
+package com.ms.producto_ms.service.impl;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.dto.response.ReservaResponse;
+import com.ms.producto_ms.entity.InventarioSaldoEntity;
+import com.ms.producto_ms.exception.CustomException;
+import com.ms.producto_ms.repository.InventarioRepository;
+import com.ms.producto_ms.repository.InventarioReservaRepository;
+import com.ms.producto_ms.repository.InventarioReservaRepository.Reserva;
+import com.ms.producto_ms.repository.InventarioSaldoRepository;
+import com.ms.producto_ms.service.InventarioInterface;
+import com.ms.producto_ms.util.eventos.InventarioCambiadoEvent;
+import com.ms.producto_ms.util.reservas.RuedaReservas;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservaServiceTest {
+
+    @Mock
+    private InventarioRepository inventarioRepository;
+
+    @Mock
+    private InventarioSaldoRepository saldoRepository;
+
+    @Mock
+    private InventarioReservaRepository reservaRepository;
+
+    @Mock
+    private InventarioInterface inventarioInterface;
+
+    @Mock
+    private RuedaReservas ruedaReservas;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ReservaService reservaService;
+
+    @BeforeEach
+    void setUp() {
+        reservaService = new ReservaService(inventarioRepository, saldoRepository, reservaRepository,
+                inventarioInterface, ruedaReservas, new AppProperties(), eventPublisher);
+    }
+
+    @Test
+    @DisplayName("reservar - con el lock tomado retiene la cantidad y programa el vencimiento")
+    void reservarHappyPath() throws CustomException {
+        when(saldoRepository.findById(1L)).thenReturn(Optional.of(saldo(1L, 10, 3)));
+        when(reservaRepository.ajustarReservados(Map.of(1L, 4))).thenReturn(List.of(
+                new InventarioReservaRepository.Disponibilidad(1L, 10, 7, new BigDecimal("1000"))));
+
+        ReservaResponse reserva = reservaService.reservar(1L, 4, 120);
+
+        assertEquals(1L, reserva.getProductoId());
+        assertEquals(4, reserva.getCantidad());
+        assertEquals(3, reserva.getCantidadLibre()); // 10 - 3 - 4
+        assertNotNull(reserva.getReservaId());
+
+        InOrder orden = inOrder(inventarioRepository, saldoRepository, reservaRepository, ruedaReservas);
+        orden.verify(inventarioRepository).bloquearProducto(1L);
+        orden.verify(saldoRepository).findById(1L);
+        ArgumentCaptor<Reserva> insertada = ArgumentCaptor.forClass(Reserva.class);
+        orden.verify(reservaRepository).insertar(insertada.capture(), any());
+        orden.verify(reservaRepository).ajustarReservados(Map.of(1L, 4));
+        orden.verify(ruedaReservas).programar(reserva.getReservaId(), 1L, reserva.getExpiraEn());
+
+        // Los listeners ven el saldo sin cambios y lo retenido, es decir 3 disponibles
+        ArgumentCaptor<InventarioCambiadoEvent> evento = ArgumentCaptor.forClass(InventarioCambiadoEvent.class);
+        verify(eventPublisher).publishEvent(evento.capture());
+        assertEquals("RESERVA", evento.getValue().getTipoMovimiento());
+        assertEquals(10, evento.getValue().getCantidadNueva());
+        assertEquals(4, evento.getValue().getCantidadMovimiento());
+        assertEquals(7, evento.getValue().getCantidadReservada());
+
+        Duration ttl = Duration.between(LocalDateTime.now(), insertada.getValue().expiraEn());
+        assertTrue(ttl.compareTo(Duration.ofSeconds(110)) > 0 && ttl.compareTo(Duration.ofSeconds(120)) <= 0);
+    }
+
+    @Test
+    @DisplayName("reservar - sin cantidad libre suficiente lanza BAD_REQUEST sin retener nada")
+    void reservarSinCantidadLibre() {
+        when(saldoRepository.findById(1L)).thenReturn(Optional.of(saldo(1L, 10, 8)));
+
+        CustomException ex = assertThrows(CustomException.class, () -> reservaService.reservar(1L, 3, null));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatus());
+        verify(reservaRepository, never()).insertar(any(), any());
+        verify(reservaRepository, never()).ajustarReservados(any());
+        verifyNoInteractions(ruedaReservas, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("reservar - una vigencia mayor al máximo lanza BAD_REQUEST")
+    void reservarVigenciaExcesiva() {
+        CustomException ex = assertThrows(CustomException.class, () -> reservaService.reservar(1L, 1, 7200));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatus());
+        verifyNoInteractions(inventarioRepository, reservaRepository);
+    }
+
+    @Test
+    @DisplayName("confirmarReserva - elimina la reserva, devuelve lo retenido y registra la SALIDA")
+    void confirmarHappyPath() throws CustomException {
+        UUID id = UUID.randomUUID();
+        Reserva reserva = new Reserva(id, 1L, 4, LocalDateTime.now().plusMinutes(5));
+        BigDecimal precio = new BigDecimal("2000");
+        when(reservaRepository.buscar(id)).thenReturn(Optional.of(reserva));
+        when(reservaRepository.eliminarVigente(eq(id), any())).thenReturn(Optional.of(reserva));
+        when(inventarioInterface.retirarCantidad(1L, 4, precio, null)).thenReturn(6);
+
+        assertEquals(6, reservaService.confirmarReserva(id, precio));
+
+        InOrder orden = inOrder(inventarioRepository, reservaRepository, inventarioInterface, ruedaReservas);
+        orden.verify(inventarioRepository).bloquearProducto(1L);
+        orden.verify(reservaRepository).eliminarVigente(eq(id), any());
+        orden.verify(reservaRepository).ajustarReservados(Map.of(1L, -4));
+        orden.verify(inventarioInterface).retirarCantidad(1L, 4, precio, null);
+        orden.verify(ruedaReservas).cancelar(id);
+    }
+
+    @Test
+    @DisplayName("confirmarReserva - si venció mientras tanto lanza NOT_FOUND sin registrar la SALIDA")
+    void confirmarVencida() throws CustomException {
+        UUID id = UUID.randomUUID();
+        when(reservaRepository.buscar(id)).thenReturn(Optional.of(
+                new Reserva(id, 1L, 4, LocalDateTime.now().plusSeconds(1))));
+        when(reservaRepository.eliminarVigente(eq(id), any())).thenReturn(Optional.empty());
+
+        CustomException ex = assertThrows(CustomException.class,
+                () -> reservaService.confirmarReserva(id, new BigDecimal("2000")));
+
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatus());
+        verify(reservaRepository, never()).ajustarReservados(any());
+        verify(inventarioInterface, never()).retirarCantidad(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("consultarReserva - una reserva vencida pendiente de liberar responde NOT_FOUND")
+    void consultarVencida() {
+        UUID id = UUID.randomUUID();
+        when(reservaRepository.buscar(id)).thenReturn(Optional.of(
+                new Reserva(id, 1L, 4, LocalDateTime.now().minusSeconds(1))));
+
+        CustomException ex = assertThrows(CustomException.class, () -> reservaService.consultarReserva(id));
+
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatus());
+    }
+
+    @Test
+    @DisplayName("liberarReserva - devuelve las unidades y cancela el vencimiento")
+    void liberarHappyPath() throws CustomException {
+        UUID id = UUID.randomUUID();
+        Reserva reserva = new Reserva(id, 1L, 4, LocalDateTime.now().plusMinutes(5));
+        when(reservaRepository.buscar(id)).thenReturn(Optional.of(reserva));
+        when(reservaRepository.eliminar(id)).thenReturn(Optional.of(reserva));
+        when(reservaRepository.ajustarReservados(Map.of(1L, -4))).thenReturn(List.of(
+                new InventarioReservaRepository.Disponibilidad(1L, 10, 2, new BigDecimal("1000"))));
+
+        ReservaResponse liberada = reservaService.liberarReserva(id);
+
+        assertEquals(8, liberada.getCantidadLibre());
+        ArgumentCaptor<InventarioCambiadoEvent> evento = ArgumentCaptor.forClass(InventarioCambiadoEvent.class);
+        verify(eventPublisher).publishEvent(evento.capture());
+        assertEquals(-4, evento.getValue().getCantidadMovimiento());
+        assertEquals(2, evento.getValue().getCantidadReservada());
+        InOrder orden = inOrder(inventarioRepository, reservaRepository, ruedaReservas);
+        orden.verify(inventarioRepository).bloquearProducto(1L);
+        orden.verify(reservaRepository).eliminar(id);
+        orden.verify(reservaRepository).ajustarReservados(Map.of(1L, -4));
+        orden.verify(ruedaReservas).cancelar(id);
+    }
+
+    private static InventarioSaldoEntity saldo(Long productoId, int saldo, int reservado) {
+        return InventarioSaldoEntity.builder()
+                .productoId(productoId)
+                .saldo(saldo)
+                .reservado(reservado)
+                .ultimoPrecioUnitario(new BigDecimal("1000"))
+                .build();
+    }
+}
@@ -0,0 +1,300 @@
+package com.ms.producto_ms.util.cache;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.dto.response.ProductoResumenDto;
+import com.ms.producto_ms.exception.CustomException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductosCacheTest {
+
+    private final AtomicLong reloj = new AtomicLong();
+    private final AtomicInteger cargas = new AtomicInteger();
+    private MeterRegistry meterRegistry;
+    private ProductosCache cache;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties.ProductosCacheDto config = new AppProperties.ProductosCacheDto();
+        config.setTtl(Duration.ofSeconds(60));
+        config.setTamanoMaximo(2);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ProductosCache(config, meterRegistry, reloj::get);
+    }
+
+    @Test
+    @DisplayName("obtener - la segunda consulta es un acierto y no vuelve a cargar")
+    void obtenerAcierto() throws CustomException {
+        cache.obtener(1L, this::cargar);
+        ProductoResumenDto producto = cache.obtener(1L, this::cargar);
+
+        assertEquals("Producto 1", producto.getNombre());
+        assertEquals(1, cargas.get());
+        assertEquals(1.0, contador("hit"));
+        assertEquals(1.0, contador("miss"));
+    }
+
+    @Test
+    @DisplayName("obtener - una entrada vencida se vuelve a cargar")
+    void obtenerVencido() throws CustomException {
+        cache.obtener(1L, this::cargar);
+        reloj.addAndGet(Duration.ofSeconds(61).toNanos());
+        cache.obtener(1L, this::cargar);
+
+        assertEquals(2, cargas.get());
+        assertEquals(1.0, meterRegistry.get("cache.evictions").counter().count());
+    }
+
+    @Test
+    @DisplayName("obtener - al superar el tamaño máximo se descarta el menos usado")
+    void obtenerDesalojaMenosUsado() throws CustomException {
+        cache.obtener(1L, this::cargar);
+        cache.obtener(2L, this::cargar);
+        cache.obtener(1L, this::cargar);   // 2 pasa a ser el menos usado
+        cache.obtener(3L, this::cargar);
+
+        assertEquals(2, cache.tamano());
+        cache.obtener(1L, this::cargar);
+        assertEquals(3, cargas.get());
+        cache.obtener(2L, this::cargar);
+        assertEquals(4, cargas.get());
+    }
+
+    @Test
+    @DisplayName("obtener - con tamaño grande desaloja por lotes los menos usados y respeta el máximo")
+    void obtenerDesalojaPorLotes() throws CustomException {
+        AppProperties.ProductosCacheDto config = new AppProperties.ProductosCacheDto();
+        config.setTtl(Duration.ofSeconds(60));
+        config.setTamanoMaximo(100);
+        ProductosCache grande = new ProductosCache(config, new SimpleMeterRegistry(), reloj::get);
+
+        for (long id = 1; id <= 100; id++) {
+            grande.obtener(id, this::cargar);
+        }
+        grande.obtener(1L, this::cargar);   // 1 pasa a ser de los más usados
+        grande.obtener(101L, this::cargar);
+
+        // Baja al 95% del máximo: se van los seis menos usados (2 a 7), no el recién leído
+        assertEquals(95, grande.tamano());
+        assertEquals(101, cargas.get());
+        grande.obtener(1L, this::cargar);
+        grande.obtener(101L, this::cargar);
+        assertEquals(101, cargas.get());
+        grande.obtener(2L, this::cargar);
+        assertEquals(102, cargas.get());
+    }
+
+    @Test
+    @DisplayName("obtener - los errores no se guardan en cache")
+    void obtenerErrorNoSeGuarda() {
+        ProductosCache.Cargador falla = id -> {
+            cargas.incrementAndGet();
+            throw new CustomException("Producto no encontrado en el microservicio de productos", HttpStatus.NOT_FOUND);
+        };
+
+        assertThrows(CustomException.class, () -> cache.obtener(1L, falla));
+        assertThrows(CustomException.class, () -> cache.obtener(1L, falla));
+
+        assertEquals(2, cargas.get());
+        assertEquals(0, cache.tamano());
+    }
+
+    @Test
+    @DisplayName("obtener - ante una avalancha solo hay una carga en curso por producto")
+    void obtenerUnaSolaCargaConcurrente() throws Exception {
+        CountDownLatch cargaIniciada = new CountDownLatch(1);
+        CountDownLatch liberarCarga = new CountDownLatch(1);
+        ProductosCache.Cargador lento = id -> {
+            cargaIniciada.countDown();
+            try {
+                liberarCarga.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return cargar(id);
+        };
+
+        int hilos = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<ProductoResumenDto>> resultados = new ArrayList<>();
+            resultados.add(executor.submit(() -> cache.obtener(7L, lento)));
+            assertTrue(cargaIniciada.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < hilos; i++) {
+                resultados.add(executor.submit(() -> cache.obtener(7L, lento)));
+            }
+            liberarCarga.countDown();
+
+            for (Future<ProductoResumenDto> resultado : resultados) {
+                assertEquals(7L, resultado.get(5, TimeUnit.SECONDS).getId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, cargas.get());
+    }
+
+    @Test
+    @DisplayName("obtener - quien espera la carga de otro hilo cuenta como miss, no como hit")
+    void obtenerEsperaCuentaComoFallo() throws Exception {
+        CountDownLatch cargaIniciada = new CountDownLatch(1);
+        CountDownLatch liberarCarga = new CountDownLatch(1);
+        ProductosCache.Cargador lento = id -> {
+            cargaIniciada.countDown();
+            await(liberarCarga);
+            return cargar(id);
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<ProductoResumenDto> primero = executor.submit(() -> cache.obtener(7L, lento));
+            assertTrue(cargaIniciada.await(5, TimeUnit.SECONDS));
+            Future<ProductoResumenDto> segundo = executor.submit(() -> cache.obtener(7L, lento));
+            esperarContador("miss", 2.0);
+            liberarCarga.countDown();
+
+            assertEquals(7L, primero.get(5, TimeUnit.SECONDS).getId());
+            assertEquals(7L, segundo.get(5, TimeUnit.SECONDS).getId());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, cargas.get());
+        assertEquals(0.0, contador("hit"));
+        assertEquals(2.0, contador("miss"));
+    }
+
+    @Test
+    @DisplayName("obtener - un Error del cargador también llega a quien esperaba la carga")
+    void obtenerErrorDelCargadorNoDejaEsperando() throws Exception {
+        CountDownLatch cargaIniciada = new CountDownLatch(1);
+        CountDownLatch liberarCarga = new CountDownLatch(1);
+        ProductosCache.Cargador roto = id -> {
+            cargaIniciada.countDown();
+            await(liberarCarga);
+            throw new StackOverflowError("fallo del cargador");
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<ProductoResumenDto> primero = executor.submit(() -> cache.obtener(7L, roto));
+            assertTrue(cargaIniciada.await(5, TimeUnit.SECONDS));
+            Future<ProductoResumenDto> segundo = executor.submit(() -> cache.obtener(7L, roto));
+            esperarContador("miss", 2.0);
+            liberarCarga.countDown();
+
+            ExecutionException cargo = assertThrows(ExecutionException.class, () -> primero.get(5, TimeUnit.SECONDS));
+            ExecutionException espero = assertThrows(ExecutionException.class, () -> segundo.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(StackOverflowError.class, cargo.getCause());
+            assertInstanceOf(StackOverflowError.class, espero.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // La carga fallida no queda registrada: la siguiente consulta vuelve a cargar
+        assertEquals(7L, cache.obtener(7L, this::cargar).getId());
+        assertEquals(1, cache.tamano());
+    }
+
+    @Test
+    @DisplayName("obtenerVarios - carga juntos solo los productos que no están en cache")
+    void obtenerVariosCargaSoloFaltantes() throws CustomException {
+        cache.obtener(1L, this::cargar);
+        List<Collection<Long>> llamadas = new ArrayList<>();
+        ProductosCache.CargadorVarios lote = ids -> {
+            llamadas.add(List.copyOf(ids));
+            Map<Long, ProductoResumenDto> productos = new LinkedHashMap<>();
+            ids.stream().filter(id -> id != 9L).forEach(id -> productos.put(id, cargar(id)));
+            return productos;
+        };
+
+        Map<Long, ProductoResumenDto> productos = cache.obtenerVarios(List.of(1L, 2L, 9L), lote);
+
+        assertEquals(List.of(List.of(2L, 9L)), llamadas);
+        assertEquals(2, productos.size());
+        assertFalse(productos.containsKey(9L));
+        assertEquals(1.0, contador("hit"));
+    }
+
+    @Test
+    @DisplayName("obtenerUltimoConocido - sirve la entrada vencida mientras no supere la obsolescencia máxima")
+    void obtenerUltimoConocido() throws CustomException {
+        cache.obtener(1L, this::cargar);
+        assertNull(cache.obtenerUltimoConocido(2L));
+
+        reloj.addAndGet(Duration.ofSeconds(61).toNanos());
+        assertEquals("Producto 1", cache.obtenerUltimoConocido(1L).getNombre());
+        assertEquals(Map.of(1L, cache.obtenerUltimoConocido(1L)), cache.obtenerUltimosConocidos(List.of(1L, 2L)));
+
+        reloj.addAndGet(Duration.ofHours(1).toNanos());
+        assertNull(cache.obtenerUltimoConocido(1L));
+        assertEquals(3.0, meterRegistry.get("cache.respaldos").counter().count());
+    }
+
+    @Test
+    @DisplayName("invalidar y limpiar - descartan entradas de la cache")
+    void invalidarYLimpiar() throws CustomException {
+        cache.obtener(1L, this::cargar);
+        cache.obtener(2L, this::cargar);
+
+        assertTrue(cache.invalidar(1L));
+        assertFalse(cache.invalidar(1L));
+        assertEquals(1, cache.limpiar());
+        assertEquals(0, cache.tamano());
+    }
+
+    @Test
+    @DisplayName("obtener - deshabilitada siempre consulta productos")
+    void obtenerDeshabilitada() throws CustomException {
+        AppProperties.ProductosCacheDto config = new AppProperties.ProductosCacheDto();
+        config.setHabilitado(false);
+        ProductosCache deshabilitada = new ProductosCache(config, new SimpleMeterRegistry(), reloj::get);
+
+        deshabilitada.obtener(1L, this::cargar);
+        deshabilitada.obtener(1L, this::cargar);
+
+        assertEquals(2, cargas.get());
+    }
+
+    private ProductoResumenDto cargar(Long productoId) {
+        cargas.incrementAndGet();
+        return ProductoResumenDto.builder().id(productoId).nombre("Producto " + productoId).build();
+    }
+
+    private double contador(String resultado) {
+        return meterRegistry.get("cache.gets").tag("result", resultado).counter().count();
+    }
+
+    private void esperarContador(String resultado, double valor) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5_000;
+        while (contador(resultado) < valor && System.currentTimeMillis() < limite) {
+            Thread.sleep(5);
+        }
+        assertEquals(valor, contador(resultado));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
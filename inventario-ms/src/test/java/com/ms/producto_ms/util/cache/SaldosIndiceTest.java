@@ -0,0 +1,170 @@
+package com.ms.producto_ms.util.cache;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.util.eventos.InventarioCambiadoEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaldosIndiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SaldosIndice indice;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties.SaldosIndiceDto config = new AppProperties.SaldosIndiceDto();
+        config.setCapacidadInicial(16);
+        meterRegistry = new SimpleMeterRegistry();
+        indice = new SaldosIndice(config, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("carga - el índice solo queda disponible al terminar la carga completa")
+    void cargaCompleta() {
+        SaldosIndice.Carga carga = indice.iniciarCarga();
+        carga.agregar(1L, 10, 0, new BigDecimal("1500.00"));
+        carga.agregar(2L, 0, 0, null);
+        assertFalse(indice.disponible());
+
+        assertEquals(2, carga.terminar());
+
+        assertTrue(indice.disponible());
+        assertEquals(new SaldosIndice.Saldo(10, 0, new BigDecimal("1500.00")), indice.buscar(1L));
+        assertEquals(new SaldosIndice.Saldo(0, 0, null), indice.buscar(2L));
+        assertNull(indice.buscar(3L));
+        assertEquals(1.0, meterRegistry.get("inventario.saldos_indice.disponible").gauge().value());
+    }
+
+    @Test
+    @DisplayName("eventos - los cambios recibidos durante la carga prevalecen sobre el recorrido")
+    void eventosDuranteLaCarga() {
+        SaldosIndice.Carga carga = indice.iniciarCarga();
+        carga.agregar(1L, 10, 0, new BigDecimal("1500"));
+        indice.onInventarioCambiado(List.of(evento(1L, 14, "1600")));
+        carga.terminar();
+
+        indice.onInventarioCambiado(List.of(evento(2L, 5, "700"), evento(2L, 3, "750")));
+
+        assertEquals(new SaldosIndice.Saldo(14, 0, new BigDecimal("1600.00")), indice.buscar(1L));
+        assertEquals(new SaldosIndice.Saldo(3, 0, new BigDecimal("750.00")), indice.buscar(2L));
+    }
+
+    @Test
+    @DisplayName("reservado - lo disponible descuenta lo reservado y un movimiento sin reservado lo conserva")
+    void disponibleDescuentaReservado() {
+        indice.iniciarCarga().terminar();
+        indice.actualizar(1L, 10, 0, new BigDecimal("1500"));
+
+        indice.onInventarioCambiado(List.of(InventarioCambiadoEvent.builder()
+                .productoId(1L)
+                .tipoMovimiento("RESERVA")
+                .cantidadAnterior(10)
+                .cantidadMovimiento(4)
+                .cantidadNueva(10)
+                .cantidadReservada(4)
+                .precioUnitario(new BigDecimal("1500"))
+                .build()));
+        assertEquals(new SaldosIndice.Saldo(10, 4, new BigDecimal("1500.00")), indice.buscar(1L));
+        assertEquals(6, indice.buscar(1L).disponible());
+
+        indice.onInventarioCambiado(List.of(evento(1L, 12, "1500")));
+        assertEquals(8, indice.buscar(1L).disponible());
+    }
+
+    @Test
+    @DisplayName("precio - se guarda con la escala de la columna, redondeando igual que Postgres")
+    void precioConEscala() {
+        indice.actualizar(1L, 1, 0, new BigDecimal("10.005"));
+        indice.actualizar(2L, 1, 0, new BigDecimal("99"));
+
+        assertEquals(new BigDecimal("10.01"), indice.buscar(1L).ultimoPrecioUnitario());
+        assertEquals(new BigDecimal("99.00"), indice.buscar(2L).ultimoPrecioUnitario());
+    }
+
+    @Test
+    @DisplayName("crecimiento - la tabla se duplica sin perder entradas")
+    void crecimiento() {
+        SaldosIndice.Carga carga = indice.iniciarCarga();
+        for (long id = 1; id <= 10_000; id++) {
+            carga.agregar(id * 7919, (int) id, 0, BigDecimal.valueOf(id));
+        }
+        carga.terminar();
+
+        assertEquals(10_000, indice.tamano());
+        for (long id = 1; id <= 10_000; id++) {
+            assertEquals((int) id, indice.buscar(id * 7919).cantidad());
+        }
+        // Ocupación máxima 3/4: 10.000 productos caben en 16.384 celdas
+        assertEquals(16_384L * (Long.BYTES + Integer.BYTES + Integer.BYTES + Long.BYTES), indice.bytes());
+    }
+
+    @Test
+    @DisplayName("reiniciar - descarta el contenido y deja el índice no disponible")
+    void reiniciar() {
+        indice.iniciarCarga().terminar();
+        indice.actualizar(1L, 4, 0, BigDecimal.ONE);
+
+        indice.reiniciar();
+
+        assertFalse(indice.disponible());
+        assertNull(indice.buscar(1L));
+        assertEquals(0, indice.tamano());
+    }
+
+    @Test
+    @DisplayName("concurrencia - las lecturas optimistas nunca ven un saldo a medio escribir")
+    void lecturasConcurrentes() throws Exception {
+        indice.iniciarCarga().terminar();
+        AtomicBoolean escribiendo = new AtomicBoolean(true);
+        ExecutorService lectores = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futuros = new Future<?>[4];
+            for (int i = 0; i < futuros.length; i++) {
+                futuros[i] = lectores.submit(() -> {
+                    while (escribiendo.get()) {
+                        SaldosIndice.Saldo saldo = indice.buscar(1L);
+                        // Cada escritura guarda el precio igual a la cantidad
+                        if (saldo != null && saldo.ultimoPrecioUnitario().intValue() != saldo.cantidad()) {
+                            throw new AssertionError("lectura inconsistente: " + saldo);
+                        }
+                    }
+                });
+            }
+            // Crecimientos y reemplazos mientras se lee
+            for (int n = 1; n <= 50_000; n++) {
+                indice.actualizar(1L, n, 0, BigDecimal.valueOf(n));
+                indice.actualizar(n + 1L, n, 0, BigDecimal.valueOf(n));
+            }
+            escribiendo.set(false);
+            for (Future<?> futuro : futuros) {
+                futuro.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            lectores.shutdownNow();
+        }
+        assertEquals(50_000, indice.buscar(1L).cantidad());
+    }
+
+    private static InventarioCambiadoEvent evento(Long productoId, int cantidadNueva, String precio) {
+        return InventarioCambiadoEvent.builder()
+                .productoId(productoId)
+                .tipoMovimiento("INGRESO")
+                .cantidadAnterior(0)
+                .cantidadMovimiento(cantidadNueva)
+                .cantidadNueva(cantidadNueva)
+                .precioUnitario(new BigDecimal(precio))
+                .build();
+    }
+}
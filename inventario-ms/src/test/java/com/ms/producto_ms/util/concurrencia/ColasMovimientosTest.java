@@ -0,0 +1,220 @@
+package com.ms.producto_ms.util.concurrencia;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.enmun.TipoMovimientoEmun;
+import com.ms.producto_ms.exception.CustomException;
+import com.ms.producto_ms.service.InventarioInterface;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ColasMovimientosTest {
+
+    private static final BigDecimal PRECIO = new BigDecimal("1000");
+
+    @Mock
+    private InventarioInterface inventarioInterface;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService pool;
+    private ColasMovimientos colas;
+    /** Plazo de las peticiones que empiezan ahora. */
+    private volatile long plazoNanos = TimeUnit.SECONDS.toNanos(5);
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        pool = Executors.newFixedThreadPool(8);
+        AppProperties.AgrupacionDto config = new AppProperties.AgrupacionDto();
+        config.setMaxGrupo(5);
+        colas = new ColasMovimientos(inventarioInterface, this::limite, config, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("registrar - sin contención confirma un grupo de un movimiento y suelta la cola")
+    void sinContencion() throws CustomException {
+        when(inventarioInterface.registrarGrupo(eq(1L), anyList())).thenReturn(List.of(ResultadoAgrupado.aplicado(12)));
+
+        assertEquals(12, colas.registrar(1L, TipoMovimientoEmun.INGRESO, 2, PRECIO, "clave-1"));
+
+        verify(inventarioInterface).registrarGrupo(1L,
+                List.of(new MovimientoAgrupado(TipoMovimientoEmun.INGRESO, 2, PRECIO, "clave-1")));
+        assertEquals(0, colas.colasActivas());
+        assertEquals(1.0, meterRegistry.get("inventario.movimientos.grupo").summary().mean());
+    }
+
+    @Test
+    @DisplayName("registrar - lo que llega mientras se confirma un grupo sale junto en el siguiente")
+    void agrupaLosQueEsperan() throws Exception {
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        List<Integer> tamanos = new CopyOnWriteArrayList<>();
+        when(inventarioInterface.registrarGrupo(eq(1L), anyList())).thenAnswer(inv -> {
+            List<MovimientoAgrupado> grupo = inv.getArgument(1);
+            tamanos.add(grupo.size());
+            if (tamanos.size() == 1) {
+                enCurso.countDown();
+                assertTrue(liberar.await(5, TimeUnit.SECONDS));
+            }
+            // Cada movimiento responde su cantidad; la salida de 99 se rechaza sola
+            return grupo.stream().map(m -> m.cantidad() == 99
+                    ? ResultadoAgrupado.rechazado(new CustomException("No hay inventario suficiente para este producto",
+                    HttpStatus.BAD_REQUEST))
+                    : ResultadoAgrupado.aplicado(m.cantidad())).toList();
+        });
+
+        Future<Integer> primero = pool.submit(() -> colas.registrar(1L, TipoMovimientoEmun.SALIDA, 1, PRECIO, null));
+        assertTrue(enCurso.await(5, TimeUnit.SECONDS));
+
+        List<Future<Integer>> siguientes = new ArrayList<>();
+        for (int cantidad : new int[]{2, 3, 99, 4}) {
+            siguientes.add(pool.submit(() -> colas.registrar(1L, TipoMovimientoEmun.SALIDA, cantidad, PRECIO, null)));
+        }
+        esperarEnCola(1L, 4);
+        liberar.countDown();
+
+        assertEquals(1, primero.get(5, TimeUnit.SECONDS));
+        assertEquals(2, siguientes.get(0).get(5, TimeUnit.SECONDS));
+        assertEquals(3, siguientes.get(1).get(5, TimeUnit.SECONDS));
+        ExecutionException rechazo = assertThrows(ExecutionException.class,
+                () -> siguientes.get(2).get(5, TimeUnit.SECONDS));
+        assertEquals(HttpStatus.BAD_REQUEST, ((CustomException) rechazo.getCause()).getStatus());
+        assertEquals(4, siguientes.get(3).get(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of(1, 4), tamanos);
+        assertEquals(0, colas.colasActivas());
+    }
+
+    @Test
+    @DisplayName("registrar - un grupo no supera app.agrupacion.max-grupo")
+    void respetaMaxGrupo() throws Exception {
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        List<Integer> tamanos = new CopyOnWriteArrayList<>();
+        when(inventarioInterface.registrarGrupo(eq(1L), anyList())).thenAnswer(inv -> {
+            List<MovimientoAgrupado> grupo = inv.getArgument(1);
+            tamanos.add(grupo.size());
+            if (enCurso.getCount() > 0) {
+                enCurso.countDown();
+                assertTrue(liberar.await(5, TimeUnit.SECONDS));
+            }
+            return grupo.stream().map(m -> ResultadoAgrupado.aplicado(0)).toList();
+        });
+
+        List<Future<Integer>> todas = new ArrayList<>();
+        todas.add(pool.submit(() -> colas.registrar(1L, TipoMovimientoEmun.INGRESO, 1, PRECIO, null)));
+        assertTrue(enCurso.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 7; i++) {
+            todas.add(pool.submit(() -> colas.registrar(1L, TipoMovimientoEmun.INGRESO, 1, PRECIO, null)));
+        }
+        esperarEnCola(1L, 7);
+        liberar.countDown();
+        for (Future<Integer> f : todas) {
+            f.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(List.of(1, 5, 2), tamanos);
+    }
+
+    @Test
+    @DisplayName("registrar - agotado el plazo de la petición sale de la cola con SERVICE_UNAVAILABLE")
+    void plazoAgotadoSaleDeLaCola() throws Exception {
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        List<List<Integer>> grupos = new CopyOnWriteArrayList<>();
+        when(inventarioInterface.registrarGrupo(eq(1L), anyList())).thenAnswer(inv -> {
+            List<MovimientoAgrupado> grupo = inv.getArgument(1);
+            grupos.add(grupo.stream().map(MovimientoAgrupado::cantidad).toList());
+            if (enCurso.getCount() > 0) {
+                enCurso.countDown();
+                assertTrue(liberar.await(5, TimeUnit.SECONDS));
+            }
+            return grupo.stream().map(m -> ResultadoAgrupado.aplicado(m.cantidad())).toList();
+        });
+
+        Future<Integer> primero = pool.submit(() -> colas.registrar(1L, TipoMovimientoEmun.INGRESO, 1, PRECIO, null));
+        assertTrue(enCurso.await(5, TimeUnit.SECONDS));
+
+        plazoNanos = TimeUnit.MILLISECONDS.toNanos(100);
+        CustomException ex = assertThrows(CustomException.class,
+                () -> colas.registrar(1L, TipoMovimientoEmun.INGRESO, 2, PRECIO, null));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatus());
+        assertEquals(0, colas.enEspera(1L));
+
+        plazoNanos = TimeUnit.SECONDS.toNanos(5);
+        Future<Integer> tercero = pool.submit(() -> colas.registrar(1L, TipoMovimientoEmun.INGRESO, 3, PRECIO, null));
+        esperarEnCola(1L, 1);
+        liberar.countDown();
+
+        assertEquals(1, primero.get(5, TimeUnit.SECONDS));
+        assertEquals(3, tercero.get(5, TimeUnit.SECONDS));
+        // El movimiento abandonado nunca llegó a un grupo
+        assertEquals(List.of(List.of(1), List.of(3)), grupos);
+        assertEquals(0, colas.colasActivas());
+    }
+
+    @Test
+    @DisplayName("registrar - si falla el grupo, todos sus movimientos reciben el error")
+    void falloDelGrupo() throws CustomException {
+        when(inventarioInterface.registrarGrupo(eq(1L), anyList()))
+                .thenThrow(new CustomException("Producto no encontrado", HttpStatus.NOT_FOUND));
+
+        CustomException ex = assertThrows(CustomException.class,
+                () -> colas.registrar(1L, TipoMovimientoEmun.SALIDA, 1, PRECIO, null));
+
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatus());
+        assertEquals(0, colas.colasActivas());
+    }
+
+    @Test
+    @DisplayName("registrar - deshabilitado va directo al ingreso o la salida individual")
+    void deshabilitado() throws CustomException {
+        AppProperties.AgrupacionDto config = new AppProperties.AgrupacionDto();
+        config.setHabilitado(false);
+        ColasMovimientos directas = new ColasMovimientos(inventarioInterface, this::limite, config, meterRegistry);
+        when(inventarioInterface.retirarCantidad(1L, 2, PRECIO, "clave")).thenReturn(8);
+
+        assertEquals(8, directas.registrar(1L, TipoMovimientoEmun.SALIDA, 2, PRECIO, "clave"));
+
+        verify(inventarioInterface, never()).registrarGrupo(any(), any());
+    }
+
+    private long limite() {
+        return System.nanoTime() + plazoNanos;
+    }
+
+    private void esperarEnCola(Long productoId, int cantidad) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (colas.enEspera(productoId) < cantidad) {
+            assertTrue(System.nanoTime() < limite, "Los movimientos no llegaron a la cola");
+            Thread.sleep(5);
+        }
+    }
+}
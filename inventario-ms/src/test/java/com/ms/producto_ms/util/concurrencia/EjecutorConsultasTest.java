@@ -0,0 +1,116 @@
+package com.ms.producto_ms.util.concurrencia;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.exception.CustomException;
+import com.ms.producto_ms.util.FabricaHilos;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EjecutorConsultasTest {
+
+    private final CountDownLatch liberar = new CountDownLatch(1);
+    private AppProperties properties;
+    private MeterRegistry meterRegistry;
+    private EjecutorConsultas ejecutor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AppProperties();
+        properties.getConsultas().setHilos(1);
+        properties.getConsultas().setCapacidadCola(1);
+        properties.getConsultas().setPlazo(Duration.ofSeconds(2));
+        meterRegistry = new SimpleMeterRegistry();
+        ejecutor = new EjecutorConsultas(properties, meterRegistry, FabricaHilos.plataforma());
+    }
+
+    @AfterEach
+    void tearDown() {
+        liberar.countDown();
+        ejecutor.cerrar();
+    }
+
+    @Test
+    @DisplayName("enviar - la consulta corre en otro hilo")
+    void enviarEnOtroHilo() throws CustomException {
+        String llamador = Thread.currentThread().getName();
+        CompletableFuture<String> futuro = ejecutor.enviar(() -> Thread.currentThread().getName());
+
+        String hilo = ejecutor.esperar(futuro, ejecutor.limite());
+
+        assertNotEquals(llamador, hilo);
+        assertTrue(hilo.startsWith("inventario-consultas-"));
+    }
+
+    @Test
+    @DisplayName("enviar - con el pool lleno la consulta corre en el hilo que la envía")
+    void enviarPoolLleno() throws CustomException {
+        ejecutor.enviar(this::bloquear);   // ocupa el único hilo
+        ejecutor.enviar(this::bloquear);   // ocupa la cola
+
+        String llamador = Thread.currentThread().getName();
+        CompletableFuture<String> futuro = ejecutor.enviar(() -> Thread.currentThread().getName());
+
+        assertTrue(futuro.isDone());
+        assertEquals(llamador, ejecutor.esperar(futuro, ejecutor.limite()));
+        assertEquals(1.0, meterRegistry.get("inventario.consultas.en_llamador").counter().count());
+    }
+
+    @Test
+    @DisplayName("esperar - agotado el plazo lanza SERVICE_UNAVAILABLE")
+    void esperarPlazoAgotado() {
+        CompletableFuture<String> futuro = ejecutor.enviar(this::bloquear);
+
+        CustomException ex = assertThrows(CustomException.class,
+                () -> ejecutor.esperar(futuro, System.nanoTime() + Duration.ofMillis(50).toNanos()));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatus());
+        assertTrue(futuro.isCancelled());
+    }
+
+    @Test
+    @DisplayName("esperar - propaga la CustomException de la consulta")
+    void esperarPropagaError() {
+        CompletableFuture<String> futuro = ejecutor.enviar(() -> {
+            throw new CustomException("Producto no encontrado", HttpStatus.NOT_FOUND);
+        });
+
+        CustomException ex = assertThrows(CustomException.class, () -> ejecutor.esperar(futuro, ejecutor.limite()));
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatus());
+    }
+
+    @Test
+    @DisplayName("concurrente=false - la consulta corre en el hilo que la envía")
+    void noConcurrente() throws CustomException {
+        properties.getConsultas().setConcurrente(false);
+        EjecutorConsultas secuencial = new EjecutorConsultas(properties, new SimpleMeterRegistry(),
+                FabricaHilos.plataforma());
+        try {
+            String llamador = Thread.currentThread().getName();
+            CompletableFuture<String> futuro = secuencial.enviar(() -> Thread.currentThread().getName());
+            assertEquals(llamador, secuencial.esperar(futuro, secuencial.limite()));
+        } finally {
+            secuencial.cerrar();
+        }
+    }
+
+    private String bloquear() {
+        try {
+            liberar.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "liberado";
+    }
+}
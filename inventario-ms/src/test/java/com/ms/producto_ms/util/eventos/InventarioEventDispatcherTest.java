@@ -0,0 +1,259 @@
+package com.ms.producto_ms.util.eventos;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.enmun.PoliticaColaEmun;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventarioEventDispatcherTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private InventarioEventDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("sin iniciar (o asincrono=false) entrega en el mismo hilo")
+    void entregaSincronaSinIniciar() {
+        List<String> hilos = Collections.synchronizedList(new ArrayList<>());
+        dispatcher = dispatcher(new AppProperties(), eventos -> hilos.add(Thread.currentThread().getName()));
+
+        dispatcher.onInventarioCambiado(evento(1L, 1));
+
+        assertEquals(List.of(Thread.currentThread().getName()), hilos);
+    }
+
+    @Test
+    @DisplayName("asíncrono: agrupa los eventos de la cola y respeta el orden por producto")
+    void entregaAsincronaEnLotes() throws InterruptedException {
+        AppProperties properties = new AppProperties();
+        properties.getEventos().setHilos(1);
+        properties.getEventos().setTamanoLote(10);
+
+        CountDownLatch bloqueo = new CountDownLatch(1);
+        CountDownLatch completos = new CountDownLatch(25);
+        List<Integer> lotes = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> orden = Collections.synchronizedList(new ArrayList<>());
+        dispatcher = dispatcher(properties, eventos -> {
+            await(bloqueo);
+            lotes.add(eventos.size());
+            eventos.forEach(e -> {
+                orden.add(e.getCantidadNueva());
+                completos.countDown();
+            });
+        });
+        dispatcher.start();
+
+        for (int i = 1; i <= 25; i++) {
+            dispatcher.onInventarioCambiado(evento(7L, i));
+        }
+        bloqueo.countDown();
+
+        assertTrue(completos.await(5, TimeUnit.SECONDS));
+        assertTrue(lotes.stream().allMatch(tamano -> tamano <= 10));
+        assertTrue(lotes.size() < 25, "los eventos en espera deben entregarse agrupados");
+        List<Integer> esperado = new ArrayList<>();
+        for (int i = 1; i <= 25; i++) {
+            esperado.add(i);
+        }
+        assertEquals(esperado, orden);
+        // El contador se incrementa cuando el listener devuelve el lote, después del latch
+        long limite = System.currentTimeMillis() + 2_000;
+        while (entregados() < 25.0 && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        assertEquals(25.0, entregados());
+    }
+
+    @Test
+    @DisplayName("política DESCARTAR: con la cola llena el evento se descarta y se contabiliza")
+    void politicaDescartar() {
+        AppProperties properties = new AppProperties();
+        properties.getEventos().setHilos(1);
+        properties.getEventos().setCapacidadCola(1);
+        properties.getEventos().setPolitica(PoliticaColaEmun.DESCARTAR);
+
+        CountDownLatch bloqueo = new CountDownLatch(1);
+        CountDownLatch enListener = new CountDownLatch(1);
+        dispatcher = dispatcher(properties, eventos -> {
+            enListener.countDown();
+            await(bloqueo);
+        });
+        dispatcher.start();
+
+        dispatcher.onInventarioCambiado(evento(1L, 1));   // lo toma el hilo y queda bloqueado
+        await(enListener);
+        dispatcher.onInventarioCambiado(evento(1L, 2));   // ocupa la cola
+        dispatcher.onInventarioCambiado(evento(1L, 3));   // cola llena: descartado
+
+        assertEquals(1.0, meterRegistry.get("inventario.eventos.descartados").counter().count());
+        assertEquals(1.0, meterRegistry.get("inventario.eventos.cola").gauge().value());
+        bloqueo.countDown();
+    }
+
+    @Test
+    @DisplayName("política BLOQUEAR: sin espacio tras la espera descarta; nunca entrega en el llamador")
+    void politicaBloquearSinEspacioDescarta() throws InterruptedException {
+        AppProperties properties = new AppProperties();
+        properties.getEventos().setHilos(1);
+        properties.getEventos().setCapacidadCola(2);
+        properties.getEventos().setTiempoMaxBloqueo(Duration.ofMillis(50));
+
+        CountDownLatch bloqueo = new CountDownLatch(1);
+        CountDownLatch enListener = new CountDownLatch(1);
+        CountDownLatch completos = new CountDownLatch(3);
+        List<Integer> orden = Collections.synchronizedList(new ArrayList<>());
+        List<String> hilos = Collections.synchronizedList(new ArrayList<>());
+        dispatcher = dispatcher(properties, eventos -> {
+            enListener.countDown();
+            await(bloqueo);
+            hilos.add(Thread.currentThread().getName());
+            eventos.forEach(e -> {
+                orden.add(e.getCantidadNueva());
+                completos.countDown();
+            });
+        });
+        dispatcher.start();
+
+        dispatcher.onInventarioCambiado(evento(1L, 1));   // lo toma el hilo y queda bloqueado
+        await(enListener);
+        dispatcher.onInventarioCambiado(evento(1L, 2));
+        dispatcher.onInventarioCambiado(evento(1L, 3));   // cola llena
+        dispatcher.onInventarioCambiado(evento(1L, 4));   // espera 50 ms y se descarta
+        bloqueo.countDown();
+
+        assertTrue(completos.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 2, 3), orden);
+        assertFalse(hilos.contains(Thread.currentThread().getName()));
+        assertEquals(1.0, meterRegistry.get("inventario.eventos.descartados").counter().count());
+    }
+
+    @Test
+    @DisplayName("política ESPERAR: con la cola de un producto llena el llamador espera y se respeta el orden por producto")
+    void politicaEsperarRespetaOrdenPorProducto() throws Exception {
+        AppProperties properties = new AppProperties();
+        properties.getEventos().setHilos(2);
+        properties.getEventos().setCapacidadCola(4);   // 2 por cola
+        properties.getEventos().setTamanoLote(1);
+        properties.getEventos().setPolitica(PoliticaColaEmun.ESPERAR);
+
+        CountDownLatch bloqueo = new CountDownLatch(1);
+        CountDownLatch enListener = new CountDownLatch(1);
+        CountDownLatch completos = new CountDownLatch(8);
+        Map<Long, List<Integer>> ordenPorProducto = new ConcurrentHashMap<>();
+        List<String> hilos = Collections.synchronizedList(new ArrayList<>());
+        dispatcher = dispatcher(properties, eventos -> {
+            InventarioCambiadoEvent evento = eventos.get(0);
+            if (evento.getProductoId() == 1L && evento.getCantidadNueva() == 1) {
+                enListener.countDown();
+                await(bloqueo);
+            }
+            hilos.add(Thread.currentThread().getName());
+            ordenPorProducto.computeIfAbsent(evento.getProductoId(), id -> new CopyOnWriteArrayList<>())
+                    .add(evento.getCantidadNueva());
+            completos.countDown();
+        });
+        dispatcher.start();
+
+        ExecutorService llamador = Executors.newSingleThreadExecutor();
+        try {
+            // El producto 1 llena su cola y el llamador queda esperando espacio
+            Future<String> productoUno = llamador.submit(() -> {
+                for (int i = 1; i <= 4; i++) {
+                    dispatcher.onInventarioCambiado(evento(1L, i));
+                    if (i == 1) {
+                        await(enListener);
+                    }
+                }
+                return Thread.currentThread().getName();
+            });
+            // La cola del producto 2 sigue entregando mientras tanto
+            for (int i = 1; i <= 4; i++) {
+                dispatcher.onInventarioCambiado(evento(2L, i));
+            }
+            long limite = System.currentTimeMillis() + 2_000;
+            while (ordenPorProducto.getOrDefault(2L, List.of()).size() < 4 && System.currentTimeMillis() < limite) {
+                Thread.sleep(10);
+            }
+            assertEquals(List.of(1, 2, 3, 4), ordenPorProducto.get(2L));
+            assertFalse(productoUno.isDone(), "el llamador debe esperar espacio en la cola del producto 1");
+
+            bloqueo.countDown();
+            String hiloLlamador = productoUno.get(5, TimeUnit.SECONDS);
+
+            assertTrue(completos.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of(1, 2, 3, 4), ordenPorProducto.get(1L));
+            assertFalse(hilos.contains(hiloLlamador));
+            assertFalse(hilos.contains(Thread.currentThread().getName()));
+            assertEquals(0.0, meterRegistry.get("inventario.eventos.descartados").counter().count());
+        } finally {
+            bloqueo.countDown();
+            llamador.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("el error de un listener no impide la entrega a los demás")
+    void errorEnListenerNoAfectaALosDemas() {
+        List<InventarioCambiadoEvent> recibidos = new ArrayList<>();
+        InventarioCambiadoListener falla = eventos -> {
+            throw new IllegalStateException("fallo");
+        };
+        dispatcher = new InventarioEventDispatcher(List.of(falla, recibidos::addAll), new AppProperties(),
+                meterRegistry);
+
+        dispatcher.onInventarioCambiado(evento(1L, 1));
+
+        assertEquals(1, recibidos.size());
+        assertEquals(1.0, meterRegistry.get("inventario.eventos.errores").counter().count());
+        assertEquals(0.0, entregados());
+    }
+
+    private double entregados() {
+        return meterRegistry.get("inventario.eventos.entregados").counter().count();
+    }
+
+    private InventarioEventDispatcher dispatcher(AppProperties properties, InventarioCambiadoListener listener) {
+        return new InventarioEventDispatcher(List.of(listener), properties, meterRegistry);
+    }
+
+    private static InventarioCambiadoEvent evento(Long productoId, int cantidadNueva) {
+        return InventarioCambiadoEvent.builder()
+                .productoId(productoId)
+                .tipoMovimiento("INGRESO")
+                .cantidadMovimiento(1)
+                .cantidadNueva(cantidadNueva)
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
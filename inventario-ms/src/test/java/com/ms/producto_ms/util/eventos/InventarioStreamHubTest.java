@@ -0,0 +1,132 @@
+package com.ms.producto_ms.util.eventos;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.dto.response.SaldoCambiadoDto;
+import com.ms.producto_ms.exception.CustomException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventarioStreamHubTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private InventarioStreamHub hub;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties properties = new AppProperties();
+        properties.getStream().setMaxConexiones(2);
+        hub = new InventarioStreamHub(properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.cerrarTodo();
+    }
+
+    @Test
+    @DisplayName("suscribir - por encima del máximo de conexiones responde SERVICE_UNAVAILABLE")
+    void suscribirMaximoConexiones() throws CustomException {
+        SseEmitter primero = hub.suscribir(Set.of(1L), List::of);
+        SseEmitter segundo = hub.suscribir(Set.of(), List::of);
+
+        CustomException ex = assertThrows(CustomException.class, () -> hub.suscribir(Set.of(2L), List::of));
+
+        assertNotNull(primero);
+        assertNotNull(segundo);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatus());
+        assertEquals(2, hub.conexionesAbiertas());
+        assertEquals(2.0, meterRegistry.get("inventario.stream.conexiones").gauge().value());
+    }
+
+    @Test
+    @DisplayName("onInventarioCambiado - solo se envían los productos que sigue cada suscriptor")
+    void onInventarioCambiadoFiltraProductos() throws Exception {
+        hub.suscribir(Set.of(1L), () -> List.of(SaldoCambiadoDto.builder().productoId(1L).cantidadDisponible(3).build()));
+
+        hub.onInventarioCambiado(List.of(evento(1L, 4), evento(2L, 9)));
+
+        // saldo inicial + cambio del producto 1; el producto 2 no se sigue
+        long limite = System.currentTimeMillis() + 2_000;
+        while (meterRegistry.get("inventario.stream.enviados").counter().count()
+                + meterRegistry.get("inventario.stream.agrupados").counter().count() < 2
+                && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        double enviados = meterRegistry.get("inventario.stream.enviados").counter().count();
+        double agrupados = meterRegistry.get("inventario.stream.agrupados").counter().count();
+        assertEquals(2.0, enviados + agrupados);
+    }
+
+    @Test
+    @DisplayName("suscribir - un cambio confirmado mientras se lee el saldo inicial no se pierde ni se pisa")
+    void suscribirCambioDuranteLecturaInicial() throws Exception {
+        hub.suscribir(Set.of(1L), () -> {
+            // El movimiento confirma después del registro y antes de que termine la lectura
+            hub.onInventarioCambiado(List.of(evento(1L, 4)));
+            return List.of(SaldoCambiadoDto.builder().productoId(1L).cantidadDisponible(3).build());
+        });
+
+        long limite = System.currentTimeMillis() + 2_000;
+        while (meterRegistry.get("inventario.stream.enviados").counter().count() < 1
+                && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        // Solo el cambio: el saldo inicial, más viejo, no lo reemplaza
+        assertEquals(1.0, meterRegistry.get("inventario.stream.enviados").counter().count());
+        assertEquals(0.0, meterRegistry.get("inventario.stream.agrupados").counter().count());
+    }
+
+    @Test
+    @DisplayName("suscribir - si falla la lectura inicial la conexión no queda contada")
+    void suscribirFallaLecturaInicial() {
+        CustomException ex = assertThrows(CustomException.class, () -> hub.suscribir(Set.of(1L), () -> {
+            throw new CustomException("Fallo comunicación con productos", HttpStatus.SERVICE_UNAVAILABLE);
+        }));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatus());
+        assertEquals(0, hub.conexionesAbiertas());
+    }
+
+    @Test
+    @DisplayName("cambio - lo disponible descuenta lo reservado; sin reservado es el saldo")
+    void cambioDescuentaReservado() {
+        InventarioCambiadoEvent reserva = InventarioCambiadoEvent.builder()
+                .productoId(1L)
+                .tipoMovimiento("RESERVA")
+                .cantidadAnterior(10)
+                .cantidadMovimiento(4)
+                .cantidadNueva(10)
+                .cantidadReservada(6)
+                .build();
+
+        SaldoCambiadoDto conReservas = InventarioStreamHub.cambio(reserva);
+        SaldoCambiadoDto sinReservas = InventarioStreamHub.cambio(evento(2L, 9));
+
+        assertEquals(4, conReservas.getCantidadDisponible());
+        assertEquals(6, conReservas.getCantidadReservada());
+        assertEquals("RESERVA", conReservas.getTipoMovimiento());
+        assertEquals(9, sinReservas.getCantidadDisponible());
+        assertNull(sinReservas.getCantidadReservada());
+    }
+
+    private static InventarioCambiadoEvent evento(Long productoId, int cantidadNueva) {
+        return InventarioCambiadoEvent.builder()
+                .productoId(productoId)
+                .tipoMovimiento("INGRESO")
+                .cantidadMovimiento(1)
+                .cantidadNueva(cantidadNueva)
+                .build();
+    }
+}
@@ -0,0 +1,38 @@
+package com.ms.producto_ms.util.paginacion;
+
+import com.ms.producto_ms.exception.CustomException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorMovimientoTest {
+
+    @Test
+    @DisplayName("codificar/decodificar - conserva fecha con microsegundos e id")
+    void idaYVuelta() throws CustomException {
+        CursorMovimiento cursor = new CursorMovimiento(LocalDateTime.of(2024, 5, 17, 8, 30, 15, 123_456_000), 987L);
+
+        String texto = cursor.codificar();
+
+        assertFalse(texto.contains("="), "sin relleno para usarlo en la URL");
+        assertEquals(cursor, CursorMovimiento.decodificar(texto));
+    }
+
+    @Test
+    @DisplayName("decodificar - un cursor ajeno se rechaza con 400")
+    void cursorInvalido() {
+        String sinSeparador = Base64.getUrlEncoder().encodeToString("2024-01-01T00:00".getBytes(StandardCharsets.UTF_8));
+        String idInvalido = Base64.getUrlEncoder().encodeToString("2024-01-01T00:00|x".getBytes(StandardCharsets.UTF_8));
+
+        for (String cursor : new String[]{"%%%", sinSeparador, idInvalido}) {
+            CustomException ex = assertThrows(CustomException.class, () -> CursorMovimiento.decodificar(cursor));
+            assertEquals(HttpStatus.BAD_REQUEST, ex.getStatus());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.ms.producto_ms.util.reservas;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuedaReservasTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2025, 3, 10, 12, 0, 0);
+
+    private SimpleMeterRegistry meterRegistry;
+    private RuedaReservas rueda;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties.ReservasDto config = new AppProperties.ReservasDto();
+        config.setTick(Duration.ofSeconds(1));
+        config.setRanuras(8);
+        meterRegistry = new SimpleMeterRegistry();
+        rueda = new RuedaReservas(config, meterRegistry, INICIO);
+    }
+
+    @Test
+    @DisplayName("avanzar - una reserva vence en el primer tick posterior a su vencimiento, nunca antes")
+    void venceAlLlegarSuTick() {
+        UUID id = UUID.randomUUID();
+        rueda.programar(id, 7L, INICIO.plusSeconds(3).plusNanos(500_000_000));
+
+        assertTrue(rueda.avanzar(INICIO.plusSeconds(3)).isEmpty());
+
+        assertEquals(List.of(new RuedaReservas.Vencida(id, 7L)), rueda.avanzar(INICIO.plusSeconds(4)));
+        assertTrue(rueda.avanzar(INICIO.plusSeconds(20)).isEmpty());
+        assertEquals(0, rueda.tamano());
+    }
+
+    @Test
+    @DisplayName("avanzar - las reservas más largas que una vuelta esperan sus vueltas completas")
+    void reservaDeVariasVueltas() {
+        UUID corta = UUID.randomUUID();
+        UUID larga = UUID.randomUUID();
+        // Misma ranura (8 ranuras de 1 s), una y tres vueltas después
+        rueda.programar(corta, 1L, INICIO.plusSeconds(5));
+        rueda.programar(larga, 2L, INICIO.plusSeconds(21));
+
+        assertEquals(List.of(new RuedaReservas.Vencida(corta, 1L)), rueda.avanzar(INICIO.plusSeconds(5)));
+        assertTrue(rueda.avanzar(INICIO.plusSeconds(20)).isEmpty());
+        assertEquals(List.of(new RuedaReservas.Vencida(larga, 2L)), rueda.avanzar(INICIO.plusSeconds(21)));
+    }
+
+    @Test
+    @DisplayName("cancelar - una reserva cancelada no vence y sale de la métrica")
+    void cancelada() {
+        UUID id = UUID.randomUUID();
+        rueda.programar(id, 1L, INICIO.plusSeconds(2));
+        assertEquals(1.0, meterRegistry.get("inventario.reservas.rueda.pendientes").gauge().value());
+
+        assertTrue(rueda.cancelar(id));
+        assertFalse(rueda.cancelar(id));
+
+        assertTrue(rueda.avanzar(INICIO.plusSeconds(10)).isEmpty());
+        assertEquals(0.0, meterRegistry.get("inventario.reservas.rueda.pendientes").gauge().value());
+    }
+
+    @Test
+    @DisplayName("programar - una reserva ya vencida sale en el siguiente avance")
+    void yaVencida() {
+        UUID id = UUID.randomUUID();
+        rueda.avanzar(INICIO.plusSeconds(10));
+
+        rueda.programar(id, 3L, INICIO.plusSeconds(4));
+
+        assertEquals(List.of(new RuedaReservas.Vencida(id, 3L)), rueda.avanzar(INICIO.plusSeconds(11)));
+    }
+
+    @Test
+    @DisplayName("avanzar - tras una pausa larga vencen todas las reservas atrasadas")
+    void pausaLarga() {
+        for (int i = 1; i <= 100; i++) {
+            rueda.programar(UUID.randomUUID(), i, INICIO.plusSeconds(i));
+        }
+
+        assertEquals(40, rueda.avanzar(INICIO.plusSeconds(40)).size());
+        assertEquals(60, rueda.avanzar(INICIO.plusMinutes(10)).size());
+        assertEquals(0, rueda.tamano());
+    }
+
+    @Test
+    @DisplayName("programar - con el vencimiento deshabilitado no guarda nada")
+    void deshabilitada() {
+        AppProperties.ReservasDto config = new AppProperties.ReservasDto();
+        config.setHabilitado(false);
+        RuedaReservas apagada = new RuedaReservas(config, new SimpleMeterRegistry(), INICIO);
+
+        apagada.programar(UUID.randomUUID(), 1L, INICIO.plusSeconds(1));
+
+        assertEquals(0, apagada.tamano());
+        assertTrue(apagada.avanzar(INICIO.plusMinutes(1)).isEmpty());
+    }
+}
@@ -0,0 +1,192 @@
+package com.ms.producto_ms.util.resiliencia;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.enmun.EstadoCircuitoEmun;
+import com.ms.producto_ms.exception.CustomException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductosCircuitoTest {
+
+    private final AtomicLong reloj = new AtomicLong();
+    private final AtomicInteger llamadas = new AtomicInteger();
+    private AppProperties.ProductosCircuitoDto config;
+    private MeterRegistry meterRegistry;
+    private ProductosCircuito circuito;
+
+    @BeforeEach
+    void setUp() {
+        config = new AppProperties.ProductosCircuitoDto();
+        config.setVentana(4);
+        config.setMinimoLlamadas(4);
+        config.setUmbralFallos(50);
+        config.setUmbralLentitud(Duration.ofSeconds(2));
+        config.setEsperaAbierto(Duration.ofSeconds(30));
+        config.setLlamadasSemiAbierto(2);
+        config.setMaxConcurrentes(1);
+        config.setEsperaCupo(Duration.ZERO);
+        meterRegistry = new SimpleMeterRegistry();
+        circuito = new ProductosCircuito(config, meterRegistry, reloj::get);
+    }
+
+    @Test
+    @DisplayName("se abre al alcanzar el umbral de fallos y rechaza sin llamar")
+    void abreConFallos() throws CustomException {
+        circuito.ejecutar(this::exito);
+        circuito.ejecutar(this::exito);
+        fallar();
+        assertEquals(EstadoCircuitoEmun.CERRADO, circuito.getEstado());
+        fallar();
+        assertEquals(EstadoCircuitoEmun.ABIERTO, circuito.getEstado());
+
+        CustomException ex = assertThrows(CustomException.class, () -> circuito.ejecutar(this::exito));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatus());
+        assertEquals(4, llamadas.get());
+        assertEquals(1.0, rechazos("circuito"));
+    }
+
+    @Test
+    @DisplayName("los 4xx de productos cuentan como éxito")
+    void noCuentaErroresDeCliente() {
+        for (int i = 0; i < 4; i++) {
+            assertThrows(CustomException.class, () -> circuito.ejecutar(() -> {
+                llamadas.incrementAndGet();
+                throw new CustomException("Producto no encontrado", HttpStatus.NOT_FOUND);
+            }));
+        }
+        assertEquals(EstadoCircuitoEmun.CERRADO, circuito.getEstado());
+    }
+
+    @Test
+    @DisplayName("las llamadas lentas cuentan como fallo")
+    void cuentaLlamadasLentas() throws CustomException {
+        for (int i = 0; i < 4; i++) {
+            circuito.ejecutar(() -> {
+                reloj.addAndGet(Duration.ofSeconds(3).toNanos());
+                return exito();
+            });
+        }
+        assertEquals(EstadoCircuitoEmun.ABIERTO, circuito.getEstado());
+    }
+
+    @Test
+    @DisplayName("vencida la espera deja pasar pruebas y se cierra si todas salen bien")
+    void semiAbiertoCierra() throws CustomException {
+        abrir();
+        reloj.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        circuito.ejecutar(this::exito);
+        assertEquals(EstadoCircuitoEmun.SEMI_ABIERTO, circuito.getEstado());
+        circuito.ejecutar(this::exito);
+        assertEquals(EstadoCircuitoEmun.CERRADO, circuito.getEstado());
+    }
+
+    @Test
+    @DisplayName("una prueba fallida en semi abierto vuelve a abrir el circuito")
+    void semiAbiertoReabre() {
+        abrir();
+        reloj.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        fallar();
+        assertEquals(EstadoCircuitoEmun.ABIERTO, circuito.getEstado());
+        assertThrows(CustomException.class, () -> circuito.ejecutar(this::exito));
+    }
+
+    @Test
+    @DisplayName("un Error en una prueba semi abierta cuenta como fallo y no deja la prueba tomada")
+    void semiAbiertoErrorReabre() throws CustomException {
+        abrir();
+        reloj.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        assertThrows(OutOfMemoryError.class, () -> circuito.ejecutar(() -> {
+            throw new OutOfMemoryError("sin memoria");
+        }));
+
+        assertEquals(EstadoCircuitoEmun.ABIERTO, circuito.getEstado());
+        assertEquals(0, circuito.llamadasEnCurso());
+        reloj.addAndGet(Duration.ofSeconds(30).toNanos());
+        circuito.ejecutar(this::exito);
+        circuito.ejecutar(this::exito);
+        assertEquals(EstadoCircuitoEmun.CERRADO, circuito.getEstado());
+    }
+
+    @Test
+    @DisplayName("sin cupo la llamada se rechaza en lugar de esperar")
+    void rechazaSinCupo() throws Exception {
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> circuito.ejecutar(() -> {
+                enCurso.countDown();
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return exito();
+            }));
+            assertTrue(enCurso.await(5, TimeUnit.SECONDS));
+
+            CustomException ex = assertThrows(CustomException.class, () -> circuito.ejecutar(this::exito));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatus());
+            assertEquals(1.0, rechazos("concurrencia"));
+            assertEquals(1, circuito.llamadasEnCurso());
+        } finally {
+            liberar.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+        assertEquals(0, circuito.llamadasEnCurso());
+    }
+
+    @Test
+    @DisplayName("deshabilitado no rechaza llamadas")
+    void deshabilitado() throws CustomException {
+        config.setHabilitado(false);
+        ProductosCircuito deshabilitado = new ProductosCircuito(config, new SimpleMeterRegistry(), reloj::get);
+        for (int i = 0; i < 6; i++) {
+            assertThrows(CustomException.class, () -> deshabilitado.ejecutar(() -> {
+                throw new CustomException("Fallo comunicación con productos", HttpStatus.SERVICE_UNAVAILABLE);
+            }));
+        }
+        assertEquals("ok", deshabilitado.ejecutar(this::exito));
+    }
+
+    private void abrir() {
+        for (int i = 0; i < 4; i++) {
+            fallar();
+        }
+        assertEquals(EstadoCircuitoEmun.ABIERTO, circuito.getEstado());
+    }
+
+    private void fallar() {
+        assertThrows(CustomException.class, () -> circuito.ejecutar(() -> {
+            llamadas.incrementAndGet();
+            throw new CustomException("Fallo comunicación con productos", HttpStatus.SERVICE_UNAVAILABLE);
+        }));
+    }
+
+    private String exito() {
+        llamadas.incrementAndGet();
+        return "ok";
+    }
+
+    private double rechazos(String motivo) {
+        return meterRegistry.get("productos.circuito.rechazos").tag("motivo", motivo).counter().count();
+    }
+}
@@ -0,0 +1,167 @@
+package com.ms.producto_ms.util.tareas;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.entity.CheckpointEjecucionEntity;
+import com.ms.producto_ms.repository.CheckpointEjecucionRepository;
+import com.ms.producto_ms.repository.InventarioCheckpointRepository;
+import com.ms.producto_ms.repository.InventarioSaldoRepository;
+import com.ms.producto_ms.util.FabricaHilos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CheckpointJobTest {
+
+    @Mock
+    private InventarioCheckpointRepository checkpointRepository;
+
+    @Mock
+    private CheckpointEjecucionRepository ejecucionRepository;
+
+    @Mock
+    private InventarioSaldoRepository saldoRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private AppProperties properties;
+    private CheckpointJob job;
+    /** Copia del estado de cada ejecución guardada, como quedó en la base de datos. */
+    private final List<CheckpointEjecucionEntity> guardadas = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        properties = new AppProperties();
+        properties.getCheckpoints().setTamanoLote(2);
+        properties.getCheckpoints().setHilos(2);
+        job = new CheckpointJob(checkpointRepository, ejecucionRepository, saldoRepository, transactionTemplate,
+                properties, FabricaHilos.plataforma());
+
+        lenient().doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().when(ejecucionRepository.save(any(CheckpointEjecucionEntity.class))).thenAnswer(inv -> {
+            CheckpointEjecucionEntity ejecucion = inv.getArgument(0);
+            guardadas.add(copia(ejecucion));
+            return ejecucion;
+        });
+    }
+
+    @Test
+    @DisplayName("procesar - tras una caída retoma desde el último lote confirmado con el mismo corte")
+    void procesarRetomaTrasCaida() throws Exception {
+        when(ejecucionRepository.findFirstByEstadoOrderByIdDesc(CheckpointEjecucionEntity.EN_CURSO))
+                .thenReturn(Optional.empty());
+        when(checkpointRepository.calcularCorte(any())).thenReturn(100L);
+        when(ejecucionRepository.findFirstByOrderByIdDesc()).thenReturn(Optional.empty());
+        when(saldoRepository.count()).thenReturn(5L);
+        when(checkpointRepository.siguienteLoteProductos(0L, 2)).thenReturn(List.of(1L, 2L));
+        when(checkpointRepository.siguienteLoteProductos(2L, 2)).thenReturn(List.of(3L, 4L));
+        when(checkpointRepository.avanzarCheckpoint(anyLong(), eq(100L))).thenAnswer(inv -> {
+            if (inv.<Long>getArgument(0) == 4L) {
+                throw new IllegalStateException("caída");
+            }
+            return 1;
+        });
+
+        assertThrows(ExecutionException.class, () -> job.procesar());
+
+        // Solo quedó confirmado el primer lote
+        CheckpointEjecucionEntity ultima = guardadas.get(guardadas.size() - 1);
+        assertEquals(CheckpointEjecucionEntity.EN_CURSO, ultima.getEstado());
+        assertEquals(2L, ultima.getUltimoProductoId());
+        assertEquals(2L, ultima.getProductosProcesados());
+
+        // Siguiente corrida: encuentra la ejecución en curso y sigue desde el producto 2
+        reset(checkpointRepository);
+        when(ejecucionRepository.findFirstByEstadoOrderByIdDesc(CheckpointEjecucionEntity.EN_CURSO))
+                .thenReturn(Optional.of(copia(ultima)));
+        when(checkpointRepository.siguienteLoteProductos(2L, 2)).thenReturn(List.of(3L, 4L));
+        when(checkpointRepository.siguienteLoteProductos(4L, 2)).thenReturn(List.of(5L));
+        when(checkpointRepository.siguienteLoteProductos(5L, 2)).thenReturn(List.of());
+
+        job.procesar();
+
+        verify(checkpointRepository, never()).calcularCorte(any());
+        verify(checkpointRepository, never()).avanzarCheckpoint(eq(1L), anyLong());
+        verify(checkpointRepository, never()).avanzarCheckpoint(eq(2L), anyLong());
+        verify(checkpointRepository).avanzarCheckpoint(3L, 100L);
+        verify(checkpointRepository).avanzarCheckpoint(4L, 100L);
+        verify(checkpointRepository).avanzarCheckpoint(5L, 100L);
+
+        CheckpointEjecucionEntity completa = guardadas.get(guardadas.size() - 1);
+        assertEquals(CheckpointEjecucionEntity.COMPLETADA, completa.getEstado());
+        assertEquals(100L, completa.getCorteMovimientoId());
+        assertEquals(5L, completa.getProductosProcesados());
+        assertNotNull(completa.getFechaFin());
+    }
+
+    @Test
+    @DisplayName("procesar - el corte deja fuera los movimientos dentro del margen")
+    void procesarCorteConMargen() throws Exception {
+        properties.getCheckpoints().setMargenCorte(Duration.ofMinutes(5));
+        when(ejecucionRepository.findFirstByEstadoOrderByIdDesc(CheckpointEjecucionEntity.EN_CURSO))
+                .thenReturn(Optional.empty());
+        when(checkpointRepository.calcularCorte(any())).thenReturn(100L);
+        when(ejecucionRepository.findFirstByOrderByIdDesc()).thenReturn(Optional.empty());
+        when(checkpointRepository.siguienteLoteProductos(0L, 2)).thenReturn(List.of());
+
+        LocalDateTime antes = LocalDateTime.now();
+        job.procesar();
+        LocalDateTime despues = LocalDateTime.now();
+
+        ArgumentCaptor<LocalDateTime> limite = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(checkpointRepository).calcularCorte(limite.capture());
+        assertFalse(limite.getValue().isBefore(antes.minusMinutes(5)));
+        assertFalse(limite.getValue().isAfter(despues.minusMinutes(5)));
+        assertEquals(100L, guardadas.get(0).getCorteMovimientoId());
+    }
+
+    @Test
+    @DisplayName("procesar - sin movimientos nuevos fuera del margen no inicia otra ejecución")
+    void procesarSinMovimientosNuevos() throws Exception {
+        when(ejecucionRepository.findFirstByEstadoOrderByIdDesc(CheckpointEjecucionEntity.EN_CURSO))
+                .thenReturn(Optional.empty());
+        when(checkpointRepository.calcularCorte(any())).thenReturn(100L);
+        when(ejecucionRepository.findFirstByOrderByIdDesc()).thenReturn(Optional.of(
+                CheckpointEjecucionEntity.builder().corteMovimientoId(100L).build()));
+
+        job.procesar();
+
+        verify(ejecucionRepository, never()).save(any());
+        verify(checkpointRepository, never()).siguienteLoteProductos(anyLong(), anyInt());
+    }
+
+    private static CheckpointEjecucionEntity copia(CheckpointEjecucionEntity ejecucion) {
+        return CheckpointEjecucionEntity.builder()
+                .id(ejecucion.getId())
+                .corteMovimientoId(ejecucion.getCorteMovimientoId())
+                .ultimoProductoId(ejecucion.getUltimoProductoId())
+                .productosProcesados(ejecucion.getProductosProcesados())
+                .totalProductos(ejecucion.getTotalProductos())
+                .estado(ejecucion.getEstado())
+                .fechaInicio(ejecucion.getFechaInicio())
+                .fechaFin(ejecucion.getFechaFin())
+                .build();
+    }
+}
@@ -0,0 +1,110 @@
+package com.ms.producto_ms.util.tareas;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.repository.InventarioOutboxRepository;
+import com.ms.producto_ms.util.eventos.EventoOutbox;
+import com.ms.producto_ms.util.eventos.InventarioCambiadoEvent;
+import com.ms.producto_ms.util.eventos.InventarioOutboxHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private InventarioOutboxRepository outboxRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private InventarioOutboxHandler handler;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties properties = new AppProperties();
+        properties.getOutbox().setTamanoLote(2);
+        relay = new OutboxRelay(outboxRepository, List.of(handler), transactionTemplate, properties, meterRegistry);
+
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                inv.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+    }
+
+    @Test
+    @DisplayName("relevar - entrega y marca lotes hasta encontrar uno incompleto")
+    void relevarEntregaYMarca() throws Exception {
+        when(outboxRepository.reclamarPendientes(2))
+                .thenReturn(List.of(evento(1L), evento(2L)))
+                .thenReturn(List.of(evento(3L)));
+
+        relay.relevar();
+
+        verify(handler, times(2)).manejar(anyList());
+        verify(outboxRepository).marcarEnviados(eq(List.of(1L, 2L)), any());
+        verify(outboxRepository).marcarEnviados(eq(List.of(3L)), any());
+        assertEquals(3.0, meterRegistry.get("inventario.outbox.enviados").counter().count());
+    }
+
+    @Test
+    @DisplayName("relevar - si un handler falla el lote no se marca y queda pendiente")
+    void relevarHandlerFalla() throws Exception {
+        when(outboxRepository.reclamarPendientes(2)).thenReturn(List.of(evento(1L)));
+        doThrow(new IllegalStateException("destino caído")).when(handler).manejar(anyList());
+
+        relay.relevar();
+
+        verify(outboxRepository, never()).marcarEnviados(any(), any());
+        assertEquals(1.0, meterRegistry.get("inventario.outbox.fallos").counter().count());
+    }
+
+    @Test
+    @DisplayName("relevar - sin handlers registrados no reclama ni marca eventos como enviados")
+    void relevarSinHandlers() {
+        AppProperties properties = new AppProperties();
+        OutboxRelay sinHandlers = new OutboxRelay(outboxRepository, List.of(), transactionTemplate, properties,
+                meterRegistry);
+
+        sinHandlers.relevar();
+
+        assertEquals(0, sinHandlers.relevarLote(2));
+        verifyNoInteractions(outboxRepository, transactionTemplate);
+        assertEquals(0.0, meterRegistry.get("inventario.outbox.enviados").counter().count());
+    }
+
+    @Test
+    @DisplayName("limpiar - borra enviados en tramos hasta terminar")
+    void limpiarEnTramos() {
+        when(outboxRepository.eliminarEnviados(any(), anyInt())).thenReturn(5_000, 10);
+
+        relay.limpiar();
+
+        verify(outboxRepository, times(2)).eliminarEnviados(any(), eq(5_000));
+    }
+
+    private static EventoOutbox evento(Long id) {
+        return new EventoOutbox(id, InventarioCambiadoEvent.builder()
+                .productoId(1L)
+                .tipoMovimiento("INGRESO")
+                .cantidadAnterior(0)
+                .cantidadMovimiento(1)
+                .cantidadNueva(1)
+                .build());
+    }
+}
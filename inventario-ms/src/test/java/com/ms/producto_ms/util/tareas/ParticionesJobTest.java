@@ -0,0 +1,107 @@
+package com.ms.producto_ms.util.tareas;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.repository.InventarioParticionRepository;
+import com.ms.producto_ms.repository.InventarioParticionRepository.Particion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ParticionesJobTest {
+
+    @Mock
+    private InventarioParticionRepository particionRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private AppProperties properties;
+    private ParticionesJob job;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AppProperties();
+        properties.getParticiones().setMesesAdelante(2);
+        job = new ParticionesJob(particionRepository, transactionTemplate, properties);
+
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                inv.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+    }
+
+    @Test
+    @DisplayName("crearAdelantadas - continúa desde el límite de la última partición hasta los meses configurados")
+    void crearDesdeElUltimoLimite() {
+        YearMonth actual = YearMonth.now();
+        when(particionRepository.bloquearMantenimiento()).thenReturn(true);
+        when(particionRepository.listar()).thenReturn(List.of(
+                new Particion("inventarios_legado", null, inicio(actual), false),
+                new Particion(InventarioParticionRepository.nombre(actual), inicio(actual), inicio(actual.plusMonths(1)),
+                        false)));
+
+        job.crearAdelantadas();
+
+        verify(particionRepository).crearParticion(actual.plusMonths(1));
+        verify(particionRepository).crearParticion(actual.plusMonths(2));
+        verify(particionRepository, times(2)).crearParticion(any());
+    }
+
+    @Test
+    @DisplayName("crearAdelantadas - sin el lock de mantenimiento no crea nada")
+    void otraReplicaMantiene() {
+        when(particionRepository.bloquearMantenimiento()).thenReturn(false);
+
+        job.crearAdelantadas();
+
+        verify(particionRepository, never()).listar();
+        verify(particionRepository, never()).crearParticion(any());
+    }
+
+    @Test
+    @DisplayName("desprenderVencidas - desprende las de más de la retención y finaliza las pendientes")
+    void desprenderVencidas() {
+        properties.getParticiones().setRetencionMeses(6);
+        YearMonth actual = YearMonth.now();
+        YearMonth vieja = actual.minusMonths(7);
+        YearMonth limite = actual.minusMonths(6);
+        when(particionRepository.listar()).thenReturn(List.of(
+                new Particion("inventarios_legado", null, inicio(vieja), false),
+                new Particion(InventarioParticionRepository.nombre(vieja), inicio(vieja), inicio(limite), false),
+                new Particion(InventarioParticionRepository.nombre(limite), inicio(limite),
+                        inicio(limite.plusMonths(1)), true),
+                new Particion(InventarioParticionRepository.nombre(actual), inicio(actual),
+                        inicio(actual.plusMonths(1)), false)));
+
+        job.desprenderVencidas();
+
+        verify(particionRepository).desprender("inventarios_legado", false);
+        verify(particionRepository).desprender(InventarioParticionRepository.nombre(vieja), false);
+        verify(particionRepository).desprender(InventarioParticionRepository.nombre(limite), true);
+        verify(particionRepository, never()).desprender(eq(InventarioParticionRepository.nombre(actual)), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("desprenderVencidas - con retención 0 no desprende nada")
+    void sinRetencion() {
+        job.desprenderVencidas();
+
+        verifyNoInteractions(particionRepository);
+    }
+
+    private static LocalDateTime inicio(YearMonth mes) {
+        return mes.atDay(1).atStartOfDay();
+    }
+}
@@ -0,0 +1,132 @@
+package com.ms.producto_ms.util.tareas;
+
+import com.ms.producto_ms.config.pojo.AppProperties;
+import com.ms.producto_ms.repository.InventarioJdbcRepository;
+import com.ms.producto_ms.repository.InventarioReservaRepository;
+import com.ms.producto_ms.repository.InventarioReservaRepository.Disponibilidad;
+import com.ms.producto_ms.repository.InventarioReservaRepository.Reserva;
+import com.ms.producto_ms.util.eventos.InventarioCambiadoEvent;
+import com.ms.producto_ms.util.reservas.RuedaReservas;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservasJobTest {
+
+    private static final LocalDateTime AHORA = LocalDateTime.of(2025, 3, 10, 12, 0, 0);
+
+    @Mock
+    private RuedaReservas ruedaReservas;
+
+    @Mock
+    private InventarioReservaRepository reservaRepository;
+
+    @Mock
+    private InventarioJdbcRepository inventarioJdbcRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private AppProperties properties;
+    private ReservasJob job;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AppProperties();
+        properties.getReservas().setTamanoLote(2);
+        job = new ReservasJob(ruedaReservas, reservaRepository, inventarioJdbcRepository, transactionTemplate,
+                properties, eventPublisher);
+
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                inv.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+    }
+
+    @Test
+    @DisplayName("liberar - bloquea los productos en orden y descuenta solo las reservas que eliminó")
+    void liberarDescuentaLasEliminadas() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID c = UUID.randomUUID();
+        // c ya fue confirmada: no vuelve del DELETE y no se descuenta
+        when(reservaRepository.eliminarVencidas(List.of(a, b, c), AHORA)).thenReturn(List.of(
+                new Reserva(a, 9L, 2, AHORA), new Reserva(b, 9L, 3, AHORA)));
+        when(reservaRepository.ajustarReservados(Map.of(9L, -5))).thenReturn(List.of(
+                new Disponibilidad(9L, 20, 1, new BigDecimal("500"))));
+
+        int liberadas = job.liberar(List.of(
+                new RuedaReservas.Vencida(a, 9L),
+                new RuedaReservas.Vencida(b, 9L),
+                new RuedaReservas.Vencida(c, 4L)), AHORA);
+
+        assertEquals(2, liberadas);
+        InOrder orden = inOrder(inventarioJdbcRepository, reservaRepository);
+        orden.verify(inventarioJdbcRepository).bloquearProductos(argThat(ids -> List.copyOf(ids).equals(List.of(4L, 9L))));
+        orden.verify(reservaRepository).eliminarVencidas(anyCollection(), eq(AHORA));
+        orden.verify(reservaRepository).ajustarReservados(Map.of(9L, -5));
+
+        ArgumentCaptor<InventarioCambiadoEvent> evento = ArgumentCaptor.forClass(InventarioCambiadoEvent.class);
+        verify(eventPublisher).publishEvent(evento.capture());
+        assertEquals(9L, evento.getValue().getProductoId());
+        assertEquals(-5, evento.getValue().getCantidadMovimiento());
+        assertEquals(1, evento.getValue().getCantidadReservada());
+    }
+
+    @Test
+    @DisplayName("vencer - libera lo que entrega la rueda en lotes del tamaño configurado")
+    void vencerPorLotes() {
+        when(ruedaReservas.avanzar(any())).thenReturn(List.of(
+                new RuedaReservas.Vencida(UUID.randomUUID(), 1L),
+                new RuedaReservas.Vencida(UUID.randomUUID(), 2L),
+                new RuedaReservas.Vencida(UUID.randomUUID(), 3L)));
+
+        job.vencer();
+
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(reservaRepository, times(2)).eliminarVencidas(anyCollection(), any());
+        verify(reservaRepository, never()).siguientesVencidas(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("barrer - recorre el índice de vencimiento hasta una página incompleta")
+    void barrerHastaPaginaIncompleta() {
+        Reserva r1 = new Reserva(UUID.randomUUID(), 1L, 1, AHORA);
+        Reserva r2 = new Reserva(UUID.randomUUID(), 2L, 1, AHORA);
+        Reserva r3 = new Reserva(UUID.randomUUID(), 1L, 4, AHORA);
+        when(reservaRepository.siguientesVencidas(any(), eq(2)))
+                .thenReturn(List.of(r1, r2))
+                .thenReturn(List.of(r3));
+        when(reservaRepository.eliminarVencidas(anyCollection(), any()))
+                .thenReturn(List.of(r1, r2))
+                .thenReturn(List.of(r3));
+
+        job.barrer();
+
+        verify(reservaRepository, times(2)).siguientesVencidas(any(), eq(2));
+        verify(reservaRepository).ajustarReservados(Map.of(1L, -1, 2L, -1));
+        verify(reservaRepository).ajustarReservados(Map.of(1L, -4));
+        verifyNoInteractions(ruedaReservas);
+    }
+}
@@ -0,0 +1,116 @@
+package com.ms.producto_ms.util.valoracion;
+
+import com.ms.producto_ms.PostgresContainerConfig;
+import com.ms.producto_ms.enmun.TipoMovimientoEmun;
+import com.ms.producto_ms.entity.InventarioEntity;
+import com.ms.producto_ms.repository.InventarioJdbcRepository;
+import com.ms.producto_ms.repository.InventarioValoracionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifica sobre un Postgres real que la valoración mantenida movimiento a movimiento coincide
+ * con la que se reconstruye desde el libro.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PostgresContainerConfig.class, InventarioJdbcRepository.class, InventarioValoracionRepository.class,
+        MotorValoracion.class})
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MotorValoracionTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InventarioJdbcRepository inventarioJdbcRepository;
+
+    @Autowired
+    private InventarioValoracionRepository valoracionRepository;
+
+    @Autowired
+    private MotorValoracion motorValoracion;
+
+    @BeforeEach
+    void limpiar() {
+        jdbcTemplate.execute("TRUNCATE inventarios, inventario_valoracion, inventario_capas_costo");
+    }
+
+    @Test
+    @DisplayName("aplicar y reconstruir dejan la misma valoración y las mismas capas pendientes")
+    void aplicarCoincideConReconstruir() {
+        LocalDateTime fecha = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<InventarioEntity> movimientos = new ArrayList<>();
+        // Más capas que las que se leen por consulta, para que la salida pida varias páginas
+        for (int i = 0; i < MotorValoracion.CAPAS_POR_LECTURA + 50; i++) {
+            movimientos.add(movimiento(1L, "INGRESO", 2, BigDecimal.valueOf(100 + i), fecha.plusMinutes(i)));
+        }
+        movimientos.add(movimiento(1L, "SALIDA", 250, new BigDecimal("500.00"), fecha.plusDays(1)));
+        movimientos.add(movimiento(2L, "INGRESO", 3, new BigDecimal("10.00"), fecha));
+        movimientos.add(movimiento(2L, "SALIDA", 1, new BigDecimal("15.00"), fecha.plusHours(1)));
+        inventarioJdbcRepository.insertarMovimientos(movimientos);
+
+        // En vivo: cada movimiento en su propia aplicación, como una transacción por petición
+        for (InventarioEntity m : movimientos) {
+            motorValoracion.aplicar(List.of(m));
+        }
+        Map<Long, Valoracion> enVivo = valoracionRepository.buscar(List.of(1L, 2L));
+        List<Map<String, Object>> capasEnVivo = capas();
+
+        motorValoracion.reconstruir(List.of(1L, 2L), 50);
+        Map<Long, Valoracion> reconstruida = valoracionRepository.buscar(List.of(1L, 2L));
+
+        for (Long productoId : List.of(1L, 2L)) {
+            assertEquals(enVivo.get(productoId).getCantidad(), reconstruida.get(productoId).getCantidad());
+            assertEquals(enVivo.get(productoId).getValorPromedio(), reconstruida.get(productoId).getValorPromedio());
+            assertEquals(enVivo.get(productoId).getCostoVentasPromedio(),
+                    reconstruida.get(productoId).getCostoVentasPromedio());
+            assertEquals(enVivo.get(productoId).getValorFifo(), reconstruida.get(productoId).getValorFifo());
+            assertEquals(enVivo.get(productoId).getCostoVentasFifo(), reconstruida.get(productoId).getCostoVentasFifo());
+        }
+        assertEquals(capasEnVivo, capas());
+
+        // 125 capas agotadas: 2 x (100 + ... + 224)
+        assertEquals(50, reconstruida.get(1L).getCantidad());
+        assertEquals(new BigDecimal("40500.0000"), reconstruida.get(1L).getCostoVentasFifo());
+        assertEquals(25, capasEnVivo.stream().filter(c -> ((Number) c.get("producto_id")).longValue() == 1L).count());
+    }
+
+    private List<Map<String, Object>> capas() {
+        return jdbcTemplate.queryForList("""
+                SELECT producto_id, cantidad_restante, costo_unitario
+                  FROM inventario_capas_costo
+                 ORDER BY producto_id, id
+                """);
+    }
+
+    private static InventarioEntity movimiento(Long productoId, String tipo, int cantidad, BigDecimal precio,
+                                               LocalDateTime fecha) {
+        return InventarioEntity.builder()
+                .productoId(productoId)
+                .cantidad(cantidad)
+                .tipoMovimiento(TipoMovimientoEmun.valueOf(tipo))
+                .precioUnitario(precio)
+                .precioTotal(precio.multiply(BigDecimal.valueOf(cantidad)))
+                .fechaMovimiento(fecha)
+                .build();
+    }
+}
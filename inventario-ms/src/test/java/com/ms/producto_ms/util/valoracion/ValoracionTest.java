@@ -0,0 +1,85 @@
+package com.ms.producto_ms.util.valoracion;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValoracionTest {
+
+    private static final LocalDateTime FECHA = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    @Test
+    @DisplayName("promedio y FIFO - una salida cuesta el promedio o las capas más antiguas")
+    void promedioYFifo() {
+        Valoracion valoracion = Valoracion.vacia();
+        Valoracion.EnMemoria capas = Valoracion.Capas.enMemoria();
+
+        valoracion.ingresar(10, new BigDecimal("100.00"), FECHA, capas);
+        valoracion.ingresar(10, new BigDecimal("200.00"), FECHA, capas);
+        assertEquals(new BigDecimal("150.0000"), valoracion.costoPromedio());
+
+        valoracion.retirar(5, capas);
+
+        assertEquals(15, valoracion.getCantidad());
+        assertEquals(new BigDecimal("750.0000"), valoracion.getCostoVentasPromedio());
+        assertEquals(new BigDecimal("2250.0000"), valoracion.getValorPromedio());
+        assertEquals(new BigDecimal("500.0000"), valoracion.getCostoVentasFifo());
+        assertEquals(new BigDecimal("2500.0000"), valoracion.getValorFifo());
+        assertEquals(5, capas.pendientes().peekFirst().getCantidadRestante());
+    }
+
+    @Test
+    @DisplayName("FIFO - una salida puede consumir varias capas y descarta las agotadas")
+    void fifoVariasCapas() {
+        Valoracion valoracion = Valoracion.vacia();
+        Valoracion.EnMemoria capas = Valoracion.Capas.enMemoria();
+        valoracion.ingresar(2, new BigDecimal("10.00"), FECHA, capas);
+        valoracion.ingresar(3, new BigDecimal("20.00"), FECHA, capas);
+        valoracion.ingresar(4, new BigDecimal("30.00"), FECHA, capas);
+
+        valoracion.retirar(6, capas);
+
+        // 2 x 10 + 3 x 20 + 1 x 30
+        assertEquals(new BigDecimal("110.0000"), valoracion.getCostoVentasFifo());
+        assertEquals(new BigDecimal("90.0000"), valoracion.getValorFifo());
+        assertEquals(1, capas.pendientes().size());
+        assertEquals(3, capas.pendientes().peekFirst().getCantidadRestante());
+    }
+
+    @Test
+    @DisplayName("promedio - la salida que agota las existencias se lleva el valor restante sin residuos")
+    void sinResiduoDeRedondeo() {
+        Valoracion valoracion = Valoracion.vacia();
+        Valoracion.EnMemoria capas = Valoracion.Capas.enMemoria();
+        valoracion.ingresar(1, new BigDecimal("1.00"), FECHA, capas);
+        valoracion.ingresar(2, new BigDecimal("1.01"), FECHA, capas);
+
+        valoracion.retirar(1, capas);
+        valoracion.retirar(1, capas);
+        valoracion.retirar(1, capas);
+
+        assertEquals(0, valoracion.getCantidad());
+        assertNull(valoracion.costoPromedio());
+        assertEquals(0, valoracion.getValorPromedio().signum());
+        assertEquals(new BigDecimal("3.0200"), valoracion.getCostoVentasPromedio());
+        assertEquals(0, valoracion.getValorFifo().signum());
+        assertEquals(new BigDecimal("3.0200"), valoracion.getCostoVentasFifo());
+    }
+
+    @Test
+    @DisplayName("FIFO - sin capas suficientes el faltante se costea al promedio")
+    void capasFaltantes() {
+        // Estado previo sin capas, como el de un producto con historia aún no reconstruida
+        Valoracion valoracion = new Valoracion(4, new BigDecimal("400.0000"), BigDecimal.ZERO,
+                new BigDecimal("400.0000"), BigDecimal.ZERO);
+
+        valoracion.retirar(1, Valoracion.Capas.enMemoria());
+
+        assertEquals(new BigDecimal("100.0000"), valoracion.getCostoVentasFifo());
+        assertEquals(new BigDecimal("300.0000"), valoracion.getValorFifo());
+    }
+}
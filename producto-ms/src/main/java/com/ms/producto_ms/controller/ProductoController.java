@@ -2,6 +2,7 @@ package com.ms.producto_ms.controller;
 
 import com.ms.producto_ms.config.OpenApiConfig;
 import com.ms.producto_ms.dto.request.ProductoRequest;
+import com.ms.producto_ms.dto.request.ProductosLoteRequest;
 import com.ms.producto_ms.dto.response.ApiResponse;
 import com.ms.producto_ms.dto.response.ProductoResponse;
 import com.ms.producto_ms.entity.ProductoEntity;
@@ -22,6 +23,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Optional;
 
 
@@ -146,6 +148,51 @@ public class ProductoController extends BaseController {
         return createSuccessResponse(result);
     }
 
+    /**
+     * Obtiene varios productos por sus identificadores en una sola consulta.
+     *
+     * <p>Pensado para otros microservicios que necesitan resolver muchos productos a la vez:
+     * retorna solo los campos livianos (sin imagen). Los identificadores inexistentes no
+     * aparecen en la respuesta. Para listas largas se recomienda la variante POST.
+     *
+     * @param ids identificadores de los productos separados por coma
+     * @return ResponseEntity con la lista de productos encontrados
+     * @throws CustomException si no se indica ningún identificador o se supera el máximo permitido
+     * @since 1.0.0
+     */
+    @Operation(
+            summary = "Obtener productos por lote",
+            description = "Endpoint GET encargado de consultar varios productos con una sola consulta. "
+                    + "Retorna id, nombre, precio y activo, sin imagen."
+    )
+    @GetMapping(value = "/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse> getBatch(
+            @Parameter(description = "Identificadores de los productos separados por coma", required = true,
+                    example = "1,2,3")
+            @RequestParam List<Long> ids) throws CustomException {
+        return createSuccessResponse(productoInterface.getResumenByIds(ids));
+    }
+
+    /**
+     * Variante POST de {@link #getBatch(List)} para listas largas de identificadores.
+     *
+     * @param body objeto con la lista de identificadores
+     * @return ResponseEntity con la lista de productos encontrados
+     * @throws CustomException si no se indica ningún identificador o se supera el máximo permitido
+     * @since 1.0.0
+     */
+    @Operation(
+            summary = "Obtener productos por lote (lista larga)",
+            description = "Endpoint POST equivalente a GET /batch, recibiendo los identificadores en el cuerpo."
+    )
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse> postBatch(
+            @Parameter(description = "Identificadores de los productos a consultar", required = true)
+            @RequestBody @Valid ProductosLoteRequest body) throws CustomException {
+        return createSuccessResponse(productoInterface.getResumenByIds(body.getIds()));
+    }
+
     /**
      * Elimina un producto por su identificador único.
      *
@@ -0,0 +1,25 @@
+package com.ms.producto_ms.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Lista de identificadores para la consulta de productos por lote.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductosLoteRequest {
+    @Schema(description = "Identificadores de los productos a consultar", example = "[1, 2, 3]")
+    @NotEmpty(message = "Debe indicar al menos un producto")
+    @Size(max = 1000, message = "No se pueden consultar más de 1000 productos por solicitud")
+    private List<Long> ids;
+}
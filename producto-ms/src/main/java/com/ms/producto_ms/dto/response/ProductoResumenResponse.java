@@ -0,0 +1,29 @@
+package com.ms.producto_ms.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+/**
+ * Vista liviana de un producto para consultas por lote: solo los campos que otros
+ * microservicios necesitan, sin descripción ni imagen.
+ *
+ * @author Luis Cantillo
+ * @since 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductoResumenResponse {
+    @Schema(description = "Identificador único del producto", example = "101")
+    private Long id;
+
+    @Schema(description = "Nombre del producto", example = "Laptop Lenovo ThinkPad")
+    private String nombre;
+
+    @Schema(description = "Precio del producto en dólares", example = "1200.50")
+    private Double precio;
+
+    @Schema(description = "Indica si el producto está activo o disponible", example = "true")
+    private Boolean activo;
+}
@@ -1,11 +1,17 @@
 package com.ms.producto_ms.repository;
 
+import com.ms.producto_ms.dto.response.ProductoResumenResponse;
 import com.ms.producto_ms.entity.ProductoEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Proporciona operaciones CRUD y consultas personalizadas sobre la tabla "productos".
  * Extiende {@link JpaRepository}, lo que permite acceder a métodos como:
@@ -22,4 +28,15 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface ProductoRepository  extends JpaRepository<ProductoEntity, Long> {
     Page<ProductoEntity> findAll(Pageable pageable);
+
+    /**
+     * Consulta varios productos con un solo {@code WHERE id IN (...)}, proyectando únicamente
+     * los campos livianos (sin descripción ni ruta de imagen).
+     *
+     * @param ids identificadores de los productos.
+     * @return productos encontrados; los ids inexistentes simplemente no aparecen.
+     */
+    @Query("SELECT new com.ms.producto_ms.dto.response.ProductoResumenResponse(p.id, p.nombre, p.precio, p.activo) "
+            + "FROM ProductoEntity p WHERE p.id IN :ids ORDER BY p.id")
+    List<ProductoResumenResponse> findResumenByIdIn(@Param("ids") Collection<Long> ids);
 }
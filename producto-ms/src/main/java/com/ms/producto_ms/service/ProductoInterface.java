@@ -1,11 +1,15 @@
 package com.ms.producto_ms.service;
 
 import com.ms.producto_ms.dto.request.ProductoRequest;
+import com.ms.producto_ms.dto.response.ProductoResumenResponse;
 import com.ms.producto_ms.entity.ProductoEntity;
 import com.ms.producto_ms.exception.CustomException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Interfaz que define las operaciones de negocio relacionadas con la entidad {@link ProductoEntity}.
  * <p>
@@ -78,6 +82,20 @@ public interface ProductoInterface {
      */
     ProductoEntity getById(Long id) throws CustomException;
 
+    /**
+     * Obtiene varios productos por sus identificadores con una sola consulta.
+     *
+     * <p>Devuelve solo los campos livianos ({@code id}, {@code nombre}, {@code precio},
+     * {@code activo}). Los identificadores repetidos o nulos se ignoran y los que no
+     * existen no aparecen en el resultado, de modo que quien consulta puede detectarlos.
+     *
+     * @param ids identificadores de los productos a consultar
+     * @return lista de productos encontrados ordenada por identificador
+     * @throws CustomException si no se indica ningún identificador o se supera el máximo permitido
+     * @since 1.0.0
+     */
+    List<ProductoResumenResponse> getResumenByIds(Collection<Long> ids) throws CustomException;
+
     /**
      * Elimina un producto por su identificador único.
      *
@@ -1,6 +1,7 @@
 package com.ms.producto_ms.service.impl;
 
 import com.ms.producto_ms.dto.request.ProductoRequest;
+import com.ms.producto_ms.dto.response.ProductoResumenResponse;
 import com.ms.producto_ms.enmun.MensajeEmun;
 import com.ms.producto_ms.entity.ProductoEntity;
 import com.ms.producto_ms.exception.CustomException;
@@ -15,7 +16,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
+import java.util.*;
 
 
 /**
@@ -32,6 +33,8 @@ import java.util.Optional;
 @RequiredArgsConstructor
 @Service
 public class ProductoService implements ProductoInterface {
+    static final int MAX_IDS_LOTE = 1000;
+
     private final ProductoRepository productoRepository;
     private final UtilService util;
 
@@ -78,6 +81,22 @@ public class ProductoService implements ProductoInterface {
                 .orElseThrow(() -> new CustomException(MensajeEmun.NOT_FOUND.getMsg(), HttpStatus.BAD_REQUEST));
     }
 
+    @Override
+    public List<ProductoResumenResponse> getResumenByIds(Collection<Long> ids) throws CustomException {
+        Set<Long> unicos = new LinkedHashSet<>();
+        if (ids != null) {
+            ids.stream().filter(Objects::nonNull).forEach(unicos::add);
+        }
+        if (unicos.isEmpty()) {
+            throw new CustomException("Debe indicar al menos un producto", HttpStatus.BAD_REQUEST);
+        }
+        if (unicos.size() > MAX_IDS_LOTE) {
+            throw new CustomException("No se pueden consultar más de " + MAX_IDS_LOTE + " productos por solicitud",
+                    HttpStatus.BAD_REQUEST);
+        }
+        return productoRepository.findResumenByIdIn(unicos);
+    }
+
     @Override
     public void delete(Long id) throws CustomException {
         try {
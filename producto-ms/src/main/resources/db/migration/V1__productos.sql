@@ -0,0 +1,11 @@
+-- Catálogo de productos.
+-- IF NOT EXISTS: en bases existentes la tabla ya fue creada por deploy/init.sql.
+CREATE TABLE IF NOT EXISTS public.productos (
+	id int8 GENERATED BY DEFAULT AS IDENTITY( INCREMENT BY 1 MINVALUE 1 MAXVALUE 9223372036854775807 START 1 CACHE 1 NO CYCLE) NOT NULL,
+	activo bool NOT NULL,
+	descripcion varchar(255) NOT NULL,
+	nombre varchar(255) NOT NULL,
+	precio float8 NOT NULL,
+	imagen_path varchar(350) NULL,
+	CONSTRAINT productos_pkey PRIMARY KEY (id)
+);
@@ -0,0 +1,8 @@
+-- Datos de ejemplo; solo se cargan si el catálogo está vacío.
+INSERT INTO public.productos (activo, descripcion, nombre, precio, imagen_path)
+SELECT v.activo, v.descripcion, v.nombre, v.precio, v.imagen_path
+FROM (VALUES (true, 'productos uno', 'uno', 16000.0, NULL),
+             (true, 'producto dos', 'dos', 16000.0, NULL),
+             (true, 'producto tres', 'tres', 16000.0, NULL),
+             (true, 'caja box', 'caja', 250000.0, NULL)) AS v(activo, descripcion, nombre, precio, imagen_path)
+WHERE NOT EXISTS (SELECT 1 FROM public.productos);
@@ -5,8 +5,10 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import com.ms.producto_ms.dto.request.ProductoRequest;
+import com.ms.producto_ms.dto.request.ProductosLoteRequest;
 import com.ms.producto_ms.dto.response.ApiResponse;
 import com.ms.producto_ms.dto.response.ProductoResponse;
+import com.ms.producto_ms.dto.response.ProductoResumenResponse;
 import com.ms.producto_ms.enmun.MensajeEmun;
 import com.ms.producto_ms.entity.ProductoEntity;
 import com.ms.producto_ms.exception.CustomException;
@@ -304,4 +306,29 @@ class ProductoControllerTest {
         verify(productoInterface, times(1)).updateById(id, request);
         verify(mapper, never()).mapToResponse(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Debe retornar los productos del lote sin consultar imágenes")
+    void getBatchWhenIdsAreValid() throws CustomException {
+        List<ProductoResumenResponse> productos = List.of(new ProductoResumenResponse(1L, "Laptop", 1500.0, true));
+        when(productoInterface.getResumenByIds(List.of(1L, 2L))).thenReturn(productos);
+
+        ResponseEntity<ApiResponse> response = productoController.getBatch(List.of(1L, 2L));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(productos, response.getBody().getData());
+        verifyNoInteractions(utilService, mapper);
+    }
+
+    @Test
+    @DisplayName("Debe delegar la variante POST del lote con los ids del cuerpo")
+    void postBatchWhenIdsAreValid() throws CustomException {
+        ProductosLoteRequest request = ProductosLoteRequest.builder().ids(List.of(5L)).build();
+        when(productoInterface.getResumenByIds(List.of(5L))).thenReturn(List.of());
+
+        ResponseEntity<ApiResponse> response = productoController.postBatch(request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(productoInterface, times(1)).getResumenByIds(List.of(5L));
+    }
+}
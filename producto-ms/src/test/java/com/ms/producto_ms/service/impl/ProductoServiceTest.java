@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import com.ms.producto_ms.dto.request.ProductoRequest;
+import com.ms.producto_ms.dto.response.ProductoResumenResponse;
 import com.ms.producto_ms.enmun.MensajeEmun;
 import com.ms.producto_ms.entity.ProductoEntity;
 import com.ms.producto_ms.exception.CustomException;
@@ -19,9 +20,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
 import java.util.Optional;
 
 @ExtendWith(MockitoExtension.class)
@@ -293,4 +298,32 @@ class ProductoServiceTest {
         verify(productoRepository, times(1)).findById(id);
         verify(productoRepository, never()).save(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Debe consultar varios productos con una sola consulta ignorando repetidos y nulos")
+    void getResumenByIds_ConsultaUnica() throws CustomException {
+        List<ProductoResumenResponse> esperados = List.of(
+                new ProductoResumenResponse(1L, "Laptop", 1500.0, true),
+                new ProductoResumenResponse(3L, "Phone", 800.0, false));
+        when(productoRepository.findResumenByIdIn(Set.of(1L, 2L, 3L))).thenReturn(esperados);
+
+        List<ProductoResumenResponse> result = productoService.getResumenByIds(Arrays.asList(1L, 2L, 3L, 1L, null));
+
+        assertEquals(esperados, result);
+        verify(productoRepository, times(1)).findResumenByIdIn(Set.of(1L, 2L, 3L));
+        verify(productoRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Debe lanzar CustomException BAD_REQUEST sin ids o con demasiados ids")
+    void getResumenByIds_Invalido() {
+        CustomException vacio = assertThrows(CustomException.class, () -> productoService.getResumenByIds(List.of()));
+        assertEquals(HttpStatus.BAD_REQUEST, vacio.getStatus());
+
+        List<Long> muchos = LongStream.rangeClosed(1, ProductoService.MAX_IDS_LOTE + 1).boxed().toList();
+        CustomException excedido = assertThrows(CustomException.class, () -> productoService.getResumenByIds(muchos));
+        assertEquals(HttpStatus.BAD_REQUEST, excedido.getStatus());
+
+        verifyNoInteractions(productoRepository);
+    }
+}